@@ -53,7 +53,7 @@ export default function FinanceLedger({ onNavigate }) {
 
             debugToken(); // Debug token information
 
-            let url = `${API_BASE}/api/finance/ledger?page=${page}&size=${size}&sortBy=transactionDate&sortDir=desc`;
+            let url = `${API_BASE}/api/finance/ledger?page=${page}&size=${size}&sortBy=transactionDate&sortDir=desc&includeTotal=true`;
 
             // Add filters to URL
             const params = new URLSearchParams();
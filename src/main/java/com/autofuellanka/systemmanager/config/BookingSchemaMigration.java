@@ -0,0 +1,171 @@
+package com.autofuellanka.systemmanager.config;
+
+import com.autofuellanka.systemmanager.model.BookingStatus;
+import com.autofuellanka.systemmanager.model.BookingTimes;
+import com.autofuellanka.systemmanager.model.BookingType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One-off migration of the bookings table from free-text columns to typed ones.
+ * <p>
+ * start_time/end_time used to be VARCHAR holding "yyyy-MM-dd HH:mm:ss" or ISO strings, and
+ * status/type any casing. ddl-auto=update adds missing columns and indexes but never changes a
+ * column's type, so on a database created before the switch this backfills every row into the
+ * canonical form (times as "yyyy-MM-dd HH:mm:ss", enums upper case, anything unparseable NULL),
+ * then converts the columns to DATETIME and creates the composite indexes. It runs only on MySQL
+ * while start_time is still a character column, so it is a no-op once done and on fresh schemas.
+ * <p>
+ * It runs while the context is being created, before the EntityManagerFactory (so Hibernate's
+ * schema update sees the converted columns) and so before the web server accepts requests. It
+ * takes the DataSource rather than the JdbcTemplate bean: with deferred datasource initialization
+ * that bean waits for the EntityManagerFactory, which in turn waits for this one.
+ */
+@Component
+public class BookingSchemaMigration implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingSchemaMigration.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BookingSchemaMigration(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!needsMigration()) {
+            return;
+        }
+        log.info("Migrating bookings to typed start_time/end_time/status/type columns");
+        int changed = backfill();
+        jdbcTemplate.execute("ALTER TABLE bookings"
+                + " MODIFY COLUMN start_time DATETIME(6) NULL,"
+                + " MODIFY COLUMN end_time DATETIME(6) NULL,"
+                + " MODIFY COLUMN status VARCHAR(16) NULL,"
+                + " MODIFY COLUMN type VARCHAR(16) NULL");
+        createIndexIfMissing("idx_bookings_location_start", "location_id, start_time");
+        createIndexIfMissing("idx_bookings_status_start", "status, start_time");
+        log.info("Bookings migration finished: {} rows normalized", changed);
+    }
+
+    private boolean needsMigration() {
+        Boolean pending = jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData meta = connection.getMetaData();
+            String product = meta.getDatabaseProductName();
+            if (product == null || !(product.contains("MySQL") || product.contains("MariaDB"))) {
+                return false;
+            }
+            try (ResultSet columns = meta.getColumns(connection.getCatalog(), null, "bookings", "start_time")) {
+                if (!columns.next()) {
+                    return false;
+                }
+                int type = columns.getInt("DATA_TYPE");
+                return type == Types.VARCHAR || type == Types.CHAR || type == Types.LONGVARCHAR;
+            }
+        });
+        return Boolean.TRUE.equals(pending);
+    }
+
+    // Rewrite rows still holding legacy text; re-running after a partial migration only touches what is left
+    private int backfill() {
+        List<Object[]> updates = new ArrayList<>();
+        int[] changed = {0};
+        int[] dropped = {0};
+        jdbcTemplate.query("SELECT id, start_time, end_time, status, type FROM bookings", rs -> {
+            String start = rs.getString(2);
+            String end = rs.getString(3);
+            String status = rs.getString(4);
+            String type = rs.getString(5);
+
+            String newStart = canonicalTime(start);
+            String newEnd = canonicalTime(end);
+            String newStatus = canonicalEnum(status, true);
+            String newType = canonicalEnum(type, false);
+            if (lost(start, newStart) || lost(end, newEnd) || lost(status, newStatus) || lost(type, newType)) {
+                dropped[0]++;
+                log.warn("Booking {} has unreadable values (start={}, end={}, status={}, type={}); they are cleared",
+                        rs.getLong(1), start, end, status, type);
+            }
+            if (!Objects.equals(start, newStart) || !Objects.equals(end, newEnd)
+                    || !Objects.equals(status, newStatus) || !Objects.equals(type, newType)) {
+                updates.add(new Object[]{newStart, newEnd, newStatus, newType, rs.getLong(1)});
+                changed[0]++;
+                if (updates.size() == BATCH_SIZE) {
+                    flush(updates);
+                }
+            }
+        });
+        flush(updates);
+        if (dropped[0] > 0) {
+            log.warn("{} bookings had values that could not be converted", dropped[0]);
+        }
+        return changed[0];
+    }
+
+    private void flush(List<Object[]> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE bookings SET start_time = ?, end_time = ?, status = ?, type = ? WHERE id = ?", updates);
+        updates.clear();
+    }
+
+    private void createIndexIfMissing(String name, String columns) {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.STATISTICS"
+                        + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'bookings' AND INDEX_NAME = ?",
+                Integer.class, name);
+        if (existing == null || existing == 0) {
+            jdbcTemplate.execute("CREATE INDEX " + name + " ON bookings (" + columns + ")");
+        }
+    }
+
+    private static boolean lost(String before, String after) {
+        return before != null && !before.isBlank() && after == null;
+    }
+
+    static String canonicalTime(String value) {
+        try {
+            return BookingTimes.format(BookingTimes.parse(value));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static String canonicalEnum(String value, boolean status) {
+        try {
+            Enum<?> parsed = status ? BookingStatus.from(value) : BookingType.from(value);
+            return parsed != null ? parsed.name() : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Makes the EntityManagerFactory wait for this bean
+    @Configuration(proxyBeanMethods = false)
+    static class JpaDependency {
+
+        @Bean
+        static EntityManagerFactoryDependsOnPostProcessor bookingSchemaMigrationBeforeJpa() {
+            return new EntityManagerFactoryDependsOnPostProcessor(BookingSchemaMigration.class);
+        }
+    }
+}
@@ -1,20 +1,42 @@
 package com.autofuellanka.systemmanager.controller;
 
+import com.autofuellanka.systemmanager.dto.BillingSummaryDTO;
+import com.autofuellanka.systemmanager.dto.SettlementImportReport;
 import com.autofuellanka.systemmanager.model.*;
 import com.autofuellanka.systemmanager.repository.*;
 import com.autofuellanka.systemmanager.service.BillingService;
-import com.autofuellanka.systemmanager.service.InvoicePdfService;
+import com.autofuellanka.systemmanager.service.BillingSummaryService;
+import com.autofuellanka.systemmanager.service.ConflictRetry;
+import com.autofuellanka.systemmanager.service.DailyRevenueService;
+import com.autofuellanka.systemmanager.service.PaymentAuthorizationService;
+import com.autofuellanka.systemmanager.service.invoice.InvoiceExportService;
+import com.autofuellanka.systemmanager.service.invoice.InvoicePdfCache;
+import com.autofuellanka.systemmanager.service.invoice.InvoicePdfEngine;
+import com.autofuellanka.systemmanager.service.payment.SettlementImportService;
+import com.autofuellanka.systemmanager.service.payment.SettlementReader;
+import com.autofuellanka.systemmanager.service.report.ReportFileStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -23,6 +45,12 @@ import java.util.Optional;
 @RequestMapping("/api/billing")
 public class BillingController {
 
+    // Tomcat request attributes for handing a file to the connector's sendfile support
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     @Autowired
     private InvoiceRepository invoiceRepository;
 
@@ -34,7 +62,25 @@ public class BillingController {
     private BillingService billingService;
 
     @Autowired
-    private InvoicePdfService invoicePdfService;
+    private InvoicePdfCache invoicePdfCache;
+
+    @Autowired
+    private InvoiceExportService invoiceExportService;
+
+    @Autowired
+    private BillingSummaryService billingSummaryService;
+
+    @Autowired
+    private DailyRevenueService dailyRevenueService;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private PaymentAuthorizationService paymentAuthorizationService;
+
+    @Autowired
+    private SettlementImportService settlementImportService;
 
     // Invoice endpoints
 
@@ -127,22 +173,9 @@ public class BillingController {
     @DeleteMapping("/invoices/{id}")
     public ResponseEntity<?> deleteInvoice(@PathVariable Long id) {
         try {
-            Optional<Invoice> invoiceOpt = invoiceRepository.findById(id);
-            if (invoiceOpt.isEmpty()) {
+            if (!billingService.deleteInvoice(id)) {
                 return ResponseEntity.notFound().build();
             }
-
-            Invoice invoice = invoiceOpt.get();
-
-            // Check if invoice has payments by querying the payment repository directly
-            List<Payment> payments = paymentRepository.findByInvoiceIdOrderByCreatedAtDesc(id);
-            if (payments != null && !payments.isEmpty()) {
-                // Delete payments first, then the invoice
-                paymentRepository.deleteByInvoiceId(id);
-            }
-
-            // Delete the invoice (cascade will handle invoice lines)
-            invoiceRepository.deleteById(id);
             return ResponseEntity.ok().body("Invoice deleted successfully");
         } catch (Exception e) {
             System.err.println("Error deleting invoice " + id + ": " + e.getMessage());
@@ -151,58 +184,63 @@ public class BillingController {
         }
     }
 
-    @GetMapping("/invoices/{id}/pdf")
-    public ResponseEntity<byte[]> getInvoicePdf(@PathVariable Long id) {
-        try {
-            Optional<Invoice> invoiceOpt = invoiceRepository.findById(id);
-            if (invoiceOpt.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
-
-            Invoice invoice = invoiceOpt.get();
-            byte[] pdfBytes = invoicePdfService.generateInvoicePdf(invoice);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment",
-                "invoice-" + invoice.getInvoiceNumber() + ".pdf");
-            headers.setContentLength(pdfBytes.length);
+    // All invoices created in [from, to] as a streamed ZIP of PDFs (format=ZIP, default) or one merged PDF (format=PDF)
+    @GetMapping("/invoices/export/pdf")
+    public ResponseEntity<StreamingResponseBody> exportInvoicePdfs(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) InvoiceStatus status,
+            @RequestParam(required = false) InvoiceExportService.Format format,
+            @RequestParam(required = false) String renderer) {
+        return invoiceExportService.export(from, to, status, format, InvoicePdfEngine.from(renderer));
+    }
 
-            return ResponseEntity.ok()
-                .headers(headers)
-                .body(pdfBytes);
-        } catch (IOException e) {
-            return ResponseEntity.status(500).build();
-        } catch (Exception e) {
-            return ResponseEntity.status(500).build();
-        }
+    // renderer=html|native overrides app.invoices.pdf.renderer for this request
+    @GetMapping("/invoices/{id}/pdf")
+    public void getInvoicePdf(@PathVariable Long id, @RequestParam(required = false) String renderer,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serveInvoicePdf(id, renderer, "attachment", request, response);
     }
 
     @GetMapping("/invoices/{id}/view")
-    public ResponseEntity<byte[]> viewInvoicePdf(@PathVariable Long id) {
-        try {
-            Optional<Invoice> invoiceOpt = invoiceRepository.findById(id);
-            if (invoiceOpt.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
+    public void viewInvoicePdf(@PathVariable Long id, @RequestParam(required = false) String renderer,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serveInvoicePdf(id, renderer, "inline", request, response);
+    }
 
-            Invoice invoice = invoiceOpt.get();
-            byte[] pdfBytes = invoicePdfService.generateInvoicePdf(invoice);
+    // Served from InvoicePdfCache; the cache key doubles as ETag, so an unchanged invoice is a 304 for the browser
+    private void serveInvoicePdf(Long id, String renderer, String disposition,
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        InvoicePdfEngine engine = InvoicePdfEngine.from(renderer);
+        Invoice invoice = invoiceRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Invoice not found: " + id));
+        InvoicePdfCache.CachedPdf pdf = invoicePdfCache.get(invoice, engine);
+
+        String etag = "\"" + pdf.getKey() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("inline",
-                "invoice-" + invoice.getInvoiceNumber() + ".pdf");
-            headers.setContentLength(pdfBytes.length);
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.builder(disposition)
+                .filename("invoice-" + invoice.getInvoiceNumber() + ".pdf").build().toString());
+        response.setContentLengthLong(pdf.length());
 
-            return ResponseEntity.ok()
-                .headers(headers)
-                .body(pdfBytes);
-        } catch (IOException e) {
-            return ResponseEntity.status(500).build();
-        } catch (Exception e) {
-            return ResponseEntity.status(500).build();
+        if (pdf.getBytes() != null) {
+            response.getOutputStream().write(pdf.getBytes());
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Let the connector send the file itself once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, pdf.getFile().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, pdf.length());
+            return;
         }
+        ReportFileStore.transfer(pdf.getFile(), 0, pdf.length(), response.getOutputStream());
     }
 
     // Payment endpoints
@@ -225,65 +263,87 @@ public class BillingController {
     @PostMapping("/payments")
     public ResponseEntity<Payment> recordPayment(@RequestBody PaymentRequest request) {
         try {
-            Payment payment = billingService.recordPayment(
+            Payment payment = paymentAuthorizationService.recordPayment(
                 request.getInvoiceId(),
                 request.getAmount(),
                 request.getMethod(),
                 request.getReference(),
                 request.getNotes(),
-                "current_user" // TODO: Get from auth context
+                currentUser()
             );
             return ResponseEntity.ok(payment);
+        } catch (ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    // End-of-day settlement file, streamed from the raw request body. The format follows the
+    // Content-Type (application/x-ndjson for NDJSON, anything else is read as CSV) unless given explicitly.
+    @PostMapping("/payments/batch")
+    public ResponseEntity<SettlementImportReport> importSettlements(
+            HttpServletRequest request,
+            @RequestParam(required = false) SettlementReader.Format format) throws IOException {
+        SettlementReader.Format resolved = format != null ? format : settlementFormatOf(request.getContentType());
+        SettlementImportReport report = settlementImportService.importFile(
+            request.getInputStream(),
+            resolved,
+            currentUser()
+        );
+        return ResponseEntity.ok(report);
+    }
+
+    // The authenticated user's id (the JWT subject), or "system" when the call is anonymous
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getName())) {
+            return "system";
+        }
+        return auth.getName();
+    }
+
+    private static SettlementReader.Format settlementFormatOf(String contentType) {
+        return contentType != null && contentType.toLowerCase().contains("json")
+            ? SettlementReader.Format.NDJSON
+            : SettlementReader.Format.CSV;
+    }
+
     @PostMapping("/refunds")
     public ResponseEntity<Payment> processRefund(@RequestBody RefundRequest request) {
         try {
-            Payment refund = billingService.processRefund(
+            Payment refund = conflictRetry.run(() -> billingService.processRefund(
                 request.getInvoiceId(),
                 request.getAmount(),
                 request.getReason(),
-                "current_user" // TODO: Get from auth context
-            );
+                currentUser()
+            ));
             return ResponseEntity.ok(refund);
+        } catch (ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
-    // Dashboard summary
+    // Dashboard summary (cached, invalidated on invoice changes)
     @GetMapping("/summary")
-    public ResponseEntity<BillingSummary> getBillingSummary() {
-        BillingSummary summary = new BillingSummary();
-
-        summary.setTotalInvoices(invoiceRepository.count());
-        summary.setUnpaidInvoices(invoiceRepository.findUnpaidInvoices().size());
-        summary.setOverdueInvoices(invoiceRepository.findOverdueInvoices(LocalDateTime.now()).size());
-        summary.setTotalOutstanding(invoiceRepository.getTotalOutstandingBalance());
-
-        LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-        LocalDateTime endOfMonth = LocalDateTime.now();
-        summary.setMonthlyRevenue(invoiceRepository.getTotalRevenueByDateRange(startOfMonth, endOfMonth));
-
-        return ResponseEntity.ok(summary);
+    public ResponseEntity<BillingSummaryDTO> getBillingSummary() {
+        return ResponseEntity.ok(billingSummaryService.getSummary());
     }
 
-    // Get daily revenue data for charts
+    // Get daily revenue data for charts (read from the daily_revenue rollup, one row per day)
     @GetMapping("/revenue/daily")
     public ResponseEntity<?> getDailyRevenue(
             @RequestParam(defaultValue = "30") int days) {
         try {
-            LocalDateTime endDate = LocalDateTime.now();
-            LocalDateTime startDate = endDate.minusDays(days);
+            LocalDate endDate = LocalDate.now();
+            LocalDate startDate = endDate.minusDays(days);
 
-            // Get daily payments (more accurate as it tracks actual payment dates)
-            List<Object[]> dailyPayments = paymentRepository.getDailyPayments(startDate, endDate);
+            List<Object[]> dailyTotals = dailyRevenueService.getDailyTotals(startDate, endDate);
             
             // Convert to a more frontend-friendly format
-            List<DailyRevenueData> revenueData = dailyPayments.stream()
+            List<DailyRevenueData> revenueData = dailyTotals.stream()
                 .map(row -> {
                     DailyRevenueData data = new DailyRevenueData();
                     data.setDate(row[0].toString()); // Date
@@ -298,6 +358,13 @@ public class BillingController {
         }
     }
 
+    // Rebuild the daily revenue rollup from payment history
+    @PostMapping("/revenue/daily/rebuild")
+    public ResponseEntity<String> rebuildDailyRevenue() {
+        dailyRevenueService.rebuildAll();
+        return ResponseEntity.ok("Daily revenue rollup rebuilt");
+    }
+
     // DTOs
     public static class InvoiceCreateRequest {
         private Long bookingId;
@@ -344,29 +411,6 @@ public class BillingController {
         public void setReason(String reason) { this.reason = reason; }
     }
 
-    public static class BillingSummary {
-        private long totalInvoices;
-        private int unpaidInvoices;
-        private int overdueInvoices;
-        private Double totalOutstanding;
-        private Double monthlyRevenue;
-
-        public long getTotalInvoices() { return totalInvoices; }
-        public void setTotalInvoices(long totalInvoices) { this.totalInvoices = totalInvoices; }
-
-        public int getUnpaidInvoices() { return unpaidInvoices; }
-        public void setUnpaidInvoices(int unpaidInvoices) { this.unpaidInvoices = unpaidInvoices; }
-
-        public int getOverdueInvoices() { return overdueInvoices; }
-        public void setOverdueInvoices(int overdueInvoices) { this.overdueInvoices = overdueInvoices; }
-
-        public Double getTotalOutstanding() { return totalOutstanding; }
-        public void setTotalOutstanding(Double totalOutstanding) { this.totalOutstanding = totalOutstanding; }
-
-        public Double getMonthlyRevenue() { return monthlyRevenue; }
-        public void setMonthlyRevenue(Double monthlyRevenue) { this.monthlyRevenue = monthlyRevenue; }
-    }
-
     public static class DailyRevenueData {
         private String date;
         private Double amount;
@@ -2,13 +2,8 @@ package com.autofuellanka.systemmanager.controller;
 
 import com.autofuellanka.systemmanager.dto.BookingDTO;
 import com.autofuellanka.systemmanager.model.Booking;
-import com.autofuellanka.systemmanager.model.Feedback;
-import com.autofuellanka.systemmanager.model.Invoice;
-import com.autofuellanka.systemmanager.model.Job;
 import com.autofuellanka.systemmanager.repository.BookingRepository;
-import com.autofuellanka.systemmanager.repository.FeedbackRepository;
-import com.autofuellanka.systemmanager.repository.InvoiceRepository;
-import com.autofuellanka.systemmanager.repository.JobRepository;
+import com.autofuellanka.systemmanager.service.booking.BookingRemovalService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
@@ -24,23 +19,14 @@ public class BookingController {
 
     @Autowired
     private BookingRepository repo;
-    
-    @Autowired
-    private FeedbackRepository feedbackRepo;
-    
+
     @Autowired
-    private InvoiceRepository invoiceRepo;
+    private BookingRemovalService removalService;
     
-    @Autowired
-    private JobRepository jobRepo;
-
-    // GET all bookings (with serviceType eagerly fetched)
+    // GET all bookings (projected to DTOs; staff screens should page through /api/staff/bookings/board)
     @GetMapping
     public List<BookingDTO> getAll() {
-        return repo.findAllWithServiceType()
-                .stream()
-                .map(BookingDTO::new)
-                .toList();
+        return repo.findAllAsDto();
     }
 
     // GET single booking by ID
@@ -112,38 +98,10 @@ public class BookingController {
     @DeleteMapping("/{id}")
     public ResponseEntity<?> delete(@PathVariable Long id) {
         try {
-            if (!repo.existsById(id)) {
+            // Dependants are detached with bulk updates; see BookingRemovalService
+            if (!removalService.delete(id)) {
                 return ResponseEntity.notFound().build();
             }
-
-            // Step 1: Set foreign keys to NULL in related tables
-            // Handle Feedback records
-            List<Feedback> feedbacks = feedbackRepo.findAll().stream()
-                    .filter(f -> f.getBooking() != null && f.getBooking().getId().equals(id))
-                    .toList();
-            for (Feedback feedback : feedbacks) {
-                feedback.setBooking(null);
-                feedbackRepo.save(feedback);
-            }
-
-            // Handle Job records
-            List<Job> jobs = jobRepo.findAll().stream()
-                    .filter(j -> j.getBooking() != null && j.getBooking().getId().equals(id))
-                    .toList();
-            for (Job job : jobs) {
-                job.setBooking(null);
-                jobRepo.save(job);
-            }
-
-            // Handle Invoice records (set bookingId to NULL)
-            List<Invoice> invoices = invoiceRepo.findByBookingId(id);
-            for (Invoice invoice : invoices) {
-                invoice.setBookingId(null);
-                invoiceRepo.save(invoice);
-            }
-
-            // Step 2: Now safely delete the booking
-            repo.deleteById(id);
             return ResponseEntity.noContent().build();
 
         } catch (DataIntegrityViolationException ex) {
@@ -3,14 +3,22 @@ package com.autofuellanka.systemmanager.controller;
 import com.autofuellanka.systemmanager.dto.BookingCreateRequest;
 import com.autofuellanka.systemmanager.dto.BookingDTO;
 import com.autofuellanka.systemmanager.model.Booking;
+import com.autofuellanka.systemmanager.model.BookingStatus;
+import com.autofuellanka.systemmanager.model.BookingTimes;
+import com.autofuellanka.systemmanager.model.BookingType;
+import com.autofuellanka.systemmanager.model.ServiceType;
 import com.autofuellanka.systemmanager.repository.BookingRepository;
 import com.autofuellanka.systemmanager.service.BookingValidationService;
+import com.autofuellanka.systemmanager.service.ReferenceDataCache;
+import com.autofuellanka.systemmanager.service.availability.SlotAvailabilityService;
 import com.autofuellanka.systemmanager.payload.UpdatePayload;
 import com.autofuellanka.systemmanager.payload.StatusUpdatePayload;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -19,11 +27,17 @@ public class CustomerBookingController {
 
     private final BookingRepository bookingRepo;
     private final BookingValidationService validator;
+    private final SlotAvailabilityService availability;
+    private final ReferenceDataCache referenceData;
 
     public CustomerBookingController(BookingRepository bookingRepo,
-                                     BookingValidationService validator) {
+                                     BookingValidationService validator,
+                                     SlotAvailabilityService availability,
+                                     ReferenceDataCache referenceData) {
         this.bookingRepo = bookingRepo;
         this.validator = validator;
+        this.availability = availability;
+        this.referenceData = referenceData;
     }
 
     //CREATE BOOKING
@@ -31,23 +45,20 @@ public class CustomerBookingController {
     public ResponseEntity<?> createBooking(@PathVariable Long customerId,
                                            @Valid @RequestBody BookingCreateRequest req) {
         try {
-            validator.requireCustomer(customerId);
-            validator.requireLocation(req.getLocationId());
-            if (req.getServiceTypeId() != null) validator.requireServiceType(req.getServiceTypeId());
-            validator.requireVehicleOwnedBy(req.getVehicleId(), customerId);
+            // One query for customer + vehicle owner; location and service type come from the reference cache
+            var ctx = validator.resolve(customerId, req.getLocationId(), req.getServiceTypeId(), req.getVehicleId());
+            validator.require(ctx);
 
             // Time validation
-            java.time.LocalDateTime start = java.time.LocalDateTime.parse(req.getStartTime());
-            java.time.LocalDateTime end = java.time.LocalDateTime.parse(req.getEndTime());
+            LocalDateTime start = BookingTimes.parse(req.getStartTime());
+            LocalDateTime end = BookingTimes.parse(req.getEndTime());
+            if (start == null || end == null) throw new IllegalArgumentException("startTime and endTime are required");
             if (!end.isAfter(start)) throw new IllegalArgumentException("endTime must be after startTime");
 
             // Normalize and validate business rules
             var norm = validator.normalize(req.getType(), req.getStatus(), req.getFuelType());
             String err = validator.validateCreateOrUpdate(
-                    customerId,
-                    req.getLocationId(),
-                    req.getServiceTypeId(),
-                    req.getVehicleId(),
+                    ctx,
                     norm.type,
                     norm.status,
                     norm.fuelType,
@@ -60,13 +71,10 @@ public class CustomerBookingController {
             booking.setCustomerId(customerId);
             booking.setLocationId(req.getLocationId());
             booking.setVehicleId(req.getVehicleId());
-            // Convert ISO format to MySQL format for datetime fields
-            String formattedStartTime = req.getStartTime().replace('T', ' ');
-            String formattedEndTime = req.getEndTime().replace('T', ' ');
-            booking.setStartTime(formattedStartTime);
-            booking.setEndTime(formattedEndTime);
-            booking.setType(norm.type);
-            booking.setStatus(norm.status != null ? norm.status : "PENDING");
+            booking.setStartTime(start);
+            booking.setEndTime(end);
+            booking.setType(BookingType.from(norm.type));
+            booking.setStatus(norm.status != null ? BookingStatus.from(norm.status) : BookingStatus.PENDING);
             booking.setDescription(req.getDescription());
             booking.setUrgency(req.getUrgency());
             booking.setContactPreference(req.getContactPreference());
@@ -81,16 +89,15 @@ public class CustomerBookingController {
                 booking.setServiceTypeId(null);
             }
 
-            Booking saved = bookingRepo.save(booking);
-            
-            // Fetch the saved booking with serviceType to avoid LazyInitializationException
-            var createdBooking = bookingRepo.findByIdWithServiceType(saved.getId());
-            if (createdBooking.isEmpty()) {
-                return ResponseEntity.status(500).body("Failed to retrieve created booking");
-            }
-            
-            return ResponseEntity.status(201).body(new BookingDTO(createdBooking.get()));
+            // Saved only if a bay / pump is free for the whole slot range (409 otherwise)
+            Booking saved = availability.admit(booking, null, bookingRepo::save);
+
+            // Built from the saved entity and the cached service type; no re-select
+            ServiceType serviceType = saved.getServiceTypeId() != null ? ctx.getServiceType() : null;
+            return ResponseEntity.status(201).body(new BookingDTO(saved, serviceType));
 
+        } catch (ResponseStatusException ex) {
+            throw ex; // 409 when the slot range is full
         } catch (IllegalStateException ex) {
             return ResponseEntity.status(404).body(ex.getMessage());
         } catch (IllegalArgumentException ex) {
@@ -159,11 +166,12 @@ public class CustomerBookingController {
             if (optionalBooking.isEmpty()) return ResponseEntity.status(404).body("Booking not found");
 
             Booking existing = optionalBooking.get();
+            Long previousLocationId = existing.getLocationId();
             var norm = validator.normalize(updates.type, null, updates.fuelType);
 
             // Ensure serviceTypeId is not null for SERVICE bookings
             Long finalServiceTypeId = updates.serviceTypeId != null ? updates.serviceTypeId : existing.getServiceTypeId();
-            String finalType = norm.type != null ? norm.type : existing.getType();
+            String finalType = norm.type != null ? norm.type : name(existing.getType());
             
             // For SERVICE bookings, ensure serviceTypeId is not null
             if ("SERVICE".equals(finalType) && finalServiceTypeId == null) {
@@ -181,28 +189,24 @@ public class CustomerBookingController {
                     finalServiceTypeId,
                     updates.vehicleId != null ? updates.vehicleId : existing.getVehicleId(),
                     finalType,
-                    updates.status != null ? updates.status : existing.getStatus(),
+                    updates.status != null ? updates.status : name(existing.getStatus()),
                     norm.fuelType != null ? norm.fuelType : existing.getFuelType(),
                     updates.litersRequested != null ? updates.litersRequested : existing.getLitersRequested()
             );
             if (err != null) return ResponseEntity.badRequest().body(err);
 
-            if (updates.startTime != null) {
-                // Convert ISO format (2025-10-07T09:00:00) to MySQL format (2025-10-07 09:00:00)
-                String formattedStartTime = updates.startTime.replace('T', ' ');
-                existing.setStartTime(formattedStartTime);
-            }
-            if (updates.endTime != null) {
-                // Convert ISO format (2025-10-07T09:00:00) to MySQL format (2025-10-07 09:00:00)
-                String formattedEndTime = updates.endTime.replace('T', ' ');
-                existing.setEndTime(formattedEndTime);
+            if (updates.startTime != null) existing.setStartTime(BookingTimes.parse(updates.startTime));
+            if (updates.endTime != null) existing.setEndTime(BookingTimes.parse(updates.endTime));
+            if (existing.getStartTime() != null && existing.getEndTime() != null
+                    && !existing.getEndTime().isAfter(existing.getStartTime())) {
+                throw new IllegalArgumentException("endTime must be after startTime");
             }
             
             // Ensure critical fields are never null
-            if (existing.getStatus() == null) existing.setStatus("PENDING");
-            if (existing.getType() == null) existing.setType("SERVICE");
-            if (norm.type != null) existing.setType(norm.type);
-            if (updates.status != null) existing.setStatus(updates.status);
+            if (existing.getStatus() == null) existing.setStatus(BookingStatus.PENDING);
+            if (existing.getType() == null) existing.setType(BookingType.SERVICE);
+            if (norm.type != null) existing.setType(BookingType.from(norm.type));
+            if (updates.status != null) existing.setStatus(BookingStatus.from(updates.status));
             if (updates.locationId != null) existing.setLocationId(updates.locationId);
             if (updates.vehicleId != null) existing.setVehicleId(updates.vehicleId);
             if (norm.fuelType != null) existing.setFuelType(norm.fuelType);
@@ -216,16 +220,13 @@ public class CustomerBookingController {
                 existing.setServiceTypeId(null);
             }
 
-            Booking saved = bookingRepo.save(existing);
-            
-            // Fetch the saved booking with serviceType to avoid LazyInitializationException
-            var updatedBooking = bookingRepo.findByIdWithServiceType(saved.getId());
-            if (updatedBooking.isEmpty()) {
-                return ResponseEntity.status(500).body("Failed to retrieve updated booking");
-            }
-            
-            return ResponseEntity.ok(new BookingDTO(updatedBooking.get()));
+            Booking saved = availability.admit(existing, previousLocationId, bookingRepo::save);
+
+            ServiceType serviceType = referenceData.serviceType(saved.getServiceTypeId()).orElse(null);
+            return ResponseEntity.ok(new BookingDTO(saved, serviceType));
 
+        } catch (ResponseStatusException ex) {
+            throw ex; // 409 when the new slot range is full
         } catch (IllegalStateException ex) {
             return ResponseEntity.status(404).body(ex.getMessage());
         } catch (IllegalArgumentException ex) {
@@ -246,10 +247,10 @@ public class CustomerBookingController {
             if (optionalBooking.isEmpty()) return ResponseEntity.status(404).body("Booking not found");
 
             Booking existing = optionalBooking.get();
-            String err = validator.validateStatusTransition(existing.getStatus(), "CANCELLED");
+            String err = validator.validateStatusTransition(name(existing.getStatus()), "CANCELLED");
             if (err != null) return ResponseEntity.badRequest().body(err);
 
-            existing.setStatus("CANCELLED");
+            existing.setStatus(BookingStatus.CANCELLED);
             Booking saved = bookingRepo.save(existing);
             
             // Fetch the saved booking with serviceType to avoid LazyInitializationException
@@ -282,10 +283,10 @@ public class CustomerBookingController {
             if (optionalBooking.isEmpty()) return ResponseEntity.status(404).body("Booking not found");
 
             Booking existing = optionalBooking.get();
-            String err = validator.validateStatusTransition(existing.getStatus(), payload.status);
+            String err = validator.validateStatusTransition(name(existing.getStatus()), payload.status);
             if (err != null) return ResponseEntity.badRequest().body(err);
 
-            existing.setStatus(payload.status.toUpperCase());
+            existing.setStatus(BookingStatus.from(payload.status));
             Booking saved = bookingRepo.save(existing);
             
             // Fetch the saved booking with serviceType to avoid LazyInitializationException
@@ -310,4 +311,8 @@ public class CustomerBookingController {
     private String up(String s) {
         return s == null ? null : s.trim().toUpperCase();
     }
+
+    private static String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
 }
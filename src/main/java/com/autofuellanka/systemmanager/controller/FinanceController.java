@@ -1,25 +1,23 @@
 package com.autofuellanka.systemmanager.controller;
 
-import com.autofuellanka.systemmanager.model.FinanceLedger;
 import com.autofuellanka.systemmanager.model.TransactionType;
 import com.autofuellanka.systemmanager.repository.FinanceLedgerRepository;
 import com.autofuellanka.systemmanager.repository.InvoiceRepository;
 import com.autofuellanka.systemmanager.repository.InventoryRepository;
+import com.autofuellanka.systemmanager.service.finance.AccountBalanceService;
+import com.autofuellanka.systemmanager.service.finance.LedgerPage;
+import com.autofuellanka.systemmanager.service.finance.LedgerQueryService;
+import com.autofuellanka.systemmanager.service.report.LedgerExportService;
+import com.autofuellanka.systemmanager.service.report.StreamingReportService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
-import java.io.PrintWriter;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @RestController
@@ -35,8 +33,18 @@ public class FinanceController {
     @Autowired
     private InventoryRepository inventoryRepository;
 
+    @Autowired
+    private LedgerExportService ledgerExportService;
+
+    @Autowired
+    private LedgerQueryService ledgerQueryService;
+
+    @Autowired
+    private AccountBalanceService accountBalanceService;
+
+    // Filtered ledger listing; follow "nextCursor" for keyset paging, includeTotal=true adds a COUNT
     @GetMapping("/ledger")
-    public Page<FinanceLedger> getLedger(
+    public LedgerPage getLedger(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "transactionDate") String sortBy,
@@ -44,13 +52,11 @@ public class FinanceController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
             @RequestParam(required = false) String account,
-            @RequestParam(required = false) TransactionType type) {
-
-        Sort sort = sortDir.equalsIgnoreCase("desc") ?
-                Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
-        Pageable pageable = PageRequest.of(page, size, sort);
+            @RequestParam(required = false) TransactionType type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
 
-        return financeLedgerRepository.findAllByOrderByTransactionDateDesc(pageable);
+        return ledgerQueryService.find(from, to, account, type, sortBy, sortDir, cursor, page, size, includeTotal);
     }
 
     @GetMapping("/ledger/accounts")
@@ -58,65 +64,25 @@ public class FinanceController {
         return financeLedgerRepository.findDistinctAccounts();
     }
 
+    // Balance at the end of asOf (default: now), from the latest closing snapshot plus later entries
     @GetMapping("/ledger/account/{account}/balance")
-    public ResponseEntity<Double> getAccountBalance(@PathVariable String account) {
-        Double balance = financeLedgerRepository.getAccountBalance(account);
-        return ResponseEntity.ok(balance);
+    public ResponseEntity<Double> getAccountBalance(
+            @PathVariable String account,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
+        return ResponseEntity.ok(accountBalanceService.getBalance(account, asOf));
     }
 
+    // Streams the ledger oldest-first; pass the last "Entry ID" received as cursor to resume
     @GetMapping("/ledger/export/csv")
-    public ResponseEntity<byte[]> exportLedgerCSV(
+    public ResponseEntity<StreamingResponseBody> exportLedgerCSV(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
-            @RequestParam(required = false) String account) {
-
-        try {
-            List<FinanceLedger> entries;
-
-            if (from != null && to != null) {
-                if (account != null) {
-                    entries = financeLedgerRepository.findByAccountAndDateRange(account, from, to);
-                } else {
-                    entries = financeLedgerRepository.findByDateRange(from, to);
-                }
-            } else if (account != null) {
-                entries = financeLedgerRepository.findByAccountOrderByTransactionDateDesc(account);
-            } else {
-                entries = financeLedgerRepository.findAll();
-            }
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            PrintWriter writer = new PrintWriter(baos);
-
-            // CSV Header
-            writer.println("Date,Account,Type,Amount,Reference,Description");
-
-            // CSV Data
-            for (FinanceLedger entry : entries) {
-                writer.printf("%s,%s,%s,%.2f,%s,%s%n",
-                        entry.getTransactionDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
-                        entry.getAccount(),
-                        entry.getTransactionType(),
-                        entry.getAmount(),
-                        entry.getReference() != null ? entry.getReference() : "",
-                        entry.getDescription() != null ? entry.getDescription() : ""
-                );
-            }
-
-            writer.close();
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment",
-                    "finance_ledger_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".csv");
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(baos.toByteArray());
-
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
-        }
+            @RequestParam(required = false) String account,
+            @RequestParam(required = false) Long cursor,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        return ledgerExportService.exportCsv(from, to, account, cursor,
+                StreamingReportService.acceptsGzip(acceptEncoding));
     }
 
     @GetMapping("/ledger/summary")
@@ -145,6 +111,7 @@ public class FinanceController {
         summary.setTotalCredits(totalRevenue);
         summary.setNetAmount(netIncome);
         summary.setCashFlow(cashFlow);
+        summary.setAccountBalances(accountBalanceService.getBalances(to != null ? to.toLocalDate() : null));
 
         return ResponseEntity.ok(summary);
     }
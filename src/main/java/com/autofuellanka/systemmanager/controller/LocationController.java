@@ -2,12 +2,16 @@ package com.autofuellanka.systemmanager.controller;
 
 import com.autofuellanka.systemmanager.model.Location;
 import com.autofuellanka.systemmanager.model.Location.LocationType;
+import com.autofuellanka.systemmanager.dto.LocationAvailabilityDTO;
 import com.autofuellanka.systemmanager.repository.LocationRepository;
+import com.autofuellanka.systemmanager.service.availability.SlotAvailabilityService;
 import jakarta.validation.Valid;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -16,9 +20,11 @@ import java.util.stream.Collectors;
 public class LocationController {
 
     private final LocationRepository repo;
+    private final SlotAvailabilityService availabilityService;
 
-    public LocationController(LocationRepository repo) {
+    public LocationController(LocationRepository repo, SlotAvailabilityService availabilityService) {
         this.repo = repo;
+        this.availabilityService = availabilityService;
     }
 
     // List all
@@ -69,6 +75,16 @@ public class LocationController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    // Free service bays and fuel pumps per slot for one day
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<LocationAvailabilityDTO> availability(
+            @PathVariable Long id,
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        if (!repo.existsById(id)) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(availabilityService.getAvailability(id, date));
+    }
+
     // Create
     @PostMapping
     public ResponseEntity<?> create(@Valid @RequestBody Location loc) {
@@ -88,13 +104,17 @@ public class LocationController {
             if (patch.getName() != null && !patch.getName().isBlank()) existing.setName(patch.getName());
             if (patch.getAddress() != null && !patch.getAddress().isBlank()) existing.setAddress(patch.getAddress());
             if (patch.getType() != null) existing.setType(patch.getType());
+            if (patch.getServiceBays() != null) existing.setServiceBays(patch.getServiceBays());
+            if (patch.getFuelPumps() != null) existing.setFuelPumps(patch.getFuelPumps());
 
             // Minimal validation before save (Bean Validation will also check)
             String err = validate(existing);
             if (err != null) return ResponseEntity.badRequest().body(err);
 
             try {
-                return ResponseEntity.ok(repo.save(existing));
+                Location saved = repo.save(existing);
+                availabilityService.evictLocation(id);
+                return ResponseEntity.ok(saved);
             } catch (DataIntegrityViolationException ex) {
                 return ResponseEntity.badRequest().body("Invalid data: " + mostSpecific(ex));
             }
@@ -106,6 +126,7 @@ public class LocationController {
     public ResponseEntity<?> delete(@PathVariable Long id) {
         if (!repo.existsById(id)) return ResponseEntity.notFound().build();
         repo.deleteById(id);
+        availabilityService.evictLocation(id);
         return ResponseEntity.ok("Location " + id + " deleted");
     }
 
@@ -115,6 +136,8 @@ public class LocationController {
         if (l.getName() == null || l.getName().isBlank()) return "name is required";
         if (l.getAddress() == null || l.getAddress().isBlank()) return "address is required";
         if (l.getType() == null) return "type is required";
+        if (l.getServiceBays() != null && l.getServiceBays() < 0) return "serviceBays must not be negative";
+        if (l.getFuelPumps() != null && l.getFuelPumps() < 0) return "fuelPumps must not be negative";
         return null;
     }
 
@@ -2,12 +2,23 @@ package com.autofuellanka.systemmanager.controller;
 
 import com.autofuellanka.systemmanager.model.*;
 import com.autofuellanka.systemmanager.repository.*;
+import com.autofuellanka.systemmanager.service.AsyncPaymentService;
 import com.autofuellanka.systemmanager.service.BillingService;
+import com.autofuellanka.systemmanager.service.ConflictRetry;
+import com.autofuellanka.systemmanager.service.DailyRevenueService;
+import com.autofuellanka.systemmanager.service.IdempotencyService;
+import com.autofuellanka.systemmanager.service.invoice.InvoicePdfCache;
+import com.autofuellanka.systemmanager.service.payment.PaymentStrategyFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -29,9 +40,37 @@ public class PaymentGatewayController {
     @Autowired
     private BookingRepository bookingRepository;
 
-    // Create invoice for a booking
+    @Autowired
+    private DailyRevenueService dailyRevenueService;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private AsyncPaymentService asyncPaymentService;
+
+    @Autowired
+    private PaymentStrategyFactory paymentStrategyFactory;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private InvoicePdfCache invoicePdfCache;
+
+    // Create invoice for a booking; a retry with the same Idempotency-Key gets the first response back
     @PostMapping("/invoices")
-    public ResponseEntity<?> createInvoice(@RequestBody InvoiceCreateRequest request) {
+    public ResponseEntity<?> createInvoice(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody InvoiceCreateRequest request) {
+        return idempotencyService.execute("POST /api/invoices", idempotencyKey, request,
+                () -> createInvoiceOnce(request));
+    }
+
+    private ResponseEntity<?> createInvoiceOnce(InvoiceCreateRequest request) {
         System.out.println("INVOICE CREATION DEBUG:");
         System.out.println("Request received: " + request);
         System.out.println("Booking ID: " + request.getBookingId());
@@ -122,9 +161,16 @@ public class PaymentGatewayController {
     }
 
     // Process payment with booking ID (new flow: booking → payment → invoice)
+    // Idempotent per Idempotency-Key: the response is stored only after the transaction has committed
     @PostMapping("/payments")
-    @Transactional
-    public ResponseEntity<?> processPayment(@RequestBody PaymentRequest request) {
+    public ResponseEntity<?> processPayment(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody PaymentRequest request) {
+        return idempotencyService.execute("POST /api/payments", idempotencyKey, request,
+                () -> transactionTemplate.execute(status -> processPaymentOnce(request)));
+    }
+
+    private ResponseEntity<?> processPaymentOnce(PaymentRequest request) {
         System.out.println("NEW PAYMENT FLOW DEBUG:");
         System.out.println("Request received: " + request);
         System.out.println("Booking ID: " + request.getBookingId());
@@ -168,6 +214,13 @@ public class PaymentGatewayController {
             Booking booking = bookingOpt.get();
             System.out.println("Booking found: " + booking.getId() + " - " + booking.getType());
 
+            // Gateway-backed methods are authorized in the background; refuse before creating anything when saturated
+            boolean remote = paymentStrategyFactory.getStrategy(paymentMethod).isRemote();
+            if (remote && asyncPaymentService.isSaturated(paymentMethod)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body("Payment gateway for " + paymentMethod + " is busy, try again later");
+            }
+
             // Create invoice first
             System.out.println("Creating invoice...");
             Invoice invoice = new Invoice();
@@ -201,6 +254,21 @@ public class PaymentGatewayController {
                 return ResponseEntity.status(500).body("Failed to create invoice: " + e.getMessage());
             }
 
+            if (remote) {
+                // Poll /api/payments/attempts/{id} or subscribe to /events for the outcome
+                PaymentAuthorization attempt = asyncPaymentService.submit(savedInvoice.getId(), request.getAmount(),
+                        paymentMethod, request.getReference(), request.getNotes(),
+                        request.getCreatedBy() != null ? request.getCreatedBy() : "system");
+                return ResponseEntity.accepted()
+                        .location(URI.create("/api/payments/attempts/" + attempt.getId()))
+                        .body(Map.of(
+                                "attemptId", attempt.getId(),
+                                "status", attempt.getStatus(),
+                                "invoice", savedInvoice,
+                                "message", "Payment submitted for authorization"
+                        ));
+            }
+
             // Now create payment with invoice reference
             System.out.println("Creating payment...");
             Payment payment = new Payment();
@@ -223,6 +291,7 @@ public class PaymentGatewayController {
             Payment savedPayment;
             try {
                 savedPayment = paymentRepository.save(payment);
+                dailyRevenueService.record(savedPayment);
                 System.out.println("Payment saved successfully! ID: " + savedPayment.getId());
             } catch (Exception e) {
                 System.out.println("ERROR saving payment: " + e.getMessage());
@@ -239,6 +308,7 @@ public class PaymentGatewayController {
 
             try {
                 savedInvoice = invoiceRepository.save(savedInvoice);
+                invoicePdfCache.evictAfterCommit(savedInvoice.getId());
                 System.out.println("Invoice updated. New status: " + savedInvoice.getStatus());
             } catch (Exception e) {
                 System.out.println("ERROR updating invoice: " + e.getMessage());
@@ -252,6 +322,8 @@ public class PaymentGatewayController {
                     "invoice", savedInvoice,
                     "message", "Payment processed and invoice created successfully"
             ));
+        } catch (ResponseStatusException e) {
+            throw e; // 503 when the gateway's bulkhead filled up; propagating rolls back the invoice created above
         } catch (IllegalArgumentException e) {
             System.out.println("VALIDATION ERROR in payment: " + e.getMessage());
             return ResponseEntity.badRequest().body("Validation error: " + e.getMessage());
@@ -268,23 +340,45 @@ public class PaymentGatewayController {
         }
     }
 
+    // Outcome of an asynchronously authorized payment
+    @GetMapping("/payments/attempts/{id}")
+    public PaymentAuthorization getPaymentAttempt(@PathVariable Long id) {
+        return asyncPaymentService.find(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Payment attempt not found: " + id));
+    }
+
+    // Same outcome pushed as a single "status" server-sent event once the attempt is final
+    @GetMapping(value = "/payments/attempts/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPaymentAttempt(@PathVariable Long id) {
+        return asyncPaymentService.subscribe(id);
+    }
+
     // Update invoice status
     @PutMapping("/invoices/{id}/status")
     public ResponseEntity<Invoice> updateInvoiceStatus(@PathVariable Long id, @RequestBody InvoiceStatusUpdate request) {
         try {
-            Invoice invoice = invoiceRepository.findById(id).orElse(null);
-            if (invoice == null) {
+            // Re-read and re-apply on a version conflict with a concurrent payment
+            Invoice updatedInvoice = conflictRetry.run(() -> {
+                Invoice invoice = invoiceRepository.findById(id).orElse(null);
+                if (invoice == null) {
+                    return null;
+                }
+
+                invoice.setStatus(InvoiceStatus.valueOf(request.getStatus()));
+                if (request.getPaidAmount() != null) {
+                    invoice.setPaidAmount(request.getPaidAmount());
+                    invoice.setBalance(invoice.getTotalAmount() - invoice.getPaidAmount());
+                }
+
+                return invoiceRepository.save(invoice);
+            });
+            if (updatedInvoice == null) {
                 return ResponseEntity.notFound().build();
             }
-
-            invoice.setStatus(InvoiceStatus.valueOf(request.getStatus()));
-            if (request.getPaidAmount() != null) {
-                invoice.setPaidAmount(request.getPaidAmount());
-                invoice.setBalance(invoice.getTotalAmount() - invoice.getPaidAmount());
-            }
-
-            Invoice updatedInvoice = invoiceRepository.save(invoice);
+            invoicePdfCache.evictAfterCommit(id);
             return ResponseEntity.ok(updatedInvoice);
+        } catch (org.springframework.dao.ConcurrencyFailureException e) {
+            return ResponseEntity.status(409).build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
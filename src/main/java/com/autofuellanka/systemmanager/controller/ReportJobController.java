@@ -0,0 +1,117 @@
+package com.autofuellanka.systemmanager.controller;
+
+import com.autofuellanka.systemmanager.service.report.ByteRange;
+import com.autofuellanka.systemmanager.service.report.ReportFileStore;
+import com.autofuellanka.systemmanager.service.report.ReportJob;
+import com.autofuellanka.systemmanager.service.report.ReportJobService;
+import com.autofuellanka.systemmanager.service.report.ReportType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@RestController
+@RequestMapping("/api/reports/jobs")
+public class ReportJobController {
+
+    // Tomcat request attributes for handing a file region to the connector's sendfile support
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    // Queue a report build; poll the returned job until it is COMPLETED, then fetch /file
+    @PostMapping
+    public ResponseEntity<ReportJob> submitJob(@RequestBody ReportJobRequest request) {
+        ReportJob job = reportJobService.submit(request.getType());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/reports/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    @GetMapping("/{id}")
+    public ReportJob getJob(@PathVariable String id) {
+        return requireJob(id);
+    }
+
+    // Serve the finished file; supports single "Range: bytes=" requests for resumed downloads
+    @GetMapping("/{id}/file")
+    public void downloadFile(@PathVariable String id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        ReportJob job = requireJob(id);
+        if (job.getStatus() != ReportJob.Status.COMPLETED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Report job " + id + " is " + job.getStatus());
+        }
+
+        Path file = job.getFile();
+        long length = Files.size(file);
+        String etag = "\"" + job.getId() + "\"";
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(job.getFileName()).build().toString());
+
+        // The file never changes, so If-Range only has to match this job's ETag
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            rangeHeader = null;
+        }
+
+        ByteRange range;
+        try {
+            range = ByteRange.parse(rangeHeader, length);
+        } catch (IllegalStateException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            return;
+        }
+
+        long start = 0;
+        long count = length;
+        if (range != null) {
+            start = range.getStart();
+            count = range.length();
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, range.contentRange(length));
+        }
+        response.setContentLengthLong(count);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Let the connector send the region itself once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        ReportFileStore.transfer(file, start, count, response.getOutputStream());
+    }
+
+    private ReportJob requireJob(String id) {
+        return reportJobService.find(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Report job not found: " + id));
+    }
+
+    // DTOs
+    public static class ReportJobRequest {
+        private ReportType type;
+
+        public ReportType getType() { return type; }
+        public void setType(ReportType type) { this.type = type; }
+    }
+}
@@ -1,217 +1,124 @@
 package com.autofuellanka.systemmanager.controller;
 
-import com.autofuellanka.systemmanager.model.InventoryItem;
-import com.autofuellanka.systemmanager.model.VehicleType;
-import com.autofuellanka.systemmanager.model.Customer;
-import com.autofuellanka.systemmanager.model.Booking;
-import com.autofuellanka.systemmanager.repository.*;
+import com.autofuellanka.systemmanager.service.metrics.BookingCube;
+import com.autofuellanka.systemmanager.service.metrics.BookingCube.Dimension;
+import com.autofuellanka.systemmanager.service.metrics.BookingCubeService;
+import com.autofuellanka.systemmanager.service.metrics.DashboardMetricsService;
+import com.autofuellanka.systemmanager.service.metrics.DashboardMetricsService.Metric;
+import com.autofuellanka.systemmanager.service.report.ReportCatalog;
+import com.autofuellanka.systemmanager.service.report.ReportType;
+import com.autofuellanka.systemmanager.service.report.StreamingReportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
-import java.io.PrintWriter;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/reports")
 public class ReportsController {
 
     @Autowired
-    private InventoryRepository inventoryRepository;
-
+    private StreamingReportService streamingReportService;
 
     @Autowired
-    private VehicleTypeRepository vehicleTypeRepository;
+    private ReportCatalog reportCatalog;
 
     @Autowired
-    private CustomerRepository customerRepository;
+    private DashboardMetricsService dashboardMetrics;
 
     @Autowired
-    private BookingRepository bookingRepository;
+    private BookingCubeService bookingCubeService;
 
     // Download Inventory Report
     @GetMapping("/inventory")
-    public ResponseEntity<byte[]> downloadInventoryReport() {
-        try {
-            List<InventoryItem> items = inventoryRepository.findByIsActiveTrue();
-            
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            PrintWriter writer = new PrintWriter(baos);
-            
-            // CSV Header
-            writer.println("SKU,Name,Category,On Hand,Min Qty,Unit Price,Reorder Status,Description");
-            
-            // CSV Data
-            for (InventoryItem item : items) {
-                String reorderStatus = item.needsReorder() ? "Low Stock" : "OK";
-                writer.printf("%s,%s,%s,%d,%d,%.2f,%s,%s%n",
-                    item.getSku(),
-                    item.getName(),
-                    item.getCategory(),
-                    item.getOnHand(),
-                    item.getMinQty(),
-                    item.getUnitPrice() != null ? item.getUnitPrice() : 0.0,
-                    reorderStatus,
-                    item.getDescription() != null ? item.getDescription() : ""
-                );
-            }
-            
-            writer.close();
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", 
-                "inventory_report_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".csv");
-            
-            return ResponseEntity.ok()
-                .headers(headers)
-                .body(baos.toByteArray());
-                
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
-        }
+    public ResponseEntity<StreamingResponseBody> downloadInventoryReport(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return download(ReportType.INVENTORY, acceptEncoding);
     }
 
 
     // Download Vehicle Types Report
     @GetMapping("/vehicle-types")
-    public ResponseEntity<byte[]> downloadVehicleTypesReport() {
-        try {
-            List<VehicleType> vehicleTypes = vehicleTypeRepository.findByIsActiveTrue();
-            
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            PrintWriter writer = new PrintWriter(baos);
-            
-            // CSV Header
-            writer.println("Make,Model,Year,Fuel Type,Engine Capacity,Transmission,Description");
-            
-            // CSV Data
-            for (VehicleType vt : vehicleTypes) {
-                writer.printf("%s,%s,%d,%s,%s,%s,%s%n",
-                    vt.getMake(),
-                    vt.getModel(),
-                    vt.getYear(),
-                    vt.getFuelType(),
-                    vt.getEngineCapacity() != null ? vt.getEngineCapacity() : "",
-                    vt.getTransmission() != null ? vt.getTransmission() : "",
-                    vt.getDescription() != null ? vt.getDescription() : ""
-                );
-            }
-            
-            writer.close();
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", 
-                "vehicle_types_report_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".csv");
-            
-            return ResponseEntity.ok()
-                .headers(headers)
-                .body(baos.toByteArray());
-                
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
-        }
+    public ResponseEntity<StreamingResponseBody> downloadVehicleTypesReport(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return download(ReportType.VEHICLE_TYPES, acceptEncoding);
     }
 
     // Download Users Report
     @GetMapping("/users")
-    public ResponseEntity<byte[]> downloadUsersReport() {
-        try {
-            List<Customer> customers = customerRepository.findAll();
-            
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            PrintWriter writer = new PrintWriter(baos);
-            
-            // CSV Header
-            writer.println("ID,Name,Email,Phone,Address,Registration Date,Status");
-            
-            // CSV Data
-            for (Customer customer : customers) {
-                writer.printf("%d,%s,%s,%s,%s,%s,%s%n",
-                    customer.getId(),
-                    customer.getFullName(),
-                    customer.getEmail(),
-                    customer.getPhone() != null ? customer.getPhone() : "",
-                    customer.getAddress() != null ? customer.getAddress() : "",
-                    "N/A", // No createdAt field in Customer model
-                    customer.getEnabled() ? "Active" : "Inactive"
-                );
-            }
-            
-            writer.close();
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", 
-                "users_report_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".csv");
-            
-            return ResponseEntity.ok()
-                .headers(headers)
-                .body(baos.toByteArray());
-                
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
-        }
+    public ResponseEntity<StreamingResponseBody> downloadUsersReport(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return download(ReportType.USERS, acceptEncoding);
     }
 
     // Download Bookings Report
     @GetMapping("/bookings")
-    public ResponseEntity<byte[]> downloadBookingsReport() {
-        try {
-            List<Booking> bookings = bookingRepository.findAllWithServiceTypeAndCustomer();
-            
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            PrintWriter writer = new PrintWriter(baos);
-            
-            // CSV Header
-            writer.println("ID,Customer Name,Customer Email,Vehicle Plate,Service Type,Booking Date,Status,Total Amount");
-            
-            // CSV Data
-            for (Booking booking : bookings) {
-                writer.printf("%d,%s,%s,%s,%s,%s,%s,%.2f%n",
-                    booking.getId(),
-                    booking.getCustomer() != null ? booking.getCustomer().getFullName() : "N/A",
-                    booking.getCustomer() != null ? booking.getCustomer().getEmail() : "N/A",
-                    booking.getVehicleId() != null ? "Vehicle ID: " + booking.getVehicleId() : "N/A",
-                    booking.getServiceType() != null ? booking.getServiceType().getName() : "N/A",
-                    booking.getStartTime() != null ? booking.getStartTime() : "",
-                    booking.getStatus() != null ? booking.getStatus() : "N/A",
-                    0.0 // No totalAmount field in Booking model
-                );
+    public ResponseEntity<StreamingResponseBody> downloadBookingsReport(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return download(ReportType.BOOKINGS, acceptEncoding);
+    }
+
+    private ResponseEntity<StreamingResponseBody> download(ReportType type, String acceptEncoding) {
+        return streamingReportService.csvDownload(type.getFilePrefix(),
+                StreamingReportService.acceptsGzip(acceptEncoding),
+                reportCatalog.body(type));
+    }
+
+    // Booking volume pivot from the in-memory cube, e.g.
+    // /bookings/cube?groupBy=day,status&from=2025-01-01&to=2025-01-31&locationId=1,2&status=PENDING,CONFIRMED
+    @GetMapping("/bookings/cube")
+    public ResponseEntity<BookingCubeResponse> getBookingCube(
+            @RequestParam(required = false) List<String> groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<Long> locationId,
+            @RequestParam(required = false) List<Long> serviceTypeId,
+            @RequestParam(required = false) List<String> status) {
+
+        Set<Dimension> dimensions = EnumSet.noneOf(Dimension.class);
+        if (groupBy != null) {
+            for (String name : groupBy) {
+                dimensions.add(parseDimension(name));
             }
-            
-            writer.close();
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", 
-                "bookings_report_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".csv");
-            
-            return ResponseEntity.ok()
-                .headers(headers)
-                .body(baos.toByteArray());
-                
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
+        }
+
+        List<BookingCube.Cell> cells = bookingCubeService.query(dimensions, from, to, locationId, serviceTypeId, status);
+
+        BookingCubeResponse response = new BookingCubeResponse();
+        response.setGroupBy(dimensions);
+        response.setCells(cells);
+        response.setTotal(cells.stream().mapToLong(BookingCube.Cell::getCount).sum());
+        return ResponseEntity.ok(response);
+    }
+
+    private static Dimension parseDimension(String name) {
+        String key = name.trim().replace("_", "").replace("-", "").toLowerCase();
+        switch (key) {
+            case "day": return Dimension.DAY;
+            case "location": return Dimension.LOCATION;
+            case "servicetype": return Dimension.SERVICE_TYPE;
+            case "status": return Dimension.STATUS;
+            default: throw new IllegalArgumentException("Unknown cube dimension: " + name);
         }
     }
 
-    // Get Dashboard Summary
+    // Get Dashboard Summary (served from in-memory counters, no database access)
     @GetMapping("/dashboard-summary")
     public ResponseEntity<DashboardSummary> getDashboardSummary() {
         DashboardSummary summary = new DashboardSummary();
         
-        summary.setTotalInventoryItems(inventoryRepository.findByIsActiveTrue().size());
-        summary.setLowStockItems(inventoryRepository.findItemsNeedingReorder().size());
-        summary.setTotalCustomers(customerRepository.findAll().size());
-        summary.setTotalBookings(bookingRepository.findAll().size());
-        summary.setTotalVehicleTypes(vehicleTypeRepository.findByIsActiveTrue().size());
+        summary.setTotalInventoryItems((int) dashboardMetrics.get(Metric.ACTIVE_INVENTORY_ITEMS));
+        summary.setLowStockItems((int) dashboardMetrics.get(Metric.LOW_STOCK_ITEMS));
+        summary.setTotalCustomers((int) dashboardMetrics.get(Metric.CUSTOMERS));
+        summary.setTotalBookings((int) dashboardMetrics.get(Metric.BOOKINGS));
+        summary.setTotalVehicleTypes((int) dashboardMetrics.get(Metric.ACTIVE_VEHICLE_TYPES));
         
         return ResponseEntity.ok(summary);
     }
@@ -240,4 +147,20 @@ public class ReportsController {
         public int getTotalVehicleTypes() { return totalVehicleTypes; }
         public void setTotalVehicleTypes(int totalVehicleTypes) { this.totalVehicleTypes = totalVehicleTypes; }
     }
+
+    // Booking Cube DTO
+    public static class BookingCubeResponse {
+        private Set<Dimension> groupBy;
+        private long total;
+        private List<BookingCube.Cell> cells;
+
+        public Set<Dimension> getGroupBy() { return groupBy; }
+        public void setGroupBy(Set<Dimension> groupBy) { this.groupBy = groupBy; }
+
+        public long getTotal() { return total; }
+        public void setTotal(long total) { this.total = total; }
+
+        public List<BookingCube.Cell> getCells() { return cells; }
+        public void setCells(List<BookingCube.Cell> cells) { this.cells = cells; }
+    }
 }
@@ -2,20 +2,21 @@ package com.autofuellanka.systemmanager.controller;
 
 import com.autofuellanka.systemmanager.dto.BookingDTO;
 import com.autofuellanka.systemmanager.model.Booking;
-import com.autofuellanka.systemmanager.model.Feedback;
-import com.autofuellanka.systemmanager.model.Invoice;
-import com.autofuellanka.systemmanager.model.Job;
+import com.autofuellanka.systemmanager.model.BookingStatus;
+import com.autofuellanka.systemmanager.model.BookingType;
 import com.autofuellanka.systemmanager.model.User;
 import com.autofuellanka.systemmanager.repository.BookingRepository;
-import com.autofuellanka.systemmanager.repository.FeedbackRepository;
-import com.autofuellanka.systemmanager.repository.InvoiceRepository;
-import com.autofuellanka.systemmanager.repository.JobRepository;
 import com.autofuellanka.systemmanager.repository.UserRepository;
+import com.autofuellanka.systemmanager.service.booking.BookingBoardPage;
+import com.autofuellanka.systemmanager.service.booking.BookingBoardService;
+import com.autofuellanka.systemmanager.service.booking.BookingRemovalService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,13 +28,10 @@ public class StaffBookingController {
     private final UserRepository userRepo;
     
     @Autowired
-    private FeedbackRepository feedbackRepo;
-    
-    @Autowired
-    private InvoiceRepository invoiceRepo;
-    
+    private BookingBoardService boardService;
+
     @Autowired
-    private JobRepository jobRepo;
+    private BookingRemovalService removalService;
 
     public StaffBookingController(BookingRepository repo, UserRepository userRepo) {
         this.repo = repo;
@@ -62,8 +60,31 @@ public class StaffBookingController {
         String role = resolveRole(roleHeader, userIdHeader);
         if (!isStaffRole(role)) return ResponseEntity.status(403).body("Forbidden: STAFF/ADMIN only");
 
-        List<Booking> all = repo.findAllWithServiceType();
-        return ResponseEntity.ok(all.stream().map(BookingDTO::new).toList());
+        return ResponseEntity.ok(repo.findAllAsDto());
+    }
+
+    // Booking board: filtered, keyset-paged by start time; follow "nextCursor" for the next page
+    @GetMapping("/board")
+    public ResponseEntity<?> board(
+            @RequestHeader(value = "X-Role", required = false) String roleHeader,
+            @RequestHeader(value = "X-User-Id", required = false) Long userIdHeader,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Long locationId,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        String role = resolveRole(roleHeader, userIdHeader);
+        if (!isStaffRole(role)) return ResponseEntity.status(403).body("Forbidden: STAFF/ADMIN only");
+
+        // Unknown status/type values and bad cursors are IllegalArgumentExceptions -> 400
+        BookingBoardPage page = boardService.find(BookingStatus.from(status), BookingType.from(type),
+                locationId, customerId, from, to, sortDir, cursor, size);
+        return ResponseEntity.ok(page);
     }
 
     // Update booking status only
@@ -80,8 +101,15 @@ public class StaffBookingController {
             return ResponseEntity.badRequest().body("status is required");
         }
 
+        BookingStatus status;
+        try {
+            status = BookingStatus.from(payload.status);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+
         return repo.findById(id).map(b -> {
-            b.setStatus(payload.status);
+            b.setStatus(status);
             Booking saved = repo.save(b);
             // reload with fetch join for DTO
             Booking full = repo.findByIdWithServiceType(saved.getId()).orElse(saved);
@@ -100,38 +128,10 @@ public class StaffBookingController {
         if (!isStaffRole(role)) return ResponseEntity.status(403).body("Forbidden: STAFF/ADMIN only");
 
         try {
-            if (!repo.existsById(id)) {
+            // Dependants are detached with bulk updates; see BookingRemovalService
+            if (!removalService.delete(id)) {
                 return ResponseEntity.notFound().build();
             }
-
-            // Step 1: Set foreign keys to NULL in related tables
-            // Handle Feedback records
-            List<Feedback> feedbacks = feedbackRepo.findAll().stream()
-                    .filter(f -> f.getBooking() != null && f.getBooking().getId().equals(id))
-                    .toList();
-            for (Feedback feedback : feedbacks) {
-                feedback.setBooking(null);
-                feedbackRepo.save(feedback);
-            }
-
-            // Handle Job records
-            List<Job> jobs = jobRepo.findAll().stream()
-                    .filter(j -> j.getBooking() != null && j.getBooking().getId().equals(id))
-                    .toList();
-            for (Job job : jobs) {
-                job.setBooking(null);
-                jobRepo.save(job);
-            }
-
-            // Handle Invoice records (set bookingId to NULL)
-            List<Invoice> invoices = invoiceRepo.findByBookingId(id);
-            for (Invoice invoice : invoices) {
-                invoice.setBookingId(null);
-                invoiceRepo.save(invoice);
-            }
-
-            // Step 2: Now safely delete the booking
-            repo.deleteById(id);
             return ResponseEntity.noContent().build();
 
         } catch (DataIntegrityViolationException ex) {
@@ -146,7 +146,30 @@ public class StaffBookingController {
         }
     }
 
+    // Delete or archive many bookings in one pass: {"action": "DELETE" | "ARCHIVE", "ids": [...]}
+    @PostMapping("/bulk")
+    public ResponseEntity<?> bulk(
+            @RequestHeader(value = "X-Role", required = false) String roleHeader,
+            @RequestHeader(value = "X-User-Id", required = false) Long userIdHeader,
+            @RequestBody StaffBookingController.BulkPayload payload
+    ) {
+        String role = resolveRole(roleHeader, userIdHeader);
+        if (!isStaffRole(role)) return ResponseEntity.status(403).body("Forbidden: STAFF/ADMIN only");
+        if (payload == null) {
+            return ResponseEntity.badRequest().body("action and ids are required");
+        }
+
+        // Unknown actions, empty or oversized id lists are IllegalArgumentExceptions -> 400
+        BookingRemovalService.Action action = BookingRemovalService.Action.from(payload.action);
+        return ResponseEntity.ok(removalService.apply(action, payload.ids));
+    }
+
     public static class StatusPayload {
         public String status;
     }
+
+    public static class BulkPayload {
+        public String action;
+        public List<Long> ids;
+    }
 }
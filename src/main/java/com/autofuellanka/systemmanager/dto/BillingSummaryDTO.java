@@ -0,0 +1,24 @@
+package com.autofuellanka.systemmanager.dto;
+
+public class BillingSummaryDTO {
+    private long totalInvoices;
+    private int unpaidInvoices;
+    private int overdueInvoices;
+    private Double totalOutstanding;
+    private Double monthlyRevenue;
+
+    public long getTotalInvoices() { return totalInvoices; }
+    public void setTotalInvoices(long totalInvoices) { this.totalInvoices = totalInvoices; }
+
+    public int getUnpaidInvoices() { return unpaidInvoices; }
+    public void setUnpaidInvoices(int unpaidInvoices) { this.unpaidInvoices = unpaidInvoices; }
+
+    public int getOverdueInvoices() { return overdueInvoices; }
+    public void setOverdueInvoices(int overdueInvoices) { this.overdueInvoices = overdueInvoices; }
+
+    public Double getTotalOutstanding() { return totalOutstanding; }
+    public void setTotalOutstanding(Double totalOutstanding) { this.totalOutstanding = totalOutstanding; }
+
+    public Double getMonthlyRevenue() { return monthlyRevenue; }
+    public void setMonthlyRevenue(Double monthlyRevenue) { this.monthlyRevenue = monthlyRevenue; }
+}
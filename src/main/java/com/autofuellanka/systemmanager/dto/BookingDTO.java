@@ -1,6 +1,13 @@
 package com.autofuellanka.systemmanager.dto;
 
 import com.autofuellanka.systemmanager.model.Booking;
+import com.autofuellanka.systemmanager.model.BookingStatus;
+import com.autofuellanka.systemmanager.model.BookingTimes;
+import com.autofuellanka.systemmanager.model.BookingType;
+import com.autofuellanka.systemmanager.model.ServiceType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
 
 public class BookingDTO {
 
@@ -23,30 +30,63 @@ public class BookingDTO {
     private String serviceName;
     private Double price;
 
+    // Unformatted start time at full column precision, for keyset cursors; not part of the JSON
+    @JsonIgnore
+    private LocalDateTime startDateTime;
+
     public BookingDTO(Booking b) {
+        this(b, b != null ? b.getServiceType() : null);
+    }
+
+    // For a booking just saved: its serviceType association is not loaded, so the caller passes the (cached) type
+    public BookingDTO(Booking b, ServiceType serviceType) {
         if (b == null) return;
+        fill(b.getId(), b.getStartTime(), b.getEndTime(), b.getFuelType(), b.getLitersRequested(),
+                b.getStatus(), b.getType(), b.getDescription(), b.getUrgency(), b.getContactPreference(),
+                b.getCustomerId(), b.getLocationId(), b.getVehicleId(),
+                serviceType != null ? serviceType.getId() : null,
+                serviceType != null ? serviceType.getName() : null,
+                serviceType != null ? serviceType.getBasePrice() : null,
+                serviceType != null);
+    }
+
+    // JPQL/Criteria constructor expression ("select new ..."): built from columns, no entity is loaded.
+    // serviceTypeId is the joined service type's id, so it is null when the booking has none.
+    public BookingDTO(Long id, LocalDateTime startTime, LocalDateTime endTime, String fuelType, Double litersRequested,
+                      BookingStatus status, BookingType type, String description, String urgency,
+                      String contactPreference, Long customerId, Long locationId, Long vehicleId,
+                      Long serviceTypeId, String serviceName, Double basePrice) {
+        fill(id, startTime, endTime, fuelType, litersRequested, status, type, description, urgency,
+                contactPreference, customerId, locationId, vehicleId, serviceTypeId, serviceName, basePrice,
+                serviceTypeId != null);
+    }
 
-        this.id = b.getId();
-        this.startTime = b.getStartTime() != null ? b.getStartTime() : "";
-        this.endTime = b.getEndTime() != null ? b.getEndTime() : "";
-        this.fuelType = b.getFuelType() != null ? b.getFuelType() : "";
-        this.litersRequested = b.getLitersRequested();
-        this.status = b.getStatus() != null ? b.getStatus() : "UNKNOWN";
-        this.type = b.getType() != null ? b.getType() : "UNKNOWN";
-        this.description = b.getDescription() != null ? b.getDescription() : "";
-        this.urgency = b.getUrgency() != null ? b.getUrgency() : "";
-        this.contactPreference = b.getContactPreference() != null ? b.getContactPreference() : "";
-        this.customerId = b.getCustomerId();
-        this.locationId = b.getLocationId();
-        this.vehicleId = b.getVehicleId();
+    private void fill(Long id, LocalDateTime startTime, LocalDateTime endTime, String fuelType, Double litersRequested,
+                      BookingStatus status, BookingType type, String description, String urgency,
+                      String contactPreference, Long customerId, Long locationId, Long vehicleId,
+                      Long serviceTypeId, String serviceName, Double basePrice, boolean hasServiceType) {
+        this.id = id;
+        this.startTime = startTime != null ? BookingTimes.format(startTime) : "";
+        this.startDateTime = startTime;
+        this.endTime = endTime != null ? BookingTimes.format(endTime) : "";
+        this.fuelType = fuelType != null ? fuelType : "";
+        this.litersRequested = litersRequested;
+        this.status = status != null ? status.name() : "UNKNOWN";
+        this.type = type != null ? type.name() : "UNKNOWN";
+        this.description = description != null ? description : "";
+        this.urgency = urgency != null ? urgency : "";
+        this.contactPreference = contactPreference != null ? contactPreference : "";
+        this.customerId = customerId;
+        this.locationId = locationId;
+        this.vehicleId = vehicleId;
 
-        if (b.getServiceType() != null) {
-            this.serviceTypeId = b.getServiceType().getId();
-            this.serviceName = b.getServiceType().getName() != null ? b.getServiceType().getName() : "";
+        if (hasServiceType) {
+            this.serviceTypeId = serviceTypeId;
+            this.serviceName = serviceName != null ? serviceName : "";
         }
 
-        if ("SERVICE".equalsIgnoreCase(this.type) && b.getServiceType() != null) {
-            this.price = b.getServiceType().getBasePrice();
+        if (type == BookingType.SERVICE && hasServiceType) {
+            this.price = basePrice;
         } else {
             this.price = null;
         }
@@ -55,6 +95,7 @@ public class BookingDTO {
     // ---- Getters ----
     public Long getId() { return id; }
     public String getStartTime() { return startTime; }
+    public LocalDateTime getStartDateTime() { return startDateTime; }
     public String getEndTime() { return endTime; }
     public String getFuelType() { return fuelType; }
     public Double getLitersRequested() { return litersRequested; }
@@ -0,0 +1,51 @@
+package com.autofuellanka.systemmanager.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class LocationAvailabilityDTO {
+    private Long locationId;
+    private LocalDate date;
+    private int slotMinutes;
+    private int serviceBays;
+    private int fuelPumps;
+    private List<Slot> slots;
+
+    public Long getLocationId() { return locationId; }
+    public void setLocationId(Long locationId) { this.locationId = locationId; }
+
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public int getSlotMinutes() { return slotMinutes; }
+    public void setSlotMinutes(int slotMinutes) { this.slotMinutes = slotMinutes; }
+
+    public int getServiceBays() { return serviceBays; }
+    public void setServiceBays(int serviceBays) { this.serviceBays = serviceBays; }
+
+    public int getFuelPumps() { return fuelPumps; }
+    public void setFuelPumps(int fuelPumps) { this.fuelPumps = fuelPumps; }
+
+    public List<Slot> getSlots() { return slots; }
+    public void setSlots(List<Slot> slots) { this.slots = slots; }
+
+    /** One slot of the day ("HH:mm" to "HH:mm") with the bays and pumps still free in it */
+    public static class Slot {
+        private final String start;
+        private final String end;
+        private final int freeBays;
+        private final int freePumps;
+
+        public Slot(String start, String end, int freeBays, int freePumps) {
+            this.start = start;
+            this.end = end;
+            this.freeBays = freeBays;
+            this.freePumps = freePumps;
+        }
+
+        public String getStart() { return start; }
+        public String getEnd() { return end; }
+        public int getFreeBays() { return freeBays; }
+        public int getFreePumps() { return freePumps; }
+    }
+}
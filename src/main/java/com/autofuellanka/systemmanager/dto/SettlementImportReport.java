@@ -0,0 +1,62 @@
+package com.autofuellanka.systemmanager.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Outcome of a settlement file import, with one result per data line in file order */
+public class SettlementImportReport {
+
+    public enum RowStatus { IMPORTED, FAILED, DUPLICATE }
+
+    private int totalRows;
+    private int imported;
+    private int failed;
+    private int duplicates;
+    private double importedAmount;
+    private final List<RowResult> rows = new ArrayList<>();
+
+    public void add(RowResult row) {
+        rows.add(row);
+        totalRows++;
+        switch (row.getStatus()) {
+            case IMPORTED -> {
+                imported++;
+                importedAmount += row.getAmount();
+            }
+            case FAILED -> failed++;
+            case DUPLICATE -> duplicates++;
+        }
+    }
+
+    public int getTotalRows() { return totalRows; }
+    public int getImported() { return imported; }
+    public int getFailed() { return failed; }
+    public int getDuplicates() { return duplicates; }
+    public double getImportedAmount() { return importedAmount; }
+    public List<RowResult> getRows() { return rows; }
+
+    public static class RowResult {
+        private final long line;
+        private final Long invoiceId;
+        private final Double amount;
+        private final String reference;
+        private final RowStatus status;
+        private final String message;
+
+        public RowResult(long line, Long invoiceId, Double amount, String reference, RowStatus status, String message) {
+            this.line = line;
+            this.invoiceId = invoiceId;
+            this.amount = amount;
+            this.reference = reference;
+            this.status = status;
+            this.message = message;
+        }
+
+        public long getLine() { return line; }
+        public Long getInvoiceId() { return invoiceId; }
+        public Double getAmount() { return amount; }
+        public String getReference() { return reference; }
+        public RowStatus getStatus() { return status; }
+        public String getMessage() { return message; }
+    }
+}
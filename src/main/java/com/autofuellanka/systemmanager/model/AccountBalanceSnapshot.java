@@ -0,0 +1,52 @@
+package com.autofuellanka.systemmanager.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Closing balance of a ledger account at the end of a day
+@Entity
+@Table(name = "account_balance_snapshots",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_balance_snapshot_account_date", columnNames = {"account", "balance_date"})
+        })
+public class AccountBalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account", nullable = false, length = 50)
+    private String account;
+
+    @Column(name = "balance_date", nullable = false)
+    private LocalDate balanceDate;
+
+    @Column(name = "closing_balance", nullable = false)
+    private Double closingBalance = 0.0;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getAccount() { return account; }
+    public void setAccount(String account) { this.account = account; }
+
+    public LocalDate getBalanceDate() { return balanceDate; }
+    public void setBalanceDate(LocalDate balanceDate) { this.balanceDate = balanceDate; }
+
+    public Double getClosingBalance() { return closingBalance; }
+    public void setClosingBalance(Double closingBalance) { this.closingBalance = closingBalance; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
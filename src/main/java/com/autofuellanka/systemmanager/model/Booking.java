@@ -1,22 +1,54 @@
 package com.autofuellanka.systemmanager.model;
 
+import com.autofuellanka.systemmanager.service.availability.BookingAvailabilityListener;
+import com.autofuellanka.systemmanager.service.metrics.BookingCubeListener;
+import com.autofuellanka.systemmanager.service.metrics.DashboardMetricsListener;
+import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import jakarta.persistence.*;
 
+import java.time.LocalDateTime;
+
 @Entity
-@Table(name = "bookings")
+@EntityListeners({DashboardMetricsListener.class, BookingCubeListener.class, BookingAvailabilityListener.class})
+@Table(name = "bookings", indexes = {
+        // Day sheet / availability windows per location, and status-filtered date ranges
+        @Index(name = "idx_bookings_location_start", columnList = "location_id, start_time"),
+        @Index(name = "idx_bookings_status_start", columnList = "status, start_time"),
+        // Booking board: each filter seeks on (filter, start_time); InnoDB appends the id for the tie-break
+        @Index(name = "idx_bookings_customer_start", columnList = "customer_id, start_time"),
+        @Index(name = "idx_bookings_type_start", columnList = "type, start_time"),
+        @Index(name = "idx_bookings_start", columnList = "start_time")
+})
 public class Booking {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    private String startTime;
-    private String endTime;
+    @Column(name = "start_time")
+    @JsonFormat(pattern = BookingTimes.PATTERN)
+    @JsonDeserialize(using = BookingTimes.Deserializer.class)
+    private LocalDateTime startTime;
+
+    @Column(name = "end_time")
+    @JsonFormat(pattern = BookingTimes.PATTERN)
+    @JsonDeserialize(using = BookingTimes.Deserializer.class)
+    private LocalDateTime endTime;
+
     private String fuelType;
     private Double litersRequested;
-    private String status;
-    private String type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    @JsonFormat(with = JsonFormat.Feature.ACCEPT_CASE_INSENSITIVE_VALUES)
+    private BookingStatus status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    @JsonFormat(with = JsonFormat.Feature.ACCEPT_CASE_INSENSITIVE_VALUES)
+    private BookingType type;
     private String description;
     private String urgency;
     private String contactPreference;
@@ -49,11 +81,11 @@ public class Booking {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
-    public String getStartTime() { return startTime; }
-    public void setStartTime(String startTime) { this.startTime = startTime; }
+    public LocalDateTime getStartTime() { return startTime; }
+    public void setStartTime(LocalDateTime startTime) { this.startTime = startTime; }
 
-    public String getEndTime() { return endTime; }
-    public void setEndTime(String endTime) { this.endTime = endTime; }
+    public LocalDateTime getEndTime() { return endTime; }
+    public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
 
     public String getFuelType() { return fuelType; }
     public void setFuelType(String fuelType) { this.fuelType = fuelType; }
@@ -61,11 +93,11 @@ public class Booking {
     public Double getLitersRequested() { return litersRequested; }
     public void setLitersRequested(Double litersRequested) { this.litersRequested = litersRequested; }
 
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public BookingStatus getStatus() { return status; }
+    public void setStatus(BookingStatus status) { this.status = status; }
 
-    public String getType() { return type; }
-    public void setType(String type) { this.type = type; }
+    public BookingType getType() { return type; }
+    public void setType(BookingType type) { this.type = type; }
 
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
@@ -1,4 +1,20 @@
-
 package com.autofuellanka.systemmanager.model;
 
-public enum BookingStatus { PENDING, CONFIRMED, CANCELLED, COMPLETED }
+import java.util.Arrays;
+import java.util.Locale;
+
+public enum BookingStatus {
+    PENDING, CONFIRMED, IN_PROGRESS, COMPLETED, CANCELLED;
+
+    /** Case-insensitive; null for null or blank, IllegalArgumentException for unknown values */
+    public static BookingStatus from(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("status must be one of: " + Arrays.toString(values()));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.autofuellanka.systemmanager.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Booking start/end times on the wire. Clients send ISO ("2025-10-07T09:00:00") or the
+ * space-separated form the API has always returned ("2025-10-07 09:00:00"), with or without
+ * seconds; responses keep the space-separated form.
+ */
+public final class BookingTimes {
+
+    public static final String PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern(PATTERN);
+
+    private BookingTimes() { }
+
+    /** Null for null or blank input; IllegalArgumentException for anything unparseable */
+    public static LocalDateTime parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value.trim().replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date-time '" + value + "', expected " + PATTERN);
+        }
+    }
+
+    public static String format(LocalDateTime value) {
+        return value == null ? null : FORMAT.format(value);
+    }
+
+    /** Accepts both forms when a Booking is bound straight from a request body */
+    public static class Deserializer extends JsonDeserializer<LocalDateTime> {
+        @Override
+        public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            try {
+                return parse(parser.getValueAsString());
+            } catch (IllegalArgumentException e) {
+                return (LocalDateTime) context.handleWeirdStringValue(LocalDateTime.class, parser.getValueAsString(), e.getMessage());
+            }
+        }
+    }
+}
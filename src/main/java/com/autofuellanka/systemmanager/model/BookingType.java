@@ -1,4 +1,20 @@
-
 package com.autofuellanka.systemmanager.model;
 
-public enum BookingType { SERVICE, FUEL }
+import java.util.Arrays;
+import java.util.Locale;
+
+public enum BookingType {
+    SERVICE, FUEL;
+
+    /** Case-insensitive; null for null or blank, IllegalArgumentException for unknown values */
+    public static BookingType from(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("type must be one of: " + Arrays.toString(values()));
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.autofuellanka.systemmanager.model;
 
+import com.autofuellanka.systemmanager.service.metrics.DashboardMetricsListener;
 import jakarta.persistence.*;
 import org.hibernate.annotations.Where;
 
 @Entity
+@EntityListeners(DashboardMetricsListener.class)
 @Table(name = "users")
 @Where(clause = "role = 'CUSTOMER'") // limit this entity view to customers only
 public class Customer {
@@ -0,0 +1,46 @@
+package com.autofuellanka.systemmanager.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+// Rollup of payments per calendar day and payment method (refunds count as negative amounts, not as payments)
+@Entity
+@Table(name = "daily_revenue",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_daily_revenue_day_method", columnNames = {"revenue_date", "method"})
+        })
+public class DailyRevenue {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "revenue_date", nullable = false)
+    private LocalDate revenueDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "method", nullable = false, length = 20)
+    private PaymentMethod method;
+
+    @Column(name = "amount", nullable = false)
+    private Double amount = 0.0;
+
+    @Column(name = "payment_count", nullable = false)
+    private Long paymentCount = 0L;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public LocalDate getRevenueDate() { return revenueDate; }
+    public void setRevenueDate(LocalDate revenueDate) { this.revenueDate = revenueDate; }
+
+    public PaymentMethod getMethod() { return method; }
+    public void setMethod(PaymentMethod method) { this.method = method; }
+
+    public Double getAmount() { return amount; }
+    public void setAmount(Double amount) { this.amount = amount; }
+
+    public Long getPaymentCount() { return paymentCount; }
+    public void setPaymentCount(Long paymentCount) { this.paymentCount = paymentCount; }
+}
@@ -8,6 +8,7 @@ import java.time.LocalDateTime;
         indexes = {
                 @Index(name = "idx_ledger_date", columnList = "transaction_date"),
                 @Index(name = "idx_ledger_account", columnList = "account"),
+                @Index(name = "idx_ledger_account_date", columnList = "account, transaction_date"),
                 @Index(name = "idx_ledger_type", columnList = "transaction_type")
         })
 public class FinanceLedger {
@@ -0,0 +1,78 @@
+package com.autofuellanka.systemmanager.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Stored outcome of a POST sent with an Idempotency-Key header (see IdempotencyService)
+@Entity
+@Table(name = "idempotency_keys",
+        indexes = {
+                @Index(name = "idx_idempotency_expires", columnList = "expires_at")
+        })
+public class IdempotencyRecord {
+
+    // Endpoint scope plus the client's key, e.g. "POST /api/payments:7f9c..."
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String key;
+
+    // SHA-256 of the request body; reusing a key for a different request is refused
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    // False while the first request is still running
+    @Column(name = "completed", nullable = false)
+    private boolean completed;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "location", length = 255)
+    private String location;
+
+    @Column(name = "response_body", columnDefinition = "LONGTEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // For a running request: when another instance may take the key over; once completed: when it is purged
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+
+    public boolean isCompleted() { return completed; }
+    public void setCompleted(boolean completed) { this.completed = completed; }
+
+    public Integer getResponseStatus() { return responseStatus; }
+    public void setResponseStatus(Integer responseStatus) { this.responseStatus = responseStatus; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public String getLocation() { return location; }
+    public void setLocation(String location) { this.location = location; }
+
+    public String getResponseBody() { return responseBody; }
+    public void setResponseBody(String responseBody) { this.responseBody = responseBody; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -1,8 +1,10 @@
 package com.autofuellanka.systemmanager.model;
 
+import com.autofuellanka.systemmanager.service.metrics.DashboardMetricsListener;
 import jakarta.persistence.*;
 
 @Entity
+@EntityListeners(DashboardMetricsListener.class)
 @Table(name = "inventory_items",
         indexes = {
                 @Index(name = "idx_inventory_sku", columnList = "sku"),
@@ -1,11 +1,14 @@
 package com.autofuellanka.systemmanager.model;
 
+import com.autofuellanka.systemmanager.service.BillingSummaryInvalidationListener;
+import com.autofuellanka.systemmanager.service.invoice.InvoiceNumberListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@EntityListeners({InvoiceNumberListener.class, BillingSummaryInvalidationListener.class})
 @Table(name = "invoices",
         indexes = {
                 @Index(name = "idx_invoices_booking", columnList = "booking_id"),
@@ -52,6 +55,11 @@ public class Invoice {
     @Column(name = "notes", length = 500)
     private String notes;
 
+    // Optimistic lock; also bumped by the atomic payment/refund updates in InvoiceRepository
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     // Relationships
     @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
@@ -97,6 +105,7 @@ public class Invoice {
         }
     }
 
+    // Fallback when no InvoiceNumberListener is registered (e.g. outside Spring); not collision-safe
     private String generateInvoiceNumber() {
         return "INV-" + System.currentTimeMillis();
     }
@@ -105,6 +114,8 @@ public class Invoice {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
+    public long getVersion() { return version; }
+
     public String getInvoiceNumber() { return invoiceNumber; }
     public void setInvoiceNumber(String invoiceNumber) { this.invoiceNumber = invoiceNumber; }
 
@@ -0,0 +1,24 @@
+package com.autofuellanka.systemmanager.model;
+
+import jakarta.persistence.*;
+
+// High-water mark of one invoice number sequence; blocks are reserved from it by InvoiceNumberAllocator
+@Entity
+@Table(name = "invoice_number_sequences")
+public class InvoiceNumberSequence {
+
+    @Id
+    @Column(name = "seq_key", length = 40)
+    private String seqKey;
+
+    // First number not yet handed to any allocator
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+
+    // Getters and Setters
+    public String getSeqKey() { return seqKey; }
+    public void setSeqKey(String seqKey) { this.seqKey = seqKey; }
+
+    public Long getNextValue() { return nextValue; }
+    public void setNextValue(Long nextValue) { this.nextValue = nextValue; }
+}
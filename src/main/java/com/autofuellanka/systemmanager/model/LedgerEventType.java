@@ -0,0 +1,9 @@
+package com.autofuellanka.systemmanager.model;
+
+// Business events that expand into a debit/credit pair in finance_ledger (see LedgerOutboxService)
+public enum LedgerEventType {
+    INVOICE_ISSUED,       // DR ACCOUNTS_RECEIVABLE, CR REVENUE
+    FUEL_INVOICE_ISSUED,  // DR ACCOUNTS_RECEIVABLE, CR FUEL_REVENUE
+    PAYMENT_RECEIVED,     // DR payment method account, CR ACCOUNTS_RECEIVABLE
+    REFUND_ISSUED         // DR ACCOUNTS_RECEIVABLE, CR payment method account
+}
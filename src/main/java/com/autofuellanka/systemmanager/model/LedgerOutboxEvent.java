@@ -0,0 +1,77 @@
+package com.autofuellanka.systemmanager.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A ledger posting written in the business transaction and turned into finance_ledger rows by the poster
+@Entity
+@Table(name = "ledger_outbox")
+public class LedgerOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 30)
+    private LedgerEventType eventType;
+
+    // Always positive; the event type decides which side each account is on
+    @Column(name = "amount", nullable = false)
+    private Double amount;
+
+    // Payment method account for payments and refunds
+    @Column(name = "account", length = 50)
+    private String account;
+
+    @Column(name = "reference", length = 100)
+    private String reference;
+
+    @Column(name = "invoice_number", length = 50)
+    private String invoiceNumber;
+
+    @Column(name = "booking_id")
+    private Long bookingId;
+
+    // Becomes the ledger transaction date, so late posting does not move the entry to another day
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Column(name = "created_by", length = 50)
+    private String createdBy;
+
+    @PrePersist
+    protected void onCreate() {
+        if (occurredAt == null) {
+            occurredAt = LocalDateTime.now();
+        }
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public LedgerEventType getEventType() { return eventType; }
+    public void setEventType(LedgerEventType eventType) { this.eventType = eventType; }
+
+    public Double getAmount() { return amount; }
+    public void setAmount(Double amount) { this.amount = amount; }
+
+    public String getAccount() { return account; }
+    public void setAccount(String account) { this.account = account; }
+
+    public String getReference() { return reference; }
+    public void setReference(String reference) { this.reference = reference; }
+
+    public String getInvoiceNumber() { return invoiceNumber; }
+    public void setInvoiceNumber(String invoiceNumber) { this.invoiceNumber = invoiceNumber; }
+
+    public Long getBookingId() { return bookingId; }
+    public void setBookingId(Long bookingId) { this.bookingId = bookingId; }
+
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(LocalDateTime occurredAt) { this.occurredAt = occurredAt; }
+
+    public String getCreatedBy() { return createdBy; }
+    public void setCreatedBy(String createdBy) { this.createdBy = createdBy; }
+}
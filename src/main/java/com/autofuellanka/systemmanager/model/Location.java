@@ -1,10 +1,12 @@
 package com.autofuellanka.systemmanager.model;
 
+import com.autofuellanka.systemmanager.service.ReferenceDataInvalidationListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import java.util.Objects;
 
 @Entity
+@EntityListeners(ReferenceDataInvalidationListener.class)
 @Table(name = "locations")
 public class Location {
 
@@ -29,6 +31,13 @@ public class Location {
     @Column(name = "type", nullable = true, length = 32)
     private LocationType type;
 
+    // Concurrent SERVICE / FUEL bookings the location can take; null uses app.bookings.capacity.*
+    @Column(name = "service_bays")
+    private Integer serviceBays;
+
+    @Column(name = "fuel_pumps")
+    private Integer fuelPumps;
+
     protected Location() { }
 
     public Location(String name, String address, LocationType type) {
@@ -49,6 +58,12 @@ public class Location {
     public LocationType getType() { return type; }
     public void setType(LocationType type) { this.type = type; }
 
+    public Integer getServiceBays() { return serviceBays; }
+    public void setServiceBays(Integer serviceBays) { this.serviceBays = serviceBays; }
+
+    public Integer getFuelPumps() { return fuelPumps; }
+    public void setFuelPumps(Integer fuelPumps) { this.fuelPumps = fuelPumps; }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
         indexes = {
                 @Index(name = "idx_payments_invoice", columnList = "invoice_id"),
                 @Index(name = "idx_payments_method", columnList = "method"),
-                @Index(name = "idx_payments_date", columnList = "created_at")
+                @Index(name = "idx_payments_date", columnList = "created_at"),
+                @Index(name = "idx_payments_reference", columnList = "reference")
         })
 public class Payment {
 
@@ -0,0 +1,109 @@
+package com.autofuellanka.systemmanager.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One payment attempt, written before the gateway is called so an interrupted payment can be recovered
+@Entity
+@Table(name = "payment_authorizations",
+        indexes = {
+                @Index(name = "idx_payment_auth_status_updated", columnList = "status, updated_at"),
+                @Index(name = "idx_payment_auth_invoice", columnList = "invoice_id")
+        })
+public class PaymentAuthorization {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "invoice_id", nullable = false)
+    private Long invoiceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "method", nullable = false, length = 20)
+    private PaymentMethod method;
+
+    @Column(name = "amount", nullable = false)
+    private Double amount;
+
+    @Column(name = "reference", length = 100)
+    private String reference;
+
+    @Column(name = "notes", length = 500)
+    private String notes;
+
+    @Column(name = "created_by", length = 50)
+    private String createdBy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private PaymentAuthorizationStatus status = PaymentAuthorizationStatus.PENDING;
+
+    // Gateway transaction id, set once authorized
+    @Column(name = "transaction_id", length = 100)
+    private String transactionId;
+
+    // The payment written by the commit phase
+    @Column(name = "payment_id")
+    private Long paymentId;
+
+    @Column(name = "message", length = 500)
+    private String message;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getInvoiceId() { return invoiceId; }
+    public void setInvoiceId(Long invoiceId) { this.invoiceId = invoiceId; }
+
+    public PaymentMethod getMethod() { return method; }
+    public void setMethod(PaymentMethod method) { this.method = method; }
+
+    public Double getAmount() { return amount; }
+    public void setAmount(Double amount) { this.amount = amount; }
+
+    public String getReference() { return reference; }
+    public void setReference(String reference) { this.reference = reference; }
+
+    public String getNotes() { return notes; }
+    public void setNotes(String notes) { this.notes = notes; }
+
+    public String getCreatedBy() { return createdBy; }
+    public void setCreatedBy(String createdBy) { this.createdBy = createdBy; }
+
+    public PaymentAuthorizationStatus getStatus() { return status; }
+    public void setStatus(PaymentAuthorizationStatus status) { this.status = status; }
+
+    public String getTransactionId() { return transactionId; }
+    public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
+
+    public Long getPaymentId() { return paymentId; }
+    public void setPaymentId(Long paymentId) { this.paymentId = paymentId; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
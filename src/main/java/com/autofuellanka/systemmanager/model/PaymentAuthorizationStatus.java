@@ -0,0 +1,15 @@
+package com.autofuellanka.systemmanager.model;
+
+public enum PaymentAuthorizationStatus {
+    PENDING,     // Recorded, gateway call in progress
+    AUTHORIZED,  // Gateway approved, payment not yet applied to the invoice
+    COMMITTED,   // Payment, invoice and ledger written
+    DECLINED,    // Gateway refused the payment
+    REJECTED,    // Approved, but the invoice could no longer take it; void with the provider
+    EXPIRED;     // Gateway outcome unknown (crash or timeout); reconcile with the provider
+
+    /** No further transitions happen from this status */
+    public boolean isFinal() {
+        return this != PENDING && this != AUTHORIZED;
+    }
+}
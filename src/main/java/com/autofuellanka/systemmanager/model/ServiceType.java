@@ -1,8 +1,10 @@
 package com.autofuellanka.systemmanager.model;
 
+import com.autofuellanka.systemmanager.service.ReferenceDataInvalidationListener;
 import jakarta.persistence.*;
 
 @Entity
+@EntityListeners(ReferenceDataInvalidationListener.class)
 @Table(name = "service_types")
 public class ServiceType {
 
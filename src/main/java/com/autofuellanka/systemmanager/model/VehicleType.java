@@ -1,8 +1,10 @@
 package com.autofuellanka.systemmanager.model;
 
+import com.autofuellanka.systemmanager.service.metrics.DashboardMetricsListener;
 import jakarta.persistence.*;
 
 @Entity
+@EntityListeners(DashboardMetricsListener.class)
 @Table(name = "vehicle_types",
         indexes = {
                 @Index(name = "idx_vehicle_types_make_model", columnList = "make, model"),
@@ -0,0 +1,24 @@
+package com.autofuellanka.systemmanager.repository;
+
+import com.autofuellanka.systemmanager.model.AccountBalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface AccountBalanceSnapshotRepository extends JpaRepository<AccountBalanceSnapshot, Long> {
+
+    // Latest snapshot closing on or before the given day
+    Optional<AccountBalanceSnapshot> findTopByAccountAndBalanceDateLessThanEqualOrderByBalanceDateDesc(String account, LocalDate day);
+
+    Optional<AccountBalanceSnapshot> findByAccountAndBalanceDate(String account, LocalDate balanceDate);
+
+    // A back-dated entry shifts every closing balance from its day onwards
+    @Modifying
+    @Query("UPDATE AccountBalanceSnapshot s SET s.closingBalance = s.closingBalance + :delta " +
+           "WHERE s.account = :account AND s.balanceDate >= :day")
+    int shiftFrom(@Param("account") String account, @Param("day") LocalDate day, @Param("delta") double delta);
+}
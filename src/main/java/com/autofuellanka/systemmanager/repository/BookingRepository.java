@@ -1,12 +1,20 @@
 package com.autofuellanka.systemmanager.repository;
 
+import com.autofuellanka.systemmanager.dto.BookingDTO;
 import com.autofuellanka.systemmanager.model.Booking;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
@@ -23,19 +31,64 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     @Query("select b from Booking b left join fetch b.serviceType")
     List<Booking> findAllWithServiceType();
 
+    // Full list straight into DTOs (no managed entities); paged and filtered reads go through BookingBoardService
+    @Query("select new com.autofuellanka.systemmanager.dto.BookingDTO(b.id, b.startTime, b.endTime, b.fuelType, " +
+            "b.litersRequested, b.status, b.type, b.description, b.urgency, b.contactPreference, b.customerId, " +
+            "b.locationId, b.vehicleId, st.id, st.name, st.basePrice) " +
+            "from Booking b left join b.serviceType st")
+    List<BookingDTO> findAllAsDto();
+
     @Query("select b from Booking b left join fetch b.serviceType left join fetch b.customer")
     List<Booking> findAllWithServiceTypeAndCustomer();
 
+    // Forward-only stream for report exports (to-one fetch joins keep it one row per booking)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select b from Booking b left join fetch b.serviceType left join fetch b.customer order by b.id")
+    Stream<Booking> streamAllWithServiceTypeAndCustomer();
+
+    // Cube load: only the dimension columns, streamed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select b.id, b.startTime, b.locationId, b.serviceTypeId, b.status from Booking b")
+    Stream<Object[]> streamCubeRows();
+
+    // Availability index: bookings holding a slot at the location during [dayStart, dayEnd).
+    // Range scan on (location_id, start_time); bookings never span more than a week, so the lower bound keeps it tight
+    @Query("select b.id, b.startTime, b.endTime, b.type from Booking b where b.locationId = :locationId " +
+           "and b.startTime >= :earliestStart and b.startTime < :dayEnd and b.endTime > :dayStart " +
+           "and (b.status is null or b.status <> com.autofuellanka.systemmanager.model.BookingStatus.CANCELLED)")
+    List<Object[]> findSlotRowsForDay(@Param("locationId") Long locationId,
+                                      @Param("earliestStart") LocalDateTime earliestStart,
+                                      @Param("dayStart") LocalDateTime dayStart,
+                                      @Param("dayEnd") LocalDateTime dayEnd);
+
     @Query("select b from Booking b left join fetch b.serviceType where b.id = :id")
     Optional<Booking> findByIdWithServiceType(@Param("id") Long id);
 
     // Reporting queries
-    @Query("SELECT DATE(b.startTime) as bookingDate, COUNT(b) as count FROM Booking b WHERE b.status != 'CANCELLED' GROUP BY DATE(b.startTime) ORDER BY bookingDate DESC")
+    @Query("SELECT DATE(b.startTime) as bookingDate, COUNT(b) as count FROM Booking b WHERE b.status != com.autofuellanka.systemmanager.model.BookingStatus.CANCELLED GROUP BY DATE(b.startTime) ORDER BY bookingDate DESC")
     List<Object[]> getBookingsByDay();
 
-    @Query("SELECT l.name as locationName, COUNT(b) as count FROM Booking b JOIN Location l ON b.locationId = l.id WHERE b.status != 'CANCELLED' GROUP BY l.id, l.name ORDER BY count DESC")
+    @Query("SELECT l.name as locationName, COUNT(b) as count FROM Booking b JOIN Location l ON b.locationId = l.id WHERE b.status != com.autofuellanka.systemmanager.model.BookingStatus.CANCELLED GROUP BY l.id, l.name ORDER BY count DESC")
     List<Object[]> getBookingsByLocation();
 
-    @Query("SELECT st.name as serviceName, COUNT(b) as count, SUM(st.basePrice) as revenue FROM Booking b JOIN ServiceType st ON b.serviceTypeId = st.id WHERE b.status != 'CANCELLED' AND b.type = 'SERVICE' GROUP BY st.id, st.name ORDER BY count DESC")
+    @Query("SELECT st.name as serviceName, COUNT(b) as count, SUM(st.basePrice) as revenue FROM Booking b JOIN ServiceType st ON b.serviceTypeId = st.id WHERE b.status != com.autofuellanka.systemmanager.model.BookingStatus.CANCELLED AND b.type = com.autofuellanka.systemmanager.model.BookingType.SERVICE GROUP BY st.id, st.name ORDER BY count DESC")
     List<Object[]> getBookingsByServiceType();
+
+    // Columns the cube and availability index need to forget (or re-file) bookings removed in bulk
+    @Query("select b.id, b.startTime, b.locationId, b.serviceTypeId, b.status from Booking b where b.id in :ids")
+    List<Object[]> findRemovalRows(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Booking b where b.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = com.autofuellanka.systemmanager.model.BookingStatus.CANCELLED where b.id in :ids")
+    int cancelAllByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -2,13 +2,26 @@ package com.autofuellanka.systemmanager.repository;
 
 import com.autofuellanka.systemmanager.model.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
     Optional<Customer> findByEmail(String email);
     List<Customer> findByEnabled(Boolean enabled);
     List<Customer> findByEmailContainingIgnoreCase(String emailPart);
     List<Customer> findByPhoneContainingIgnoreCase(String phonePart);
+
+    // Forward-only stream of all customers for report exports
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Customer c ORDER BY c.id")
+    Stream<Customer> streamAll();
 }
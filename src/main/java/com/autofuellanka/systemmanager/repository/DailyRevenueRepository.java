@@ -0,0 +1,47 @@
+package com.autofuellanka.systemmanager.repository;
+
+import com.autofuellanka.systemmanager.model.DailyRevenue;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface DailyRevenueRepository extends JpaRepository<DailyRevenue, Long> {
+
+    // Add to a day/method bucket, creating it on first use (single atomic statement)
+    @Modifying
+    @Query(value = "INSERT INTO daily_revenue (revenue_date, method, amount, payment_count) " +
+                   "VALUES (:day, :method, :amount, :count) " +
+                   "ON DUPLICATE KEY UPDATE amount = amount + VALUES(amount), " +
+                   "payment_count = payment_count + VALUES(payment_count)",
+           nativeQuery = true)
+    int addToDay(@Param("day") LocalDate day,
+                 @Param("method") String method,
+                 @Param("amount") double amount,
+                 @Param("count") long count);
+
+    // Daily totals across all methods, oldest first
+    @Query("SELECT d.revenueDate, SUM(d.amount) FROM DailyRevenue d " +
+           "WHERE d.revenueDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY d.revenueDate ORDER BY d.revenueDate ASC")
+    List<Object[]> getDailyTotals(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Backfill: drop the buckets of a date range ...
+    @Modifying
+    @Query("DELETE FROM DailyRevenue d WHERE d.revenueDate >= :fromDay AND d.revenueDate < :toDay")
+    int deleteRange(@Param("fromDay") LocalDate fromDay, @Param("toDay") LocalDate toDay);
+
+    // ... and rebuild them from raw payments with an index range scan on payments.created_at (refunds are not counted)
+    @Modifying
+    @Query(value = "INSERT INTO daily_revenue (revenue_date, method, amount, payment_count) " +
+                   "SELECT CAST(p.created_at AS DATE), p.method, SUM(p.amount), " +
+                   "SUM(CASE WHEN p.amount > 0 THEN 1 ELSE 0 END) FROM payments p " +
+                   "WHERE p.created_at >= :fromTime AND p.created_at < :toTime " +
+                   "GROUP BY CAST(p.created_at AS DATE), p.method",
+           nativeQuery = true)
+    int rebuildRange(@Param("fromTime") LocalDateTime fromTime, @Param("toTime") LocalDateTime toTime);
+}
@@ -2,10 +2,12 @@ package com.autofuellanka.systemmanager.repository;
 
 import com.autofuellanka.systemmanager.model.Feedback;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -42,4 +44,9 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
     // Get average rating
     @Query("SELECT AVG(f.rating) FROM Feedback f")
     Double getAverageRating();
+
+    // Detach feedback from bookings about to be deleted; one statement per batch of ids
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Feedback f SET f.booking = null WHERE f.booking.id IN :bookingIds")
+    int detachBookings(@Param("bookingIds") Collection<Long> bookingIds);
 }
@@ -2,16 +2,16 @@ package com.autofuellanka.systemmanager.repository;
 
 import com.autofuellanka.systemmanager.model.FinanceLedger;
 import com.autofuellanka.systemmanager.model.TransactionType;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
-public interface FinanceLedgerRepository extends JpaRepository<FinanceLedger, Long> {
+public interface FinanceLedgerRepository extends JpaRepository<FinanceLedger, Long>, JpaSpecificationExecutor<FinanceLedger> {
     
     // Find by date range
     @Query("SELECT fl FROM FinanceLedger fl WHERE fl.transactionDate BETWEEN :startDate AND :endDate ORDER BY fl.transactionDate DESC")
@@ -29,8 +29,28 @@ public interface FinanceLedgerRepository extends JpaRepository<FinanceLedger, Lo
                                                   @Param("startDate") LocalDateTime startDate, 
                                                   @Param("endDate") LocalDateTime endDate);
     
-    // Get ledger with pagination
-    Page<FinanceLedger> findAllByOrderByTransactionDateDesc(Pageable pageable);
+    // Keyset export: first page in (transactionDate, id) order, optional filters
+    @Query("SELECT fl FROM FinanceLedger fl WHERE (:account IS NULL OR fl.account = :account) " +
+           "AND (:startDate IS NULL OR fl.transactionDate >= :startDate) " +
+           "AND (:endDate IS NULL OR fl.transactionDate <= :endDate) " +
+           "ORDER BY fl.transactionDate ASC, fl.id ASC")
+    List<FinanceLedger> findExportFirstPage(@Param("account") String account,
+                                            @Param("startDate") LocalDateTime startDate,
+                                            @Param("endDate") LocalDateTime endDate,
+                                            Pageable pageable);
+
+    // Keyset export: next page strictly after (afterDate, afterId)
+    @Query("SELECT fl FROM FinanceLedger fl WHERE (:account IS NULL OR fl.account = :account) " +
+           "AND (:startDate IS NULL OR fl.transactionDate >= :startDate) " +
+           "AND (:endDate IS NULL OR fl.transactionDate <= :endDate) " +
+           "AND (fl.transactionDate > :afterDate OR (fl.transactionDate = :afterDate AND fl.id > :afterId)) " +
+           "ORDER BY fl.transactionDate ASC, fl.id ASC")
+    List<FinanceLedger> findExportPageAfter(@Param("account") String account,
+                                            @Param("startDate") LocalDateTime startDate,
+                                            @Param("endDate") LocalDateTime endDate,
+                                            @Param("afterDate") LocalDateTime afterDate,
+                                            @Param("afterId") Long afterId,
+                                            Pageable pageable);
     
     // Get distinct accounts
     @Query("SELECT DISTINCT fl.account FROM FinanceLedger fl ORDER BY fl.account")
@@ -45,6 +65,20 @@ public interface FinanceLedgerRepository extends JpaRepository<FinanceLedger, Lo
            "ELSE (CASE WHEN fl.transactionType = 'CREDIT' THEN fl.amount ELSE -fl.amount END) " +
            "END), 0) FROM FinanceLedger fl WHERE fl.account = :account")
     Double getAccountBalance(@Param("account") String account);
+
+    // Same balance rule, limited to [fromDate, untilDate) - either bound may be null
+    @Query("SELECT COALESCE(SUM(CASE " +
+           "WHEN fl.account IN ('CASH', 'CARD_PAYMENTS', 'ONLINE_PAYMENTS', 'ACCOUNTS_RECEIVABLE') " +
+           "THEN (CASE WHEN fl.transactionType = 'CREDIT' THEN fl.amount ELSE -fl.amount END) " +
+           "WHEN fl.account = 'INVENTORY' " +
+           "THEN (CASE WHEN fl.transactionType = 'DEBIT' THEN fl.amount ELSE -fl.amount END) " +
+           "ELSE (CASE WHEN fl.transactionType = 'CREDIT' THEN fl.amount ELSE -fl.amount END) " +
+           "END), 0) FROM FinanceLedger fl WHERE fl.account = :account " +
+           "AND (:fromDate IS NULL OR fl.transactionDate >= :fromDate) " +
+           "AND (:untilDate IS NULL OR fl.transactionDate < :untilDate)")
+    Double getAccountBalanceChange(@Param("account") String account,
+                                   @Param("fromDate") LocalDateTime fromDate,
+                                   @Param("untilDate") LocalDateTime untilDate);
     
     // Get total debits by account and date range
     @Query("SELECT COALESCE(SUM(fl.amount), 0) FROM FinanceLedger fl WHERE fl.account = :account AND fl.transactionType = 'DEBIT' AND fl.transactionDate BETWEEN :startDate AND :endDate")
@@ -0,0 +1,53 @@
+package com.autofuellanka.systemmanager.repository;
+
+import com.autofuellanka.systemmanager.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Plain INSERT, so a key another request already holds fails with a duplicate key instead of being merged over
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, request_hash, completed, created_at, expires_at) " +
+                   "VALUES (:key, :requestHash, false, :now, :expiresAt)",
+           nativeQuery = true)
+    int claim(@Param("key") String key,
+              @Param("requestHash") String requestHash,
+              @Param("now") LocalDateTime now,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.completed = true, r.responseStatus = :status, " +
+           "r.contentType = :contentType, r.location = :location, r.responseBody = :body, r.expiresAt = :expiresAt " +
+           "WHERE r.key = :key AND r.completed = false")
+    int complete(@Param("key") String key,
+                 @Param("status") int status,
+                 @Param("contentType") String contentType,
+                 @Param("location") String location,
+                 @Param("body") String body,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Free a key that expired, or whose first request never finished (crashed instance), so a retry can claim it
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.expiresAt < :now")
+    int releaseExpired(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    // Drop a claim whose request failed, so the client can retry with the same key
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.completed = false")
+    int release(@Param("key") String key);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.completed = true AND r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -4,9 +4,13 @@ import com.autofuellanka.systemmanager.model.InventoryItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface InventoryRepository extends JpaRepository<InventoryItem, Long> {
     
@@ -15,10 +19,24 @@ public interface InventoryRepository extends JpaRepository<InventoryItem, Long>
     
     // Find active items
     List<InventoryItem> findByIsActiveTrue();
+
+    // Forward-only stream of active items for report exports
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT i FROM InventoryItem i WHERE i.isActive = true ORDER BY i.id")
+    Stream<InventoryItem> streamActiveItems();
     
     // Find items that need reorder
     @Query("SELECT i FROM InventoryItem i WHERE i.isActive = true AND i.onHand <= i.minQty")
     List<InventoryItem> findItemsNeedingReorder();
+
+    // Counts for the dashboard (no entity hydration)
+    long countByIsActiveTrue();
+
+    @Query("SELECT COUNT(i) FROM InventoryItem i WHERE i.isActive = true AND i.onHand <= i.minQty")
+    long countItemsNeedingReorder();
     
     // Find by category
     List<InventoryItem> findByCategoryAndIsActiveTrue(String category);
@@ -5,15 +5,44 @@ import com.autofuellanka.systemmanager.model.InvoiceStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
 
+    // Apply a payment in one conditional statement; 0 rows means the invoice is missing or the payment would overpay it.
+    // Status is assigned first so it sees the old balance whatever order the database evaluates SET clauses in.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Invoice i SET " +
+           "i.status = CASE WHEN i.balance - :amount <= 0 " +
+           "THEN com.autofuellanka.systemmanager.model.InvoiceStatus.PAID " +
+           "ELSE com.autofuellanka.systemmanager.model.InvoiceStatus.PARTIAL END, " +
+           "i.paidAmount = i.paidAmount + :amount, " +
+           "i.balance = i.balance - :amount, " +
+           "i.version = i.version + 1 " +
+           "WHERE i.id = :id AND i.balance >= :amount")
+    int applyPayment(@Param("id") Long id, @Param("amount") double amount);
+
+    // Refund counterpart: 0 rows means the invoice is missing or the refund exceeds what was paid
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Invoice i SET " +
+           "i.status = CASE WHEN i.balance + :amount <= 0 " +
+           "THEN com.autofuellanka.systemmanager.model.InvoiceStatus.PAID " +
+           "WHEN i.paidAmount - :amount > 0 " +
+           "THEN com.autofuellanka.systemmanager.model.InvoiceStatus.PARTIAL " +
+           "ELSE com.autofuellanka.systemmanager.model.InvoiceStatus.UNPAID END, " +
+           "i.paidAmount = i.paidAmount - :amount, " +
+           "i.balance = i.balance + :amount, " +
+           "i.version = i.version + 1 " +
+           "WHERE i.id = :id AND i.paidAmount >= :amount")
+    int applyRefund(@Param("id") Long id, @Param("amount") double amount);
+
     // Find by invoice number
     Optional<Invoice> findByInvoiceNumber(String invoiceNumber);
 
@@ -27,6 +56,12 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     @Query("SELECT i FROM Invoice i WHERE i.createdAt BETWEEN :startDate AND :endDate ORDER BY i.createdAt DESC")
     List<Invoice> findByDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
+    // Ids for the bulk PDF export, oldest first; half-open range on created_at so it uses idx_invoices_date
+    @Query("SELECT i.id FROM Invoice i WHERE i.createdAt >= :from AND i.createdAt < :to " +
+           "AND (:status IS NULL OR i.status = :status) ORDER BY i.createdAt ASC, i.id ASC")
+    List<Long> findIdsForExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                @Param("status") InvoiceStatus status, Pageable limit);
+
     // Find unpaid invoices
     @Query("SELECT i FROM Invoice i WHERE i.status IN ('UNPAID', 'PARTIAL') ORDER BY i.createdAt ASC")
     List<Invoice> findUnpaidInvoices();
@@ -54,5 +89,26 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     @Query("SELECT COALESCE(SUM(i.balance), 0) FROM Invoice i WHERE i.status IN ('UNPAID', 'PARTIAL')")
     Double getTotalOutstandingBalance();
 
-
-}
\ No newline at end of file
+    // All billing summary figures in a single aggregate pass
+    @Query("SELECT COUNT(i) AS totalInvoices, " +
+           "COALESCE(SUM(CASE WHEN i.status IN ('UNPAID', 'PARTIAL') THEN 1 ELSE 0 END), 0) AS unpaidInvoices, " +
+           "COALESCE(SUM(CASE WHEN i.status IN ('UNPAID', 'PARTIAL') AND i.dueDate < :currentDate THEN 1 ELSE 0 END), 0) AS overdueInvoices, " +
+           "COALESCE(SUM(CASE WHEN i.status IN ('UNPAID', 'PARTIAL') THEN i.balance ELSE 0.0 END), 0.0) AS totalOutstanding, " +
+           "COALESCE(SUM(CASE WHEN i.createdAt BETWEEN :monthStart AND :currentDate THEN i.paidAmount ELSE 0.0 END), 0.0) AS monthlyRevenue " +
+           "FROM Invoice i")
+    BillingTotals getBillingTotals(@Param("currentDate") LocalDateTime currentDate,
+                                   @Param("monthStart") LocalDateTime monthStart);
+
+    interface BillingTotals {
+        Long getTotalInvoices();
+        Long getUnpaidInvoices();
+        Long getOverdueInvoices();
+        Double getTotalOutstanding();
+        Double getMonthlyRevenue();
+    }
+
+    // Detach invoices from bookings about to be deleted; bumps the version like the other bulk updates
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Invoice i SET i.bookingId = null, i.version = i.version + 1 WHERE i.bookingId IN :bookingIds")
+    int detachBookings(@Param("bookingIds") Collection<Long> bookingIds);
+}
@@ -3,7 +3,11 @@ package com.autofuellanka.systemmanager.repository;
 import com.autofuellanka.systemmanager.model.Job;
 import com.autofuellanka.systemmanager.model.JobStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface JobRepository extends JpaRepository<Job, Long> {
@@ -16,6 +20,8 @@ public interface JobRepository extends JpaRepository<Job, Long> {
 
     boolean existsByTechnicianIdAndStatusIn(Long technicianId, List<JobStatus> statuses);
 
-
+    // Detach jobs from bookings about to be deleted; one statement per batch of ids
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Job j SET j.booking = null WHERE j.booking.id IN :bookingIds")
+    int detachBookings(@Param("bookingIds") Collection<Long> bookingIds);
 }
-
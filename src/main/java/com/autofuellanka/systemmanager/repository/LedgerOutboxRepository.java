@@ -0,0 +1,18 @@
+package com.autofuellanka.systemmanager.repository;
+
+import com.autofuellanka.systemmanager.model.LedgerOutboxEvent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface LedgerOutboxRepository extends JpaRepository<LedgerOutboxEvent, Long> {
+
+    // Oldest events first, locked so a second poster (another instance) waits instead of posting them twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM LedgerOutboxEvent e ORDER BY e.id")
+    List<LedgerOutboxEvent> lockOldest(Pageable pageable);
+}
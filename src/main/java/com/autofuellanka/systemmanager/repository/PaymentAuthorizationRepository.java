@@ -0,0 +1,41 @@
+package com.autofuellanka.systemmanager.repository;
+
+import com.autofuellanka.systemmanager.model.PaymentAuthorization;
+import com.autofuellanka.systemmanager.model.PaymentAuthorizationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PaymentAuthorizationRepository extends JpaRepository<PaymentAuthorization, Long> {
+
+    // Attempts stuck in a state since before the cutoff, oldest first (recovery)
+    List<PaymentAuthorization> findByStatusAndUpdatedAtBeforeOrderByUpdatedAtAsc(PaymentAuthorizationStatus status,
+                                                                                LocalDateTime cutoff);
+
+    // Compare-and-set on the status; 0 rows means another thread or the recovery job moved it first
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PaymentAuthorization a SET a.status = :to, a.message = :message, a.updatedAt = :now " +
+           "WHERE a.id = :id AND a.status = :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") PaymentAuthorizationStatus from,
+                   @Param("to") PaymentAuthorizationStatus to,
+                   @Param("message") String message,
+                   @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PaymentAuthorization a SET " +
+           "a.status = com.autofuellanka.systemmanager.model.PaymentAuthorizationStatus.AUTHORIZED, " +
+           "a.transactionId = :transactionId, a.message = :message, a.updatedAt = :now " +
+           "WHERE a.id = :id AND a.status = com.autofuellanka.systemmanager.model.PaymentAuthorizationStatus.PENDING")
+    int authorize(@Param("id") Long id,
+                  @Param("transactionId") String transactionId,
+                  @Param("message") String message,
+                  @Param("now") LocalDateTime now);
+}
@@ -2,6 +2,8 @@ package com.autofuellanka.systemmanager.repository;
 
 import com.autofuellanka.systemmanager.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 import java.util.List;
@@ -13,4 +15,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmailAndPassword(String email, String password);
 
     List<User> findByRoleIgnoreCase(String role);
+
+    // Booking validation in one round trip: [customerId, vehicleId, vehicle owner]; no row when the customer is missing,
+    // null vehicle columns when the vehicle is
+    @Query("select u.id, v.id, v.customerId from User u left join Vehicle v on v.id = :vehicleId where u.id = :customerId")
+    List<Object[]> findBookingParties(@Param("customerId") Long customerId, @Param("vehicleId") Long vehicleId);
 }
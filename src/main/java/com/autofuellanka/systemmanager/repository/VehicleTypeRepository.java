@@ -4,13 +4,28 @@ import com.autofuellanka.systemmanager.model.VehicleType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface VehicleTypeRepository extends JpaRepository<VehicleType, Long> {
     
     // Find active vehicle types
     List<VehicleType> findByIsActiveTrue();
+
+    // Count active vehicle types (dashboard)
+    long countByIsActiveTrue();
+
+    // Forward-only stream of active vehicle types for report exports
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT vt FROM VehicleType vt WHERE vt.isActive = true ORDER BY vt.id")
+    Stream<VehicleType> streamActiveVehicleTypes();
     
     // Find by make
     List<VehicleType> findByMakeAndIsActiveTrue(String make);
@@ -40,6 +40,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/vehicle-types/**").permitAll()
                         .requestMatchers("/api/locations/**").permitAll()
                         .requestMatchers("/api/reports/**").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/billing/revenue/daily/rebuild").hasAnyAuthority("ROLE_FINANCE", "ROLE_ADMIN")
                         .requestMatchers("/api/billing/**").permitAll()
                         .requestMatchers("/api/payments/**").permitAll()
                         .requestMatchers("/api/finance/**").hasAnyAuthority("ROLE_FINANCE", "ROLE_ADMIN")
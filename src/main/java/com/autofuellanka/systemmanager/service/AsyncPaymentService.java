@@ -0,0 +1,205 @@
+package com.autofuellanka.systemmanager.service;
+
+import com.autofuellanka.systemmanager.model.PaymentAuthorization;
+import com.autofuellanka.systemmanager.model.PaymentAuthorizationStatus;
+import com.autofuellanka.systemmanager.model.PaymentMethod;
+import com.autofuellanka.systemmanager.repository.PaymentAuthorizationRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Authorizes payments against remote gateways off the request thread.
+ * The request records a PENDING attempt (see PaymentAuthorizationService) and returns 202;
+ * a worker then runs the gateway call and the commit phase. Each payment method gets its own
+ * bounded pool (bulkhead), so a slow provider can only exhaust its own workers, and a watchdog
+ * expires attempts that take longer than the timeout. Clients poll the attempt or subscribe
+ * to it with server-sent events.
+ */
+@Service
+public class AsyncPaymentService {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncPaymentService.class);
+
+    private final PaymentAuthorizationService paymentAuthorizationService;
+    private final PaymentAuthorizationRepository authorizationRepository;
+    private final long timeoutMillis;
+    private final long sseTimeoutMillis;
+
+    private final Map<PaymentMethod, ThreadPoolExecutor> bulkheads = new EnumMap<>(PaymentMethod.class);
+    private final ScheduledThreadPoolExecutor watchdog;
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    public AsyncPaymentService(PaymentAuthorizationService paymentAuthorizationService,
+                               PaymentAuthorizationRepository authorizationRepository,
+                               @Value("${app.payments.async.workers-per-method:4}") int workersPerMethod,
+                               @Value("${app.payments.async.queue-capacity:50}") int queueCapacity,
+                               @Value("${app.payments.async.timeout-ms:10000}") long timeoutMillis,
+                               @Value("${app.payments.async.sse-timeout-ms:60000}") long sseTimeoutMillis) {
+        this.paymentAuthorizationService = paymentAuthorizationService;
+        this.authorizationRepository = authorizationRepository;
+        this.timeoutMillis = timeoutMillis;
+        this.sseTimeoutMillis = sseTimeoutMillis;
+
+        for (PaymentMethod method : PaymentMethod.values()) {
+            AtomicInteger threadCount = new AtomicInteger();
+            String prefix = "payment-" + method.name().toLowerCase() + "-";
+            bulkheads.put(method, new ThreadPoolExecutor(workersPerMethod, workersPerMethod, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy()));
+        }
+        this.watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "payment-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchdog.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Record a payment attempt and queue its authorization. When called inside a transaction the
+     * attempt is only handed to a worker after commit, so the worker always sees the rows it needs.
+     */
+    public PaymentAuthorization submit(Long invoiceId, Double amount, PaymentMethod method,
+                                       String reference, String notes, String createdBy) {
+        if (isSaturated(method)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Payment gateway for " + method + " is busy, try again later");
+        }
+        PaymentAuthorization attempt = paymentAuthorizationService.begin(invoiceId, amount, method, reference, notes, createdBy);
+        Long attemptId = attempt.getId();
+
+        TransactionCallbacks.afterCommit(() -> dispatch(attemptId, method));
+        return attempt;
+    }
+
+    /** Cheap early check; the bulkhead still has the final say when an attempt is dispatched */
+    public boolean isSaturated(PaymentMethod method) {
+        return bulkheads.get(method).getQueue().remainingCapacity() == 0;
+    }
+
+    public Optional<PaymentAuthorization> find(Long attemptId) {
+        return authorizationRepository.findById(attemptId);
+    }
+
+    /** Stream the attempt's status; the emitter completes once the attempt reaches a final status */
+    public SseEmitter subscribe(Long attemptId) {
+        find(attemptId).orElseThrow(() ->
+                new ResponseStatusException(HttpStatus.NOT_FOUND, "Payment attempt not found: " + attemptId));
+
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        subscribers.computeIfAbsent(attemptId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+        Runnable unsubscribe = () -> subscribers.computeIfPresent(attemptId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+
+        // The attempt may have finished before this subscriber registered
+        publish(attemptId);
+        return emitter;
+    }
+
+    private void dispatch(Long attemptId, PaymentMethod method) {
+        Future<?> task;
+        try {
+            task = bulkheads.get(method).submit(() -> process(attemptId));
+        } catch (RejectedExecutionException e) {
+            // Off this thread: inside afterCommit a repository call would join the finished transaction
+            watchdog.execute(() -> {
+                authorizationRepository.transition(attemptId, PaymentAuthorizationStatus.PENDING,
+                        PaymentAuthorizationStatus.DECLINED, "Payment gateway busy", LocalDateTime.now());
+                publish(attemptId);
+            });
+            return;
+        }
+        watchdog.schedule(() -> expireIfPending(attemptId, task), timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void process(Long attemptId) {
+        try {
+            PaymentAuthorization attempt = authorizationRepository.findById(attemptId).orElse(null);
+            // Expired while queued: the gateway was never called
+            if (attempt == null || attempt.getStatus() != PaymentAuthorizationStatus.PENDING) {
+                return;
+            }
+            paymentAuthorizationService.authorize(attempt);
+            paymentAuthorizationService.commit(attemptId);
+        } catch (RuntimeException e) {
+            // The outcome is recorded on the attempt; callers read it from there
+            log.debug("Payment attempt {} did not complete: {}", attemptId, e.getMessage());
+        } finally {
+            publish(attemptId);
+        }
+    }
+
+    // Only a gateway call is cut short; an attempt already in its commit phase is left to finish
+    private void expireIfPending(Long attemptId, Future<?> task) {
+        if (task.isDone()) {
+            return;
+        }
+        if (authorizationRepository.transition(attemptId, PaymentAuthorizationStatus.PENDING,
+                PaymentAuthorizationStatus.EXPIRED, "Payment gateway timed out", LocalDateTime.now()) > 0) {
+            task.cancel(true);
+            log.warn("Payment attempt {} timed out after {} ms; reconcile with the provider", attemptId, timeoutMillis);
+            publish(attemptId);
+        }
+    }
+
+    private void publish(Long attemptId) {
+        if (!subscribers.containsKey(attemptId)) {
+            return;
+        }
+        PaymentAuthorization attempt = authorizationRepository.findById(attemptId).orElse(null);
+        if (attempt == null || !attempt.getStatus().isFinal()) {
+            return;
+        }
+        // Removing the list first guarantees each subscriber receives the final status once
+        List<SseEmitter> emitters = subscribers.remove(attemptId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name("status").data(attempt));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        bulkheads.values().forEach(ThreadPoolExecutor::shutdownNow);
+    }
+}
@@ -2,8 +2,8 @@ package com.autofuellanka.systemmanager.service;
 
 import com.autofuellanka.systemmanager.model.*;
 import com.autofuellanka.systemmanager.repository.*;
+import com.autofuellanka.systemmanager.service.finance.LedgerOutboxService;
 import com.autofuellanka.systemmanager.service.payment.PaymentProcessor;
-import com.autofuellanka.systemmanager.service.payment.PaymentProcessingResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,7 +22,7 @@ public class BillingService {
     private PaymentRepository paymentRepository;
 
     @Autowired
-    private FinanceLedgerRepository financeLedgerRepository;
+    private LedgerOutboxService ledgerOutboxService;
 
     @Autowired
     private BookingRepository bookingRepository;
@@ -39,6 +39,18 @@ public class BillingService {
     @Autowired
     private PaymentProcessor paymentProcessor;
 
+    @Autowired
+    private DailyRevenueService dailyRevenueService;
+
+    @Autowired
+    private BillingSummaryService billingSummaryService;
+
+    @Autowired
+    private PaymentAuthorizationRepository paymentAuthorizationRepository;
+
+    @Autowired
+    private com.autofuellanka.systemmanager.service.invoice.InvoicePdfCache invoicePdfCache;
+
 
     public Invoice createInvoiceFromBooking(Long bookingId) {
         return bookingInvoiceWorkflow.process(bookingId);
@@ -52,50 +64,55 @@ public class BillingService {
 
     private void calculateInvoiceTotals(Invoice invoice) { }
 
-    public Payment recordPayment(Long invoiceId, Double amount, PaymentMethod method, 
-                               String reference, String notes, String createdBy) {
-        Invoice invoice = invoiceRepository.findById(invoiceId)
-                .orElseThrow(() -> new IllegalArgumentException("Invoice not found: " + invoiceId));
-
-        if (amount <= 0) {
-            throw new IllegalArgumentException("Payment amount must be positive");
+    /**
+     * Commit phase of a payment (see PaymentAuthorizationService): apply an authorized payment to its
+     * invoice and write the payment and ledger entries, all in one short transaction with no gateway call.
+     * The invoice is updated with one conditional UPDATE (InvoiceRepository.applyPayment) rather than
+     * read-modify-write, so concurrent payments can neither overpay the invoice nor overwrite each other.
+     * The invoice row is locked before the payment row is inserted, avoiding the lock upgrade the
+     * payment's foreign key check would otherwise cause.
+     * Safe to call twice for the same authorization: the second call returns the committed payment.
+     */
+    public Payment applyAuthorizedPayment(Long authorizationId) {
+        // Claim first, so a concurrent commit of the same authorization waits here and then sees it committed
+        int claimed = paymentAuthorizationRepository.transition(authorizationId,
+                PaymentAuthorizationStatus.AUTHORIZED, PaymentAuthorizationStatus.COMMITTED, null, LocalDateTime.now());
+        PaymentAuthorization authorization = paymentAuthorizationRepository.findById(authorizationId)
+                .orElseThrow(() -> new IllegalArgumentException("Payment authorization not found: " + authorizationId));
+        if (claimed == 0) {
+            if (authorization.getStatus() == PaymentAuthorizationStatus.COMMITTED && authorization.getPaymentId() != null) {
+                return paymentRepository.findById(authorization.getPaymentId()).orElseThrow();
+            }
+            throw new IllegalStateException("Payment authorization " + authorizationId + " is " + authorization.getStatus());
         }
 
-        if (amount > invoice.getBalance()) {
+        // Update invoice atomically; a concurrent payment may have used up the balance since authorization
+        Long invoiceId = authorization.getInvoiceId();
+        if (invoiceRepository.applyPayment(invoiceId, authorization.getAmount()) == 0) {
             throw new IllegalArgumentException("Payment amount cannot exceed invoice balance");
         }
+        billingSummaryService.invalidateAfterCommit();
+        invoicePdfCache.evictAfterCommit(invoiceId);
 
-        // Create payment
         Payment payment = new Payment();
-        payment.setInvoice(invoice);
-        payment.setMethod(method);
-        payment.setAmount(amount);
-        payment.setReference(reference);
-        payment.setNotes(notes);
-        payment.setCreatedBy(createdBy);
-
-        // Use Strategy Pattern to process payment
-        PaymentProcessingResult processingResult = paymentProcessor.processPayment(payment);
-        
-        if (!processingResult.isSuccess()) {
-            throw new IllegalArgumentException("Payment processing failed: " + processingResult.getMessage());
-        }
-
-        // Update payment with transaction ID if available
-        if (processingResult.getTransactionId() != null) {
-            payment.setReference(processingResult.getTransactionId());
-        }
+        payment.setInvoice(reloadInvoice(invoiceId));
+        payment.setMethod(authorization.getMethod());
+        payment.setAmount(authorization.getAmount());
+        // Keep the gateway transaction id as the reference when there is one
+        payment.setReference(authorization.getTransactionId() != null
+                ? authorization.getTransactionId() : authorization.getReference());
+        payment.setNotes(authorization.getNotes());
+        payment.setCreatedBy(authorization.getCreatedBy());
 
         Payment savedPayment = paymentRepository.save(payment);
-
-        // Update invoice
-        invoice.setPaidAmount(invoice.getPaidAmount() + amount);
-        invoice.calculateBalance();
-        invoiceRepository.save(invoice);
+        dailyRevenueService.record(savedPayment);
 
         // Create ledger entries using strategy-based account names
         createPaymentLedgerEntries(savedPayment);
 
+        authorization.setPaymentId(savedPayment.getId());
+        paymentAuthorizationRepository.save(authorization);
+
         return savedPayment;
     }
 
@@ -111,9 +128,16 @@ public class BillingService {
             throw new IllegalArgumentException("Refund amount cannot exceed paid amount");
         }
 
+        // Update invoice atomically, as in applyAuthorizedPayment
+        if (invoiceRepository.applyRefund(invoiceId, amount) == 0) {
+            throw new IllegalArgumentException("Refund amount cannot exceed paid amount");
+        }
+        billingSummaryService.invalidateAfterCommit();
+        invoicePdfCache.evictAfterCommit(invoiceId);
+
         // Create refund payment (negative amount)
         Payment refund = new Payment();
-        refund.setInvoice(invoice);
+        refund.setInvoice(reloadInvoice(invoiceId));
         refund.setMethod(PaymentMethod.CASH); // Default refund method
         refund.setAmount(-amount); // Negative amount for refund
         refund.setReference("REFUND-" + System.currentTimeMillis());
@@ -121,11 +145,7 @@ public class BillingService {
         refund.setCreatedBy(createdBy);
 
         Payment savedRefund = paymentRepository.save(refund);
-
-        // Update invoice
-        invoice.setPaidAmount(invoice.getPaidAmount() - amount);
-        invoice.calculateBalance();
-        invoiceRepository.save(invoice);
+        dailyRevenueService.record(savedRefund);
 
         // Create ledger entries
         createRefundLedgerEntries(savedRefund);
@@ -133,58 +153,44 @@ public class BillingService {
         return savedRefund;
     }
 
+    /**
+     * Delete an invoice with its payments, taking the payments back out of the daily revenue rollup.
+     * One transaction, so a failure part way leaves the rollup, payments and invoice as they were.
+     * Returns false if there is no such invoice.
+     */
+    public boolean deleteInvoice(Long invoiceId) {
+        if (!invoiceRepository.existsById(invoiceId)) {
+            return false;
+        }
+        List<Payment> payments = paymentRepository.findByInvoiceIdOrderByCreatedAtDesc(invoiceId);
+        if (!payments.isEmpty()) {
+            dailyRevenueService.reverse(payments);
+            paymentRepository.deleteByInvoiceId(invoiceId);
+        }
+        // Cascade removes the invoice lines
+        invoiceRepository.deleteById(invoiceId);
+        billingSummaryService.invalidateAfterCommit();
+        invoicePdfCache.evictAfterCommit(invoiceId);
+        return true;
+    }
+
+    // The atomic updates clear the persistence context, so read the invoice back as committed by them
+    private Invoice reloadInvoice(Long invoiceId) {
+        return invoiceRepository.findById(invoiceId)
+                .orElseThrow(() -> new IllegalArgumentException("Invoice not found: " + invoiceId));
+    }
+
     private void createInvoiceLedgerEntries(Invoice invoice) { }
 
+    // Ledger rows for payments and refunds are written by the outbox poster (LedgerOutboxService)
     private void createPaymentLedgerEntries(Payment payment) {
-        // Debit: Cash/Card/Online account (using Strategy Pattern)
-        String accountName = paymentProcessor.getAccountNameForPaymentMethod(payment.getMethod());
-        
-        FinanceLedger debitEntry = new FinanceLedger();
-        debitEntry.setTransactionDate(payment.getCreatedAt());
-        debitEntry.setAccount(accountName);
-        debitEntry.setTransactionType(TransactionType.DEBIT);
-        debitEntry.setAmount(payment.getAmount());
-        debitEntry.setReference(payment.getReference());
-        debitEntry.setDescription("Payment received for invoice " + payment.getInvoice().getInvoiceNumber());
-        debitEntry.setCreatedBy(payment.getCreatedBy());
-        financeLedgerRepository.save(debitEntry);
-
-        // Credit: Accounts Receivable
-        FinanceLedger creditEntry = new FinanceLedger();
-        creditEntry.setTransactionDate(payment.getCreatedAt());
-        creditEntry.setAccount("ACCOUNTS_RECEIVABLE");
-        creditEntry.setTransactionType(TransactionType.CREDIT);
-        creditEntry.setAmount(payment.getAmount());
-        creditEntry.setReference(payment.getReference());
-        creditEntry.setDescription("Payment received for invoice " + payment.getInvoice().getInvoiceNumber());
-        creditEntry.setCreatedBy(payment.getCreatedBy());
-        financeLedgerRepository.save(creditEntry);
+        // Debit: Cash/Card/Online account (using Strategy Pattern), credit: Accounts Receivable
+        ledgerOutboxService.paymentRecorded(payment, paymentProcessor.getAccountNameForPaymentMethod(payment.getMethod()));
     }
 
     private void createRefundLedgerEntries(Payment refund) {
-        // Debit: Accounts Receivable (increase receivable)
-        FinanceLedger debitEntry = new FinanceLedger();
-        debitEntry.setTransactionDate(refund.getCreatedAt());
-        debitEntry.setAccount("ACCOUNTS_RECEIVABLE");
-        debitEntry.setTransactionType(TransactionType.DEBIT);
-        debitEntry.setAmount(Math.abs(refund.getAmount())); // Make positive for debit
-        debitEntry.setReference(refund.getReference());
-        debitEntry.setDescription("Refund issued for invoice " + refund.getInvoice().getInvoiceNumber());
-        debitEntry.setCreatedBy(refund.getCreatedBy());
-        financeLedgerRepository.save(debitEntry);
-
-        // Credit: Cash account (decrease cash) - using Strategy Pattern
-        String accountName = paymentProcessor.getAccountNameForPaymentMethod(refund.getMethod());
-        
-        FinanceLedger creditEntry = new FinanceLedger();
-        creditEntry.setTransactionDate(refund.getCreatedAt());
-        creditEntry.setAccount(accountName);
-        creditEntry.setTransactionType(TransactionType.CREDIT);
-        creditEntry.setAmount(Math.abs(refund.getAmount())); // Make positive for credit
-        creditEntry.setReference(refund.getReference());
-        creditEntry.setDescription("Refund issued for invoice " + refund.getInvoice().getInvoiceNumber());
-        creditEntry.setCreatedBy(refund.getCreatedBy());
-        financeLedgerRepository.save(creditEntry);
+        // Debit: Accounts Receivable, credit: the refund method's account
+        ledgerOutboxService.paymentRecorded(refund, paymentProcessor.getAccountNameForPaymentMethod(refund.getMethod()));
     }
 
 }
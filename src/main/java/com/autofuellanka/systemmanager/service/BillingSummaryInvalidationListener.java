@@ -0,0 +1,30 @@
+package com.autofuellanka.systemmanager.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invoice entity listener that drops the cached billing summary once an invoice write commits.
+ * Covers the invoice workflows and every other path that saves an Invoice entity.
+ */
+@Component
+public class BillingSummaryInvalidationListener {
+
+    private final ObjectProvider<BillingSummaryService> summaryService;
+
+    public BillingSummaryInvalidationListener(ObjectProvider<BillingSummaryService> summaryService) {
+        this.summaryService = summaryService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onInvoiceChanged(Object invoice) {
+        BillingSummaryService service = summaryService.getIfAvailable();
+        if (service == null) return;
+        service.invalidateAfterCommit();
+    }
+}
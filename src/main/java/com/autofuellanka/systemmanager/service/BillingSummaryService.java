@@ -0,0 +1,94 @@
+package com.autofuellanka.systemmanager.service;
+
+import com.autofuellanka.systemmanager.dto.BillingSummaryDTO;
+import com.autofuellanka.systemmanager.repository.InvoiceRepository;
+import com.autofuellanka.systemmanager.repository.InvoiceRepository.BillingTotals;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Billing dashboard summary, computed with one aggregate query and cached for a short TTL.
+ * Any committed invoice write invalidates the cache (see BillingSummaryInvalidationListener,
+ * and BillingService for the bulk payment updates that bypass entity listeners);
+ * the TTL only covers time-driven changes such as invoices becoming overdue.
+ */
+@Service
+public class BillingSummaryService {
+
+    private final InvoiceRepository invoiceRepository;
+    private final long ttlMillis;
+
+    // Bumped on every invalidation; a summary computed under an older generation is never served
+    private final AtomicLong generation = new AtomicLong();
+    private final Object computeLock = new Object();
+    private volatile CachedSummary cached;
+
+    public BillingSummaryService(InvoiceRepository invoiceRepository,
+                                 @Value("${app.billing.summary-ttl-ms:30000}") long ttlMillis) {
+        this.invoiceRepository = invoiceRepository;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public BillingSummaryDTO getSummary() {
+        CachedSummary current = cached;
+        if (isFresh(current)) {
+            return current.summary;
+        }
+        // Single flight: concurrent pollers wait for one query instead of all hitting the database
+        synchronized (computeLock) {
+            current = cached;
+            if (isFresh(current)) {
+                return current.summary;
+            }
+            long gen = generation.get();
+            BillingSummaryDTO summary = compute();
+            cached = new CachedSummary(summary, gen, System.currentTimeMillis());
+            return summary;
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /** Invalidate once the current transaction commits, or right away when there is none */
+    public void invalidateAfterCommit() {
+        TransactionCallbacks.afterCommit(this::invalidate);
+    }
+
+    private boolean isFresh(CachedSummary entry) {
+        return entry != null
+                && entry.generation == generation.get()
+                && System.currentTimeMillis() - entry.computedAt < ttlMillis;
+    }
+
+    private BillingSummaryDTO compute() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startOfMonth = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+        BillingTotals totals = invoiceRepository.getBillingTotals(now, startOfMonth);
+
+        BillingSummaryDTO summary = new BillingSummaryDTO();
+        summary.setTotalInvoices(totals.getTotalInvoices());
+        summary.setUnpaidInvoices(totals.getUnpaidInvoices().intValue());
+        summary.setOverdueInvoices(totals.getOverdueInvoices().intValue());
+        summary.setTotalOutstanding(totals.getTotalOutstanding());
+        summary.setMonthlyRevenue(totals.getMonthlyRevenue());
+        return summary;
+    }
+
+    private static final class CachedSummary {
+        final BillingSummaryDTO summary;
+        final long generation;
+        final long computedAt;
+
+        CachedSummary(BillingSummaryDTO summary, long generation, long computedAt) {
+            this.summary = summary;
+            this.generation = generation;
+            this.computedAt = computedAt;
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package com.autofuellanka.systemmanager.service;
 
-import com.autofuellanka.systemmanager.model.Vehicle;
-import com.autofuellanka.systemmanager.repository.LocationRepository;
-import com.autofuellanka.systemmanager.repository.ServiceTypeRepository;
+import com.autofuellanka.systemmanager.model.Location;
+import com.autofuellanka.systemmanager.model.ServiceType;
 import com.autofuellanka.systemmanager.repository.UserRepository;
 import com.autofuellanka.systemmanager.repository.VehicleRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Set;
 
+/**
+ * Booking request validation. A write resolves everything it depends on into a BookingContext
+ * first: customer and vehicle ownership in one query, location and service type from
+ * ReferenceDataCache. The checks then run against the context without further lookups.
+ */
 @Service
 public class BookingValidationService {
 
@@ -18,23 +23,58 @@ public class BookingValidationService {
     private static final Set<String> ALLOWED_FUEL    = Set.of("PETROL_92", "PETROL_95", "DIESEL_AUTO", "DIESEL_SUPER");
 
     private final UserRepository userRepo;
-    private final LocationRepository locationRepo;
-    private final ServiceTypeRepository serviceTypeRepo;
     private final VehicleRepository vehicleRepo;
+    private final ReferenceDataCache referenceData;
 
     public BookingValidationService(UserRepository userRepo,
-                                    LocationRepository locationRepo,
-                                    ServiceTypeRepository serviceTypeRepo,
-                                    VehicleRepository vehicleRepo) {
+                                    VehicleRepository vehicleRepo,
+                                    ReferenceDataCache referenceData) {
         this.userRepo = userRepo;
-        this.locationRepo = locationRepo;
-        this.serviceTypeRepo = serviceTypeRepo;
         this.vehicleRepo = vehicleRepo;
+        this.referenceData = referenceData;
     }
 
     /** Normalize string to UPPERCASE (null-safe) */
     private String up(String s) { return (s == null ? null : s.trim().toUpperCase()); }
 
+    /**
+     * Look up everything a booking write refers to: one query for the customer and the vehicle's
+     * owner, the location and service type from the reference cache. Missing ids stay unresolved;
+     * require / validateCreateOrUpdate report them.
+     */
+    public BookingContext resolve(Long customerId, Long locationId, Long serviceTypeId, Long vehicleId) {
+        BookingContext ctx = new BookingContext(customerId, locationId, serviceTypeId, vehicleId);
+        if (customerId != null) {
+            List<Object[]> rows = userRepo.findBookingParties(customerId, vehicleId);
+            if (!rows.isEmpty()) {
+                Object[] row = rows.get(0);
+                ctx.customerExists = true;
+                ctx.vehicleExists = row[1] != null;
+                ctx.vehicleOwnerId = (Long) row[2];
+            }
+        }
+        ctx.location = referenceData.location(locationId).orElse(null);
+        ctx.serviceType = referenceData.serviceType(serviceTypeId).orElse(null);
+        return ctx;
+    }
+
+    /**
+     * The create-time checks of requireCustomer, requireLocation, requireServiceType (when one is given)
+     * and requireVehicleOwnedBy, in that order and with the same exceptions, answered from the context.
+     */
+    public void require(BookingContext ctx) {
+        if (ctx.customerId == null) throw new IllegalArgumentException("customerId is required");
+        if (!ctx.customerExists) throw new IllegalStateException("customerId does not exist: " + ctx.customerId);
+        if (ctx.locationId == null) throw new IllegalArgumentException("locationId is required");
+        if (ctx.location == null) throw new IllegalStateException("locationId does not exist: " + ctx.locationId);
+        if (ctx.serviceTypeId != null && ctx.serviceType == null)
+            throw new IllegalStateException("serviceTypeId does not exist: " + ctx.serviceTypeId);
+        if (ctx.vehicleId == null) throw new IllegalArgumentException("vehicleId is required");
+        if (!ctx.vehicleExists) throw new IllegalStateException("vehicleId does not exist: " + ctx.vehicleId);
+        if (!ctx.customerId.equals(ctx.vehicleOwnerId))
+            throw new IllegalStateException("vehicle does not belong to the given customer");
+    }
+
     /**
      * Validate a booking “create/update” request.
      * Return null if OK; otherwise a human-readable error string.
@@ -47,14 +87,24 @@ public class BookingValidationService {
                                          String status,
                                          String fuelType,
                                          Double litersRequested) {
+        return validateCreateOrUpdate(resolve(customerId, locationId, serviceTypeId, vehicleId),
+                type, status, fuelType, litersRequested);
+    }
+
+    /** As above, against an already resolved context */
+    public String validateCreateOrUpdate(BookingContext ctx,
+                                         String type,
+                                         String status,
+                                         String fuelType,
+                                         Double litersRequested) {
 
         // Required IDs
-        if (customerId == null) return "customerId is required";
-        if (locationId == null) return "locationId is required";
+        if (ctx.customerId == null) return "customerId is required";
+        if (ctx.locationId == null) return "locationId is required";
 
         // Existence checks
-        if (!userRepo.existsById(customerId)) return "customerId does not exist";
-        if (!locationRepo.existsById(locationId)) return "locationId does not exist";
+        if (!ctx.customerExists) return "customerId does not exist";
+        if (ctx.location == null) return "locationId does not exist";
 
         // Type / Status validation
         String t = up(type);
@@ -66,17 +116,16 @@ public class BookingValidationService {
             return "status must be one of: " + ALLOWED_STATUS;
 
         // Vehicle ownership
-        if (vehicleId != null) {
-            Vehicle v = vehicleRepo.findById(vehicleId).orElse(null);
-            if (v == null) return "vehicleId does not exist";
-            if (!customerId.equals(v.getCustomerId()))
+        if (ctx.vehicleId != null) {
+            if (!ctx.vehicleExists) return "vehicleId does not exist";
+            if (!ctx.customerId.equals(ctx.vehicleOwnerId))
                 return "vehicle does not belong to the given customer";
         }
 
         // ServiceType rule: required for SERVICE
         if ("SERVICE".equals(t)) {
-            if (serviceTypeId == null) return "serviceTypeId is required for SERVICE bookings";
-            if (!serviceTypeRepo.existsById(serviceTypeId))
+            if (ctx.serviceTypeId == null) return "serviceTypeId is required for SERVICE bookings";
+            if (ctx.serviceType == null)
                 return "serviceTypeId does not exist";
         } else { // FUEL validations
             String ft = up(fuelType);
@@ -133,6 +182,31 @@ public class BookingValidationService {
         public String fuelType;
     }
 
+    /** The rows a booking write refers to, resolved once per request by resolve() */
+    public static class BookingContext {
+        private final Long customerId;
+        private final Long locationId;
+        private final Long serviceTypeId;
+        private final Long vehicleId;
+        private boolean customerExists;
+        private boolean vehicleExists;
+        private Long vehicleOwnerId;
+        private Location location;
+        private ServiceType serviceType;
+
+        BookingContext(Long customerId, Long locationId, Long serviceTypeId, Long vehicleId) {
+            this.customerId = customerId;
+            this.locationId = locationId;
+            this.serviceTypeId = serviceTypeId;
+            this.vehicleId = vehicleId;
+        }
+
+        public Location getLocation() { return location; }
+
+        /** Shared cached instance; read only */
+        public ServiceType getServiceType() { return serviceType; }
+    }
+
     // --- Require methods used by controller ---
     public void requireCustomer(Long customerId) {
         if (customerId == null) throw new IllegalArgumentException("customerId is required");
@@ -142,13 +216,13 @@ public class BookingValidationService {
 
     public void requireLocation(Long locationId) {
         if (locationId == null) throw new IllegalArgumentException("locationId is required");
-        if (!locationRepo.existsById(locationId))
+        if (referenceData.location(locationId).isEmpty())
             throw new IllegalStateException("locationId does not exist: " + locationId);
     }
 
     public void requireServiceType(Long serviceTypeId) {
         if (serviceTypeId == null) throw new IllegalArgumentException("serviceTypeId is required");
-        if (!serviceTypeRepo.existsById(serviceTypeId))
+        if (referenceData.serviceType(serviceTypeId).isEmpty())
             throw new IllegalStateException("serviceTypeId does not exist: " + serviceTypeId);
     }
 
@@ -0,0 +1,57 @@
+package com.autofuellanka.systemmanager.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a transactional operation that lost a race: optimistic lock (@Version) conflicts,
+ * deadlocks and lock wait timeouts. The operation must start its own transaction, so a retry
+ * is only attempted when the caller is not already inside one.
+ */
+@Component
+public class ConflictRetry {
+
+    private static final Logger log = LoggerFactory.getLogger(ConflictRetry.class);
+
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public ConflictRetry(@Value("${app.billing.conflict-max-attempts:5}") int maxAttempts,
+                         @Value("${app.billing.conflict-backoff-ms:5}") long backoffMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+    }
+
+    public <T> T run(Supplier<T> operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts || TransactionSynchronizationManager.isActualTransactionActive()) {
+                    throw e;
+                }
+                log.debug("Concurrent update conflict, retrying (attempt {} of {}): {}", attempt, maxAttempts, e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    // Randomised, growing pause so the retrying writers do not collide again in lockstep
+    private void backoff(int attempt) {
+        if (backoffMillis <= 0) return;
+        long bound = backoffMillis << Math.min(attempt, 6);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMillis, bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying a conflicting update", e);
+        }
+    }
+}
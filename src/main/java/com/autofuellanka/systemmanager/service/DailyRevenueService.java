@@ -0,0 +1,111 @@
+package com.autofuellanka.systemmanager.service;
+
+import com.autofuellanka.systemmanager.model.Payment;
+import com.autofuellanka.systemmanager.repository.DailyRevenueRepository;
+import com.autofuellanka.systemmanager.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Maintains the daily_revenue rollup (one row per day and payment method).
+ * Payments and refunds add to their bucket in the same transaction that saves them;
+ * the backfill rebuilds the table from raw payments one month at a time.
+ * A refund lowers the bucket's amount but is not counted in its payment_count.
+ */
+@Service
+public class DailyRevenueService {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyRevenueService.class);
+
+    private final DailyRevenueRepository dailyRevenueRepository;
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate chunkTx;
+    private final AtomicBoolean backfillRunning = new AtomicBoolean(false);
+
+    public DailyRevenueService(DailyRevenueRepository dailyRevenueRepository,
+                               PaymentRepository paymentRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.dailyRevenueRepository = dailyRevenueRepository;
+        this.paymentRepository = paymentRepository;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+    }
+
+    /** Add a saved payment (refunds carry a negative amount) to its day/method bucket */
+    @Transactional
+    public void record(Payment payment) {
+        dailyRevenueRepository.addToDay(payment.getCreatedAt().toLocalDate(), payment.getMethod().name(),
+                payment.getAmount(), counted(payment));
+    }
+
+    /** Take payments that are about to be deleted back out of the rollup */
+    @Transactional
+    public void reverse(List<Payment> payments) {
+        for (Payment payment : payments) {
+            dailyRevenueRepository.addToDay(payment.getCreatedAt().toLocalDate(), payment.getMethod().name(),
+                    -payment.getAmount(), -counted(payment));
+        }
+    }
+
+    // 1 for a payment, 0 for a refund; the rebuild query applies the same rule
+    private static long counted(Payment payment) {
+        return payment.getAmount() > 0 ? 1 : 0;
+    }
+
+    /** Daily totals across all payment methods, one row per day that had payments */
+    @Transactional(readOnly = true)
+    public List<Object[]> getDailyTotals(LocalDate startDate, LocalDate endDate) {
+        return dailyRevenueRepository.getDailyTotals(startDate, endDate);
+    }
+
+    // Populate the rollup on first start against an existing payments table
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (dailyRevenueRepository.count() == 0 && paymentRepository.count() > 0) {
+            rebuildAll();
+        }
+    }
+
+    /**
+     * Rebuild the whole rollup from payment history.
+     * Each month is deleted and re-aggregated in its own short transaction,
+     * so payments recorded meanwhile only wait on the month being rebuilt.
+     */
+    public void rebuildAll() {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            log.info("Daily revenue backfill already running");
+            return;
+        }
+        try {
+            LocalDateTime earliest = paymentRepository.findEarliestPaymentDate();
+            if (earliest == null) {
+                return;
+            }
+            LocalDate month = earliest.toLocalDate().withDayOfMonth(1);
+            LocalDate end = LocalDate.now().plusDays(1);
+            int buckets = 0;
+            while (month.isBefore(end)) {
+                LocalDate from = month;
+                LocalDate to = month.plusMonths(1);
+                buckets += chunkTx.execute(status -> {
+                    dailyRevenueRepository.deleteRange(from, to);
+                    return dailyRevenueRepository.rebuildRange(from.atStartOfDay(), to.atStartOfDay());
+                });
+                month = to;
+            }
+            log.info("Daily revenue backfill finished: {} day/method buckets since {}", buckets, earliest.toLocalDate());
+        } finally {
+            backfillRunning.set(false);
+        }
+    }
+}
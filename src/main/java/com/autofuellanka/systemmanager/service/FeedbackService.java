@@ -4,6 +4,7 @@ import com.autofuellanka.systemmanager.dto.FeedbackDTO;
 import com.autofuellanka.systemmanager.model.Feedback;
 import com.autofuellanka.systemmanager.model.User;
 import com.autofuellanka.systemmanager.model.Booking;
+import com.autofuellanka.systemmanager.model.BookingStatus;
 import com.autofuellanka.systemmanager.repository.FeedbackRepository;
 import com.autofuellanka.systemmanager.repository.UserRepository;
 import com.autofuellanka.systemmanager.repository.BookingRepository;
@@ -47,7 +48,7 @@ public class FeedbackService {
         Booking booking = bookingOpt.get();
         System.out.println("Found booking: " + booking.getId() + " with status: " + booking.getStatus());
         
-        if (!"COMPLETED".equals(booking.getStatus())) {
+        if (booking.getStatus() != BookingStatus.COMPLETED) {
             throw new RuntimeException("Feedback can only be submitted for completed bookings. Current status: " + booking.getStatus());
         }
         
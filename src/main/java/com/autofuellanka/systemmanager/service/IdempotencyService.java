@@ -0,0 +1,308 @@
+package com.autofuellanka.systemmanager.service;
+
+import com.autofuellanka.systemmanager.model.IdempotencyRecord;
+import com.autofuellanka.systemmanager.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for POST endpoints that create invoices and payments.
+ * The first request with a key claims it in idempotency_keys, runs, and stores its response;
+ * a retry with the same key gets the stored response back (marked with Idempotent-Replayed)
+ * without running the workflow again. Completed responses are also kept in a bounded in-memory
+ * cache with the same TTL, so most retries never reach the database, and duplicates that arrive
+ * while the first request is still running on this instance wait for its result instead of
+ * racing it. Server errors and conflicts are not stored, so those can be retried with the same key.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 200;
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final long ttlMillis;
+    private final long inProgressTimeoutMillis;
+    private final ResponseCache cache;
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.ttl-ms:86400000}") long ttlMillis,
+                              @Value("${app.idempotency.in-progress-timeout-ms:60000}") long inProgressTimeoutMillis,
+                              @Value("${app.idempotency.cache-size:10000}") int cacheSize) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttlMillis = ttlMillis;
+        this.inProgressTimeoutMillis = inProgressTimeoutMillis;
+        this.cache = new ResponseCache(cacheSize);
+    }
+
+    /**
+     * Run the action once per key within the endpoint's scope; without a key it simply runs.
+     * The action must commit its own work before returning, so a stored response never
+     * describes a transaction that later rolled back.
+     */
+    public ResponseEntity<?> execute(String scope, String clientKey, Object request, Supplier<ResponseEntity<?>> action) {
+        if (clientKey == null || clientKey.isBlank()) {
+            return action.get();
+        }
+        if (clientKey.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String key = scope + ":" + clientKey.trim();
+        String requestHash = hash(request);
+
+        StoredResponse cached = cache.get(key);
+        if (cached != null) {
+            return cached.replay(requestHash);
+        }
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return await(running).replay(requestHash);
+        }
+        try {
+            StoredResponse stored = lookup(key);
+            if (stored != null) {
+                mine.complete(stored);
+                return stored.replay(requestHash);
+            }
+            claim(key, requestHash);
+
+            ResponseEntity<?> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException e) {
+                repository.release(key);
+                throw e;
+            }
+            mine.complete(store(key, requestHash, response));
+            return response;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // Completed responses past their TTL
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-ms:3600000}")
+    public void purgeExpired() {
+        int purged = repository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            log.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private StoredResponse lookup(String key) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<IdempotencyRecord> existing = repository.findById(key);
+        if (existing.isEmpty()) {
+            return null;
+        }
+        IdempotencyRecord record = existing.get();
+        if (record.getExpiresAt().isBefore(now)) {
+            // Expired, or claimed by an instance that died mid-request: let this request claim it afresh
+            repository.releaseExpired(key, now);
+            return null;
+        }
+        if (!record.isCompleted()) {
+            throw stillRunning();
+        }
+        StoredResponse stored = new StoredResponse(record.getRequestHash(), record.getResponseStatus(),
+                record.getContentType(), record.getLocation(), record.getResponseBody());
+        cache.put(key, stored, record.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        return stored;
+    }
+
+    private void claim(String key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            repository.claim(key, requestHash, now, now.plusNanos(TimeUnit.MILLISECONDS.toNanos(inProgressTimeoutMillis)));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance claimed the key between our lookup and insert
+            throw stillRunning();
+        }
+    }
+
+    private StoredResponse store(String key, String requestHash, ResponseEntity<?> response) {
+        int status = response.getStatusCode().value();
+        MediaType contentType = response.getHeaders().getContentType();
+        Object body = response.getBody();
+        String serialized;
+        if (body == null || body instanceof String) {
+            serialized = (String) body;
+            if (contentType == null && body != null) {
+                contentType = MediaType.TEXT_PLAIN;
+            }
+        } else {
+            try {
+                serialized = objectMapper.writeValueAsString(body);
+            } catch (JsonProcessingException e) {
+                log.warn("Response for idempotency key {} could not be stored: {}", key, e.getMessage());
+                repository.release(key);
+                return new StoredResponse(requestHash, status, null, null, null);
+            }
+            if (contentType == null) {
+                contentType = MediaType.APPLICATION_JSON;
+            }
+        }
+        URI location = response.getHeaders().getLocation();
+        StoredResponse stored = new StoredResponse(requestHash, status,
+                contentType != null ? contentType.toString() : null,
+                location != null ? location.toString() : null,
+                serialized);
+
+        if (!isStorable(response.getStatusCode().value())) {
+            repository.release(key);
+            return stored;
+        }
+        LocalDateTime expiresAt = LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+        repository.complete(key, status, stored.contentType, stored.location, serialized, expiresAt);
+        cache.put(key, stored, System.currentTimeMillis() + ttlMillis);
+        return stored;
+    }
+
+    // 5xx, 409 and 429 describe a transient state, so a retry should run again
+    private static boolean isStorable(int status) {
+        return status < 500 && status != HttpStatus.CONFLICT.value() && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(inProgressTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw stillRunning();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw stillRunning();
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+
+    private static ResponseStatusException stillRunning() {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "A request with this " + HEADER + " is still being processed");
+    }
+
+    /** A response as stored for replay */
+    static final class StoredResponse {
+        final String requestHash;
+        final int status;
+        final String contentType;
+        final String location;
+        final String body;
+
+        StoredResponse(String requestHash, int status, String contentType, String location, String body) {
+            this.requestHash = requestHash;
+            this.status = status;
+            this.contentType = contentType;
+            this.location = location;
+            this.body = body;
+        }
+
+        ResponseEntity<?> replay(String requestHash) {
+            if (!this.requestHash.equals(requestHash)) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                        HEADER + " was already used for a different request");
+            }
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(REPLAYED_HEADER, "true");
+            if (contentType != null) {
+                headers.set(HttpHeaders.CONTENT_TYPE, contentType);
+            }
+            if (location != null) {
+                headers.set(HttpHeaders.LOCATION, location);
+            }
+            return ResponseEntity.status(status).headers(headers).body(body);
+        }
+    }
+
+    /** Bounded LRU of completed responses; entries also expire with their database record */
+    static final class ResponseCache {
+
+        private final LinkedHashMap<String, Entry> entries;
+
+        ResponseCache(int maxEntries) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        synchronized StoredResponse get(String key) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAtMillis < System.currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.response;
+        }
+
+        synchronized void put(String key, StoredResponse response, long expiresAtMillis) {
+            entries.put(key, new Entry(response, expiresAtMillis));
+        }
+
+        private static final class Entry {
+            final StoredResponse response;
+            final long expiresAtMillis;
+
+            Entry(StoredResponse response, long expiresAtMillis) {
+                this.response = response;
+                this.expiresAtMillis = expiresAtMillis;
+            }
+        }
+    }
+}
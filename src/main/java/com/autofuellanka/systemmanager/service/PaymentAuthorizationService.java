@@ -0,0 +1,156 @@
+package com.autofuellanka.systemmanager.service;
+
+import com.autofuellanka.systemmanager.model.Invoice;
+import com.autofuellanka.systemmanager.model.Payment;
+import com.autofuellanka.systemmanager.model.PaymentAuthorization;
+import com.autofuellanka.systemmanager.model.PaymentAuthorizationStatus;
+import com.autofuellanka.systemmanager.model.PaymentMethod;
+import com.autofuellanka.systemmanager.repository.InvoiceRepository;
+import com.autofuellanka.systemmanager.repository.PaymentAuthorizationRepository;
+import com.autofuellanka.systemmanager.service.payment.PaymentProcessingResult;
+import com.autofuellanka.systemmanager.service.payment.PaymentProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Two-phase payment recording. The gateway call runs outside any transaction, so a slow
+ * provider no longer holds a pooled connection or invoice row locks:
+ * <ol>
+ *   <li>a PENDING payment_authorizations row is written;</li>
+ *   <li>the payment strategy authorizes it (no transaction open) and the row becomes AUTHORIZED;</li>
+ *   <li>BillingService.applyAuthorizedPayment writes payment, invoice and ledger in one short transaction.</li>
+ * </ol>
+ * Each step is a single-row status change, so a crash leaves the attempt in a known state;
+ * {@link #recoverStale()} finishes AUTHORIZED attempts and flags PENDING ones for reconciliation.
+ */
+@Service
+public class PaymentAuthorizationService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentAuthorizationService.class);
+
+    private final PaymentAuthorizationRepository authorizationRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final PaymentProcessor paymentProcessor;
+    private final BillingService billingService;
+    private final ConflictRetry conflictRetry;
+    private final long staleAfterMillis;
+
+    public PaymentAuthorizationService(PaymentAuthorizationRepository authorizationRepository,
+                                       InvoiceRepository invoiceRepository,
+                                       PaymentProcessor paymentProcessor,
+                                       BillingService billingService,
+                                       ConflictRetry conflictRetry,
+                                       @Value("${app.payments.authorization-stale-ms:120000}") long staleAfterMillis) {
+        this.authorizationRepository = authorizationRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.paymentProcessor = paymentProcessor;
+        this.billingService = billingService;
+        this.conflictRetry = conflictRetry;
+        this.staleAfterMillis = staleAfterMillis;
+    }
+
+    /** Authorize with the payment strategy, then apply the payment to the invoice */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Payment recordPayment(Long invoiceId, Double amount, PaymentMethod method,
+                                 String reference, String notes, String createdBy) {
+        PaymentAuthorization authorization = begin(invoiceId, amount, method, reference, notes, createdBy);
+        authorize(authorization);
+        return commit(authorization.getId());
+    }
+
+    // Validate against the current balance and record the attempt before anything leaves the system
+    PaymentAuthorization begin(Long invoiceId, Double amount, PaymentMethod method,
+                               String reference, String notes, String createdBy) {
+        if (amount == null || amount <= 0) {
+            throw new IllegalArgumentException("Payment amount must be positive");
+        }
+        Invoice invoice = invoiceRepository.findById(invoiceId)
+                .orElseThrow(() -> new IllegalArgumentException("Invoice not found: " + invoiceId));
+        // Early rejection only; the commit phase enforces it atomically
+        if (amount > invoice.getBalance()) {
+            throw new IllegalArgumentException("Payment amount cannot exceed invoice balance");
+        }
+
+        PaymentAuthorization authorization = new PaymentAuthorization();
+        authorization.setInvoiceId(invoiceId);
+        authorization.setMethod(method);
+        authorization.setAmount(amount);
+        authorization.setReference(reference);
+        authorization.setNotes(notes);
+        authorization.setCreatedBy(createdBy);
+        return authorizationRepository.save(authorization);
+    }
+
+    // The slow part: runs with no transaction and no connection held
+    void authorize(PaymentAuthorization authorization) {
+        Payment payment = new Payment();
+        payment.setMethod(authorization.getMethod());
+        payment.setAmount(authorization.getAmount());
+        payment.setReference(authorization.getReference());
+        payment.setNotes(authorization.getNotes());
+        payment.setCreatedBy(authorization.getCreatedBy());
+
+        PaymentProcessingResult result = paymentProcessor.processPayment(payment);
+        LocalDateTime now = LocalDateTime.now();
+        if (!result.isSuccess()) {
+            authorizationRepository.transition(authorization.getId(), PaymentAuthorizationStatus.PENDING,
+                    PaymentAuthorizationStatus.DECLINED, result.getMessage(), now);
+            throw new IllegalArgumentException("Payment processing failed: " + result.getMessage());
+        }
+        if (authorizationRepository.authorize(authorization.getId(), result.getTransactionId(), result.getMessage(), now) == 0) {
+            // The recovery job gave up on this attempt while the gateway was still answering
+            throw new IllegalStateException("Payment authorization " + authorization.getId()
+                    + " expired before the gateway responded; reconcile transaction " + result.getTransactionId());
+        }
+    }
+
+    Payment commit(Long authorizationId) {
+        try {
+            return conflictRetry.run(() -> billingService.applyAuthorizedPayment(authorizationId));
+        } catch (IllegalArgumentException e) {
+            authorizationRepository.transition(authorizationId, PaymentAuthorizationStatus.AUTHORIZED,
+                    PaymentAuthorizationStatus.REJECTED, e.getMessage(), LocalDateTime.now());
+            log.warn("Authorized payment {} could not be applied and must be voided with the provider: {}",
+                    authorizationId, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Finish attempts interrupted by a crash or restart.
+     * AUTHORIZED ones were approved by the gateway, so they are committed now; PENDING ones may or may
+     * not have been charged, and the strategies cannot look that up, so they are marked EXPIRED for
+     * manual reconciliation.
+     */
+    @Scheduled(fixedDelayString = "${app.payments.recovery-ms:60000}")
+    public void recoverStale() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(staleAfterMillis));
+
+        for (PaymentAuthorization authorization : authorizationRepository
+                .findByStatusAndUpdatedAtBeforeOrderByUpdatedAtAsc(PaymentAuthorizationStatus.AUTHORIZED, cutoff)) {
+            try {
+                Payment payment = commit(authorization.getId());
+                log.info("Recovered authorized payment {} as payment {}", authorization.getId(), payment.getId());
+            } catch (RuntimeException e) {
+                log.warn("Could not recover authorized payment {}: {}", authorization.getId(), e.getMessage());
+            }
+        }
+
+        for (PaymentAuthorization authorization : authorizationRepository
+                .findByStatusAndUpdatedAtBeforeOrderByUpdatedAtAsc(PaymentAuthorizationStatus.PENDING, cutoff)) {
+            if (authorizationRepository.transition(authorization.getId(), PaymentAuthorizationStatus.PENDING,
+                    PaymentAuthorizationStatus.EXPIRED, "Gateway outcome unknown", LocalDateTime.now()) > 0) {
+                log.warn("Payment authorization {} for invoice {} expired before the gateway answered; reconcile with the provider",
+                        authorization.getId(), authorization.getInvoiceId());
+            }
+        }
+    }
+}
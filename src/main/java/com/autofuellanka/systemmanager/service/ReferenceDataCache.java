@@ -0,0 +1,113 @@
+package com.autofuellanka.systemmanager.service;
+
+import com.autofuellanka.systemmanager.model.Location;
+import com.autofuellanka.systemmanager.model.ServiceType;
+import com.autofuellanka.systemmanager.repository.LocationRepository;
+import com.autofuellanka.systemmanager.repository.ServiceTypeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Locations and service types held in memory for booking validation, which otherwise looks them
+ * up on every request. Both tables are small and rarely written, so each load reads them whole.
+ * Committed writes invalidate the snapshot (see ReferenceDataInvalidationListener) and the TTL
+ * bounds staleness for writes from other instances. An id missing from the snapshot is looked up
+ * once in the database before it is reported as missing, so a row added elsewhere is never refused.
+ */
+@Service
+public class ReferenceDataCache {
+
+    private final LocationRepository locationRepository;
+    private final ServiceTypeRepository serviceTypeRepository;
+    private final long ttlMillis;
+
+    // Bumped on every invalidation; a snapshot loaded under an older generation is never served
+    private final AtomicLong generation = new AtomicLong();
+    private final Object loadLock = new Object();
+    private volatile Snapshot snapshot;
+
+    public ReferenceDataCache(LocationRepository locationRepository,
+                              ServiceTypeRepository serviceTypeRepository,
+                              @Value("${app.reference-cache.ttl-ms:300000}") long ttlMillis) {
+        this.locationRepository = locationRepository;
+        this.serviceTypeRepository = serviceTypeRepository;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public Optional<Location> location(Long id) {
+        if (id == null) return Optional.empty();
+        Location cached = current().locations.get(id);
+        if (cached != null) return Optional.of(cached);
+        return miss(locationRepository.findById(id));
+    }
+
+    public Optional<ServiceType> serviceType(Long id) {
+        if (id == null) return Optional.empty();
+        ServiceType cached = current().serviceTypes.get(id);
+        if (cached != null) return Optional.of(cached);
+        return miss(serviceTypeRepository.findById(id));
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /** Invalidate once the current transaction commits, or right away when there is none */
+    public void invalidateAfterCommit() {
+        TransactionCallbacks.afterCommit(this::invalidate);
+    }
+
+    // Found in the database but not in the snapshot: the snapshot is behind, reload it next time
+    private <T> Optional<T> miss(Optional<T> found) {
+        if (found.isPresent()) {
+            invalidate();
+        }
+        return found;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            return current;
+        }
+        synchronized (loadLock) {
+            current = snapshot;
+            if (isFresh(current)) {
+                return current;
+            }
+            long gen = generation.get();
+            Snapshot loaded = new Snapshot(
+                    locationRepository.findAll().stream().collect(Collectors.toUnmodifiableMap(Location::getId, Function.identity())),
+                    serviceTypeRepository.findAll().stream().collect(Collectors.toUnmodifiableMap(ServiceType::getId, Function.identity())),
+                    gen, System.currentTimeMillis());
+            snapshot = loaded;
+            return loaded;
+        }
+    }
+
+    private boolean isFresh(Snapshot entry) {
+        return entry != null
+                && entry.generation == generation.get()
+                && System.currentTimeMillis() - entry.loadedAt < ttlMillis;
+    }
+
+    private static final class Snapshot {
+        final Map<Long, Location> locations;
+        final Map<Long, ServiceType> serviceTypes;
+        final long generation;
+        final long loadedAt;
+
+        Snapshot(Map<Long, Location> locations, Map<Long, ServiceType> serviceTypes, long generation, long loadedAt) {
+            this.locations = locations;
+            this.serviceTypes = serviceTypes;
+            this.generation = generation;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.autofuellanka.systemmanager.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Location and ServiceType entity listener that drops the cached reference data once a write commits.
+ */
+@Component
+public class ReferenceDataInvalidationListener {
+
+    private final ObjectProvider<ReferenceDataCache> referenceDataCache;
+
+    public ReferenceDataInvalidationListener(ObjectProvider<ReferenceDataCache> referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onReferenceDataChanged(Object entity) {
+        ReferenceDataCache cache = referenceDataCache.getIfAvailable();
+        if (cache == null) return;
+        cache.invalidateAfterCommit();
+    }
+}
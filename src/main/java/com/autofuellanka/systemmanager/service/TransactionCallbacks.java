@@ -0,0 +1,51 @@
+package com.autofuellanka.systemmanager.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs the in-memory side effects of a database write (cache invalidation, availability index,
+ * counters, background dispatch) only once the write is durable. Inside a transaction the change
+ * runs after commit, so a rollback leaves caches and indexes untouched and no other thread acts on
+ * rows that may never exist; outside one the write has already committed and the change runs now.
+ * <p>
+ * Most callers are JPA entity listeners. Those are Spring beans created while the
+ * EntityManagerFactory is still being built, before the services they update exist, so they take
+ * them as ObjectProvider and resolve them when an event arrives.
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /** Run once the current transaction commits, or right away when there is none */
+    public static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    /**
+     * Run once the current transaction rolls back (or ends in an unknown state); with no
+     * transaction the write is already durable and there is nothing to undo
+     */
+    public static void afterRollback(Runnable undo) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        undo.run();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.autofuellanka.systemmanager.service.availability;
+
+import com.autofuellanka.systemmanager.model.Booking;
+import com.autofuellanka.systemmanager.model.BookingStatus;
+import com.autofuellanka.systemmanager.model.BookingType;
+import com.autofuellanka.systemmanager.service.TransactionCallbacks;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Booking entity listener keeping SlotAvailabilityService current after the transaction commits,
+ * including changes that do not go through admission (status changes, cancellations, staff edits).
+ */
+@Component
+public class BookingAvailabilityListener {
+
+    private final ObjectProvider<SlotAvailabilityService> availabilityService;
+
+    public BookingAvailabilityListener(ObjectProvider<SlotAvailabilityService> availabilityService) {
+        this.availabilityService = availabilityService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Booking booking) {
+        SlotAvailabilityService service = availabilityService.getIfAvailable();
+        if (service == null) return;
+        // Capture the values now: the entity may change again before the commit
+        long id = booking.getId();
+        Long locationId = booking.getLocationId();
+        LocalDateTime startTime = booking.getStartTime();
+        LocalDateTime endTime = booking.getEndTime();
+        BookingType type = booking.getType();
+        BookingStatus status = booking.getStatus();
+        TransactionCallbacks.afterCommit(() -> service.onSaved(id, locationId, startTime, endTime, type, status));
+    }
+
+    @PostRemove
+    public void onRemoved(Booking booking) {
+        SlotAvailabilityService service = availabilityService.getIfAvailable();
+        if (service == null) return;
+        long id = booking.getId();
+        TransactionCallbacks.afterCommit(() -> service.onRemoved(id));
+    }
+}
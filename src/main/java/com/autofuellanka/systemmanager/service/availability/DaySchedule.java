@@ -0,0 +1,82 @@
+package com.autofuellanka.systemmanager.service.availability;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One location's bookings on one day: an occupancy tree per resource plus the slot run each
+ * booking holds, so a booking can be moved or released without rescanning the day.
+ * Guarded by the location's lock stripe.
+ */
+class DaySchedule {
+
+    /** What a booking occupies: service bays for SERVICE bookings, fuel pumps for FUEL */
+    enum Resource { BAY, PUMP }
+
+    private final SlotTree bays;
+    private final SlotTree pumps;
+    private final Map<Long, Hold> holds = new HashMap<>();
+
+    DaySchedule(int slots) {
+        this.bays = new SlotTree(slots);
+        this.pumps = new SlotTree(slots);
+    }
+
+    int slots() {
+        return bays.size();
+    }
+
+    /** Place or move a booking; placing the same hold twice is a no-op */
+    void hold(long bookingId, Resource resource, int from, int to) {
+        release(bookingId);
+        tree(resource).add(from, to, 1);
+        holds.put(bookingId, new Hold(resource, from, to));
+    }
+
+    void release(long bookingId) {
+        Hold hold = holds.remove(bookingId);
+        if (hold != null) {
+            tree(hold.resource).add(hold.from, hold.to, -1);
+        }
+    }
+
+    /** Whether one more booking fits in [from, to), not counting the booking's own current hold */
+    boolean fits(long bookingId, Resource resource, int from, int to, int capacity) {
+        Hold own = holds.get(bookingId);
+        SlotTree tree = tree(resource);
+        if (own == null || own.resource != resource) {
+            return tree.max(from, to) < capacity;
+        }
+        tree.add(own.from, own.to, -1);
+        try {
+            return tree.max(from, to) < capacity;
+        } finally {
+            tree.add(own.from, own.to, 1);
+        }
+    }
+
+    int occupancy(Resource resource, int slot) {
+        return tree(resource).max(slot, slot + 1);
+    }
+
+    Set<Long> bookingIds() {
+        return holds.keySet();
+    }
+
+    private SlotTree tree(Resource resource) {
+        return resource == Resource.BAY ? bays : pumps;
+    }
+
+    private static final class Hold {
+        final Resource resource;
+        final int from;
+        final int to;
+
+        Hold(Resource resource, int from, int to) {
+            this.resource = resource;
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package com.autofuellanka.systemmanager.service.availability;
+
+import com.autofuellanka.systemmanager.dto.LocationAvailabilityDTO;
+import com.autofuellanka.systemmanager.model.Booking;
+import com.autofuellanka.systemmanager.model.BookingStatus;
+import com.autofuellanka.systemmanager.model.BookingType;
+import com.autofuellanka.systemmanager.model.Location;
+import com.autofuellanka.systemmanager.repository.BookingRepository;
+import com.autofuellanka.systemmanager.service.ReferenceDataCache;
+import com.autofuellanka.systemmanager.service.TransactionCallbacks;
+import com.autofuellanka.systemmanager.service.availability.DaySchedule.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Per-location, per-day slot occupancy for service bays and fuel pumps, used to admit bookings
+ * only where a bay (SERVICE) or pump (FUEL) is free for every slot they cover, and to answer
+ * availability queries. A day is loaded from the bookings table the first time it is needed and
+ * then kept current by BookingAvailabilityListener; checking or placing a booking is O(log n) in the number of slots per day. Only days from today
+ * through app.bookings.availability.horizon-days are kept, so the index cannot be grown by queries
+ * for arbitrary dates.
+ * <p>
+ * Locations are guarded by a fixed set of lock stripes rather than one global lock, so bookings at
+ * different locations never wait on each other. Admission checks capacity, saves and places the
+ * booking's hold under the stripe, so two requests cannot both take the last bay. Inside a caller's
+ * transaction the hold is provisional: if that transaction rolls back, the location's index is
+ * dropped and rebuilt from committed rows on next use. The guarantee holds within one instance;
+ * bookings written by another instance are seen when the day is next loaded.
+ */
+@Service
+public class SlotAvailabilityService {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MAX_SPAN_DAYS = 7;
+    private static final long NEW_BOOKING = -1L;
+
+    private final BookingRepository bookingRepository;
+    private final ReferenceDataCache referenceData;
+    private final int slotMinutes;
+    private final int defaultBays;
+    private final int defaultPumps;
+    private final int horizonDays;
+    private final ReentrantLock[] stripes;
+
+    private final Map<Long, LocationSchedule> schedules = new ConcurrentHashMap<>();
+    // Location currently holding each indexed booking, so a move can release the old location
+    private final Map<Long, Long> locationOfBooking = new ConcurrentHashMap<>();
+
+    public SlotAvailabilityService(BookingRepository bookingRepository,
+                                   ReferenceDataCache referenceData,
+                                   @Value("${app.bookings.slot-minutes:15}") int slotMinutes,
+                                   @Value("${app.bookings.capacity.default-bays:2}") int defaultBays,
+                                   @Value("${app.bookings.capacity.default-pumps:4}") int defaultPumps,
+                                   @Value("${app.bookings.lock-stripes:64}") int lockStripes,
+                                   @Value("${app.bookings.availability.horizon-days:90}") int horizonDays) {
+        if (slotMinutes <= 0 || MINUTES_PER_DAY % slotMinutes != 0) {
+            throw new IllegalArgumentException("app.bookings.slot-minutes must divide a day evenly");
+        }
+        this.bookingRepository = bookingRepository;
+        this.referenceData = referenceData;
+        this.slotMinutes = slotMinutes;
+        this.defaultBays = defaultBays;
+        this.defaultPumps = defaultPumps;
+        this.horizonDays = horizonDays;
+        this.stripes = new ReentrantLock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Save the booking only if its location has a free bay or pump for its whole time range.
+     * previousLocationId is the location before an update (null on create), so a booking moving
+     * between locations is checked and saved with both stripes held.
+     */
+    public Booking admit(Booking booking, Long previousLocationId, UnaryOperator<Booking> save) {
+        Long locationId = booking.getLocationId();
+        List<Span> spans = holdsSlots(booking.getStatus()) ? spans(booking.getStartTime(), booking.getEndTime()) : List.of();
+        if (spans.size() > MAX_SPAN_DAYS) {
+            throw new IllegalArgumentException("A booking may not span more than " + MAX_SPAN_DAYS + " days");
+        }
+        if (locationId == null || spans.isEmpty()) {
+            return save.apply(booking);
+        }
+
+        List<ReentrantLock> locks = lock(locationId, previousLocationId);
+        try {
+            LocationSchedule schedule = schedule(locationId);
+            long bookingId = booking.getId() != null ? booking.getId() : NEW_BOOKING;
+            Resource resource = resourceOf(booking.getType());
+            int capacity = schedule.capacity(resource);
+            for (Span span : spans) {
+                DaySchedule day = day(schedule, span.date);
+                if (!day.fits(bookingId, resource, span.from, span.to, capacity)) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "No free "
+                            + (resource == Resource.BAY ? "service bay" : "fuel pump")
+                            + " at this location on " + span.date + " between " + time(span.from) + " and " + time(span.to));
+                }
+            }
+
+            Booking saved = save.apply(booking);
+            // The listener applies the same change after commit; holds are idempotent, so either may run first
+            Long held = locationOfBooking.get(saved.getId());
+            if (Objects.equals(held, locationId) || Objects.equals(held, previousLocationId)) {
+                release(saved.getId(), held);
+            }
+            place(saved.getId(), locationId, spans, resource);
+            evictOnRollback(locationId);
+            evictOnRollback(previousLocationId);
+            return saved;
+        } finally {
+            unlock(locks);
+        }
+    }
+
+    /** Free bays and pumps per slot; only days from today through the bookable horizon can be queried */
+    public LocationAvailabilityDTO getAvailability(Long locationId, LocalDate date) {
+        if (!withinHorizon(date)) {
+            throw new IllegalArgumentException("date must be between today and " + horizonDays + " days ahead");
+        }
+        ReentrantLock lock = stripe(locationId);
+        lock.lock();
+        try {
+            LocationSchedule schedule = schedule(locationId);
+            DaySchedule day = day(schedule, date);
+            int bays = schedule.capacity(Resource.BAY);
+            int pumps = schedule.capacity(Resource.PUMP);
+
+            List<LocationAvailabilityDTO.Slot> slots = new ArrayList<>(day.slots());
+            for (int slot = 0; slot < day.slots(); slot++) {
+                slots.add(new LocationAvailabilityDTO.Slot(time(slot), time(slot + 1),
+                        Math.max(0, bays - day.occupancy(Resource.BAY, slot)),
+                        Math.max(0, pumps - day.occupancy(Resource.PUMP, slot))));
+            }
+            LocationAvailabilityDTO dto = new LocationAvailabilityDTO();
+            dto.setLocationId(locationId);
+            dto.setDate(date);
+            dto.setSlotMinutes(slotMinutes);
+            dto.setServiceBays(bays);
+            dto.setFuelPumps(pumps);
+            dto.setSlots(slots);
+            return dto;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** A committed insert or update; only days already loaded are touched */
+    public void onSaved(long bookingId, Long locationId, LocalDateTime startTime, LocalDateTime endTime,
+                        BookingType type, BookingStatus status) {
+        List<Span> spans = holdsSlots(status) ? spans(startTime, endTime) : List.of();
+        while (true) {
+            Long previous = locationOfBooking.get(bookingId);
+            List<ReentrantLock> locks = lock(locationId, previous);
+            try {
+                if (!Objects.equals(previous, locationOfBooking.get(bookingId))) {
+                    continue; // moved again while we waited for the stripes
+                }
+                release(bookingId, previous);
+                if (locationId != null && !spans.isEmpty() && spans.size() <= MAX_SPAN_DAYS) {
+                    place(bookingId, locationId, spans, resourceOf(type));
+                }
+                return;
+            } finally {
+                unlock(locks);
+            }
+        }
+    }
+
+    public void onRemoved(long bookingId) {
+        onSaved(bookingId, null, null, null, null, null);
+    }
+
+    /** Drop a location's index after its capacity changes; it is rebuilt on next use */
+    public void evictLocation(Long locationId) {
+        ReentrantLock lock = stripe(locationId);
+        lock.lock();
+        try {
+            LocationSchedule schedule = schedules.remove(locationId);
+            if (schedule != null) {
+                schedule.daysOfBooking.keySet().forEach(id -> locationOfBooking.remove(id, locationId));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Past days cannot take new bookings; drop them so the index only covers today onwards
+    @Scheduled(cron = "${app.bookings.availability.purge-cron:0 5 0 * * *}")
+    public void purgePastDays() {
+        LocalDate today = LocalDate.now();
+        for (Long locationId : schedules.keySet()) {
+            ReentrantLock lock = stripe(locationId);
+            lock.lock();
+            try {
+                LocationSchedule schedule = schedules.get(locationId);
+                if (schedule == null) continue;
+                Map<LocalDate, DaySchedule> past = schedule.days.headMap(today);
+                for (DaySchedule day : past.values()) {
+                    for (Long bookingId : day.bookingIds()) {
+                        List<LocalDate> held = schedule.daysOfBooking.get(bookingId);
+                        if (held != null && held.removeIf(d -> d.isBefore(today)) && held.isEmpty()) {
+                            schedule.daysOfBooking.remove(bookingId);
+                            locationOfBooking.remove(bookingId, locationId);
+                        }
+                    }
+                }
+                past.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // ---- under the location's stripe ----
+
+    private LocationSchedule schedule(Long locationId) {
+        LocationSchedule schedule = schedules.get(locationId);
+        if (schedule == null) {
+            Location location = referenceData.location(locationId)
+                    .orElseThrow(() -> new IllegalStateException("Location not found"));
+            schedule = new LocationSchedule(locationId,
+                    location.getServiceBays() != null ? location.getServiceBays() : defaultBays,
+                    location.getFuelPumps() != null ? location.getFuelPumps() : defaultPumps);
+            schedules.put(locationId, schedule);
+        }
+        return schedule;
+    }
+
+    // Days outside the bookable horizon are read for the one check and not kept, so the index stays bounded
+    private DaySchedule day(LocationSchedule schedule, LocalDate date) {
+        DaySchedule day = schedule.days.get(date);
+        if (day != null) {
+            return day;
+        }
+        day = new DaySchedule(MINUTES_PER_DAY / slotMinutes);
+        boolean indexed = withinHorizon(date);
+        if (indexed) {
+            schedule.days.put(date, day);
+        }
+        // Read on the caller's connection, if it has one: a second connection taken under the stripe could wait on a
+        // pool whose connections are all held by threads queued on this stripe. Rows the caller has not committed
+        // may be read; they go away with the index if the caller rolls back.
+        List<Object[]> rows = bookingRepository.findSlotRowsForDay(schedule.locationId,
+                date.minusDays(MAX_SPAN_DAYS).atStartOfDay(), date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+        if (indexed) {
+            evictOnRollback(schedule.locationId);
+        }
+        for (Object[] row : rows) {
+            long bookingId = (Long) row[0];
+            for (Span span : spans((LocalDateTime) row[1], (LocalDateTime) row[2])) {
+                if (!span.date.equals(date)) {
+                    continue;
+                }
+                if (indexed) {
+                    hold(schedule, day, bookingId, schedule.locationId, span, resourceOf((BookingType) row[3]));
+                } else {
+                    day.hold(bookingId, resourceOf((BookingType) row[3]), span.from, span.to);
+                }
+            }
+        }
+        return day;
+    }
+
+    // The index may now hold bookings or rows of the open transaction; a rollback must not leave them behind
+    private void evictOnRollback(Long locationId) {
+        if (locationId != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionCallbacks.afterRollback(() -> evictLocation(locationId));
+        }
+    }
+
+    private void place(long bookingId, Long locationId, List<Span> spans, Resource resource) {
+        LocationSchedule schedule = schedules.get(locationId);
+        if (schedule == null) {
+            return; // nothing loaded for this location yet; the first load reads the row
+        }
+        for (Span span : spans) {
+            DaySchedule day = schedule.days.get(span.date);
+            if (day != null) {
+                hold(schedule, day, bookingId, locationId, span, resource);
+            }
+        }
+    }
+
+    private void hold(LocationSchedule schedule, DaySchedule day, long bookingId, Long locationId, Span span, Resource resource) {
+        day.hold(bookingId, resource, span.from, span.to);
+        List<LocalDate> held = schedule.daysOfBooking.computeIfAbsent(bookingId, id -> new ArrayList<>(1));
+        if (!held.contains(span.date)) {
+            held.add(span.date);
+        }
+        locationOfBooking.put(bookingId, locationId);
+    }
+
+    private void release(long bookingId, Long locationId) {
+        if (locationId == null) {
+            return;
+        }
+        LocationSchedule schedule = schedules.get(locationId);
+        if (schedule != null) {
+            List<LocalDate> held = schedule.daysOfBooking.remove(bookingId);
+            if (held != null) {
+                for (LocalDate date : held) {
+                    DaySchedule day = schedule.days.get(date);
+                    if (day != null) {
+                        day.release(bookingId);
+                    }
+                }
+            }
+        }
+        locationOfBooking.remove(bookingId, locationId);
+    }
+
+    // ---- locking ----
+
+    private ReentrantLock stripe(Long locationId) {
+        return stripes[Math.floorMod(Long.hashCode(locationId), stripes.length)];
+    }
+
+    // Stripes are always taken in index order, so two movers between the same locations cannot deadlock
+    private List<ReentrantLock> lock(Long first, Long second) {
+        Set<Integer> indexes = new HashSet<>();
+        if (first != null) indexes.add(Math.floorMod(Long.hashCode(first), stripes.length));
+        if (second != null) indexes.add(Math.floorMod(Long.hashCode(second), stripes.length));
+        int[] sorted = indexes.stream().mapToInt(Integer::intValue).sorted().toArray();
+        List<ReentrantLock> locks = new ArrayList<>(sorted.length);
+        for (int index : sorted) {
+            stripes[index].lock();
+            locks.add(stripes[index]);
+        }
+        return locks;
+    }
+
+    private static void unlock(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    // ---- time handling ----
+
+    /** The slot runs a booking covers, one per calendar day; empty when the times are missing or out of order */
+    List<Span> spans(LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null || !end.isAfter(start)) {
+            return List.of();
+        }
+        List<Span> spans = new ArrayList<>(1);
+        LocalDate last = end.toLocalTime().equals(LocalTime.MIDNIGHT) ? end.toLocalDate().minusDays(1) : end.toLocalDate();
+        for (LocalDate date = start.toLocalDate(); !date.isAfter(last); date = date.plusDays(1)) {
+            if (spans.size() > MAX_SPAN_DAYS) {
+                break; // caller rejects it; no need to walk the rest
+            }
+            int fromMinute = date.equals(start.toLocalDate()) ? minuteOfDay(start) : 0;
+            int toMinute = date.equals(end.toLocalDate()) ? minuteOfDay(end) : MINUTES_PER_DAY;
+            spans.add(new Span(date, fromMinute / slotMinutes, (toMinute + slotMinutes - 1) / slotMinutes));
+        }
+        return spans;
+    }
+
+    private String time(int slot) {
+        int minute = slot * slotMinutes;
+        return minute >= MINUTES_PER_DAY ? "24:00" : String.format("%02d:%02d", minute / 60, minute % 60);
+    }
+
+    private boolean withinHorizon(LocalDate date) {
+        LocalDate today = LocalDate.now();
+        return !date.isBefore(today) && !date.isAfter(today.plusDays(horizonDays));
+    }
+
+    private static int minuteOfDay(LocalDateTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static boolean holdsSlots(BookingStatus status) {
+        return status != BookingStatus.CANCELLED;
+    }
+
+    private static Resource resourceOf(BookingType type) {
+        return type == BookingType.FUEL ? Resource.PUMP : Resource.BAY;
+    }
+
+    static final class Span {
+        final LocalDate date;
+        final int from;
+        final int to;
+
+        Span(LocalDate date, int from, int to) {
+            this.date = date;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private static final class LocationSchedule {
+        final Long locationId;
+        final int bays;
+        final int pumps;
+        final TreeMap<LocalDate, DaySchedule> days = new TreeMap<>();
+        final Map<Long, List<LocalDate>> daysOfBooking = new HashMap<>();
+
+        LocationSchedule(Long locationId, int bays, int pumps) {
+            this.locationId = locationId;
+            this.bays = bays;
+            this.pumps = pumps;
+        }
+
+        int capacity(Resource resource) {
+            return resource == Resource.BAY ? bays : pumps;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.autofuellanka.systemmanager.service.availability;
+
+/**
+ * Occupancy of one resource (service bays or fuel pumps) across the slots of a day.
+ * A segment tree with lazy range updates: adding a booking to a run of slots and asking for the
+ * busiest slot in a run are both O(log n) in the number of slots.
+ * Not thread-safe; SlotAvailabilityService guards each location with its lock stripe.
+ */
+class SlotTree {
+
+    private final int size;
+    private final int[] max;
+    private final int[] pending;
+
+    SlotTree(int size) {
+        this.size = size;
+        this.max = new int[4 * size];
+        this.pending = new int[4 * size];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Add delta to every slot in [from, to) */
+    void add(int from, int to, int delta) {
+        if (from < to) {
+            add(1, 0, size, from, to, delta);
+        }
+    }
+
+    /** Highest occupancy of any slot in [from, to); 0 for an empty range */
+    int max(int from, int to) {
+        return from < to ? max(1, 0, size, from, to) : 0;
+    }
+
+    private void add(int node, int nodeFrom, int nodeTo, int from, int to, int delta) {
+        if (to <= nodeFrom || nodeTo <= from) {
+            return;
+        }
+        if (from <= nodeFrom && nodeTo <= to) {
+            max[node] += delta;
+            pending[node] += delta;
+            return;
+        }
+        int mid = (nodeFrom + nodeTo) >>> 1;
+        add(2 * node, nodeFrom, mid, from, to, delta);
+        add(2 * node + 1, mid, nodeTo, from, to, delta);
+        max[node] = Math.max(max[2 * node], max[2 * node + 1]) + pending[node];
+    }
+
+    private int max(int node, int nodeFrom, int nodeTo, int from, int to) {
+        if (to <= nodeFrom || nodeTo <= from) {
+            return Integer.MIN_VALUE;
+        }
+        if (from <= nodeFrom && nodeTo <= to) {
+            return max[node];
+        }
+        int mid = (nodeFrom + nodeTo) >>> 1;
+        // Updates covering this whole node are kept here rather than pushed down to the children
+        return Math.max(max(2 * node, nodeFrom, mid, from, to), max(2 * node + 1, mid, nodeTo, from, to)) + pending[node];
+    }
+}
@@ -0,0 +1,52 @@
+package com.autofuellanka.systemmanager.service.booking;
+
+import com.autofuellanka.systemmanager.dto.BookingDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position on the booking board: start time and id of the last row of a page,
+ * plus the direction it was read in. Encoded as base64url so clients pass it back unchanged.
+ */
+public final class BookingBoardCursor {
+
+    private final boolean ascending;
+    private final LocalDateTime startTime;
+    private final long id;
+
+    public BookingBoardCursor(boolean ascending, LocalDateTime startTime, long id) {
+        this.ascending = ascending;
+        this.startTime = startTime;
+        this.id = id;
+    }
+
+    public static BookingBoardCursor after(BookingDTO last, boolean ascending) {
+        // The raw value: the formatted string drops the fraction the DATETIME(6) column keeps
+        return new BookingBoardCursor(ascending, last.getStartDateTime(), last.getId());
+    }
+
+    public boolean isAscending() { return ascending; }
+
+    public LocalDateTime getStartTime() { return startTime; }
+
+    public long getId() { return id; }
+
+    public String encode() {
+        String raw = (ascending ? "asc" : "desc") + "|" + id + "|" + startTime;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookingBoardCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            boolean ascending = "asc".equals(parts[0]);
+            long id = Long.parseLong(parts[1]);
+            return new BookingBoardCursor(ascending, LocalDateTime.parse(parts[2]), id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid booking board cursor");
+        }
+    }
+}
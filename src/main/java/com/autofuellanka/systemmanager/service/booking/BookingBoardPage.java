@@ -0,0 +1,25 @@
+package com.autofuellanka.systemmanager.service.booking;
+
+import com.autofuellanka.systemmanager.dto.BookingDTO;
+
+import java.util.List;
+
+/** One page of the staff booking board. Follow nextCursor for the next page; there is no total count. */
+public class BookingBoardPage {
+    private List<BookingDTO> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    public List<BookingDTO> getContent() { return content; }
+    public void setContent(List<BookingDTO> content) { this.content = content; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,103 @@
+package com.autofuellanka.systemmanager.service.booking;
+
+import com.autofuellanka.systemmanager.dto.BookingDTO;
+import com.autofuellanka.systemmanager.model.Booking;
+import com.autofuellanka.systemmanager.model.BookingStatus;
+import com.autofuellanka.systemmanager.model.BookingType;
+import com.autofuellanka.systemmanager.model.ServiceType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Staff booking board: filtered bookings ordered by (start time, id), one page at a time.
+ * Rows are selected straight into BookingDTO with a constructor expression, so no Booking or
+ * ServiceType entity is managed, and pages seek past the cursor instead of using OFFSET, so a
+ * page costs the same whatever its position in the booking history. Bookings without a start
+ * time have no place on the board and are left out.
+ */
+@Service
+@Transactional(readOnly = true)
+public class BookingBoardService {
+
+    static final int MAX_PAGE_SIZE = 200;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BookingBoardPage find(BookingStatus status, BookingType type, Long locationId, Long customerId,
+                                 LocalDateTime from, LocalDateTime to, String sortDir, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        boolean ascending = "asc".equalsIgnoreCase(sortDir);
+        BookingBoardCursor position = null;
+        if (cursor != null && !cursor.isBlank()) {
+            position = BookingBoardCursor.decode(cursor);
+            if (position.isAscending() != ascending) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort order");
+            }
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingDTO> cq = cb.createQuery(BookingDTO.class);
+        Root<Booking> b = cq.from(Booking.class);
+        Join<Booking, ServiceType> st = b.join("serviceType", JoinType.LEFT);
+        cq.select(cb.construct(BookingDTO.class,
+                b.get("id"), b.get("startTime"), b.get("endTime"), b.get("fuelType"), b.get("litersRequested"),
+                b.get("status"), b.get("type"), b.get("description"), b.get("urgency"),
+                b.get("contactPreference"), b.get("customerId"), b.get("locationId"), b.get("vehicleId"),
+                st.get("id"), st.get("name"), st.get("basePrice")));
+
+        Path<LocalDateTime> start = b.get("startTime");
+        Path<Long> id = b.get("id");
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.isNotNull(start));
+        if (status != null) where.add(cb.equal(b.get("status"), status));
+        if (type != null) where.add(cb.equal(b.get("type"), type));
+        if (locationId != null) where.add(cb.equal(b.get("locationId"), locationId));
+        if (customerId != null) where.add(cb.equal(b.get("customerId"), customerId));
+        if (from != null) where.add(cb.greaterThanOrEqualTo(start, from));
+        if (to != null) where.add(cb.lessThanOrEqualTo(start, to));
+        if (position != null) {
+            // start > value OR (start = value AND id > last id), mirrored for descending order
+            LocalDateTime value = position.getStartTime();
+            Predicate beyond = ascending ? cb.greaterThan(start, value) : cb.lessThan(start, value);
+            Predicate tieBreak = cb.and(cb.equal(start, value),
+                    ascending ? cb.greaterThan(id, position.getId()) : cb.lessThan(id, position.getId()));
+            where.add(cb.or(beyond, tieBreak));
+        }
+        cq.where(where.toArray(new Predicate[0]));
+        if (ascending) {
+            cq.orderBy(cb.asc(start), cb.asc(id));
+        } else {
+            cq.orderBy(cb.desc(start), cb.desc(id));
+        }
+
+        // One extra row tells us whether there is a next page without counting
+        List<BookingDTO> rows = entityManager.createQuery(cq)
+                .setMaxResults(pageSize + 1)
+                .getResultList();
+        boolean hasNext = rows.size() > pageSize;
+        List<BookingDTO> content = hasNext ? rows.subList(0, pageSize) : rows;
+
+        BookingBoardPage result = new BookingBoardPage();
+        result.setContent(content);
+        result.setSize(pageSize);
+        result.setHasNext(hasNext);
+        if (hasNext) {
+            result.setNextCursor(BookingBoardCursor.after(content.get(content.size() - 1), ascending).encode());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,203 @@
+package com.autofuellanka.systemmanager.service.booking;
+
+import com.autofuellanka.systemmanager.model.BookingStatus;
+import com.autofuellanka.systemmanager.repository.BookingRepository;
+import com.autofuellanka.systemmanager.repository.FeedbackRepository;
+import com.autofuellanka.systemmanager.repository.InvoiceRepository;
+import com.autofuellanka.systemmanager.repository.JobRepository;
+import com.autofuellanka.systemmanager.service.BillingSummaryService;
+import com.autofuellanka.systemmanager.service.TransactionCallbacks;
+import com.autofuellanka.systemmanager.service.availability.SlotAvailabilityService;
+import com.autofuellanka.systemmanager.service.metrics.BookingCubeService;
+import com.autofuellanka.systemmanager.service.metrics.DashboardMetricsService;
+import com.autofuellanka.systemmanager.service.metrics.DashboardMetricsService.Metric;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Deletes or archives bookings with set-based statements.
+ * <p>
+ * A delete detaches the booking's feedback, jobs and invoices with one bulk UPDATE each and then
+ * deletes the rows, per batch of up to {@link #BATCH_SIZE} ids, so removing one booking is five
+ * statements whatever the size of those tables. Archiving cancels the bookings in place (one
+ * UPDATE) and keeps their history; completed and already cancelled bookings are left alone, as
+ * the status workflow treats both as terminal.
+ * <p>
+ * Bulk statements bypass the Booking entity listeners, so the metrics counter, booking cube and
+ * slot availability index are told about the affected bookings here, after the commit.
+ */
+@Service
+public class BookingRemovalService {
+
+    static final int BATCH_SIZE = 500;
+    static final int MAX_IDS = 5000;
+
+    public enum Action {
+        DELETE, ARCHIVE;
+
+        public static Action from(String value) {
+            if (value == null || value.isBlank()) {
+                throw new IllegalArgumentException("action is required");
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("action must be one of: " + Arrays.toString(values()));
+            }
+        }
+    }
+
+    private final BookingRepository bookingRepository;
+    private final FeedbackRepository feedbackRepository;
+    private final JobRepository jobRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final BookingCubeService cubeService;
+    private final DashboardMetricsService metricsService;
+    private final SlotAvailabilityService availabilityService;
+    private final BillingSummaryService billingSummaryService;
+
+    public BookingRemovalService(BookingRepository bookingRepository,
+                                 FeedbackRepository feedbackRepository,
+                                 JobRepository jobRepository,
+                                 InvoiceRepository invoiceRepository,
+                                 BookingCubeService cubeService,
+                                 DashboardMetricsService metricsService,
+                                 SlotAvailabilityService availabilityService,
+                                 BillingSummaryService billingSummaryService) {
+        this.bookingRepository = bookingRepository;
+        this.feedbackRepository = feedbackRepository;
+        this.jobRepository = jobRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.cubeService = cubeService;
+        this.metricsService = metricsService;
+        this.availabilityService = availabilityService;
+        this.billingSummaryService = billingSummaryService;
+    }
+
+    /** Delete one booking; false when it does not exist */
+    @Transactional
+    public boolean delete(long bookingId) {
+        return apply(Action.DELETE, List.of(bookingId)).getAffected() == 1;
+    }
+
+    @Transactional
+    public Result apply(Action action, Collection<Long> bookingIds) {
+        if (bookingIds == null || bookingIds.isEmpty()) {
+            throw new IllegalArgumentException("ids must not be empty");
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(bookingIds));
+        ids.removeIf(Objects::isNull);
+        if (ids.size() > MAX_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_IDS + " bookings can be changed at once");
+        }
+
+        Result result = new Result(action, ids.size());
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            if (action == Action.DELETE) {
+                deleteBatch(batch, result);
+            } else {
+                archiveBatch(batch, result);
+            }
+        }
+        return result;
+    }
+
+    private void deleteBatch(List<Long> batch, Result result) {
+        List<Long> found = new ArrayList<>();
+        for (Object[] row : bookingRepository.findRemovalRows(batch)) {
+            found.add((Long) row[0]);
+        }
+        skipMissing(batch, found, result);
+        if (found.isEmpty()) {
+            return;
+        }
+
+        feedbackRepository.detachBookings(found);
+        jobRepository.detachBookings(found);
+        boolean invoicesChanged = invoiceRepository.detachBookings(found) > 0;
+        int deleted = bookingRepository.deleteAllByIdIn(found);
+        result.affected += deleted;
+
+        TransactionCallbacks.afterCommit(() -> {
+            for (Long id : found) {
+                cubeService.onRemoved(id);
+                availabilityService.onRemoved(id);
+            }
+            metricsService.add(Metric.BOOKINGS, -deleted);
+            if (invoicesChanged) {
+                billingSummaryService.invalidate();
+            }
+        });
+    }
+
+    private void archiveBatch(List<Long> batch, Result result) {
+        List<Object[]> archivable = new ArrayList<>();
+        List<Long> found = new ArrayList<>();
+        for (Object[] row : bookingRepository.findRemovalRows(batch)) {
+            found.add((Long) row[0]);
+            BookingStatus status = (BookingStatus) row[4];
+            if (status == BookingStatus.COMPLETED || status == BookingStatus.CANCELLED) {
+                result.skippedIds.add((Long) row[0]);
+            } else {
+                archivable.add(row);
+            }
+        }
+        skipMissing(batch, found, result);
+        if (archivable.isEmpty()) {
+            return;
+        }
+
+        List<Long> archiveIds = archivable.stream().map(row -> (Long) row[0]).toList();
+        result.affected += bookingRepository.cancelAllByIdIn(archiveIds);
+
+        TransactionCallbacks.afterCommit(() -> {
+            for (Object[] row : archivable) {
+                long id = (Long) row[0];
+                cubeService.onSaved(id, (LocalDateTime) row[1], (Long) row[2], (Long) row[3], BookingStatus.CANCELLED);
+                // A cancelled booking holds no slots
+                availabilityService.onRemoved(id);
+            }
+        });
+    }
+
+    private static void skipMissing(List<Long> batch, List<Long> found, Result result) {
+        if (found.size() == batch.size()) {
+            return;
+        }
+        Set<Long> present = Set.copyOf(found);
+        for (Long id : batch) {
+            if (!present.contains(id)) {
+                result.skippedIds.add(id);
+            }
+        }
+    }
+
+    /** Outcome of a bulk call: how many bookings changed and which ids were missing or not eligible */
+    public static class Result {
+        private final Action action;
+        private final int requested;
+        private int affected;
+        private final List<Long> skippedIds = new ArrayList<>();
+
+        Result(Action action, int requested) {
+            this.action = action;
+            this.requested = requested;
+        }
+
+        public Action getAction() { return action; }
+        public int getRequested() { return requested; }
+        public int getAffected() { return affected; }
+        public List<Long> getSkippedIds() { return skippedIds; }
+    }
+}
@@ -0,0 +1,141 @@
+package com.autofuellanka.systemmanager.service.finance;
+
+import com.autofuellanka.systemmanager.model.AccountBalanceSnapshot;
+import com.autofuellanka.systemmanager.model.FinanceLedger;
+import com.autofuellanka.systemmanager.model.TransactionType;
+import com.autofuellanka.systemmanager.repository.AccountBalanceSnapshotRepository;
+import com.autofuellanka.systemmanager.repository.FinanceLedgerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Account balances from daily closing snapshots.
+ * A balance is the latest snapshot on or before the requested day plus the ledger
+ * delta after it, so the cost no longer grows with the account's history.
+ * Snapshots are written by the nightly close; back-dated postings shift them
+ * through LedgerPostingService.
+ */
+@Service
+public class AccountBalanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountBalanceService.class);
+
+    // Accounts where a DEBIT adds to the balance; all others grow on CREDIT (mirrors FinanceLedgerRepository.getAccountBalance)
+    private static final Set<String> DEBIT_NORMAL_ACCOUNTS = Set.of("INVENTORY");
+
+    private final AccountBalanceSnapshotRepository snapshotRepository;
+    private final FinanceLedgerRepository financeLedgerRepository;
+    private final TransactionTemplate closeTx;
+
+    public AccountBalanceService(AccountBalanceSnapshotRepository snapshotRepository,
+                                 FinanceLedgerRepository financeLedgerRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.snapshotRepository = snapshotRepository;
+        this.financeLedgerRepository = financeLedgerRepository;
+        this.closeTx = new TransactionTemplate(transactionManager);
+    }
+
+    /** Balance at the end of asOf, or the current balance when asOf is null */
+    @Transactional(readOnly = true)
+    public double getBalance(String account, LocalDate asOf) {
+        LocalDate lastDay = asOf != null ? asOf : LocalDate.now();
+        LocalDateTime until = asOf != null ? asOf.plusDays(1).atStartOfDay() : null;
+
+        AccountBalanceSnapshot snapshot = snapshotRepository
+                .findTopByAccountAndBalanceDateLessThanEqualOrderByBalanceDateDesc(account, lastDay)
+                .orElse(null);
+        if (snapshot == null) {
+            return financeLedgerRepository.getAccountBalanceChange(account, null, until);
+        }
+        if (asOf != null && snapshot.getBalanceDate().equals(asOf)) {
+            return snapshot.getClosingBalance();
+        }
+        LocalDateTime from = snapshot.getBalanceDate().plusDays(1).atStartOfDay();
+        return snapshot.getClosingBalance() + financeLedgerRepository.getAccountBalanceChange(account, from, until);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Double> getBalances(LocalDate asOf) {
+        Map<String, Double> balances = new LinkedHashMap<>();
+        for (String account : financeLedgerRepository.findDistinctAccounts()) {
+            balances.put(account, getBalance(account, asOf));
+        }
+        return balances;
+    }
+
+    /** Keep later snapshots right when an entry is posted on or before an already closed day */
+    @Transactional
+    public void onPosted(FinanceLedger entry) {
+        if (entry.getTransactionDate() == null) {
+            return;
+        }
+        snapshotRepository.shiftFrom(entry.getAccount(), entry.getTransactionDate().toLocalDate(), signedAmount(entry));
+    }
+
+    /** Batch counterpart of onPosted: one shift per account and day instead of one per entry */
+    @Transactional
+    public void onPosted(List<FinanceLedger> entries) {
+        Map<String, Map<LocalDate, Double>> deltas = new LinkedHashMap<>();
+        for (FinanceLedger entry : entries) {
+            if (entry.getTransactionDate() != null) {
+                deltas.computeIfAbsent(entry.getAccount(), account -> new LinkedHashMap<>())
+                        .merge(entry.getTransactionDate().toLocalDate(), signedAmount(entry), Double::sum);
+            }
+        }
+        deltas.forEach((account, byDay) -> byDay.forEach((day, delta) ->
+                snapshotRepository.shiftFrom(account, day, delta)));
+    }
+
+    // Seed the first snapshots on a database that has ledger history but has never been closed
+    @EventListener(ApplicationReadyEvent.class)
+    public void closeIfNeverClosed() {
+        if (snapshotRepository.count() == 0 && financeLedgerRepository.count() > 0) {
+            closePreviousDay();
+        }
+    }
+
+    // Nightly close of the previous day for every account
+    @Scheduled(cron = "${app.finance.balance-close-cron:0 15 0 * * *}")
+    public void closePreviousDay() {
+        closeDay(LocalDate.now().minusDays(1));
+    }
+
+    public void closeDay(LocalDate day) {
+        int closed = 0;
+        for (String account : financeLedgerRepository.findDistinctAccounts()) {
+            closeTx.executeWithoutResult(status -> {
+                double closing = getBalance(account, day);
+                AccountBalanceSnapshot snapshot = snapshotRepository.findByAccountAndBalanceDate(account, day)
+                        .orElseGet(AccountBalanceSnapshot::new);
+                snapshot.setAccount(account);
+                snapshot.setBalanceDate(day);
+                snapshot.setClosingBalance(closing);
+                snapshotRepository.save(snapshot);
+            });
+            closed++;
+        }
+        log.info("Closed {} ledger account balances for {}", closed, day);
+    }
+
+    /** Effect of one entry on its account's balance */
+    static double signedAmount(FinanceLedger entry) {
+        boolean increases = DEBIT_NORMAL_ACCOUNTS.contains(entry.getAccount())
+                ? entry.getTransactionType() == TransactionType.DEBIT
+                : entry.getTransactionType() == TransactionType.CREDIT;
+        return increases ? entry.getAmount() : -entry.getAmount();
+    }
+}
@@ -0,0 +1,97 @@
+package com.autofuellanka.systemmanager.service.finance;
+
+import com.autofuellanka.systemmanager.model.FinanceLedger;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Opaque keyset position in the ledger: the sort key and id of the last row of a page.
+ * Encoded as base64url so clients pass it back unchanged and never build it themselves.
+ * A null sort key is encoded by leaving the value out, so it never collides with a string value.
+ */
+public final class LedgerCursor {
+
+    /** Sortable ledger columns; the id is always appended as tie-breaker */
+    public enum SortField {
+        TRANSACTION_DATE("transactionDate", FinanceLedger::getTransactionDate, LocalDateTime::parse),
+        AMOUNT("amount", FinanceLedger::getAmount, Double::valueOf),
+        ACCOUNT("account", FinanceLedger::getAccount, Function.identity()),
+        CREATED_AT("createdAt", FinanceLedger::getCreatedAt, LocalDateTime::parse),
+        ID("id", FinanceLedger::getId, Long::valueOf);
+
+        private final String property;
+        private final Function<FinanceLedger, ? extends Comparable<?>> extractor;
+        private final Function<String, ? extends Comparable<?>> parser;
+
+        SortField(String property, Function<FinanceLedger, ? extends Comparable<?>> extractor,
+                  Function<String, ? extends Comparable<?>> parser) {
+            this.property = property;
+            this.extractor = extractor;
+            this.parser = parser;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        public static SortField fromProperty(String property) {
+            for (SortField field : values()) {
+                if (field.property.equalsIgnoreCase(property)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported ledger sort field: " + property);
+        }
+    }
+
+    private final SortField sortField;
+    private final boolean ascending;
+    private final Comparable<?> value;
+    private final long id;
+
+    public LedgerCursor(SortField sortField, boolean ascending, Comparable<?> value, long id) {
+        this.sortField = sortField;
+        this.ascending = ascending;
+        this.value = value;
+        this.id = id;
+    }
+
+    public static LedgerCursor after(FinanceLedger last, SortField sortField, boolean ascending) {
+        return new LedgerCursor(sortField, ascending, sortField.extractor.apply(last), last.getId());
+    }
+
+    public SortField getSortField() { return sortField; }
+
+    public boolean isAscending() { return ascending; }
+
+    public long getId() { return id; }
+
+    /** The last row's sort key; null when that row had none */
+    @SuppressWarnings("unchecked")
+    public Comparable<Object> getValue() {
+        return (Comparable<Object>) value;
+    }
+
+    public String encode() {
+        String raw = sortField.name() + "|" + (ascending ? "asc" : "desc") + "|" + id
+                + (value != null ? "|" + value : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static LedgerCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            SortField field = SortField.valueOf(parts[0]);
+            boolean ascending = "asc".equals(parts[1]);
+            long id = Long.parseLong(parts[2]);
+            Comparable<?> value = parts.length > 3 ? field.parser.apply(parts[3]) : null;
+            return new LedgerCursor(field, ascending, value, id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid ledger cursor");
+        }
+    }
+}
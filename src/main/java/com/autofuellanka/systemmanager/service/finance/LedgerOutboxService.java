@@ -0,0 +1,143 @@
+package com.autofuellanka.systemmanager.service.finance;
+
+import com.autofuellanka.systemmanager.model.FinanceLedger;
+import com.autofuellanka.systemmanager.model.Invoice;
+import com.autofuellanka.systemmanager.model.LedgerEventType;
+import com.autofuellanka.systemmanager.model.LedgerOutboxEvent;
+import com.autofuellanka.systemmanager.model.Payment;
+import com.autofuellanka.systemmanager.model.TransactionType;
+import com.autofuellanka.systemmanager.repository.LedgerOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transactional outbox for ledger postings.
+ * Invoice, payment and refund flows write one compact event in their own transaction instead of
+ * two finance_ledger rows; the poster drains the outbox in batches, expands each event into its
+ * debit/credit pair and writes them with LedgerPostingService.postAll. Posting a batch and deleting
+ * its events happen in one transaction, so every event is posted exactly once, across restarts too.
+ * Ledger reads lag the business write by up to one poll interval.
+ */
+@Service
+public class LedgerOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerOutboxService.class);
+
+    private final LedgerOutboxRepository outboxRepository;
+    private final LedgerPostingService ledgerPostingService;
+    private final TransactionTemplate batchTx;
+    private final int batchSize;
+
+    public LedgerOutboxService(LedgerOutboxRepository outboxRepository,
+                               LedgerPostingService ledgerPostingService,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.finance.outbox.batch-size:500}") int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.ledgerPostingService = ledgerPostingService;
+        this.batchTx = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    // Events must commit or roll back with the business change that caused them
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void invoiceIssued(Invoice invoice, Long bookingId, boolean fuelOnly) {
+        LedgerOutboxEvent event = new LedgerOutboxEvent();
+        event.setEventType(fuelOnly ? LedgerEventType.FUEL_INVOICE_ISSUED : LedgerEventType.INVOICE_ISSUED);
+        event.setAmount(invoice.getTotalAmount());
+        event.setReference(invoice.getInvoiceNumber());
+        event.setInvoiceNumber(invoice.getInvoiceNumber());
+        event.setBookingId(bookingId);
+        event.setOccurredAt(invoice.getCreatedAt());
+        event.setCreatedBy("system");
+        outboxRepository.save(event);
+    }
+
+    /** A saved payment; refunds carry a negative amount, as in the payments table */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void paymentRecorded(Payment payment, String account) {
+        LedgerOutboxEvent event = new LedgerOutboxEvent();
+        event.setEventType(payment.getAmount() < 0 ? LedgerEventType.REFUND_ISSUED : LedgerEventType.PAYMENT_RECEIVED);
+        event.setAmount(Math.abs(payment.getAmount()));
+        event.setAccount(account);
+        event.setReference(payment.getReference());
+        event.setInvoiceNumber(payment.getInvoice().getInvoiceNumber());
+        event.setOccurredAt(payment.getCreatedAt());
+        event.setCreatedBy(payment.getCreatedBy());
+        outboxRepository.save(event);
+    }
+
+    @Scheduled(fixedDelayString = "${app.finance.outbox.poll-ms:1000}")
+    public void drain() {
+        int posted = 0;
+        try {
+            int batch;
+            do {
+                batch = batchTx.execute(status -> postBatch());
+                posted += batch;
+            } while (batch == batchSize);
+        } catch (RuntimeException e) {
+            // The failed batch stays in the outbox and is retried on the next poll
+            log.error("Ledger outbox posting failed after {} events", posted, e);
+            return;
+        }
+        if (posted > 0) {
+            log.debug("Posted {} ledger outbox events", posted);
+        }
+    }
+
+    private int postBatch() {
+        List<LedgerOutboxEvent> events = outboxRepository.lockOldest(PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        List<FinanceLedger> entries = new ArrayList<>(events.size() * 2);
+        for (LedgerOutboxEvent event : events) {
+            entries.addAll(entries(event));
+        }
+        ledgerPostingService.postAll(entries);
+        outboxRepository.deleteAllByIdInBatch(events.stream().map(LedgerOutboxEvent::getId).toList());
+        return events.size();
+    }
+
+    /** The double-entry rows an event stands for; descriptions match the rows the flows used to write */
+    static List<FinanceLedger> entries(LedgerOutboxEvent event) {
+        String invoiceNumber = event.getInvoiceNumber();
+        return switch (event.getEventType()) {
+            case INVOICE_ISSUED -> List.of(
+                    entry(event, "ACCOUNTS_RECEIVABLE", TransactionType.DEBIT, "Invoice created for booking " + event.getBookingId()),
+                    entry(event, "REVENUE", TransactionType.CREDIT, "Revenue from invoice " + invoiceNumber));
+            case FUEL_INVOICE_ISSUED -> List.of(
+                    entry(event, "ACCOUNTS_RECEIVABLE", TransactionType.DEBIT, "Fuel-only invoice created for booking " + event.getBookingId()),
+                    entry(event, "FUEL_REVENUE", TransactionType.CREDIT, "Fuel revenue from invoice " + invoiceNumber));
+            case PAYMENT_RECEIVED -> List.of(
+                    entry(event, event.getAccount(), TransactionType.DEBIT, "Payment received for invoice " + invoiceNumber),
+                    entry(event, "ACCOUNTS_RECEIVABLE", TransactionType.CREDIT, "Payment received for invoice " + invoiceNumber));
+            case REFUND_ISSUED -> List.of(
+                    entry(event, "ACCOUNTS_RECEIVABLE", TransactionType.DEBIT, "Refund issued for invoice " + invoiceNumber),
+                    entry(event, event.getAccount(), TransactionType.CREDIT, "Refund issued for invoice " + invoiceNumber));
+        };
+    }
+
+    private static FinanceLedger entry(LedgerOutboxEvent event, String account, TransactionType type, String description) {
+        FinanceLedger entry = new FinanceLedger();
+        entry.setTransactionDate(event.getOccurredAt());
+        entry.setAccount(account);
+        entry.setTransactionType(type);
+        entry.setAmount(event.getAmount());
+        entry.setReference(event.getReference());
+        entry.setDescription(description);
+        entry.setCreatedBy(event.getCreatedBy());
+        return entry;
+    }
+}
@@ -0,0 +1,40 @@
+package com.autofuellanka.systemmanager.service.finance;
+
+import com.autofuellanka.systemmanager.model.FinanceLedger;
+
+import java.util.List;
+
+/**
+ * One page of ledger entries. Follow nextCursor for the next page;
+ * totalElements/totalPages are only filled in when the caller asked for a count.
+ */
+public class LedgerPage {
+    private List<FinanceLedger> content;
+    private int size;
+    private int number;
+    private boolean hasNext;
+    private String nextCursor;
+    private Long totalElements;
+    private Integer totalPages;
+
+    public List<FinanceLedger> getContent() { return content; }
+    public void setContent(List<FinanceLedger> content) { this.content = content; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public int getNumber() { return number; }
+    public void setNumber(int number) { this.number = number; }
+
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public Long getTotalElements() { return totalElements; }
+    public void setTotalElements(Long totalElements) { this.totalElements = totalElements; }
+
+    public Integer getTotalPages() { return totalPages; }
+    public void setTotalPages(Integer totalPages) { this.totalPages = totalPages; }
+}
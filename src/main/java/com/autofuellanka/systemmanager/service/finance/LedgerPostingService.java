@@ -0,0 +1,72 @@
+package com.autofuellanka.systemmanager.service.finance;
+
+import com.autofuellanka.systemmanager.model.FinanceLedger;
+import com.autofuellanka.systemmanager.repository.FinanceLedgerRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Single write path for finance_ledger entries, so derived data
+ * (balance snapshots) stays in step with every posting.
+ */
+@Service
+public class LedgerPostingService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO finance_ledger (transaction_date, account, transaction_type, amount, reference, " +
+            "description, created_at, created_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final FinanceLedgerRepository financeLedgerRepository;
+    private final AccountBalanceService accountBalanceService;
+    private final JdbcTemplate jdbcTemplate;
+
+    public LedgerPostingService(FinanceLedgerRepository financeLedgerRepository,
+                                AccountBalanceService accountBalanceService,
+                                JdbcTemplate jdbcTemplate) {
+        this.financeLedgerRepository = financeLedgerRepository;
+        this.accountBalanceService = accountBalanceService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public FinanceLedger post(FinanceLedger entry) {
+        FinanceLedger saved = financeLedgerRepository.save(entry);
+        accountBalanceService.onPosted(saved);
+        return saved;
+    }
+
+    /**
+     * Post many entries with one JDBC batch insert. The entries are not managed and do not get
+     * their ids back; use this for bulk imports, and post() where the saved entry is needed.
+     */
+    @Transactional
+    public void postAll(List<FinanceLedger> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (FinanceLedger entry : entries) {
+            // Same defaults as FinanceLedger's @PrePersist, which a JDBC insert bypasses
+            entry.setCreatedAt(now);
+            if (entry.getTransactionDate() == null) {
+                entry.setTransactionDate(now);
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(entry.getTransactionDate()));
+            ps.setString(2, entry.getAccount());
+            ps.setString(3, entry.getTransactionType().name());
+            ps.setDouble(4, entry.getAmount());
+            ps.setString(5, entry.getReference());
+            ps.setString(6, entry.getDescription());
+            ps.setTimestamp(7, Timestamp.valueOf(entry.getCreatedAt()));
+            ps.setString(8, entry.getCreatedBy());
+        });
+        accountBalanceService.onPosted(entries);
+    }
+}
@@ -0,0 +1,97 @@
+package com.autofuellanka.systemmanager.service.finance;
+
+import com.autofuellanka.systemmanager.model.FinanceLedger;
+import com.autofuellanka.systemmanager.model.TransactionType;
+import com.autofuellanka.systemmanager.repository.FinanceLedgerRepository;
+import com.autofuellanka.systemmanager.service.finance.LedgerCursor.SortField;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Filtered, sorted ledger listing.
+ * Pages are fetched by seeking past the cursor on (sort field, id) rather than by offset,
+ * so page N costs the same as page 1; the total COUNT(*) only runs when requested.
+ * Plain page numbers still work for the first pages of the UI pager but fall back to OFFSET.
+ */
+@Service
+@Transactional(readOnly = true)
+public class LedgerQueryService {
+
+    static final int MAX_PAGE_SIZE = 200;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final FinanceLedgerRepository financeLedgerRepository;
+
+    public LedgerQueryService(FinanceLedgerRepository financeLedgerRepository) {
+        this.financeLedgerRepository = financeLedgerRepository;
+    }
+
+    public LedgerPage find(LocalDateTime from, LocalDateTime to, String account, TransactionType type,
+                           String sortBy, String sortDir, String cursor, int page, int size,
+                           boolean includeTotal) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        SortField sortField = SortField.fromProperty(sortBy);
+        boolean ascending = "asc".equalsIgnoreCase(sortDir);
+
+        Specification<FinanceLedger> filters = LedgerSpecifications.filter(from, to, account, type);
+        Specification<FinanceLedger> query = filters;
+        int offset = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            LedgerCursor position = LedgerCursor.decode(cursor);
+            if (position.getSortField() != sortField || position.isAscending() != ascending) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort order");
+            }
+            query = filters.and(LedgerSpecifications.after(position));
+        } else if (page > 0) {
+            offset = page * pageSize;
+        }
+
+        // One extra row tells us whether there is a next page without counting
+        List<FinanceLedger> rows = fetch(query, sortField, ascending, offset, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        List<FinanceLedger> content = hasNext ? rows.subList(0, pageSize) : rows;
+
+        LedgerPage result = new LedgerPage();
+        result.setContent(content);
+        result.setSize(pageSize);
+        result.setNumber(page);
+        result.setHasNext(hasNext);
+        if (hasNext) {
+            result.setNextCursor(LedgerCursor.after(content.get(content.size() - 1), sortField, ascending).encode());
+        }
+        if (includeTotal) {
+            long total = financeLedgerRepository.count(filters);
+            result.setTotalElements(total);
+            result.setTotalPages((int) ((total + pageSize - 1) / pageSize));
+        }
+        return result;
+    }
+
+    private List<FinanceLedger> fetch(Specification<FinanceLedger> spec, SortField sortField, boolean ascending,
+                                      int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<FinanceLedger> cq = cb.createQuery(FinanceLedger.class);
+        Root<FinanceLedger> root = cq.from(FinanceLedger.class);
+        cq.where(spec.toPredicate(root, cq, cb));
+        if (ascending) {
+            cq.orderBy(cb.asc(root.get(sortField.getProperty())), cb.asc(root.get("id")));
+        } else {
+            cq.orderBy(cb.desc(root.get(sortField.getProperty())), cb.desc(root.get("id")));
+        }
+        return entityManager.createQuery(cq)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,69 @@
+package com.autofuellanka.systemmanager.service.finance;
+
+import com.autofuellanka.systemmanager.model.FinanceLedger;
+import com.autofuellanka.systemmanager.model.TransactionType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/** Composable ledger filters for the Specification-based ledger queries */
+public final class LedgerSpecifications {
+
+    private LedgerSpecifications() { }
+
+    /** All given filters combined; null arguments are left out */
+    public static Specification<FinanceLedger> filter(LocalDateTime from, LocalDateTime to,
+                                                      String account, TransactionType type) {
+        Specification<FinanceLedger> spec = all();
+        if (account != null && !account.isBlank()) spec = spec.and(accountIs(account));
+        if (from != null) spec = spec.and(onOrAfter(from));
+        if (to != null) spec = spec.and(onOrBefore(to));
+        if (type != null) spec = spec.and(typeIs(type));
+        return spec;
+    }
+
+    public static Specification<FinanceLedger> all() {
+        return (root, query, cb) -> cb.conjunction();
+    }
+
+    public static Specification<FinanceLedger> accountIs(String account) {
+        return (root, query, cb) -> cb.equal(root.get("account"), account);
+    }
+
+    public static Specification<FinanceLedger> onOrAfter(LocalDateTime from) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("transactionDate"), from);
+    }
+
+    public static Specification<FinanceLedger> onOrBefore(LocalDateTime to) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("transactionDate"), to);
+    }
+
+    public static Specification<FinanceLedger> typeIs(TransactionType type) {
+        return (root, query, cb) -> cb.equal(root.get("transactionType"), type);
+    }
+
+    /**
+     * Seek predicate: rows strictly after (value, id) in the given sort order,
+     * i.e. field > value OR (field = value AND id > id) for ascending order.
+     * Nulls sort below every value, as MySQL and H2 order them: first when ascending, last when
+     * descending. Comparisons with NULL are never true, so null keys get their own terms.
+     */
+    public static Specification<FinanceLedger> after(LedgerCursor cursor) {
+        return (root, query, cb) -> {
+            Path<Comparable<Object>> field = root.get(cursor.getSortField().getProperty());
+            Path<Long> id = root.get("id");
+            Comparable<Object> value = cursor.getValue();
+            Predicate idBeyond = cursor.isAscending() ? cb.greaterThan(id, cursor.getId()) : cb.lessThan(id, cursor.getId());
+            if (value == null) {
+                Predicate tieBreak = cb.and(cb.isNull(field), idBeyond);
+                // Ascending, every non-null key follows the nulls; descending, nothing but nulls is left
+                return cursor.isAscending() ? cb.or(cb.isNotNull(field), tieBreak) : tieBreak;
+            }
+            Predicate beyond = cursor.isAscending() ? cb.greaterThan(field, value) : cb.lessThan(field, value);
+            Predicate tieBreak = cb.and(cb.equal(field, value), idBeyond);
+            return cursor.isAscending() ? cb.or(beyond, tieBreak) : cb.or(beyond, tieBreak, cb.isNull(field));
+        };
+    }
+}
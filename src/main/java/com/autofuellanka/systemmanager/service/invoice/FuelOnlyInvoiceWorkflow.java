@@ -3,8 +3,8 @@ package com.autofuellanka.systemmanager.service.invoice;
 import com.autofuellanka.systemmanager.model.*;
 import com.autofuellanka.systemmanager.repository.BookingRepository;
 import com.autofuellanka.systemmanager.repository.InvoiceRepository;
-import com.autofuellanka.systemmanager.repository.FinanceLedgerRepository;
 import com.autofuellanka.systemmanager.service.FuelPricingService;
+import com.autofuellanka.systemmanager.service.finance.LedgerOutboxService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -21,7 +21,7 @@ public class FuelOnlyInvoiceWorkflow extends InvoiceCreationTemplate {
     private InvoiceRepository invoiceRepository;
 
     @Autowired
-    private FinanceLedgerRepository financeLedgerRepository;
+    private LedgerOutboxService ledgerOutboxService;
 
     @Autowired
     private FuelPricingService fuelPricingService;
@@ -87,25 +87,8 @@ public class FuelOnlyInvoiceWorkflow extends InvoiceCreationTemplate {
 
     @Override
     protected void afterPersist(Invoice invoice, Long bookingId) {
-        FinanceLedger debitEntry = new FinanceLedger();
-        debitEntry.setTransactionDate(invoice.getCreatedAt());
-        debitEntry.setAccount("ACCOUNTS_RECEIVABLE");
-        debitEntry.setTransactionType(TransactionType.DEBIT);
-        debitEntry.setAmount(invoice.getTotalAmount());
-        debitEntry.setReference(invoice.getInvoiceNumber());
-        debitEntry.setDescription("Fuel-only invoice created for booking " + bookingId);
-        debitEntry.setCreatedBy("system");
-        financeLedgerRepository.save(debitEntry);
-
-        FinanceLedger creditEntry = new FinanceLedger();
-        creditEntry.setTransactionDate(invoice.getCreatedAt());
-        creditEntry.setAccount("FUEL_REVENUE");
-        creditEntry.setTransactionType(TransactionType.CREDIT);
-        creditEntry.setAmount(invoice.getTotalAmount());
-        creditEntry.setReference(invoice.getInvoiceNumber());
-        creditEntry.setDescription("Fuel revenue from invoice " + invoice.getInvoiceNumber());
-        creditEntry.setCreatedBy("system");
-        financeLedgerRepository.save(creditEntry);
+        // Ledger rows are written by the outbox poster
+        ledgerOutboxService.invoiceIssued(invoice, bookingId, true);
     }
 }
 
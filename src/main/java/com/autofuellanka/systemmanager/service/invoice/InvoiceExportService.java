@@ -0,0 +1,326 @@
+package com.autofuellanka.systemmanager.service.invoice;
+
+import com.autofuellanka.systemmanager.model.Invoice;
+import com.autofuellanka.systemmanager.model.InvoiceStatus;
+import com.autofuellanka.systemmanager.repository.InvoiceRepository;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.utils.PdfMerger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Bulk invoice PDF export for a date range, streamed as a ZIP of one PDF per invoice or as one
+ * merged PDF. Invoices render on a bounded worker pool; invoices that were already opened are taken
+ * from InvoicePdfCache, but an export does not add its own renderings to the cache. Each export keeps at most a small window of
+ * rendered PDFs in memory and writes each one out as soon as it can: ZIP entries in the order the
+ * renders finish, merged pages in invoice order. Exports beyond the concurrency limit are a 503
+ * before anything is streamed.
+ */
+@Service
+public class InvoiceExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceExportService.class);
+
+    private static final String ERRORS_ENTRY = "FAILED.txt";
+
+    public enum Format { ZIP, PDF }
+
+    private final InvoiceRepository invoiceRepository;
+    private final InvoicePdfCache invoicePdfCache;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore exports;
+    private final int window;
+    private final int maxInvoices;
+
+    public InvoiceExportService(InvoiceRepository invoiceRepository,
+                                InvoicePdfCache invoicePdfCache,
+                                @Value("${app.invoices.export.workers:4}") int workers,
+                                @Value("${app.invoices.export.max-concurrent:2}") int maxConcurrent,
+                                @Value("${app.invoices.export.window:8}") int window,
+                                @Value("${app.invoices.export.max-invoices:5000}") int maxInvoices) {
+        this.invoiceRepository = invoiceRepository;
+        this.invoicePdfCache = invoicePdfCache;
+        this.exports = new Semaphore(maxConcurrent);
+        this.window = window;
+        this.maxInvoices = maxInvoices;
+
+        // Each running export has at most `window` renders queued, so the queue can never overflow
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxConcurrent * window),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "invoice-export-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /** Invoices created from `from` through `to` (inclusive), optionally of one status */
+    public ResponseEntity<StreamingResponseBody> export(LocalDate from, LocalDate to, InvoiceStatus status,
+                                                        Format format, InvoicePdfEngine engine) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        Format resolved = format != null ? format : Format.ZIP;
+
+        List<Long> ids = invoiceRepository.findIdsForExport(from.atStartOfDay(), to.plusDays(1).atStartOfDay(),
+                status, PageRequest.of(0, maxInvoices + 1));
+        if (ids.size() > maxInvoices) {
+            throw new IllegalArgumentException("More than " + maxInvoices + " invoices match; narrow the date range");
+        }
+        ExportPermit permit = acquirePermit();
+        // The body may never run (timeout, client gone, rejected task), so async completion releases too
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servlet) {
+            WebAsyncUtils.getAsyncManager(servlet.getRequest()).registerCallableInterceptor(permit, permit);
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try {
+                write(ids, resolved, outputStream, id -> load(id, engine));
+            } finally {
+                permit.release();
+            }
+        };
+
+        String fileName = "invoices_" + from + "_" + to + (resolved == Format.ZIP ? ".zip" : ".pdf");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(resolved == Format.ZIP ? MediaType.parseMediaType("application/zip") : MediaType.APPLICATION_PDF);
+        headers.setContentDisposition(ContentDisposition.attachment().filename(fileName).build());
+        headers.add("X-Invoice-Count", String.valueOf(ids.size()));
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    ExportPermit acquirePermit() {
+        if (!exports.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many invoice exports running, try again later");
+        }
+        return new ExportPermit();
+    }
+
+    void write(List<Long> ids, Format format, OutputStream out, PdfSource source) throws IOException {
+        if (format == Format.ZIP) {
+            writeZip(ids, out, source);
+        } else {
+            writeMerged(ids, out, source);
+        }
+    }
+
+    private void writeZip(List<Long> ids, OutputStream out, PdfSource source) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        List<String> failures = new ArrayList<>();
+        render(ids, source, false, failures, pdf -> {
+            // PDFs are compressed already; storing them saves the deflate pass
+            ZipEntry entry = new ZipEntry(pdf.getName() + ".pdf");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(pdf.getBytes().length);
+            CRC32 crc = new CRC32();
+            crc.update(pdf.getBytes());
+            entry.setCrc(crc.getValue());
+            zip.putNextEntry(entry);
+            zip.write(pdf.getBytes());
+            zip.closeEntry();
+            zip.flush();
+        });
+        if (!failures.isEmpty()) {
+            zip.putNextEntry(new ZipEntry(ERRORS_ENTRY));
+            zip.write(String.join("\n", failures).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    private void writeMerged(List<Long> ids, OutputStream out, PdfSource source) throws IOException {
+        PdfWriter writer = new PdfWriter(out);
+        writer.setCloseStream(false);
+        List<String> failures = new ArrayList<>();
+        try (PdfDocument merged = new PdfDocument(writer)) {
+            PdfMerger merger = new PdfMerger(merged);
+            render(ids, source, true, failures, pdf -> {
+                int before = merged.getNumberOfPages();
+                try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf.getBytes())))) {
+                    merger.merge(document, 1, document.getNumberOfPages());
+                }
+                // Write the copied pages out now rather than holding the whole batch until close
+                for (int page = before + 1; page <= merged.getNumberOfPages(); page++) {
+                    merged.getPage(page).flush();
+                }
+                writer.flush();
+            });
+            if (merged.getNumberOfPages() == 0) {
+                // A PDF needs at least one page
+                merged.addNewPage();
+            }
+        }
+        if (!failures.isEmpty()) {
+            log.warn("Merged invoice export skipped {} invoices: {}", failures.size(), failures);
+        }
+    }
+
+    /**
+     * Render through the pool with at most `window` PDFs in flight and hand each one to the sink.
+     * In order, the sink sees invoices in the order of ids; otherwise in the order they finish.
+     */
+    private void render(List<Long> ids, PdfSource source, boolean inOrder, List<String> failures, PdfSink sink)
+            throws IOException {
+        ExecutorCompletionService<ExportedPdf> completion = inOrder ? null : new ExecutorCompletionService<>(executor);
+        Deque<Future<ExportedPdf>> pending = new ArrayDeque<>();
+        Iterator<Long> next = ids.iterator();
+        try {
+            while (pending.size() < window && next.hasNext()) {
+                pending.add(submit(completion, source, next.next()));
+            }
+            while (!pending.isEmpty()) {
+                Future<ExportedPdf> done = inOrder ? pending.peekFirst() : completion.take();
+                pending.remove(done);
+                ExportedPdf pdf = result(done, failures);
+                if (pdf != null) {
+                    sink.accept(pdf);
+                }
+                if (next.hasNext()) {
+                    pending.add(submit(completion, source, next.next()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while exporting invoices", e);
+        } finally {
+            // The client went away or a write failed: stop the renders nobody will read
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private Future<ExportedPdf> submit(ExecutorCompletionService<ExportedPdf> completion, PdfSource source, Long id) {
+        return completion != null ? completion.submit(() -> source.get(id)) : executor.submit(() -> source.get(id));
+    }
+
+    private static ExportedPdf result(Future<ExportedPdf> future, List<String> failures) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException | CancellationException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            log.warn("Invoice PDF export failed for one invoice", cause);
+            failures.add(cause instanceof ExportException export ? export.getMessage() : String.valueOf(cause));
+            return null;
+        }
+    }
+
+    // Null when the invoice was deleted after the export listed it
+    private ExportedPdf load(Long id, InvoicePdfEngine engine) {
+        Invoice invoice = invoiceRepository.findById(id).orElse(null);
+        if (invoice == null) {
+            return null;
+        }
+        String name = invoice.getInvoiceNumber() != null ? invoice.getInvoiceNumber() : "invoice-" + id;
+        try {
+            try {
+                return new ExportedPdf(name, readAll(invoicePdfCache.getOrRender(invoice, engine)));
+            } catch (NoSuchFileException e) {
+                // Evicted between the lookup and the read; the next lookup renders it again
+                return new ExportedPdf(name, readAll(invoicePdfCache.getOrRender(invoice, engine)));
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new ExportException(name + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] readAll(InvoicePdfCache.CachedPdf pdf) throws IOException {
+        return pdf.getBytes() != null ? pdf.getBytes() : Files.readAllBytes(pdf.getFile());
+    }
+
+    /** One export's slot, given back exactly once: by the finished body or by async completion, whichever comes first */
+    final class ExportPermit implements CallableProcessingInterceptor {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                exports.release();
+            }
+        }
+
+        @Override
+        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+            release();
+        }
+    }
+
+    /** Produces one invoice's PDF, or null to skip it */
+    interface PdfSource {
+        ExportedPdf get(Long invoiceId) throws IOException;
+    }
+
+    private interface PdfSink {
+        void accept(ExportedPdf pdf) throws IOException;
+    }
+
+    static final class ExportedPdf {
+        private final String name;
+        private final byte[] bytes;
+
+        ExportedPdf(String name, byte[] bytes) {
+            this.name = name;
+            this.bytes = bytes;
+        }
+
+        String getName() { return name; }
+
+        byte[] getBytes() { return bytes; }
+    }
+
+    /** A failed render, labelled with the invoice number for the export's error list */
+    private static final class ExportException extends RuntimeException {
+        ExportException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.autofuellanka.systemmanager.service.invoice;
+
+import com.itextpdf.io.font.FontNames;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.TrueTypeFont;
+import com.itextpdf.io.font.constants.StandardFontFamilies;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The font programs invoice PDFs are drawn with, parsed once at startup and shared by both renderers.
+ * A parsed FontProgram can be used by any number of documents; the PdfFont wrapping it belongs to a
+ * single document, so renderers ask for a fresh one per PDF.
+ * Falls back to the standard Helvetica faces when the bundled Inter files are missing.
+ */
+@Component
+public class InvoiceFonts {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceFonts.class);
+
+    static final String FAMILY = "Inter";
+
+    private final List<FontProgram> bundled;
+    private final FontProgram regular;
+    private final FontProgram bold;
+
+    public InvoiceFonts(@Value("${app.invoices.pdf.fonts:classpath*:fonts/inter/*.otf}") String location) throws IOException {
+        List<FontProgram> programs = new ArrayList<>();
+        // Static font files only: iText cannot instantiate the weights of a variable font
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(location)) {
+            try (InputStream in = resource.getInputStream()) {
+                programs.add(FontProgramFactory.createFont(in.readAllBytes()));
+            }
+        }
+        if (programs.isEmpty()) {
+            log.warn("No fonts found at {}; invoice PDFs fall back to {}", location, StandardFontFamilies.HELVETICA);
+        }
+        this.bundled = Collections.unmodifiableList(programs);
+        FontProgram regularFace = closestUpright(programs, 400);
+        FontProgram boldFace = closestUpright(programs, 700);
+        this.regular = regularFace != null ? regularFace : FontProgramFactory.createFont(StandardFonts.HELVETICA);
+        this.bold = boldFace != null ? boldFace : FontProgramFactory.createFont(StandardFonts.HELVETICA_BOLD);
+    }
+
+    /** Every bundled face; empty when only the standard fonts are available */
+    public List<FontProgram> getBundled() {
+        return bundled;
+    }
+
+    /** The CSS font family to fall back to when a style names none that is available */
+    public String getDefaultFamily() {
+        return bundled.isEmpty() ? StandardFontFamilies.HELVETICA : FAMILY;
+    }
+
+    public PdfFont regular() {
+        return create(regular);
+    }
+
+    public PdfFont bold() {
+        return create(bold);
+    }
+
+    private static PdfFont create(FontProgram program) {
+        // OpenType faces (TrueType or CFF outlines, both a TrueTypeFont here) are embedded and subset; the standard fonts need no embedding
+        String encoding = program instanceof TrueTypeFont ? PdfEncodings.IDENTITY_H : PdfEncodings.WINANSI;
+        return PdfFontFactory.createFont(program, encoding);
+    }
+
+    private static FontProgram closestUpright(List<FontProgram> programs, int weight) {
+        FontProgram best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (FontProgram program : programs) {
+            FontNames names = program.getFontNames();
+            int distance = Math.abs(names.getFontWeight() - weight);
+            if (!names.isItalic() && distance < bestDistance) {
+                best = program;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,142 @@
+package com.autofuellanka.systemmanager.service.invoice;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out unique invoice numbers using hi/lo blocks.
+ * Each sequence reserves a block of numbers from invoice_number_sequences in its own short
+ * transaction on a dedicated connection pool (InvoiceNumberBlockStore), then serves the block from
+ * an AtomicLong; only the thread that finds the block used up takes a lock, once per block. Numbers stay unique across instances, but are not
+ * gap-free: a block still in memory at shutdown, or used by a rolled back invoice, is skipped.
+ */
+@Service
+public class InvoiceNumberAllocator {
+
+    public enum NumberScope {
+        /** INV-00000042 */
+        GLOBAL,
+        /** INV-20250601-000042, restarting every day */
+        DAY,
+        /** INV-L3-000042, one sequence per service location */
+        LOCATION
+    }
+
+    /** Source of number blocks; returns the first number of a freshly reserved block */
+    interface BlockReserver {
+        long reserve(String key, int blockSize);
+    }
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final BlockReserver reserver;
+    private final NumberScope scope;
+    private final String prefix;
+    private final int blockSize;
+    private final Map<String, Sequence> sequences = new ConcurrentHashMap<>();
+
+    @Autowired
+    public InvoiceNumberAllocator(InvoiceNumberBlockStore blockStore,
+                                  @Value("${app.invoices.number-scope:DAY}") NumberScope scope,
+                                  @Value("${app.invoices.number-prefix:INV}") String prefix,
+                                  @Value("${app.invoices.number-block-size:100}") int blockSize) {
+        // Cast selects the BlockReserver constructor rather than this one
+        this((BlockReserver) blockStore, scope, prefix, blockSize);
+    }
+
+    InvoiceNumberAllocator(BlockReserver reserver, NumberScope scope, String prefix, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Invoice number block size must be positive");
+        }
+        this.reserver = reserver;
+        this.scope = scope;
+        this.prefix = prefix;
+        this.blockSize = blockSize;
+    }
+
+    public NumberScope getScope() {
+        return scope;
+    }
+
+    /** Next invoice number; locationId is only used by the LOCATION scope and may be null */
+    public String nextNumber(Long locationId) {
+        switch (scope) {
+            case DAY: {
+                String day = LocalDate.now().format(DAY_FORMAT);
+                return prefix + "-" + day + "-" + pad(next("D" + day), 6);
+            }
+            case LOCATION: {
+                long location = locationId != null ? locationId : 0L;
+                return prefix + "-L" + location + "-" + pad(next("L" + location), 6);
+            }
+            default:
+                return prefix + "-" + pad(next("GLOBAL"), 8);
+        }
+    }
+
+    long next(String key) {
+        Sequence sequence = sequences.get(key);
+        if (sequence == null) {
+            sequence = sequences.computeIfAbsent(key, k -> new Sequence());
+            if (key.startsWith("D")) {
+                // Earlier days are finished; drop their leftover blocks
+                sequences.keySet().removeIf(k -> k.startsWith("D") && !k.equals(key));
+            }
+        }
+        return sequence.next(key);
+    }
+
+    private final class Sequence {
+        private volatile Block current;
+
+        long next(String key) {
+            while (true) {
+                Block block = current;
+                if (block != null) {
+                    long value = block.next.getAndIncrement();
+                    if (value < block.end) {
+                        return value;
+                    }
+                }
+                refill(key, block);
+            }
+        }
+
+        // Only the first thread to see the exhausted block reserves a new one; the rest retry on it
+        private synchronized void refill(String key, Block exhausted) {
+            if (current == exhausted) {
+                long first = reserver.reserve(key, blockSize);
+                current = new Block(first, first + blockSize);
+            }
+        }
+    }
+
+    private static final class Block {
+        final AtomicLong next;
+        final long end;
+
+        Block(long first, long end) {
+            this.next = new AtomicLong(first);
+            this.end = end;
+        }
+    }
+
+    private static String pad(long value, int width) {
+        String digits = Long.toString(value);
+        if (digits.length() >= width) {
+            return digits;
+        }
+        StringBuilder sb = new StringBuilder(width);
+        for (int i = digits.length(); i < width; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
+    }
+}
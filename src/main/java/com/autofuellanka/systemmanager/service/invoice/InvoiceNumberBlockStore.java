@@ -0,0 +1,55 @@
+package com.autofuellanka.systemmanager.service.invoice;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reserves invoice number blocks in invoice_number_sequences over a small connection pool of its own.
+ * <p>
+ * A reservation happens while an invoice is being persisted, so the calling thread already holds a
+ * connection from the main pool, and other threads creating invoices wait for the reservation while
+ * holding theirs. Taking the reservation connection from that same pool could deadlock once every
+ * main-pool connection belongs to an invoice insert; a separate pool always has one to give.
+ * Each reservation commits on its own, so a block is never handed out twice even if the invoice rolls back.
+ */
+@Component
+public class InvoiceNumberBlockStore implements InvoiceNumberAllocator.BlockReserver, AutoCloseable {
+
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate reserveTx;
+
+    public InvoiceNumberBlockStore(DataSourceProperties dataSourceProperties,
+                                   @Value("${app.invoices.number-pool-size:2}") int poolSize) {
+        this.dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("invoice-numbers");
+        dataSource.setMaximumPoolSize(Math.max(1, poolSize));
+        dataSource.setMinimumIdle(0);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.reserveTx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Override
+    public long reserve(String key, int blockSize) {
+        Long first = reserveTx.execute(status -> {
+            // Move the high-water mark up by one block, creating the sequence at 1 on first use.
+            // The row stays locked until this transaction commits, so concurrent reservers queue here.
+            jdbcTemplate.update("INSERT INTO invoice_number_sequences (seq_key, next_value) VALUES (?, 1 + ?) " +
+                    "ON DUPLICATE KEY UPDATE next_value = next_value + ?", key, blockSize, blockSize);
+            Long next = jdbcTemplate.queryForObject(
+                    "SELECT next_value FROM invoice_number_sequences WHERE seq_key = ?", Long.class, key);
+            return next - blockSize;
+        });
+        return first;
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+}
@@ -0,0 +1,41 @@
+package com.autofuellanka.systemmanager.service.invoice;
+
+import com.autofuellanka.systemmanager.model.Booking;
+import com.autofuellanka.systemmanager.model.Invoice;
+import com.autofuellanka.systemmanager.repository.BookingRepository;
+import jakarta.persistence.PrePersist;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invoice entity listener that numbers new invoices from InvoiceNumberAllocator.
+ * Runs before Invoice's own @PrePersist, so every creation path (workflows, payment gateway) is covered.
+ */
+@Component
+public class InvoiceNumberListener {
+
+    private final ObjectProvider<InvoiceNumberAllocator> allocator;
+    private final ObjectProvider<BookingRepository> bookingRepository;
+
+    public InvoiceNumberListener(ObjectProvider<InvoiceNumberAllocator> allocator,
+                                 ObjectProvider<BookingRepository> bookingRepository) {
+        this.allocator = allocator;
+        this.bookingRepository = bookingRepository;
+    }
+
+    @PrePersist
+    public void assignNumber(Invoice invoice) {
+        if (invoice.getInvoiceNumber() != null) return;
+        InvoiceNumberAllocator numbers = allocator.getIfAvailable();
+        if (numbers == null) return;
+
+        Long locationId = null;
+        if (numbers.getScope() == InvoiceNumberAllocator.NumberScope.LOCATION && invoice.getBookingId() != null) {
+            // The booking was loaded by every caller already, so this is a persistence context hit
+            locationId = bookingRepository.getObject().findById(invoice.getBookingId())
+                    .map(Booking::getLocationId)
+                    .orElse(null);
+        }
+        invoice.setInvoiceNumber(numbers.nextNumber(locationId));
+    }
+}
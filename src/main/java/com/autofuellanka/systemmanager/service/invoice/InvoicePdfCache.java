@@ -0,0 +1,413 @@
+package com.autofuellanka.systemmanager.service.invoice;
+
+import com.autofuellanka.systemmanager.model.Invoice;
+import com.autofuellanka.systemmanager.service.InvoicePdfService;
+import com.autofuellanka.systemmanager.service.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Rendered invoice PDFs, so re-opening an unchanged invoice does not re-run the HTML conversion.
+ * Entries are keyed by invoice id, the invoice's version (bumped by every update, including the
+ * atomic payment and refund statements), the rendering engine and the template revision, so a changed invoice can never
+ * be served from a stale entry. Two tiers, each a byte-bounded LRU: entries in memory, and files on
+ * disk that survive restarts and are served without copying through the heap. Caching a newer
+ * version of an invoice drops its older renderings from both tiers, and writes that change an
+ * invoice evict it after commit; concurrent requests for a PDF that is not cached yet share one
+ * rendering.
+ */
+@Component
+public class InvoicePdfCache {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoicePdfCache.class);
+
+    private static final String SUFFIX = ".pdf";
+    private static final String PART_SUFFIX = ".part";
+
+    private final InvoicePdfService invoicePdfService;
+    private final Path root;
+    private final long memoryLimitBytes;
+    private final long diskLimitBytes;
+
+    // Access-ordered; guarded by this
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes;
+    // Files in the disk tier and their sizes, access-ordered; guarded by this
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(256, 0.75f, true);
+    private long diskBytes;
+    private final Map<String, CompletableFuture<byte[]>> rendering = new ConcurrentHashMap<>();
+
+    public InvoicePdfCache(InvoicePdfService invoicePdfService,
+                           @Value("${app.invoices.pdf-cache.dir:${java.io.tmpdir}/autofuel-invoice-pdfs}") String dir,
+                           @Value("${app.invoices.pdf-cache.memory-bytes:33554432}") long memoryLimitBytes,
+                           @Value("${app.invoices.pdf-cache.disk-bytes:536870912}") long diskLimitBytes) {
+        this.invoicePdfService = invoicePdfService;
+        this.root = Paths.get(dir).toAbsolutePath();
+        this.memoryLimitBytes = memoryLimitBytes;
+        this.diskLimitBytes = diskLimitBytes;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(root);
+        // Renderings of an older template revision, and writes interrupted by a shutdown, are never served
+        String current = "-r" + InvoicePdfService.TEMPLATE_REVISION + SUFFIX;
+        Map<Path, FileTime> kept = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root)) {
+            for (Path file : files) {
+                if (file.getFileName().toString().endsWith(current)) {
+                    kept.put(file, Files.getLastModifiedTime(file));
+                } else {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+
+        // Rebuild the disk index, least recently written first, then apply the version and size rules
+        List<Path> oldestFirst = new ArrayList<>(kept.keySet());
+        oldestFirst.sort(Comparator.comparing(kept::get));
+        List<String> retired = new ArrayList<>();
+        for (Path file : oldestFirst) {
+            String name = file.getFileName().toString();
+            String key = name.substring(0, name.length() - SUFFIX.length());
+            long size = Files.size(file);
+            if (versionOf(key) >= 0 && size <= diskLimitBytes && retireOlderVersions(key, retired)) {
+                retired.addAll(indexFile(key, size));
+            } else {
+                retired.add(key);
+            }
+        }
+        deleteFiles(retired);
+    }
+
+    /** The invoice's PDF from the configured engine */
+    public CachedPdf get(Invoice invoice) throws IOException {
+        return get(invoice, null);
+    }
+
+    /** The invoice's PDF, from memory, from disk, or freshly rendered (and then cached); a null engine means the configured one */
+    public CachedPdf get(Invoice invoice, InvoicePdfEngine engine) throws IOException {
+        if (engine == null) {
+            engine = invoicePdfService.getDefaultEngine();
+        }
+        String key = key(invoice, engine);
+        byte[] bytes = fromMemory(key);
+        if (bytes != null) {
+            return new CachedPdf(key, bytes, null);
+        }
+        Path file = fromDisk(key);
+        if (file != null) {
+            return new CachedPdf(key, null, file);
+        }
+
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = rendering.putIfAbsent(key, mine);
+        if (running != null) {
+            return new CachedPdf(key, await(running), null);
+        }
+        try {
+            bytes = invoicePdfService.generateInvoicePdf(invoice, engine);
+            // A caller holding an outdated copy of the invoice gets its rendering, but it is not kept
+            List<String> retired = new ArrayList<>();
+            if (retireOlderVersions(key, retired)) {
+                deleteFiles(retired);
+                writeFile(key, bytes);
+                toMemory(key, bytes);
+            }
+            mine.complete(bytes);
+            return new CachedPdf(key, bytes, null);
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            rendering.remove(key, mine);
+        }
+    }
+
+    /**
+     * The invoice's cached PDF, or a fresh rendering that is not cached. For bulk exports, which
+     * would otherwise push every invoice they touch into the cache.
+     */
+    public CachedPdf getOrRender(Invoice invoice, InvoicePdfEngine engine) throws IOException {
+        if (engine == null) {
+            engine = invoicePdfService.getDefaultEngine();
+        }
+        String key = key(invoice, engine);
+        byte[] bytes = fromMemory(key);
+        if (bytes != null) {
+            return new CachedPdf(key, bytes, null);
+        }
+        Path file = fromDisk(key);
+        if (file != null) {
+            return new CachedPdf(key, null, file);
+        }
+        CompletableFuture<byte[]> running = rendering.get(key);
+        if (running != null) {
+            return new CachedPdf(key, await(running), null);
+        }
+        return new CachedPdf(key, invoicePdfService.generateInvoicePdf(invoice, engine), null);
+    }
+
+    /** Drop every cached rendering of the invoice */
+    public void evict(Long invoiceId) {
+        String prefix = invoiceId + "-";
+        synchronized (this) {
+            Iterator<Map.Entry<String, byte[]>> entries = memory.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<String, byte[]> entry = entries.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    memoryBytes -= entry.getValue().length;
+                    entries.remove();
+                }
+            }
+            Iterator<Map.Entry<String, Long>> files = disk.entrySet().iterator();
+            while (files.hasNext()) {
+                Map.Entry<String, Long> entry = files.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    diskBytes -= entry.getValue();
+                    files.remove();
+                }
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, prefix + "*")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete cached PDFs of invoice {}", invoiceId, e);
+        }
+    }
+
+    /** Evict once the current transaction commits, or right away when there is none */
+    public void evictAfterCommit(Long invoiceId) {
+        TransactionCallbacks.afterCommit(() -> evict(invoiceId));
+    }
+
+    public void evictAfterCommit(Collection<Long> invoiceIds) {
+        invoiceIds.forEach(this::evictAfterCommit);
+    }
+
+    static String key(Invoice invoice, InvoicePdfEngine engine) {
+        return invoice.getId() + "-v" + invoice.getVersion() + "-" + engine.name().toLowerCase(Locale.ROOT)
+                + "-r" + InvoicePdfService.TEMPLATE_REVISION;
+    }
+
+    // "<id>-v<version>-..." up to the version, e.g. "12-v"
+    private static String versionPrefix(String key) {
+        return key.substring(0, key.indexOf("-v") + 2);
+    }
+
+    // The invoice version in a key, or -1 when the name is not one of ours
+    static long versionOf(String key) {
+        int start = key.indexOf("-v");
+        int end = start < 0 ? -1 : key.indexOf('-', start + 2);
+        if (end < 0) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(key.substring(start + 2, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Forget the cached renderings of older versions of the key's invoice, adding the files to
+     * delete to retired. False, and nothing forgotten, when a newer version is already cached.
+     */
+    private synchronized boolean retireOlderVersions(String key, List<String> retired) {
+        String prefix = versionPrefix(key);
+        long version = versionOf(key);
+        List<String> older = new ArrayList<>();
+        for (String cached : memory.keySet()) {
+            if (cached.startsWith(prefix)) {
+                long other = versionOf(cached);
+                if (other > version) {
+                    return false;
+                }
+                if (other < version) {
+                    older.add(cached);
+                }
+            }
+        }
+        List<String> olderFiles = new ArrayList<>();
+        for (String cached : disk.keySet()) {
+            if (cached.startsWith(prefix)) {
+                long other = versionOf(cached);
+                if (other > version) {
+                    return false;
+                }
+                if (other < version) {
+                    olderFiles.add(cached);
+                }
+            }
+        }
+        for (String stale : older) {
+            memoryBytes -= memory.remove(stale).length;
+        }
+        for (String stale : olderFiles) {
+            diskBytes -= disk.remove(stale);
+        }
+        retired.addAll(olderFiles);
+        return true;
+    }
+
+    private synchronized byte[] fromMemory(String key) {
+        return memory.get(key);
+    }
+
+    // The cached file, refreshing its place in the LRU; null when it is not on disk
+    private Path fromDisk(String key) {
+        synchronized (this) {
+            if (disk.get(key) == null) {
+                return null;
+            }
+        }
+        Path file = root.resolve(key + SUFFIX);
+        if (Files.exists(file)) {
+            return file;
+        }
+        // Deleted behind the index's back, e.g. by evict() racing with a write
+        synchronized (this) {
+            Long size = disk.remove(key);
+            if (size != null) {
+                diskBytes -= size;
+            }
+        }
+        return null;
+    }
+
+    /** Record a file written to the disk tier; returns the least recently used files evicted to make room */
+    private synchronized List<String> indexFile(String key, long size) {
+        Long previous = disk.put(key, size);
+        if (previous != null) {
+            diskBytes -= previous;
+        }
+        diskBytes += size;
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> eldest = disk.entrySet().iterator();
+        while (diskBytes > diskLimitBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                continue;
+            }
+            diskBytes -= entry.getValue();
+            evicted.add(entry.getKey());
+            eldest.remove();
+        }
+        return evicted;
+    }
+
+    private void deleteFiles(List<String> keys) {
+        for (String key : keys) {
+            try {
+                Files.deleteIfExists(root.resolve(key + SUFFIX));
+            } catch (IOException e) {
+                log.warn("Could not delete cached PDF {}", key, e);
+            }
+        }
+    }
+
+    private synchronized void toMemory(String key, byte[] bytes) {
+        if (bytes.length > memoryLimitBytes) {
+            return;
+        }
+        byte[] previous = memory.put(key, bytes);
+        if (previous != null) {
+            memoryBytes -= previous.length;
+        }
+        memoryBytes += bytes.length;
+        Iterator<byte[]> eldest = memory.values().iterator();
+        while (memoryBytes > memoryLimitBytes && eldest.hasNext()) {
+            memoryBytes -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+
+    // Written under a ".part" name and renamed, so a concurrent reader never sees half a file
+    private void writeFile(String key, byte[] bytes) {
+        if (bytes.length > diskLimitBytes) {
+            return;
+        }
+        Path part = root.resolve(key + PART_SUFFIX + "-" + Thread.currentThread().getId());
+        try {
+            Files.write(part, bytes);
+            Files.move(part, root.resolve(key + SUFFIX), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            deleteFiles(indexFile(key, bytes.length));
+        } catch (IOException e) {
+            // Still served from memory; the disk tier is an optimisation
+            log.warn("Could not write cached PDF {}", key, e);
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException ignored) {
+                // Removed by the next startup
+            }
+        }
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> running) throws IOException {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for invoice PDF", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /** A cached PDF, held either in memory or as a file on disk */
+    public static final class CachedPdf {
+        private final String key;
+        private final byte[] bytes;
+        private final Path file;
+
+        CachedPdf(String key, byte[] bytes, Path file) {
+            this.key = key;
+            this.bytes = bytes;
+            this.file = file;
+        }
+
+        /** Stable for as long as the invoice is unchanged; usable as an ETag */
+        public String getKey() { return key; }
+
+        /** The PDF bytes, or null when the PDF is on disk */
+        public byte[] getBytes() { return bytes; }
+
+        /** The cached file, or null when the PDF is held in memory */
+        public Path getFile() { return file; }
+
+        public long length() throws IOException {
+            return bytes != null ? bytes.length : Files.size(file);
+        }
+    }
+}
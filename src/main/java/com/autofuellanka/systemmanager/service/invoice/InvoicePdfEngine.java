@@ -0,0 +1,21 @@
+package com.autofuellanka.systemmanager.service.invoice;
+
+import java.util.Locale;
+
+/** How an invoice PDF is produced */
+public enum InvoicePdfEngine {
+    HTML,   // The HTML template converted by html2pdf
+    NATIVE; // Drawn directly with the iText layout API
+
+    /** Case-insensitive; null for a missing value, which means the configured default */
+    public static InvoicePdfEngine from(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown PDF renderer: " + value + " (expected html or native)");
+        }
+    }
+}
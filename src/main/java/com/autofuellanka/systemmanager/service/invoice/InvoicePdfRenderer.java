@@ -0,0 +1,109 @@
+package com.autofuellanka.systemmanager.service.invoice;
+
+import com.itextpdf.html2pdf.ConverterProperties;
+import com.itextpdf.html2pdf.HtmlConverter;
+import com.itextpdf.html2pdf.resolver.font.DefaultFontProvider;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.layout.font.FontProvider;
+import com.itextpdf.layout.font.FontSet;
+import com.itextpdf.styledxmlparser.resolver.resource.DefaultResourceRetriever;
+import com.itextpdf.styledxmlparser.resolver.resource.IResourceRetriever;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * HTML to PDF conversion with everything that does not depend on the document prepared once.
+ * Fonts (the bundled Inter faces from InvoiceFonts, the standard PDF fonts and html2pdf's shipped
+ * fonts) go into one shared FontSet at startup, the converter settings are built once, and the invoice
+ * stylesheet is read from the classpath and minified once. Nothing is fetched over the network:
+ * remote URLs in a document are refused instead of waiting on a connect timeout.
+ * <p>
+ * iText's FontProvider caches fonts that belong to a single PdfDocument, so it cannot be shared
+ * between concurrent renders; each render wraps the shared FontSet in its own provider, which
+ * costs nothing because the font programs are already parsed.
+ */
+@Component
+public class InvoicePdfRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoicePdfRenderer.class);
+
+    private static final String STYLESHEET = "templates/invoice.css";
+
+    private static final Pattern CSS_COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern CSS_WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern CSS_PUNCTUATION_SPACE = Pattern.compile(" ?([{};]) ?");
+
+    private final FontSet fontSet;
+    private final String defaultFontFamily;
+    private final ConverterProperties converterProperties;
+    private final String stylesheet;
+
+    public InvoicePdfRenderer(InvoiceFonts fonts) throws IOException {
+        // Standard and shipped fonts cover glyphs the bundled faces lack; scanning system fonts is slow and host-dependent
+        this.fontSet = new DefaultFontProvider(true, true, false).getFontSet();
+        for (FontProgram program : fonts.getBundled()) {
+            fontSet.addFont(program, PdfEncodings.IDENTITY_H);
+        }
+        this.defaultFontFamily = fonts.getDefaultFamily();
+
+        this.converterProperties = new ConverterProperties();
+        this.converterProperties.setResourceRetriever(new OfflineResourceRetriever());
+
+        try (InputStream in = new ClassPathResource(STYLESHEET).getInputStream()) {
+            this.stylesheet = minify(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /** The invoice stylesheet, ready to inline into a style element */
+    public String getStylesheet() {
+        return stylesheet;
+    }
+
+    public byte[] render(String html) throws IOException {
+        ConverterProperties properties = new ConverterProperties(converterProperties)
+                .setFontProvider(new FontProvider(fontSet, defaultFontFamily));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(64 * 1024);
+        HtmlConverter.convertToPdf(html, outputStream, properties);
+        return outputStream.toByteArray();
+    }
+
+    static String minify(String css) {
+        String stripped = CSS_COMMENT.matcher(css).replaceAll("");
+        String collapsed = CSS_WHITESPACE.matcher(stripped).replaceAll(" ").trim();
+        return CSS_PUNCTUATION_SPACE.matcher(collapsed).replaceAll("$1").replace(";}", "}");
+    }
+
+    /** Local resources only; a remote URL would stall the render on the network */
+    private static final class OfflineResourceRetriever implements IResourceRetriever {
+
+        private final DefaultResourceRetriever local = new DefaultResourceRetriever();
+
+        @Override
+        public InputStream getInputStreamByUrl(URL url) throws IOException {
+            return isRemote(url) ? null : local.getInputStreamByUrl(url);
+        }
+
+        @Override
+        public byte[] getByteArrayByUrl(URL url) throws IOException {
+            return isRemote(url) ? null : local.getByteArrayByUrl(url);
+        }
+
+        private static boolean isRemote(URL url) {
+            if ("http".equals(url.getProtocol()) || "https".equals(url.getProtocol())) {
+                log.debug("Not fetching {} while rendering an invoice PDF", url);
+                return true;
+            }
+            return false;
+        }
+    }
+}
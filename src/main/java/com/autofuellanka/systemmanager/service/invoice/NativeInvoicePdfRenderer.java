@@ -0,0 +1,180 @@
+package com.autofuellanka.systemmanager.service.invoice;
+
+import com.autofuellanka.systemmanager.model.Invoice;
+import com.autofuellanka.systemmanager.model.InvoiceStatus;
+import com.itextpdf.kernel.colors.Color;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.borders.Border;
+import com.itextpdf.layout.borders.SolidBorder;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Div;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.BorderRadius;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Draws the invoice straight onto iText's layout API: the same sections, colours and wording as the
+ * HTML template, without building, parsing or styling any HTML. Fonts come pre-parsed from
+ * InvoiceFonts, and the colours and formatter are shared constants, so a render allocates little
+ * beyond the document itself. Gradients in the HTML version are drawn as their dominant colour.
+ */
+@Component
+public class NativeInvoicePdfRenderer {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd MMMM yyyy");
+
+    private static final Color HEADER_BACKGROUND = new DeviceRgb(0x1e, 0x3a, 0x8a);
+    private static final Color HEADER_TEXT = new DeviceRgb(0xff, 0xff, 0xff);
+    private static final Color HEADER_SUBTLE = new DeviceRgb(0xbf, 0xdb, 0xfe);
+    private static final Color LABEL = new DeviceRgb(0x64, 0x74, 0x8b);
+    private static final Color VALUE = new DeviceRgb(0x1e, 0x29, 0x3b);
+    private static final Color CARD_BACKGROUND = new DeviceRgb(0xf8, 0xfa, 0xfc);
+    private static final Color CARD_BORDER = new DeviceRgb(0xe2, 0xe8, 0xf0);
+    private static final Color NOTES_BACKGROUND = new DeviceRgb(0xf0, 0xf9, 0xff);
+    private static final Color FOOTER_BACKGROUND = new DeviceRgb(0x1e, 0x29, 0x3b);
+    private static final Color FOOTER_TEXT = new DeviceRgb(0xcb, 0xd5, 0xe1);
+    private static final Color STATUS_PAID = new DeviceRgb(0x10, 0xb9, 0x81);
+    private static final Color STATUS_PARTIAL = new DeviceRgb(0xf5, 0x9e, 0x0b);
+    private static final Color STATUS_UNPAID = new DeviceRgb(0xef, 0x44, 0x44);
+
+    private final InvoiceFonts fonts;
+
+    public NativeInvoicePdfRenderer(InvoiceFonts fonts) {
+        this.fonts = fonts;
+    }
+
+    public byte[] render(Invoice invoice) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(16 * 1024);
+        try (Document document = new Document(new PdfDocument(new PdfWriter(outputStream)), PageSize.A4)) {
+            document.setMargins(28, 28, 28, 28);
+            PdfFont regular = fonts.regular();
+            PdfFont bold = fonts.bold();
+            document.setFont(regular).setFontSize(10).setFontColor(VALUE);
+
+            document.add(header(bold));
+            document.add(meta(invoice, bold));
+            document.add(amounts(invoice, bold));
+            if (invoice.getNotes() != null) {
+                document.add(notes(invoice, bold));
+            }
+            document.add(footer(bold));
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static Div header(PdfFont bold) {
+        Table table = new Table(UnitValue.createPercentArray(new float[]{3, 2})).useAllAvailableWidth();
+        table.addCell(borderless()
+                .add(new Paragraph("AutoFuelLanka").setFont(bold).setFontSize(22).setFontColor(HEADER_TEXT))
+                .add(new Paragraph("Premium Vehicle Services & Fuel Management").setFontColor(HEADER_SUBTLE)));
+        table.addCell(borderless().setTextAlignment(TextAlignment.RIGHT)
+                .add(new Paragraph("INVOICE").setFont(bold).setFontSize(26).setFontColor(HEADER_TEXT))
+                .add(new Paragraph("Service & Fuel Management").setFontColor(HEADER_SUBTLE)));
+        return new Div().add(table)
+                .setBackgroundColor(HEADER_BACKGROUND)
+                .setBorderRadius(new BorderRadius(12))
+                .setPadding(20)
+                .setMarginBottom(16);
+    }
+
+    private static Table meta(Invoice invoice, PdfFont bold) {
+        Table table = new Table(UnitValue.createPercentArray(new float[]{1, 1, 1})).useAllAvailableWidth().setMarginBottom(16);
+        table.addCell(metaCell("Invoice Number", new Paragraph(invoice.getInvoiceNumber()).setFont(bold)));
+        table.addCell(metaCell("Booking Reference", new Paragraph("#" + invoice.getBookingId()).setFont(bold)));
+        table.addCell(metaCell("Issue Date", new Paragraph(invoice.getCreatedAt().format(DATE_FORMAT)).setFont(bold)));
+        table.addCell(metaCell("Due Date", new Paragraph(invoice.getDueDate() != null
+                ? invoice.getDueDate().format(DATE_FORMAT) : "N/A").setFont(bold)));
+        table.addCell(metaCell("Payment Status", statusBadge(invoice.getStatus(), bold)));
+        table.addCell(borderless());
+        return table;
+    }
+
+    private static Cell metaCell(String label, Paragraph value) {
+        return borderless().setPaddingBottom(8)
+                .add(new Paragraph(label.toUpperCase()).setFontSize(8).setFontColor(LABEL))
+                .add(value.setFontSize(12));
+    }
+
+    private static Paragraph statusBadge(InvoiceStatus status, PdfFont bold) {
+        Color background = switch (status) {
+            case PAID -> STATUS_PAID;
+            case PARTIAL -> STATUS_PARTIAL;
+            case UNPAID -> STATUS_UNPAID;
+        };
+        return new Paragraph(status.toString()).setFont(bold).setFontSize(9)
+                .setFontColor(HEADER_TEXT)
+                .setBackgroundColor(background)
+                .setBorderRadius(new BorderRadius(10))
+                .setPaddingLeft(10).setPaddingRight(10)
+                .setWidth(UnitValue.createPercentValue(60));
+    }
+
+    private static Div amounts(Invoice invoice, PdfFont bold) {
+        Table table = new Table(UnitValue.createPercentArray(new float[]{3, 2})).useAllAvailableWidth();
+        amountRow(table, "Service Subtotal", invoice.getSubtotal(), null);
+        amountRow(table, "Tax (VAT)", invoice.getTaxAmount(), null);
+        amountRow(table, "Total Amount", invoice.getTotalAmount(), bold);
+        amountRow(table, "Amount Paid", invoice.getPaidAmount(), null);
+        amountRow(table, "Balance Due", invoice.getBalance(), bold);
+        return new Div()
+                .add(new Paragraph("Payment Summary").setFont(bold).setFontSize(14).setMarginBottom(8))
+                .add(table)
+                .setBackgroundColor(CARD_BACKGROUND)
+                .setBorder(new SolidBorder(CARD_BORDER, 1))
+                .setBorderRadius(new BorderRadius(12))
+                .setPadding(20)
+                .setMarginBottom(16);
+    }
+
+    private static void amountRow(Table table, String label, Double amount, PdfFont emphasis) {
+        Paragraph value = new Paragraph(String.format("LKR %.2f", amount));
+        if (emphasis != null) {
+            value.setFont(emphasis);
+        }
+        table.addCell(borderless().setBorderBottom(new SolidBorder(CARD_BORDER, 0.5f))
+                .add(new Paragraph(label).setFontColor(LABEL)));
+        table.addCell(borderless().setBorderBottom(new SolidBorder(CARD_BORDER, 0.5f))
+                .setTextAlignment(TextAlignment.RIGHT)
+                .add(value));
+    }
+
+    private static Div notes(Invoice invoice, PdfFont bold) {
+        return new Div()
+                .add(new Paragraph("Additional Notes").setFont(bold).setMarginBottom(4))
+                .add(new Paragraph(invoice.getNotes()).setFontColor(LABEL))
+                .setBackgroundColor(NOTES_BACKGROUND)
+                .setBorderRadius(new BorderRadius(8))
+                .setPadding(16)
+                .setMarginBottom(16);
+    }
+
+    private static Div footer(PdfFont bold) {
+        return new Div()
+                .add(new Paragraph("AutoFuelLanka").setFont(bold).setFontSize(16).setFontColor(HEADER_TEXT))
+                .add(new Paragraph("Your trusted partner for comprehensive vehicle services and fuel management solutions.\n"
+                        + "Delivering excellence in automotive care across Sri Lanka.").setFontColor(FOOTER_TEXT))
+                .add(new Paragraph("info@autofuellanka.com   |   +94 11 234 5678   |   www.autofuellanka.com")
+                        .setFontColor(FOOTER_TEXT).setMarginTop(10))
+                .add(new Paragraph("Thank you for choosing AutoFuelLanka!").setFont(bold).setFontColor(HEADER_TEXT).setMarginTop(10))
+                .setTextAlignment(TextAlignment.CENTER)
+                .setBackgroundColor(FOOTER_BACKGROUND)
+                .setBorderRadius(new BorderRadius(12))
+                .setPadding(20);
+    }
+
+    private static Cell borderless() {
+        return new Cell().setBorder(Border.NO_BORDER).setPadding(4);
+    }
+}
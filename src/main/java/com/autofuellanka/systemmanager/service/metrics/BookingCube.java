@@ -0,0 +1,222 @@
+package com.autofuellanka.systemmanager.service.metrics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory booking counts over day x location x service type x status.
+ * Each cell is one packed long key in a primitive map; a second map remembers
+ * which cell every booking is in, so a status (or any other) change moves it
+ * from its old cell to the new one.
+ *
+ * Key layout: day (epoch day + 1, 24 bits) | location (16) | service type (16) | status (8).
+ * Dimension value 0 means "not set"; ids and statuses are dictionary encoded.
+ */
+public class BookingCube {
+
+    public enum Dimension { DAY, LOCATION, SERVICE_TYPE, STATUS }
+
+    private static final int DAY_SHIFT = 40;
+    private static final int LOCATION_SHIFT = 24;
+    private static final int SERVICE_TYPE_SHIFT = 8;
+    private static final long DAY_MASK = 0xFFFFFFL << DAY_SHIFT;
+    private static final long LOCATION_MASK = 0xFFFFL << LOCATION_SHIFT;
+    private static final long SERVICE_TYPE_MASK = 0xFFFFL << SERVICE_TYPE_SHIFT;
+    private static final long STATUS_MASK = 0xFFL;
+
+    private final LongLongHashMap cellCounts = new LongLongHashMap(1024);
+    private final LongLongHashMap bookingCells = new LongLongHashMap(4096);
+
+    private final Dictionary<Long> locations = new Dictionary<>(0xFFFF);
+    private final Dictionary<Long> serviceTypes = new Dictionary<>(0xFFFF);
+    private final Dictionary<String> statuses = new Dictionary<>(0xFF);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Add a booking, or move it to its new cell if it is already in the cube */
+    public void upsert(long bookingId, LocalDate day, Long locationId, Long serviceTypeId, String status) {
+        lock.writeLock().lock();
+        try {
+            long cell = encode(day, locationId, serviceTypeId, status);
+            if (bookingCells.containsKey(bookingId)) {
+                long previous = bookingCells.get(bookingId, 0L);
+                if (previous == cell) {
+                    return;
+                }
+                decrement(previous);
+            }
+            bookingCells.put(bookingId, cell);
+            cellCounts.addTo(cell, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long bookingId) {
+        lock.writeLock().lock();
+        try {
+            if (bookingCells.containsKey(bookingId)) {
+                decrement(bookingCells.get(bookingId, 0L));
+                bookingCells.remove(bookingId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int bookingCount() {
+        lock.readLock().lock();
+        try {
+            return bookingCells.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sum booking counts over the cells matching the filters, grouped by the given dimensions.
+     * Null or empty filters match everything; an empty groupBy returns a single total cell.
+     */
+    public List<Cell> query(Set<Dimension> groupBy, LocalDate from, LocalDate to,
+                            Collection<Long> locationIds, Collection<Long> serviceTypeIds,
+                            Collection<String> statusFilter) {
+        Set<Dimension> dims = groupBy == null || groupBy.isEmpty() ? EnumSet.noneOf(Dimension.class) : EnumSet.copyOf(groupBy);
+        long groupMask = (dims.contains(Dimension.DAY) ? DAY_MASK : 0)
+                | (dims.contains(Dimension.LOCATION) ? LOCATION_MASK : 0)
+                | (dims.contains(Dimension.SERVICE_TYPE) ? SERVICE_TYPE_MASK : 0)
+                | (dims.contains(Dimension.STATUS) ? STATUS_MASK : 0);
+
+        lock.readLock().lock();
+        try {
+            long fromDay = from != null ? from.toEpochDay() + 1 : Long.MIN_VALUE;
+            long toDay = to != null ? to.toEpochDay() + 1 : Long.MAX_VALUE;
+            boolean dayFiltered = from != null || to != null;
+            boolean[] locationAllowed = locations.allowed(locationIds);
+            boolean[] serviceTypeAllowed = serviceTypes.allowed(serviceTypeIds);
+            boolean[] statusAllowed = statuses.allowed(statusFilter);
+
+            LongLongHashMap groups = new LongLongHashMap();
+            cellCounts.forEach((cell, count) -> {
+                long day = (cell & DAY_MASK) >>> DAY_SHIFT;
+                if (dayFiltered && (day == 0 || day < fromDay || day > toDay)) return;
+                if (locationAllowed != null && !locationAllowed[(int) ((cell & LOCATION_MASK) >>> LOCATION_SHIFT)]) return;
+                if (serviceTypeAllowed != null && !serviceTypeAllowed[(int) ((cell & SERVICE_TYPE_MASK) >>> SERVICE_TYPE_SHIFT)]) return;
+                if (statusAllowed != null && !statusAllowed[(int) (cell & STATUS_MASK)]) return;
+                groups.addTo(cell & groupMask, count);
+            });
+
+            List<Cell> result = new ArrayList<>(groups.size());
+            groups.forEach((key, count) -> {
+                if (count > 0) {
+                    result.add(decode(key, dims, count));
+                }
+            });
+            result.sort(Comparator.comparing(Cell::getDay, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(Comparator.comparingLong(Cell::getCount).reversed()));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void decrement(long cell) {
+        if (cellCounts.addTo(cell, -1) <= 0) {
+            cellCounts.remove(cell);
+        }
+    }
+
+    private long encode(LocalDate day, Long locationId, Long serviceTypeId, String status) {
+        long dayCode = day != null ? day.toEpochDay() + 1 : 0;
+        if (dayCode < 0 || dayCode > 0xFFFFFF) {
+            dayCode = 0;
+        }
+        return (dayCode << DAY_SHIFT)
+                | ((long) locations.code(locationId) << LOCATION_SHIFT)
+                | ((long) serviceTypes.code(serviceTypeId) << SERVICE_TYPE_SHIFT)
+                | statuses.code(status);
+    }
+
+    private Cell decode(long key, Set<Dimension> dims, long count) {
+        Cell cell = new Cell();
+        if (dims.contains(Dimension.DAY)) {
+            long day = (key & DAY_MASK) >>> DAY_SHIFT;
+            cell.day = day == 0 ? null : LocalDate.ofEpochDay(day - 1);
+        }
+        if (dims.contains(Dimension.LOCATION)) {
+            cell.locationId = locations.value((int) ((key & LOCATION_MASK) >>> LOCATION_SHIFT));
+        }
+        if (dims.contains(Dimension.SERVICE_TYPE)) {
+            cell.serviceTypeId = serviceTypes.value((int) ((key & SERVICE_TYPE_MASK) >>> SERVICE_TYPE_SHIFT));
+        }
+        if (dims.contains(Dimension.STATUS)) {
+            cell.status = statuses.value((int) (key & STATUS_MASK));
+        }
+        cell.count = count;
+        return cell;
+    }
+
+    /** Dense codes for dimension values; code 0 is reserved for null */
+    private static final class Dictionary<T> {
+        private final Map<T, Integer> codes = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+        private final int maxCode;
+
+        Dictionary(int maxCode) {
+            this.maxCode = maxCode;
+            values.add(null);
+        }
+
+        int code(T value) {
+            if (value == null) return 0;
+            Integer code = codes.get(value);
+            if (code == null) {
+                if (values.size() > maxCode) {
+                    throw new IllegalStateException("Booking cube dimension overflow at " + value);
+                }
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        T value(int code) {
+            return values.get(code);
+        }
+
+        // Lookup table of allowed codes, or null when the filter matches everything
+        boolean[] allowed(Collection<T> filter) {
+            if (filter == null || filter.isEmpty()) return null;
+            boolean[] allowed = new boolean[values.size()];
+            for (T value : filter) {
+                Integer code = codes.get(value);
+                if (code != null) {
+                    allowed[code] = true;
+                }
+            }
+            return allowed;
+        }
+    }
+
+    public static class Cell {
+        private LocalDate day;
+        private Long locationId;
+        private Long serviceTypeId;
+        private String status;
+        private long count;
+
+        public LocalDate getDay() { return day; }
+        public Long getLocationId() { return locationId; }
+        public Long getServiceTypeId() { return serviceTypeId; }
+        public String getStatus() { return status; }
+        public long getCount() { return count; }
+    }
+}
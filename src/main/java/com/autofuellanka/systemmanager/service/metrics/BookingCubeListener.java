@@ -0,0 +1,47 @@
+package com.autofuellanka.systemmanager.service.metrics;
+
+import com.autofuellanka.systemmanager.model.Booking;
+import com.autofuellanka.systemmanager.model.BookingStatus;
+import com.autofuellanka.systemmanager.service.TransactionCallbacks;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Booking entity listener feeding BookingCubeService after the transaction commits.
+ */
+@Component
+public class BookingCubeListener {
+
+    private final ObjectProvider<BookingCubeService> cubeService;
+
+    public BookingCubeListener(ObjectProvider<BookingCubeService> cubeService) {
+        this.cubeService = cubeService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Booking booking) {
+        BookingCubeService service = cubeService.getIfAvailable();
+        if (service == null) return;
+        // Capture the values now: the entity may change again before the commit
+        long id = booking.getId();
+        LocalDateTime startTime = booking.getStartTime();
+        Long locationId = booking.getLocationId();
+        Long serviceTypeId = booking.getServiceTypeId();
+        BookingStatus status = booking.getStatus();
+        TransactionCallbacks.afterCommit(() -> service.onSaved(id, startTime, locationId, serviceTypeId, status));
+    }
+
+    @PostRemove
+    public void onRemoved(Booking booking) {
+        BookingCubeService service = cubeService.getIfAvailable();
+        if (service == null) return;
+        long id = booking.getId();
+        TransactionCallbacks.afterCommit(() -> service.onRemoved(id));
+    }
+}
@@ -0,0 +1,128 @@
+package com.autofuellanka.systemmanager.service.metrics;
+
+import com.autofuellanka.systemmanager.model.BookingStatus;
+import com.autofuellanka.systemmanager.repository.BookingRepository;
+import com.autofuellanka.systemmanager.service.metrics.BookingCube.Cell;
+import com.autofuellanka.systemmanager.service.metrics.BookingCube.Dimension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Owns the live BookingCube: loads it from the bookings table at startup,
+ * applies committed booking changes (see BookingCubeListener) and reloads it
+ * periodically to pick up writes that bypass JPA callbacks.
+ */
+@Service
+public class BookingCubeService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingCubeService.class);
+
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate readOnlyTx;
+
+    private volatile BookingCube cube = new BookingCube();
+
+    // Changes seen while a reload is running, replayed onto the new cube before it goes live
+    private final Object reloadLock = new Object();
+    private List<Consumer<BookingCube>> pendingDuringReload;
+
+    public BookingCubeService(BookingRepository bookingRepository, PlatformTransactionManager transactionManager) {
+        this.bookingRepository = bookingRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public void onSaved(long bookingId, LocalDateTime startTime, Long locationId, Long serviceTypeId, BookingStatus status) {
+        LocalDate day = dayOf(startTime);
+        String name = status != null ? status.name() : null;
+        apply(c -> c.upsert(bookingId, day, locationId, serviceTypeId, name));
+    }
+
+    public void onRemoved(long bookingId) {
+        apply(c -> c.remove(bookingId));
+    }
+
+    public List<Cell> query(Set<Dimension> groupBy, LocalDate from, LocalDate to,
+                            Collection<Long> locationIds, Collection<Long> serviceTypeIds,
+                            Collection<String> statuses) {
+        List<String> statusFilter = statuses == null ? null
+                : statuses.stream().map(BookingCubeService::normalizeStatus).collect(Collectors.toList());
+        return cube.query(groupBy, from, to, locationIds, serviceTypeIds, statusFilter);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        reload();
+    }
+
+    // Full rebuild; also corrects for bulk updates that never reach the entity listener
+    @Scheduled(fixedDelayString = "${app.bookings.cube.reload-ms:3600000}",
+               initialDelayString = "${app.bookings.cube.reload-ms:3600000}")
+    public void reload() {
+        synchronized (reloadLock) {
+            if (pendingDuringReload != null) {
+                return; // already reloading
+            }
+            pendingDuringReload = new ArrayList<>();
+        }
+        BookingCube fresh = new BookingCube();
+        try {
+            readOnlyTx.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = bookingRepository.streamCubeRows()) {
+                    rows.forEach(row -> fresh.upsert(
+                            ((Number) row[0]).longValue(),
+                            dayOf((LocalDateTime) row[1]),
+                            (Long) row[2],
+                            (Long) row[3],
+                            row[4] != null ? ((BookingStatus) row[4]).name() : null));
+                }
+            });
+        } catch (RuntimeException e) {
+            synchronized (reloadLock) {
+                pendingDuringReload = null;
+            }
+            log.warn("Booking cube reload failed, keeping the current cube", e);
+            return;
+        }
+        synchronized (reloadLock) {
+            pendingDuringReload.forEach(change -> change.accept(fresh));
+            pendingDuringReload = null;
+            cube = fresh;
+        }
+        log.info("Booking cube loaded: {} bookings", fresh.bookingCount());
+    }
+
+    private void apply(Consumer<BookingCube> change) {
+        synchronized (reloadLock) {
+            change.accept(cube);
+            if (pendingDuringReload != null) {
+                pendingDuringReload.add(change);
+            }
+        }
+    }
+
+    static LocalDate dayOf(LocalDateTime startTime) {
+        return startTime != null ? startTime.toLocalDate() : null;
+    }
+
+    private static String normalizeStatus(String status) {
+        return status == null ? null : status.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,88 @@
+package com.autofuellanka.systemmanager.service.metrics;
+
+import com.autofuellanka.systemmanager.model.Booking;
+import com.autofuellanka.systemmanager.model.Customer;
+import com.autofuellanka.systemmanager.model.InventoryItem;
+import com.autofuellanka.systemmanager.model.User;
+import com.autofuellanka.systemmanager.model.VehicleType;
+import com.autofuellanka.systemmanager.service.TransactionCallbacks;
+import com.autofuellanka.systemmanager.service.metrics.DashboardMetricsService.Metric;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * JPA entity listener feeding DashboardMetricsService.
+ * Counter changes are applied after the surrounding transaction commits,
+ * so rolled-back writes never show up on the dashboard.
+ */
+@Component
+public class DashboardMetricsListener {
+
+    private final ObjectProvider<DashboardMetricsService> metrics;
+
+    public DashboardMetricsListener(ObjectProvider<DashboardMetricsService> metrics) {
+        this.metrics = metrics;
+    }
+
+    @PostPersist
+    public void onInsert(Object entity) {
+        applyDelta(entity, 1);
+    }
+
+    @PostRemove
+    public void onDelete(Object entity) {
+        applyDelta(entity, -1);
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        // The old state is not available here, so let the metric be recounted
+        if (entity instanceof InventoryItem) {
+            afterCommit(m -> {
+                m.markStale(Metric.ACTIVE_INVENTORY_ITEMS);
+                m.markStale(Metric.LOW_STOCK_ITEMS);
+            });
+        } else if (entity instanceof VehicleType) {
+            afterCommit(m -> m.markStale(Metric.ACTIVE_VEHICLE_TYPES));
+        } else if (entity instanceof User || entity instanceof Customer) {
+            afterCommit(m -> m.markStale(Metric.CUSTOMERS));
+        }
+    }
+
+    private void applyDelta(Object entity, int sign) {
+        if (entity instanceof Booking) {
+            afterCommit(m -> m.add(Metric.BOOKINGS, sign));
+        } else if (entity instanceof InventoryItem item) {
+            boolean active = Boolean.TRUE.equals(item.getIsActive());
+            boolean lowStock = active && item.needsReorder();
+            afterCommit(m -> {
+                if (active) m.add(Metric.ACTIVE_INVENTORY_ITEMS, sign);
+                if (lowStock) m.add(Metric.LOW_STOCK_ITEMS, sign);
+            });
+        } else if (entity instanceof VehicleType vt) {
+            if (Boolean.TRUE.equals(vt.getIsActive())) {
+                afterCommit(m -> m.add(Metric.ACTIVE_VEHICLE_TYPES, sign));
+            }
+        } else if (entity instanceof User user) {
+            if ("CUSTOMER".equals(user.getRole())) {
+                afterCommit(m -> m.add(Metric.CUSTOMERS, sign));
+            }
+        } else if (entity instanceof Customer customer) {
+            if ("CUSTOMER".equals(customer.getRole())) {
+                afterCommit(m -> m.add(Metric.CUSTOMERS, sign));
+            }
+        }
+    }
+
+    private void afterCommit(Consumer<DashboardMetricsService> change) {
+        DashboardMetricsService service = metrics.getIfAvailable();
+        if (service == null) return;
+
+        TransactionCallbacks.afterCommit(() -> change.accept(service));
+    }
+}
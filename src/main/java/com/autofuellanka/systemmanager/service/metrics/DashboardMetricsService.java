@@ -0,0 +1,120 @@
+package com.autofuellanka.systemmanager.service.metrics;
+
+import com.autofuellanka.systemmanager.repository.BookingRepository;
+import com.autofuellanka.systemmanager.repository.CustomerRepository;
+import com.autofuellanka.systemmanager.repository.InventoryRepository;
+import com.autofuellanka.systemmanager.repository.VehicleTypeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory dashboard counters.
+ * Inserts and deletes adjust the counters directly (see DashboardMetricsListener);
+ * updates that can move a row in or out of a metric mark it stale and it is
+ * recounted shortly after. A full COUNT(*) reconciliation corrects any drift.
+ */
+@Service
+public class DashboardMetricsService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardMetricsService.class);
+
+    public enum Metric {
+        ACTIVE_INVENTORY_ITEMS,
+        LOW_STOCK_ITEMS,
+        CUSTOMERS,
+        BOOKINGS,
+        ACTIVE_VEHICLE_TYPES
+    }
+
+    private final Map<Metric, AtomicLong> counters = new EnumMap<>(Metric.class);
+    private final Map<Metric, AtomicBoolean> stale = new EnumMap<>(Metric.class);
+    private final Map<Metric, LongSupplier> countQueries = new EnumMap<>(Metric.class);
+    private final AtomicBoolean initialized = new AtomicBoolean(false);
+
+    public DashboardMetricsService(InventoryRepository inventoryRepository,
+                                   CustomerRepository customerRepository,
+                                   BookingRepository bookingRepository,
+                                   VehicleTypeRepository vehicleTypeRepository) {
+        countQueries.put(Metric.ACTIVE_INVENTORY_ITEMS, inventoryRepository::countByIsActiveTrue);
+        countQueries.put(Metric.LOW_STOCK_ITEMS, inventoryRepository::countItemsNeedingReorder);
+        countQueries.put(Metric.CUSTOMERS, customerRepository::count);
+        countQueries.put(Metric.BOOKINGS, bookingRepository::count);
+        countQueries.put(Metric.ACTIVE_VEHICLE_TYPES, vehicleTypeRepository::countByIsActiveTrue);
+
+        for (Metric metric : Metric.values()) {
+            counters.put(metric, new AtomicLong());
+            stale.put(metric, new AtomicBoolean(false));
+        }
+    }
+
+    public long get(Metric metric) {
+        if (!initialized.get()) {
+            reconcileAll();
+        }
+        return counters.get(metric).get();
+    }
+
+    public void add(Metric metric, long delta) {
+        if (delta != 0) {
+            counters.get(metric).addAndGet(delta);
+        }
+    }
+
+    public void markStale(Metric metric) {
+        stale.get(metric).set(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        reconcileAll();
+    }
+
+    // Recount only the metrics an update may have moved
+    @Scheduled(fixedDelayString = "${app.dashboard.stale-recount-ms:5000}")
+    public void recountStale() {
+        for (Metric metric : Metric.values()) {
+            if (stale.get(metric).compareAndSet(true, false)) {
+                recount(metric);
+            }
+        }
+    }
+
+    // Full reconciliation against COUNT(*) to correct drift
+    @Scheduled(fixedDelayString = "${app.dashboard.reconcile-ms:300000}",
+               initialDelayString = "${app.dashboard.reconcile-ms:300000}")
+    public void reconcileAll() {
+        for (Metric metric : Metric.values()) {
+            recount(metric);
+        }
+        initialized.set(true);
+    }
+
+    // Applied as a delta against the value read before counting, so an add() that lands while the
+    // query runs is kept rather than overwritten; if the query already saw that row it is counted
+    // twice until the next recount, which is the safer way to be wrong
+    private void recount(Metric metric) {
+        try {
+            AtomicLong counter = counters.get(metric);
+            long previous = counter.get();
+            long actual = countQueries.get(metric).getAsLong();
+            counter.addAndGet(actual - previous);
+            if (initialized.get() && previous != actual) {
+                log.debug("Dashboard metric {} corrected from {} to {}", metric, previous, actual);
+            }
+        } catch (Exception e) {
+            // Keep serving the last known value; the next run will retry
+            stale.get(metric).set(true);
+            log.warn("Failed to recount dashboard metric {}", metric, e);
+        }
+    }
+}
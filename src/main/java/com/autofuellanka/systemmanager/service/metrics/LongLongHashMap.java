@@ -0,0 +1,174 @@
+package com.autofuellanka.systemmanager.service.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing long to long map (linear probing, no boxing).
+ * Not thread-safe; callers guard it.
+ */
+public class LongLongHashMap {
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    // Key 0 marks an empty slot, so its entry lives outside the table
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public LongLongHashMap() {
+        this(64);
+    }
+
+    public LongLongHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY) return hasZeroKey;
+        return keys[slotOf(key)] == key;
+    }
+
+    public long get(long key, long defaultValue) {
+        if (key == EMPTY) return hasZeroKey ? zeroValue : defaultValue;
+        int slot = slotOf(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+
+    public void put(long key, long value) {
+        if (key == EMPTY) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int slot = slotOf(key);
+        if (keys[slot] != key) {
+            keys[slot] = key;
+            if (++size > resizeAt) {
+                values[slot] = value;
+                rehash(keys.length * 2);
+                return;
+            }
+        }
+        values[slot] = value;
+    }
+
+    /** Add delta to the value of key (absent counts as 0) and return the new value */
+    public long addTo(long key, long delta) {
+        long updated = get(key, 0L) + delta;
+        put(key, updated);
+        return updated;
+    }
+
+    public boolean remove(long key) {
+        if (key == EMPTY) {
+            boolean had = hasZeroKey;
+            hasZeroKey = false;
+            zeroValue = 0L;
+            return had;
+        }
+        int slot = slotOf(key);
+        if (keys[slot] != key) {
+            return false;
+        }
+        shiftBack(slot);
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, 0L);
+        size = 0;
+        hasZeroKey = false;
+        zeroValue = 0L;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        if (hasZeroKey) {
+            consumer.accept(EMPTY, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    // Slot holding key, or the empty slot where it would be inserted
+    private int slotOf(long key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if (key == EMPTY) {
+                break;
+            }
+            int home = mix(key) & mask;
+            // Move the entry into the gap unless its home lies cyclically in (gap, slot]
+            boolean homeBetween = gap <= slot ? (gap < home && home <= slot) : (gap < home || home <= slot);
+            if (!homeBetween) {
+                keys[gap] = key;
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0L;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+        size = 0;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -63,6 +63,6 @@ public class CardPaymentStrategy implements PaymentProcessingStrategy {
 
     private boolean isValidCardReference(String reference) {
         // Simple validation - in reality, this would be more complex
-        return reference != null && reference.length() >= 10 && reference.matches("^[A-Za-z0-9]+$");
+        return reference != null && reference.length() >= 10 && reference.matches("^[A-Za-z0-9-_]+$");
     }
 }
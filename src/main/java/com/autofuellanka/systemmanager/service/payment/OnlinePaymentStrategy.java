@@ -64,6 +64,11 @@ public class OnlinePaymentStrategy implements PaymentProcessingStrategy {
         return PaymentMethod.ONLINE;
     }
 
+    @Override
+    public boolean isRemote() {
+        return true;
+    }
+
     private boolean isValidOnlineReference(String reference) {
         // Simple validation - in reality, this would be more complex
         return reference != null && reference.length() >= 8 && reference.matches("^[A-Za-z0-9-_]+$");
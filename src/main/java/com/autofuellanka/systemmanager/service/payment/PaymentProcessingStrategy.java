@@ -12,6 +12,14 @@ public interface PaymentProcessingStrategy {
 
     PaymentMethod getPaymentMethod();
 
+    /**
+     * Whether processPayment waits on an external gateway. Such payments are authorized
+     * asynchronously (see AsyncPaymentService) instead of on the request thread.
+     */
+    default boolean isRemote() {
+        return false;
+    }
+
     default boolean supports(PaymentMethod method) {
         return getPaymentMethod().equals(method);
     }
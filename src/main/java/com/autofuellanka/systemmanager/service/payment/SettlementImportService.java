@@ -0,0 +1,312 @@
+package com.autofuellanka.systemmanager.service.payment;
+
+import com.autofuellanka.systemmanager.dto.SettlementImportReport;
+import com.autofuellanka.systemmanager.dto.SettlementImportReport.RowResult;
+import com.autofuellanka.systemmanager.dto.SettlementImportReport.RowStatus;
+import com.autofuellanka.systemmanager.model.FinanceLedger;
+import com.autofuellanka.systemmanager.model.PaymentMethod;
+import com.autofuellanka.systemmanager.model.TransactionType;
+import com.autofuellanka.systemmanager.repository.DailyRevenueRepository;
+import com.autofuellanka.systemmanager.service.BillingSummaryService;
+import com.autofuellanka.systemmanager.service.finance.LedgerPostingService;
+import com.autofuellanka.systemmanager.service.invoice.InvoicePdfCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports end-of-day settlement files (CSV or NDJSON) as payments.
+ * The file is streamed and written in chunks, each in its own transaction: the chunk's invoices
+ * are locked and validated with one set-based query, then payments, invoice updates and ledger
+ * entries go out as JDBC batches, and the daily revenue rollup gets one upsert per method.
+ * A chunk that fails is rolled back and reported row by row; the chunks before and after it
+ * are unaffected. Settled payments have already cleared with the provider, so no gateway is called.
+ */
+@Service
+public class SettlementImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(SettlementImportService.class);
+
+    private static final String LOCK_INVOICES_SQL =
+            "SELECT id, invoice_number, balance FROM invoices WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+
+    private static final String RECORDED_REFERENCES_SQL =
+            "SELECT reference FROM payments WHERE reference IN (:references)";
+
+    // Same conditional update as InvoiceRepository.applyPayment, with the chunk's total for each invoice
+    private static final String APPLY_PAYMENTS_SQL =
+            "UPDATE invoices SET " +
+            "status = CASE WHEN balance - :amount <= 0 THEN 'PAID' ELSE 'PARTIAL' END, " +
+            "paid_amount = paid_amount + :amount, " +
+            "balance = balance - :amount, " +
+            "version = version + 1 " +
+            "WHERE id = :id AND balance >= :amount";
+
+    private static final String INSERT_PAYMENT_SQL =
+            "INSERT INTO payments (invoice_id, method, amount, reference, notes, created_at, created_by) " +
+            "VALUES (:invoiceId, :method, :amount, :reference, :notes, :createdAt, :createdBy)";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate chunkTx;
+    private final PaymentProcessor paymentProcessor;
+    private final DailyRevenueRepository dailyRevenueRepository;
+    private final LedgerPostingService ledgerPostingService;
+    private final BillingSummaryService billingSummaryService;
+    private final InvoicePdfCache invoicePdfCache;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public SettlementImportService(NamedParameterJdbcTemplate jdbc,
+                                   PlatformTransactionManager transactionManager,
+                                   PaymentProcessor paymentProcessor,
+                                   DailyRevenueRepository dailyRevenueRepository,
+                                   LedgerPostingService ledgerPostingService,
+                                   BillingSummaryService billingSummaryService,
+                                   InvoicePdfCache invoicePdfCache,
+                                   ObjectMapper objectMapper,
+                                   @Value("${app.billing.batch.chunk-size:500}") int chunkSize) {
+        this.jdbc = jdbc;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.paymentProcessor = paymentProcessor;
+        this.dailyRevenueRepository = dailyRevenueRepository;
+        this.ledgerPostingService = ledgerPostingService;
+        this.billingSummaryService = billingSummaryService;
+        this.invoicePdfCache = invoicePdfCache;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    // Chunks commit independently, so this must never join a caller's transaction
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SettlementImportReport importFile(InputStream input, SettlementReader.Format format, String createdBy)
+            throws IOException {
+        SettlementImportReport report = new SettlementImportReport();
+        // References committed by earlier chunks of this file
+        Set<String> fileReferences = new HashSet<>();
+        try (SettlementReader reader = new SettlementReader(input, format, objectMapper)) {
+            List<SettlementRow> chunk = new ArrayList<>(chunkSize);
+            SettlementRow row;
+            while ((row = reader.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() >= chunkSize) {
+                    importChunk(chunk, createdBy, fileReferences, report);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, createdBy, fileReferences, report);
+            }
+        }
+        log.info("Settlement import by {}: {} rows, {} imported ({}), {} failed, {} duplicates",
+                createdBy, report.getTotalRows(), report.getImported(), report.getImportedAmount(),
+                report.getFailed(), report.getDuplicates());
+        return report;
+    }
+
+    private void importChunk(List<SettlementRow> rows, String createdBy, Set<String> fileReferences,
+                             SettlementImportReport report) {
+        Set<String> chunkReferences = new HashSet<>();
+        List<RowResult> results;
+        try {
+            results = chunkTx.execute(status -> writeChunk(rows, createdBy, fileReferences, chunkReferences));
+            fileReferences.addAll(chunkReferences);
+        } catch (RuntimeException e) {
+            log.warn("Settlement chunk at line {} rolled back: {}", rows.get(0).getLineNumber(), e.getMessage());
+            results = new ArrayList<>(rows.size());
+            for (SettlementRow row : rows) {
+                results.add(failed(row, row.isValid() ? "Chunk rolled back: " + e.getMessage() : row.getError()));
+            }
+        }
+        results.forEach(report::add);
+    }
+
+    private List<RowResult> writeChunk(List<SettlementRow> rows, String createdBy,
+                                       Set<String> fileReferences, Set<String> chunkReferences) {
+        Map<Long, LockedInvoice> invoices = lockInvoices(rows);
+        Set<String> recorded = recordedReferences(rows);
+
+        List<RowResult> results = new ArrayList<>(rows.size());
+        List<SettlementRow> accepted = new ArrayList<>();
+        for (SettlementRow row : rows) {
+            if (!row.isValid()) {
+                results.add(failed(row, row.getError()));
+                continue;
+            }
+            String reference = row.getReference();
+            if (reference != null && recorded.contains(reference)) {
+                results.add(result(row, RowStatus.DUPLICATE, "Reference already recorded"));
+                continue;
+            }
+            if (reference != null && (fileReferences.contains(reference) || !chunkReferences.add(reference))) {
+                results.add(result(row, RowStatus.DUPLICATE, "Duplicate reference in file"));
+                continue;
+            }
+            LockedInvoice invoice = invoices.get(row.getInvoiceId());
+            if (invoice == null) {
+                results.add(failed(row, "Invoice not found: " + row.getInvoiceId()));
+                continue;
+            }
+            // Same test the conditional UPDATE applies, against the running total for this invoice
+            if (invoice.balance < invoice.applied + row.getAmount()) {
+                results.add(failed(row, "Payment amount cannot exceed invoice balance"));
+                continue;
+            }
+            invoice.applied += row.getAmount();
+            accepted.add(row);
+            results.add(result(row, RowStatus.IMPORTED, null));
+        }
+        if (accepted.isEmpty()) {
+            return results;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        applyToInvoices(invoices);
+        insertPayments(accepted, now, createdBy);
+        ledgerPostingService.postAll(ledgerEntries(accepted, invoices, now, createdBy));
+        recordRevenue(accepted, now);
+        billingSummaryService.invalidateAfterCommit();
+        invoicePdfCache.evictAfterCommit(invoices.keySet());
+        return results;
+    }
+
+    // Lock in id order so concurrent imports and payments on the same invoices cannot deadlock
+    private Map<Long, LockedInvoice> lockInvoices(List<SettlementRow> rows) {
+        Set<Long> ids = rows.stream()
+                .filter(SettlementRow::isValid)
+                .map(SettlementRow::getInvoiceId)
+                .collect(Collectors.toSet());
+        Map<Long, LockedInvoice> invoices = new HashMap<>();
+        if (ids.isEmpty()) {
+            return invoices;
+        }
+        jdbc.query(LOCK_INVOICES_SQL, new MapSqlParameterSource("ids", ids), rs -> {
+            invoices.put(rs.getLong("id"), new LockedInvoice(rs.getString("invoice_number"), rs.getDouble("balance")));
+        });
+        return invoices;
+    }
+
+    private Set<String> recordedReferences(List<SettlementRow> rows) {
+        Set<String> references = rows.stream()
+                .filter(SettlementRow::isValid)
+                .map(SettlementRow::getReference)
+                .filter(reference -> reference != null)
+                .collect(Collectors.toSet());
+        if (references.isEmpty()) {
+            return references;
+        }
+        return new HashSet<>(jdbc.queryForList(RECORDED_REFERENCES_SQL,
+                new MapSqlParameterSource("references", references), String.class));
+    }
+
+    private void applyToInvoices(Map<Long, LockedInvoice> invoices) {
+        List<MapSqlParameterSource> updates = new ArrayList<>();
+        invoices.forEach((id, invoice) -> {
+            if (invoice.applied > 0) {
+                updates.add(new MapSqlParameterSource().addValue("id", id).addValue("amount", invoice.applied));
+            }
+        });
+        int[] counts = jdbc.batchUpdate(APPLY_PAYMENTS_SQL, updates.toArray(new MapSqlParameterSource[0]));
+        for (int i = 0; i < counts.length; i++) {
+            // The rows are locked, so only a change outside this service can make the guard fail
+            if (counts[i] == 0) {
+                throw new IllegalStateException("Invoice " + updates.get(i).getValue("id") + " changed during import");
+            }
+        }
+    }
+
+    private void insertPayments(List<SettlementRow> accepted, LocalDateTime now, String createdBy) {
+        Timestamp createdAt = Timestamp.valueOf(now);
+        MapSqlParameterSource[] batch = new MapSqlParameterSource[accepted.size()];
+        for (int i = 0; i < batch.length; i++) {
+            SettlementRow row = accepted.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("invoiceId", row.getInvoiceId())
+                    .addValue("method", row.getMethod().name())
+                    .addValue("amount", row.getAmount())
+                    .addValue("reference", row.getReference())
+                    .addValue("notes", row.getNotes())
+                    .addValue("createdAt", createdAt)
+                    .addValue("createdBy", createdBy);
+        }
+        jdbc.batchUpdate(INSERT_PAYMENT_SQL, batch);
+    }
+
+    // The same debit/credit pair BillingService writes for a single payment
+    private List<FinanceLedger> ledgerEntries(List<SettlementRow> accepted, Map<Long, LockedInvoice> invoices,
+                                              LocalDateTime now, String createdBy) {
+        Map<PaymentMethod, String> accounts = new EnumMap<>(PaymentMethod.class);
+        List<FinanceLedger> entries = new ArrayList<>(accepted.size() * 2);
+        for (SettlementRow row : accepted) {
+            String account = accounts.computeIfAbsent(row.getMethod(), paymentProcessor::getAccountNameForPaymentMethod);
+            String description = "Payment received for invoice " + invoices.get(row.getInvoiceId()).invoiceNumber;
+            entries.add(ledgerEntry(account, TransactionType.DEBIT, row, description, now, createdBy));
+            entries.add(ledgerEntry("ACCOUNTS_RECEIVABLE", TransactionType.CREDIT, row, description, now, createdBy));
+        }
+        return entries;
+    }
+
+    private static FinanceLedger ledgerEntry(String account, TransactionType type, SettlementRow row,
+                                             String description, LocalDateTime now, String createdBy) {
+        FinanceLedger entry = new FinanceLedger();
+        entry.setTransactionDate(now);
+        entry.setAccount(account);
+        entry.setTransactionType(type);
+        entry.setAmount(row.getAmount());
+        entry.setReference(row.getReference());
+        entry.setDescription(description);
+        entry.setCreatedBy(createdBy);
+        return entry;
+    }
+
+    private void recordRevenue(List<SettlementRow> accepted, LocalDateTime now) {
+        Map<PaymentMethod, double[]> totals = new LinkedHashMap<>();
+        for (SettlementRow row : accepted) {
+            double[] total = totals.computeIfAbsent(row.getMethod(), method -> new double[2]);
+            total[0] += row.getAmount();
+            total[1]++;
+        }
+        totals.forEach((method, total) ->
+                dailyRevenueRepository.addToDay(now.toLocalDate(), method.name(), total[0], (long) total[1]));
+    }
+
+    private static RowResult result(SettlementRow row, RowStatus status, String message) {
+        return new RowResult(row.getLineNumber(), row.getInvoiceId(), row.getAmount(), row.getReference(), status, message);
+    }
+
+    private static RowResult failed(SettlementRow row, String message) {
+        return result(row, RowStatus.FAILED, message);
+    }
+
+    private static class LockedInvoice {
+        final String invoiceNumber;
+        final double balance;
+        double applied;
+
+        LockedInvoice(String invoiceNumber, double balance) {
+            this.invoiceNumber = invoiceNumber;
+            this.balance = balance;
+        }
+    }
+}
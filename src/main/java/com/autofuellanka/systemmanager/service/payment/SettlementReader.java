@@ -0,0 +1,186 @@
+package com.autofuellanka.systemmanager.service.payment;
+
+import com.autofuellanka.systemmanager.model.PaymentMethod;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads a settlement file one line at a time, so an upload of any size is never held in memory.
+ * CSV files may start with a header naming the columns (invoiceId, amount, method, reference, notes);
+ * without one the columns are taken in that order. NDJSON files hold one object per line with the
+ * same field names. The method defaults to CARD. Quoted CSV fields may not span lines.
+ */
+public class SettlementReader implements AutoCloseable {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final List<String> DEFAULT_COLUMNS = List.of("invoiceid", "amount", "method", "reference", "notes");
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+    private List<String> columns;
+    private long lineNumber;
+
+    public SettlementReader(InputStream input, Format format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Next row, or null at end of input; blank lines are skipped */
+    public SettlementRow next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.NDJSON) {
+                return parseJson(line);
+            }
+            List<String> fields = splitCsvLine(line);
+            if (columns == null) {
+                columns = isHeader(fields) ? normalize(fields) : DEFAULT_COLUMNS;
+                if (columns != DEFAULT_COLUMNS) {
+                    continue;
+                }
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < fields.size() && i < columns.size(); i++) {
+                values.put(columns.get(i), fields.get(i));
+            }
+            return toRow(values);
+        }
+        return null;
+    }
+
+    private SettlementRow parseJson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            return SettlementRow.invalid(lineNumber, "Malformed JSON");
+        }
+        if (node == null || !node.isObject()) {
+            return SettlementRow.invalid(lineNumber, "Expected a JSON object");
+        }
+        Map<String, String> values = new HashMap<>();
+        for (Map.Entry<String, JsonNode> field : node.properties()) {
+            if (!field.getValue().isNull()) {
+                values.put(normalize(field.getKey()), field.getValue().asText());
+            }
+        }
+        return toRow(values);
+    }
+
+    private SettlementRow toRow(Map<String, String> values) {
+        Long invoiceId;
+        Double amount;
+        PaymentMethod method;
+        try {
+            invoiceId = Long.valueOf(required(values, "invoiceid", "invoiceId"));
+        } catch (NumberFormatException e) {
+            return SettlementRow.invalid(lineNumber, "Invalid invoiceId");
+        } catch (IllegalArgumentException e) {
+            return SettlementRow.invalid(lineNumber, e.getMessage());
+        }
+        try {
+            amount = Double.valueOf(required(values, "amount", "amount"));
+        } catch (NumberFormatException e) {
+            return SettlementRow.invalid(lineNumber, "Invalid amount");
+        } catch (IllegalArgumentException e) {
+            return SettlementRow.invalid(lineNumber, e.getMessage());
+        }
+        if (amount.isNaN() || amount.isInfinite() || amount <= 0) {
+            return SettlementRow.invalid(lineNumber, "Amount must be positive");
+        }
+        String methodValue = blankToNull(values.get("method"));
+        try {
+            method = methodValue != null ? PaymentMethod.valueOf(methodValue.toUpperCase(Locale.ROOT)) : PaymentMethod.CARD;
+        } catch (IllegalArgumentException e) {
+            return SettlementRow.invalid(lineNumber, "Unknown payment method: " + methodValue);
+        }
+        return new SettlementRow(lineNumber, invoiceId, amount, method,
+                blankToNull(values.get("reference")), blankToNull(values.get("notes")), null);
+    }
+
+    private static String required(Map<String, String> values, String column, String label) {
+        String value = blankToNull(values.get(column));
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + label);
+        }
+        return value;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static boolean isHeader(List<String> fields) {
+        return !fields.isEmpty() && !fields.get(0).trim().matches("\\d+");
+    }
+
+    private static List<String> normalize(List<String> names) {
+        List<String> normalized = new ArrayList<>(names.size());
+        for (String name : names) {
+            normalized.add(normalize(name));
+        }
+        return normalized;
+    }
+
+    // invoice_id, invoiceId and "Invoice ID" all name the same column
+    private static String normalize(String name) {
+        return name.trim().replace("_", "").replace(" ", "").toLowerCase(Locale.ROOT);
+    }
+
+    /** Split one CSV line, honouring double-quoted fields and "" escapes */
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
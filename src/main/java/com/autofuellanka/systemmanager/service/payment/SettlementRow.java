@@ -0,0 +1,42 @@
+package com.autofuellanka.systemmanager.service.payment;
+
+import com.autofuellanka.systemmanager.model.PaymentMethod;
+
+/** One line of a settlement file; rows that could not be parsed carry the reason in {@link #getError()} */
+public class SettlementRow {
+
+    private final long lineNumber;
+    private final Long invoiceId;
+    private final Double amount;
+    private final PaymentMethod method;
+    private final String reference;
+    private final String notes;
+    private final String error;
+
+    SettlementRow(long lineNumber, Long invoiceId, Double amount, PaymentMethod method,
+                  String reference, String notes, String error) {
+        this.lineNumber = lineNumber;
+        this.invoiceId = invoiceId;
+        this.amount = amount;
+        this.method = method;
+        this.reference = reference;
+        this.notes = notes;
+        this.error = error;
+    }
+
+    static SettlementRow invalid(long lineNumber, String error) {
+        return new SettlementRow(lineNumber, null, null, null, null, null, error);
+    }
+
+    public long getLineNumber() { return lineNumber; }
+    public Long getInvoiceId() { return invoiceId; }
+    public Double getAmount() { return amount; }
+    public PaymentMethod getMethod() { return method; }
+    public String getReference() { return reference; }
+    public String getNotes() { return notes; }
+    public String getError() { return error; }
+
+    public boolean isValid() {
+        return error == null;
+    }
+}
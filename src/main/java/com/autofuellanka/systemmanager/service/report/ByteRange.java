@@ -0,0 +1,73 @@
+package com.autofuellanka.systemmanager.service.report;
+
+/**
+ * A single inclusive byte range from an HTTP Range header (RFC 7233).
+ * Multi-range requests are not supported and are treated as unsatisfiable.
+ */
+public final class ByteRange {
+
+    private final long start;
+    private final long end;
+
+    public ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public long getStart() { return start; }
+
+    public long getEnd() { return end; }
+
+    public long length() {
+        return end - start + 1;
+    }
+
+    public String contentRange(long totalLength) {
+        return "bytes " + start + "-" + end + "/" + totalLength;
+    }
+
+    /**
+     * Parse a Range header against a resource of the given length.
+     * Returns null when there is no header (send the whole file) and throws
+     * IllegalStateException when the range cannot be satisfied (416).
+     */
+    public static ByteRange parse(String header, long totalLength) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        String value = header.trim();
+        if (!value.startsWith("bytes=") || value.indexOf(',') >= 0) {
+            throw new IllegalStateException("Unsupported range: " + header);
+        }
+        String spec = value.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            throw new IllegalStateException("Malformed range: " + header);
+        }
+
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    throw new IllegalStateException("Unsatisfiable range: " + header);
+                }
+                start = Math.max(0, totalLength - suffix);
+                end = totalLength - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? totalLength - 1 : Math.min(Long.parseLong(last), totalLength - 1);
+            }
+            if (start < 0 || start >= totalLength || end < start) {
+                throw new IllegalStateException("Unsatisfiable range: " + header);
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Malformed range: " + header);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.autofuellanka.systemmanager.service.report;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes CSV rows straight to an output stream (RFC 4180: CRLF line endings,
+ * fields containing comma, quote or line breaks are quoted, quotes are doubled).
+ * Optionally gzips the output; flush() pushes everything written so far to the client.
+ */
+public class CsvRowWriter implements Flushable, Closeable {
+
+    private final GZIPOutputStream gzip;
+    private final Writer out;
+    private long rowCount;
+
+    public CsvRowWriter(OutputStream target, boolean gzipped) throws IOException {
+        // syncFlush = true so flush() emits the compressed bytes instead of holding them in the deflater
+        this.gzip = gzipped ? new GZIPOutputStream(target, 8192, true) : null;
+        OutputStream stream = gzipped ? this.gzip : target;
+        this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 8192);
+    }
+
+    public void writeRow(Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) out.write(',');
+            writeField(fields[i]);
+        }
+        out.write("\r\n");
+        rowCount++;
+    }
+
+    public long getRowCount() { return rowCount; }
+
+    private void writeField(Object value) throws IOException {
+        if (value == null) return;
+        String s = value.toString();
+        if (!needsQuoting(s)) {
+            out.write(s);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') out.write('"');
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    static boolean needsQuoting(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') return true;
+        }
+        return false;
+    }
+
+    /** Escape a single value the same way writeRow does */
+    public static String escape(String s) {
+        if (s == null) return "";
+        if (!needsQuoting(s)) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /** Flush and finish the gzip trailer; does not close the underlying stream */
+    public void finish() throws IOException {
+        out.flush();
+        if (gzip != null) gzip.finish();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,101 @@
+package com.autofuellanka.systemmanager.service.report;
+
+import com.autofuellanka.systemmanager.model.FinanceLedger;
+import com.autofuellanka.systemmanager.repository.FinanceLedgerRepository;
+import com.autofuellanka.systemmanager.service.report.StreamingReportService.ReportBody;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Ledger CSV export that walks finance_ledger by keyset on (transaction_date, id).
+ * Each page is a short indexed range read, so no connection is held between pages
+ * and deep exports cost the same per row as the first page.
+ * The last column is the entry id; pass the last one received as "cursor" to resume.
+ */
+@Service
+public class LedgerExportService {
+
+    static final int PAGE_SIZE = 1000;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String FILE_PREFIX = "finance_ledger";
+
+    private static final String[] HEADER = {"Date", "Account", "Type", "Amount", "Reference", "Description", "Entry ID"};
+
+    private final FinanceLedgerRepository financeLedgerRepository;
+    private final StreamingReportService streamingReportService;
+
+    public LedgerExportService(FinanceLedgerRepository financeLedgerRepository,
+                               StreamingReportService streamingReportService) {
+        this.financeLedgerRepository = financeLedgerRepository;
+        this.streamingReportService = streamingReportService;
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportCsv(LocalDateTime from, LocalDateTime to, String account,
+                                                           Long cursor, boolean gzip) {
+        return streamingReportService.csvDownload(FILE_PREFIX, gzip,
+                body(from, to, account, cursor));
+    }
+
+    /** Ledger report body, optionally resuming after the entry with the given id */
+    public ReportBody body(LocalDateTime from, LocalDateTime to, String account, Long cursor) {
+        // Resolve the resume point up front so a bad cursor is a 400, not a broken download
+        FinanceLedger resumeAfter = null;
+        if (cursor != null) {
+            resumeAfter = financeLedgerRepository.findById(cursor)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown ledger cursor: " + cursor));
+        }
+        final FinanceLedger start = resumeAfter;
+
+        return csv -> {
+            // A resumed download continues the same file, so skip the header
+            if (start == null) {
+                csv.writeRow((Object[]) HEADER);
+                csv.flush();
+            }
+            writePages(csv, from, to, account, start);
+        };
+    }
+
+    private void writePages(CsvRowWriter csv, LocalDateTime from, LocalDateTime to, String account,
+                            FinanceLedger resumeAfter) throws IOException {
+        Pageable firstPage = PageRequest.of(0, PAGE_SIZE);
+        LocalDateTime afterDate = resumeAfter != null ? resumeAfter.getTransactionDate() : null;
+        Long afterId = resumeAfter != null ? resumeAfter.getId() : null;
+
+        while (true) {
+            List<FinanceLedger> page = afterId == null
+                    ? financeLedgerRepository.findExportFirstPage(account, from, to, firstPage)
+                    : financeLedgerRepository.findExportPageAfter(account, from, to, afterDate, afterId, firstPage);
+
+            for (FinanceLedger entry : page) {
+                csv.writeRow(
+                        entry.getTransactionDate().format(DATE_FORMAT),
+                        entry.getAccount(),
+                        entry.getTransactionType(),
+                        String.format("%.2f", entry.getAmount()),
+                        entry.getReference(),
+                        entry.getDescription(),
+                        entry.getId()
+                );
+            }
+            csv.flush();
+
+            if (page.size() < PAGE_SIZE) {
+                return;
+            }
+            FinanceLedger last = page.get(page.size() - 1);
+            afterDate = last.getTransactionDate();
+            afterId = last.getId();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.autofuellanka.systemmanager.service.report;
+
+import com.autofuellanka.systemmanager.model.BookingTimes;
+import com.autofuellanka.systemmanager.repository.BookingRepository;
+import com.autofuellanka.systemmanager.repository.CustomerRepository;
+import com.autofuellanka.systemmanager.repository.InventoryRepository;
+import com.autofuellanka.systemmanager.repository.VehicleTypeRepository;
+import com.autofuellanka.systemmanager.service.report.StreamingReportService.ReportBody;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+
+/**
+ * Column layout and row source of every CSV report.
+ * Shared by the direct download endpoints and the background report jobs,
+ * so both always produce the same file.
+ */
+@Service
+public class ReportCatalog {
+
+    private static final String[] INVENTORY_HEADER =
+            {"SKU", "Name", "Category", "On Hand", "Min Qty", "Unit Price", "Reorder Status", "Description"};
+    private static final String[] VEHICLE_TYPES_HEADER =
+            {"Make", "Model", "Year", "Fuel Type", "Engine Capacity", "Transmission", "Description"};
+    private static final String[] USERS_HEADER =
+            {"ID", "Name", "Email", "Phone", "Address", "Registration Date", "Status"};
+    private static final String[] BOOKINGS_HEADER =
+            {"ID", "Customer Name", "Customer Email", "Vehicle Plate", "Service Type", "Booking Date", "Status", "Total Amount"};
+
+    private final InventoryRepository inventoryRepository;
+    private final VehicleTypeRepository vehicleTypeRepository;
+    private final CustomerRepository customerRepository;
+    private final BookingRepository bookingRepository;
+    private final StreamingReportService streamingReportService;
+
+    public ReportCatalog(InventoryRepository inventoryRepository,
+                         VehicleTypeRepository vehicleTypeRepository,
+                         CustomerRepository customerRepository,
+                         BookingRepository bookingRepository,
+                         StreamingReportService streamingReportService) {
+        this.inventoryRepository = inventoryRepository;
+        this.vehicleTypeRepository = vehicleTypeRepository;
+        this.customerRepository = customerRepository;
+        this.bookingRepository = bookingRepository;
+        this.streamingReportService = streamingReportService;
+    }
+
+    /** Report body for the given type */
+    public ReportBody body(ReportType type) {
+        switch (type) {
+            case INVENTORY:
+                return csv -> {
+                    writeHeader(csv, INVENTORY_HEADER);
+                    streamingReportService.writeRows(csv, inventoryRepository::streamActiveItems,
+                            item -> new Object[]{
+                                    item.getSku(),
+                                    item.getName(),
+                                    item.getCategory(),
+                                    item.getOnHand(),
+                                    item.getMinQty(),
+                                    money(item.getUnitPrice()),
+                                    item.needsReorder() ? "Low Stock" : "OK",
+                                    item.getDescription()
+                            });
+                };
+            case VEHICLE_TYPES:
+                return csv -> {
+                    writeHeader(csv, VEHICLE_TYPES_HEADER);
+                    streamingReportService.writeRows(csv, vehicleTypeRepository::streamActiveVehicleTypes,
+                            vt -> new Object[]{
+                                    vt.getMake(),
+                                    vt.getModel(),
+                                    vt.getYear(),
+                                    vt.getFuelType(),
+                                    vt.getEngineCapacity(),
+                                    vt.getTransmission(),
+                                    vt.getDescription()
+                            });
+                };
+            case USERS:
+                return csv -> {
+                    writeHeader(csv, USERS_HEADER);
+                    streamingReportService.writeRows(csv, customerRepository::streamAll,
+                            customer -> new Object[]{
+                                    customer.getId(),
+                                    customer.getFullName(),
+                                    customer.getEmail(),
+                                    customer.getPhone(),
+                                    customer.getAddress(),
+                                    "N/A", // No createdAt field in Customer model
+                                    Boolean.TRUE.equals(customer.getEnabled()) ? "Active" : "Inactive"
+                            });
+                };
+            case BOOKINGS:
+                return csv -> {
+                    writeHeader(csv, BOOKINGS_HEADER);
+                    streamingReportService.writeRows(csv, bookingRepository::streamAllWithServiceTypeAndCustomer,
+                            booking -> new Object[]{
+                                    booking.getId(),
+                                    booking.getCustomer() != null ? booking.getCustomer().getFullName() : "N/A",
+                                    booking.getCustomer() != null ? booking.getCustomer().getEmail() : "N/A",
+                                    booking.getVehicleId() != null ? "Vehicle ID: " + booking.getVehicleId() : "N/A",
+                                    booking.getServiceType() != null ? booking.getServiceType().getName() : "N/A",
+                                    BookingTimes.format(booking.getStartTime()),
+                                    booking.getStatus() != null ? booking.getStatus().name() : "N/A",
+                                    money(0.0) // No totalAmount field in Booking model
+                            });
+                };
+            default:
+                throw new IllegalArgumentException("Unsupported report type: " + type);
+        }
+    }
+
+    private static void writeHeader(CsvRowWriter csv, String[] header) throws IOException {
+        csv.writeRow((Object[]) header);
+        csv.flush();
+    }
+
+    private static String money(Double value) {
+        return String.format("%.2f", value != null ? value : 0.0);
+    }
+}
@@ -0,0 +1,94 @@
+package com.autofuellanka.systemmanager.service.report;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Local directory holding finished report files.
+ * Files are written under a ".part" name and renamed when complete,
+ * so a download never sees a half-written report.
+ */
+@Component
+public class ReportFileStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportFileStore.class);
+
+    private static final String SUFFIX = ".csv";
+    private static final String PART_SUFFIX = ".part";
+    private static final int TRANSFER_BUFFER_BYTES = 64 * 1024;
+
+    private final Path root;
+
+    public ReportFileStore(@Value("${app.reports.store-dir:${java.io.tmpdir}/autofuel-reports}") String storeDir) {
+        this.root = Paths.get(storeDir).toAbsolutePath();
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(root);
+        // Job state is in memory only, so files left by a previous run can never be downloaded
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(root, "*{" + SUFFIX + "," + PART_SUFFIX + "}")) {
+            for (Path file : leftovers) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    public Path partFile(String jobId) {
+        return root.resolve(jobId + PART_SUFFIX);
+    }
+
+    /** Publish a completed ".part" file under its final name */
+    public Path publish(String jobId) throws IOException {
+        Path target = root.resolve(jobId + SUFFIX);
+        return Files.move(partFile(jobId), target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public void delete(String jobId) {
+        try {
+            Files.deleteIfExists(partFile(jobId));
+            Files.deleteIfExists(root.resolve(jobId + SUFFIX));
+        } catch (IOException e) {
+            log.warn("Could not delete report files for job {}", jobId, e);
+        }
+    }
+
+    /**
+     * Copy [start, start + count) of the file to the output through one fixed-size buffer.
+     * This is the fallback for connectors without sendfile: the servlet stream is not a file
+     * descriptor, so the bytes pass through the heap here; the zero-copy path is the
+     * connector's own sendfile, which the download endpoint uses whenever it is offered.
+     */
+    public static void transfer(Path file, long start, long count, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(TRANSFER_BUFFER_BYTES);
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), remaining));
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                out.write(buffer.array(), 0, read);
+                position += read;
+                remaining -= read;
+            }
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,65 @@
+package com.autofuellanka.systemmanager.service.report;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/** State of one background report build; mutated only by the worker running it */
+public class ReportJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final ReportType type;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile long rowCount;
+    private volatile long sizeBytes;
+    private volatile String error;
+    private volatile Path file;
+
+    public ReportJob(String id, ReportType type) {
+        this.id = id;
+        this.type = type;
+    }
+
+    void markRunning() {
+        startedAt = LocalDateTime.now();
+        status = Status.RUNNING;
+    }
+
+    void markCompleted(Path file, long rowCount, long sizeBytes) {
+        this.file = file;
+        this.rowCount = rowCount;
+        this.sizeBytes = sizeBytes;
+        finishedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        finishedAt = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+
+    public String getId() { return id; }
+    public ReportType getType() { return type; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public Status getStatus() { return status; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public long getRowCount() { return rowCount; }
+    public long getSizeBytes() { return sizeBytes; }
+    public String getError() { return error; }
+
+    @JsonIgnore
+    public Path getFile() { return file; }
+
+    public String getFileName() {
+        return type.getFilePrefix() + "_" + id + ".csv";
+    }
+}
@@ -0,0 +1,123 @@
+package com.autofuellanka.systemmanager.service.report;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds reports in the background on a small bounded pool and keeps the result on disk.
+ * Request threads only enqueue and later serve a finished file; a full queue is a 503
+ * rather than an ever-growing backlog.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+    private final ReportCatalog reportCatalog;
+    private final ReportFileStore fileStore;
+    private final ThreadPoolExecutor executor;
+    private final long retentionMillis;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+
+    public ReportJobService(ReportCatalog reportCatalog,
+                            ReportFileStore fileStore,
+                            @Value("${app.reports.jobs.workers:2}") int workers,
+                            @Value("${app.reports.jobs.queue-capacity:20}") int queueCapacity,
+                            @Value("${app.reports.jobs.retention-ms:86400000}") long retentionMillis) {
+        this.reportCatalog = reportCatalog;
+        this.fileStore = fileStore;
+        this.retentionMillis = retentionMillis;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public ReportJob submit(ReportType type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Report type is required");
+        }
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), type);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Report queue is full, try again later");
+        }
+        return job;
+    }
+
+    public Optional<ReportJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void run(ReportJob job) {
+        job.markRunning();
+        Path part = fileStore.partFile(job.getId());
+        try {
+            long rows;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part))) {
+                CsvRowWriter csv = new CsvRowWriter(out, false);
+                reportCatalog.body(job.getType()).write(csv);
+                csv.finish();
+                rows = csv.getRowCount();
+            }
+            Path file = fileStore.publish(job.getId());
+            job.markCompleted(file, rows, Files.size(file));
+            log.info("Report job {} ({}) finished: {} rows", job.getId(), job.getType(), rows);
+        } catch (Exception e) {
+            fileStore.delete(job.getId());
+            job.markFailed(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            log.warn("Report job {} ({}) failed", job.getId(), job.getType(), e);
+        }
+    }
+
+    // Drop finished jobs and their files once they are past retention
+    @Scheduled(fixedDelayString = "${app.reports.jobs.cleanup-ms:600000}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(retentionMillis));
+        jobs.values().removeIf(job -> {
+            boolean finished = job.getStatus() == ReportJob.Status.COMPLETED || job.getStatus() == ReportJob.Status.FAILED;
+            if (finished && job.getFinishedAt().isBefore(cutoff)) {
+                fileStore.delete(job.getId());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,23 @@
+package com.autofuellanka.systemmanager.service.report;
+
+/**
+ * Reports that can be downloaded directly or built as a background job.
+ * The finance ledger is deliberately not one of them: it is only exported through the
+ * FINANCE/ADMIN-guarded /api/finance endpoints, while report jobs and their files are public.
+ */
+public enum ReportType {
+    INVENTORY("inventory_report"),
+    VEHICLE_TYPES("vehicle_types_report"),
+    USERS("users_report"),
+    BOOKINGS("bookings_report");
+
+    private final String filePrefix;
+
+    ReportType(String filePrefix) {
+        this.filePrefix = filePrefix;
+    }
+
+    public String getFilePrefix() {
+        return filePrefix;
+    }
+}
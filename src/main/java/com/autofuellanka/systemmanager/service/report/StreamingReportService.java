@@ -0,0 +1,116 @@
+package com.autofuellanka.systemmanager.service.report;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Shared CSV download engine for report endpoints.
+ * Rows go from a forward-only JPA stream to the response as they are read,
+ * so memory stays flat and the header reaches the client before the query finishes.
+ */
+@Service
+public class StreamingReportService {
+
+    // Rows between flushes to the client / persistence context clears
+    static final int FLUSH_INTERVAL = 500;
+
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate readOnlyTx;
+
+    public StreamingReportService(PlatformTransactionManager transactionManager) {
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    /** Body of a report: writes the header and rows into the given writer */
+    @FunctionalInterface
+    public interface ReportBody {
+        void write(CsvRowWriter csv) throws IOException;
+    }
+
+    public static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    public static String fileName(String prefix) {
+        return prefix + "_" + LocalDateTime.now().format(FILE_STAMP) + ".csv";
+    }
+
+    /** Build a streamed CSV attachment response */
+    public ResponseEntity<StreamingResponseBody> csvDownload(String filePrefix, boolean gzip, ReportBody body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentDispositionFormData("attachment", fileName(filePrefix));
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            headers.add(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        StreamingResponseBody stream = outputStream -> {
+            CsvRowWriter csv = new CsvRowWriter(outputStream, gzip);
+            body.write(csv);
+            csv.finish();
+        };
+
+        return ResponseEntity.ok().headers(headers).body(stream);
+    }
+
+    /** Convenience for the common case: header row, then one row per streamed entity */
+    public <T> ResponseEntity<StreamingResponseBody> csvDownload(String filePrefix, boolean gzip, String[] header,
+                                                                 Supplier<Stream<T>> source,
+                                                                 Function<T, Object[]> rowMapper) {
+        return csvDownload(filePrefix, gzip, csv -> {
+            csv.writeRow((Object[]) header);
+            csv.flush();
+            writeRows(csv, source, rowMapper);
+        });
+    }
+
+    /**
+     * Drain a repository Stream into the writer inside a read-only transaction.
+     * Entities are released from the persistence context every FLUSH_INTERVAL rows.
+     */
+    public <T> void writeRows(CsvRowWriter csv, Supplier<Stream<T>> source, Function<T, Object[]> rowMapper)
+            throws IOException {
+        try {
+            readOnlyTx.executeWithoutResult(status -> {
+                try (Stream<T> rows = source.get()) {
+                    Iterator<T> it = rows.iterator();
+                    int sinceFlush = 0;
+                    while (it.hasNext()) {
+                        csv.writeRow(rowMapper.apply(it.next()));
+                        if (++sinceFlush == FLUSH_INTERVAL) {
+                            csv.flush();
+                            entityManager.clear();
+                            sinceFlush = 0;
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.autofuellanka.systemmanager;
+
+import com.autofuellanka.systemmanager.model.AccountBalanceSnapshot;
+import com.autofuellanka.systemmanager.model.FinanceLedger;
+import com.autofuellanka.systemmanager.model.TransactionType;
+import com.autofuellanka.systemmanager.repository.AccountBalanceSnapshotRepository;
+import com.autofuellanka.systemmanager.repository.FinanceLedgerRepository;
+import com.autofuellanka.systemmanager.service.finance.AccountBalanceService;
+import com.autofuellanka.systemmanager.service.finance.LedgerPostingService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Account balances from snapshots plus ledger deltas. Each test posts to accounts of its own,
+ * so ledger history left by other tests does not move the balances under test.
+ */
+@SpringBootTest
+@Transactional
+@org.springframework.test.context.ActiveProfiles("test")
+public class AccountBalanceIT {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired AccountBalanceService balances;
+    @Autowired LedgerPostingService ledger;
+    @Autowired FinanceLedgerRepository ledgerEntries;
+    @Autowired AccountBalanceSnapshotRepository snapshots;
+    @Autowired ConfigurableApplicationContext context;
+    @Autowired EntityManager entityManager;
+
+    private final String suffix = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    private final String cash = "TEST_CASH_" + suffix;
+    private final String receivable = "TEST_AR_" + suffix;
+
+    @Test
+    void payments_and_refunds_accumulate_per_account_and_day() {
+        payment(TODAY.minusDays(3), 100.0);
+        payment(TODAY.minusDays(2), 50.0);
+        refund(TODAY.minusDays(1), 30.0);
+
+        // Ledger convention: payment accounts grow on CREDIT, so money taken in is a debit against them
+        assertEquals(-120.0, balances.getBalance(cash, null), 0.0001);
+        assertEquals(120.0, balances.getBalance(receivable, null), 0.0001);
+        assertEquals(150.0, balances.getBalance(receivable, TODAY.minusDays(2)), 0.0001);
+        assertEquals(0.0, balances.getBalance(receivable, TODAY.minusDays(4)), 0.0001);
+        assertEquals(120.0, balances.getBalances(null).get(receivable), 0.0001);
+    }
+
+    @Test
+    void balances_read_through_a_snapshot_match_the_ledger_and_follow_back_dated_postings() {
+        payment(TODAY.minusDays(3), 100.0);
+        payment(TODAY.minusDays(2), 50.0);
+        balances.closeDay(TODAY.minusDays(2));
+        assertEquals(150.0, snapshot(receivable, TODAY.minusDays(2)).getClosingBalance(), 0.0001);
+
+        // After the close: one posting on a later day, one back-dated into the closed period
+        payment(TODAY.minusDays(1), 20.0);
+        refund(TODAY.minusDays(3), 30.0);
+
+        assertEquals(120.0, snapshot(receivable, TODAY.minusDays(2)).getClosingBalance(), 0.0001);
+        assertEquals(120.0, balances.getBalance(receivable, TODAY.minusDays(2)), 0.0001);
+        assertEquals(140.0, balances.getBalance(receivable, null), 0.0001);
+        assertEquals(ledgerEntries.getAccountBalanceChange(receivable, null, null),
+                balances.getBalance(receivable, null), 0.0001);
+        assertEquals(ledgerEntries.getAccountBalanceChange(cash, null, null),
+                balances.getBalance(cash, null), 0.0001);
+    }
+
+    @Test
+    void first_start_closes_yesterday_for_an_existing_ledger() {
+        snapshots.deleteAllInBatch();
+        payment(TODAY.minusDays(3), 100.0);
+        refund(TODAY.minusDays(2), 40.0);
+
+        context.publishEvent(new ApplicationReadyEvent(new SpringApplication(SystemmanagerApplication.class),
+                new String[0], context, Duration.ZERO));
+
+        assertEquals(60.0, snapshot(receivable, TODAY.minusDays(1)).getClosingBalance(), 0.0001);
+        assertEquals(-60.0, snapshot(cash, TODAY.minusDays(1)).getClosingBalance(), 0.0001);
+        assertEquals(60.0, balances.getBalance(receivable, null), 0.0001);
+
+        // Once closed, a later start leaves the snapshots alone
+        long closed = snapshots.count();
+        payment(TODAY.minusDays(1), 10.0);
+        context.publishEvent(new ApplicationReadyEvent(new SpringApplication(SystemmanagerApplication.class),
+                new String[0], context, Duration.ZERO));
+        assertEquals(closed, snapshots.count());
+        assertEquals(70.0, balances.getBalance(receivable, null), 0.0001);
+    }
+
+    // Debit the payment account, credit receivables (as LedgerOutboxService posts a payment)
+    private void payment(LocalDate day, double amount) {
+        post(entry(cash, TransactionType.DEBIT, day, amount));
+        post(entry(receivable, TransactionType.CREDIT, day, amount));
+    }
+
+    // The reverse of a payment
+    private void refund(LocalDate day, double amount) {
+        post(entry(receivable, TransactionType.DEBIT, day, amount));
+        post(entry(cash, TransactionType.CREDIT, day, amount));
+    }
+
+    // Snapshots are shifted by a bulk update; forget the ones this transaction has already loaded,
+    // as a separate request would not have them
+    private void post(FinanceLedger entry) {
+        ledger.post(entry);
+        entityManager.clear();
+    }
+
+    private AccountBalanceSnapshot snapshot(String account, LocalDate day) {
+        return snapshots.findByAccountAndBalanceDate(account, day)
+                .orElseThrow(() -> new AssertionError("No snapshot of " + account + " for " + day));
+    }
+
+    private static FinanceLedger entry(String account, TransactionType type, LocalDate day, double amount) {
+        FinanceLedger entry = new FinanceLedger();
+        entry.setAccount(account);
+        entry.setTransactionType(type);
+        entry.setAmount(amount);
+        entry.setTransactionDate(day.atTime(12, 0));
+        entry.setDescription("Account balance test");
+        entry.setCreatedBy("test");
+        return entry;
+    }
+}
@@ -0,0 +1,259 @@
+package com.autofuellanka.systemmanager;
+
+import com.autofuellanka.systemmanager.model.Booking;
+import com.autofuellanka.systemmanager.model.BookingStatus;
+import com.autofuellanka.systemmanager.model.BookingType;
+import com.autofuellanka.systemmanager.model.Invoice;
+import com.autofuellanka.systemmanager.model.Payment;
+import com.autofuellanka.systemmanager.model.PaymentAuthorization;
+import com.autofuellanka.systemmanager.model.PaymentAuthorizationStatus;
+import com.autofuellanka.systemmanager.model.PaymentMethod;
+import com.autofuellanka.systemmanager.repository.BookingRepository;
+import com.autofuellanka.systemmanager.repository.InvoiceRepository;
+import com.autofuellanka.systemmanager.repository.PaymentAuthorizationRepository;
+import com.autofuellanka.systemmanager.service.AsyncPaymentService;
+import com.autofuellanka.systemmanager.service.payment.OnlinePaymentStrategy;
+import com.autofuellanka.systemmanager.service.payment.PaymentProcessingResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Background authorization of ONLINE payments. One worker and a queue of one. The ONLINE gateway
+ * is replaced by one that holds every call until the test opens it, so the worker provably keeps
+ * its slot for as long as a test needs, and every attempt outlives the 100 ms timeout.
+ */
+@SpringBootTest(properties = {
+        "spring.main.allow-bean-definition-overriding=true",
+        "app.payments.async.workers-per-method=1",
+        "app.payments.async.queue-capacity=1",
+        "app.payments.async.timeout-ms=100"
+})
+@AutoConfigureMockMvc
+@org.springframework.test.context.ActiveProfiles("test")
+public class AsyncPaymentIT {
+
+    private static final String REFERENCE = "ONLINE-REF-0001";
+
+    @Autowired MockMvc mvc;
+    @Autowired AsyncPaymentService asyncPaymentService;
+    @Autowired PaymentAuthorizationRepository attempts;
+    @Autowired InvoiceRepository invoices;
+    @Autowired BookingRepository bookings;
+    @Autowired GatedGateway gateway;
+
+    private final List<Long> submitted = new ArrayList<>();
+
+    @BeforeEach
+    void closeGateway() {
+        gateway.close();
+    }
+
+    // Leave the bulkhead idle for the next test
+    @AfterEach
+    void drain() {
+        gateway.open();
+        for (Long attemptId : submitted) {
+            awaitFinal(attemptId);
+        }
+        await(() -> !asyncPaymentService.isSaturated(PaymentMethod.ONLINE), "bulkhead to drain");
+    }
+
+    @Test
+    void saturated_bulkhead_is_a_503_and_records_nothing() {
+        Long invoiceId = newInvoice(500.0).getId();
+        submit(invoiceId);
+        gateway.awaitCall();  // the only worker is held in the gateway
+        submit(invoiceId);    // queued: the queue is now full
+        assertTrue(asyncPaymentService.isSaturated(PaymentMethod.ONLINE));
+        long before = attempts.count();
+
+        ResponseStatusException busy = assertThrows(ResponseStatusException.class,
+                () -> asyncPaymentService.submit(invoiceId, 50.0, PaymentMethod.ONLINE, REFERENCE, null, "test"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, busy.getStatusCode());
+        assertEquals(before, attempts.count());
+    }
+
+    @Test
+    void saturated_gateway_rejects_a_payment_without_creating_its_invoice() throws Exception {
+        Long invoiceId = newInvoice(500.0).getId();
+        submit(invoiceId);
+        gateway.awaitCall();
+        submit(invoiceId);
+        assertTrue(asyncPaymentService.isSaturated(PaymentMethod.ONLINE));
+        Booking booking = newBooking();
+        long invoicesBefore = invoices.count();
+
+        mvc.perform(post("/api/payments").contentType(MediaType.APPLICATION_JSON).content("{" +
+                        "\"bookingId\":" + booking.getId() + "," +
+                        "\"amount\":50.0," +
+                        "\"method\":\"ONLINE\"," +
+                        "\"reference\":\"" + REFERENCE + "\"}"))
+                .andExpect(status().isServiceUnavailable());
+        assertEquals(invoicesBefore, invoices.count());
+    }
+
+    @Test
+    void gateway_slower_than_the_timeout_expires_the_attempt() {
+        Long attemptId = submit(newInvoice(100.0).getId());
+
+        PaymentAuthorization attempt = awaitFinal(attemptId);
+        assertEquals(PaymentAuthorizationStatus.EXPIRED, attempt.getStatus());
+        Invoice invoice = invoices.findById(attempt.getInvoiceId()).orElseThrow();
+        assertEquals(0.0, invoice.getPaidAmount(), 0.0001);
+    }
+
+    @Test
+    void subscriber_receives_the_final_status_as_one_event() throws Exception {
+        Long attemptId = submit(newInvoice(100.0).getId());
+
+        MvcResult result = mvc.perform(get("/api/payments/attempts/" + attemptId + "/events"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        await(() -> contentOf(result).contains("event:status"), "status event");
+
+        String body = contentOf(result);
+        assertTrue(body.contains("\"id\":" + attemptId), body);
+        assertTrue(body.contains("\"status\":\"EXPIRED\""), body);
+        assertEquals(body.indexOf("event:status"), body.lastIndexOf("event:status"), body);
+    }
+
+    @Test
+    void subscribing_after_the_outcome_still_gets_it() throws Exception {
+        Long attemptId = submit(newInvoice(100.0).getId());
+        awaitFinal(attemptId);
+
+        MvcResult result = mvc.perform(get("/api/payments/attempts/" + attemptId + "/events"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        await(() -> contentOf(result).contains("event:status"), "status event");
+        assertTrue(contentOf(result).contains("\"status\":\"EXPIRED\""));
+    }
+
+    private Long submit(Long invoiceId) {
+        Long attemptId = asyncPaymentService.submit(invoiceId, 50.0, PaymentMethod.ONLINE, REFERENCE, null, "test").getId();
+        submitted.add(attemptId);
+        return attemptId;
+    }
+
+    private PaymentAuthorization awaitFinal(Long attemptId) {
+        await(() -> attempts.findById(attemptId).orElseThrow().getStatus().isFinal(), "attempt " + attemptId);
+        return attempts.findById(attemptId).orElseThrow();
+    }
+
+    private static void await(BooleanSupplier condition, String what) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for " + what);
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted waiting for " + what);
+            }
+        }
+    }
+
+    private static String contentOf(MvcResult result) {
+        try {
+            return result.getResponse().getContentAsString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Invoice newInvoice(double total) {
+        Invoice invoice = new Invoice();
+        invoice.setSubtotal(total);
+        invoice.setTotalAmount(total);
+        return invoices.save(invoice);
+    }
+
+    private Booking newBooking() {
+        Booking b = new Booking();
+        b.setStartTime(LocalDateTime.of(2025, 8, 1, 9, 0));
+        b.setEndTime(LocalDateTime.of(2025, 8, 1, 10, 0));
+        b.setType(BookingType.FUEL);
+        b.setStatus(BookingStatus.CONFIRMED);
+        return bookings.save(b);
+    }
+
+    @TestConfiguration
+    static class GatewayConfig {
+
+        // Same name as the scanned strategy, so this replaces it
+        @Bean
+        GatedGateway onlinePaymentStrategy() {
+            return new GatedGateway();
+        }
+    }
+
+    /** The ONLINE gateway, holding each call until the test opens it */
+    static class GatedGateway extends OnlinePaymentStrategy {
+
+        private final Semaphore calls = new Semaphore(0);
+        private volatile CountDownLatch gate = new CountDownLatch(1);
+
+        @Override
+        public PaymentProcessingResult processPayment(Payment payment) {
+            calls.release();
+            // Like a blocking socket read, the watchdog's interrupt does not free the worker
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    gate.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return PaymentProcessingResult.success("Online payment processed successfully", "ONLINE-" + System.nanoTime());
+        }
+
+        void close() {
+            calls.drainPermits();
+            gate = new CountDownLatch(1);
+        }
+
+        void open() {
+            gate.countDown();
+        }
+
+        // A worker has entered the gateway and holds its slot until open()
+        void awaitCall() {
+            try {
+                assertTrue(calls.tryAcquire(10, TimeUnit.SECONDS), "Timed out waiting for a gateway call");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted waiting for a gateway call");
+            }
+        }
+    }
+}
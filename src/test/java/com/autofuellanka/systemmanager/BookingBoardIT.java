@@ -0,0 +1,109 @@
+package com.autofuellanka.systemmanager;
+
+import com.autofuellanka.systemmanager.dto.BookingDTO;
+import com.autofuellanka.systemmanager.model.Booking;
+import com.autofuellanka.systemmanager.model.BookingStatus;
+import com.autofuellanka.systemmanager.model.BookingType;
+import com.autofuellanka.systemmanager.repository.BookingRepository;
+import com.autofuellanka.systemmanager.service.booking.BookingBoardPage;
+import com.autofuellanka.systemmanager.service.booking.BookingBoardService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+@org.springframework.test.context.ActiveProfiles("test")
+public class BookingBoardIT {
+
+    // Bookings of each test live at their own location, so rows from other tests never show up
+    private static final long LOCATION = 880_001L;
+    private static final long OTHER_LOCATION = 880_002L;
+    private static final LocalDateTime NINE = LocalDateTime.of(2025, 7, 1, 9, 0);
+
+    @Autowired BookingBoardService board;
+    @Autowired BookingRepository bookings;
+
+    @Test
+    void filters_narrow_the_board() {
+        Booking match = booking(LOCATION, NINE, BookingStatus.CONFIRMED, BookingType.SERVICE);
+        booking(LOCATION, NINE, BookingStatus.PENDING, BookingType.SERVICE);
+        booking(LOCATION, NINE, BookingStatus.CONFIRMED, BookingType.FUEL);
+        booking(OTHER_LOCATION, NINE, BookingStatus.CONFIRMED, BookingType.SERVICE);
+        booking(LOCATION, NINE.plusDays(3), BookingStatus.CONFIRMED, BookingType.SERVICE);
+        booking(LOCATION, null, BookingStatus.CONFIRMED, BookingType.SERVICE);
+
+        BookingBoardPage page = board.find(BookingStatus.CONFIRMED, BookingType.SERVICE, LOCATION, null,
+                NINE.minusHours(1), NINE.plusDays(1), "asc", null, 50);
+
+        assertEquals(List.of(match.getId()), ids(page.getContent()));
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void equal_start_times_split_across_pages_in_both_directions() {
+        List<Booking> created = new ArrayList<>();
+        // Five bookings sharing one start time, around one that differs only in its microseconds
+        for (int i = 0; i < 5; i++) {
+            created.add(booking(LOCATION, NINE, BookingStatus.PENDING, BookingType.SERVICE));
+        }
+        created.add(booking(LOCATION, NINE.plusNanos(500_000), BookingStatus.PENDING, BookingType.SERVICE));
+        created.add(booking(LOCATION, NINE.minusNanos(500_000), BookingStatus.PENDING, BookingType.SERVICE));
+        created.add(booking(LOCATION, NINE.plusHours(1), BookingStatus.PENDING, BookingType.SERVICE));
+
+        Comparator<Booking> byStartThenId = Comparator.comparing(Booking::getStartTime).thenComparing(Booking::getId);
+        List<Long> ascending = created.stream().sorted(byStartThenId).map(Booking::getId).toList();
+        List<Long> descending = created.stream().sorted(byStartThenId.reversed()).map(Booking::getId).toList();
+
+        assertEquals(ascending, readAll("asc", 2));
+        assertEquals(descending, readAll("desc", 2));
+        assertEquals(ascending, readAll("asc", 3));
+        assertEquals(descending, readAll("desc", 3));
+    }
+
+    @Test
+    void cursor_from_the_other_direction_is_rejected() {
+        booking(LOCATION, NINE, BookingStatus.PENDING, BookingType.SERVICE);
+        booking(LOCATION, NINE, BookingStatus.PENDING, BookingType.SERVICE);
+
+        String cursor = board.find(null, null, LOCATION, null, null, null, "asc", null, 1).getNextCursor();
+        assertNotNull(cursor);
+        assertThrows(IllegalArgumentException.class,
+                () -> board.find(null, null, LOCATION, null, null, null, "desc", cursor, 1));
+    }
+
+    private List<Long> readAll(String sortDir, int size) {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            BookingBoardPage page = board.find(null, null, LOCATION, null, null, null, sortDir, cursor, size);
+            assertTrue(page.getContent().size() <= size);
+            seen.addAll(ids(page.getContent()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return seen;
+    }
+
+    private static List<Long> ids(List<BookingDTO> rows) {
+        return rows.stream().map(BookingDTO::getId).toList();
+    }
+
+    private Booking booking(long locationId, LocalDateTime start, BookingStatus status, BookingType type) {
+        Booking b = new Booking();
+        b.setLocationId(locationId);
+        b.setStartTime(start);
+        b.setEndTime(start != null ? start.plusMinutes(30) : null);
+        b.setStatus(status);
+        b.setType(type);
+        return bookings.save(b);
+    }
+}
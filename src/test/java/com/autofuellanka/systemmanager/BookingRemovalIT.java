@@ -0,0 +1,168 @@
+package com.autofuellanka.systemmanager;
+
+import com.autofuellanka.systemmanager.model.Booking;
+import com.autofuellanka.systemmanager.model.BookingStatus;
+import com.autofuellanka.systemmanager.model.BookingType;
+import com.autofuellanka.systemmanager.model.Feedback;
+import com.autofuellanka.systemmanager.model.Job;
+import com.autofuellanka.systemmanager.model.User;
+import com.autofuellanka.systemmanager.repository.BookingRepository;
+import com.autofuellanka.systemmanager.repository.FeedbackRepository;
+import com.autofuellanka.systemmanager.repository.JobRepository;
+import com.autofuellanka.systemmanager.repository.UserRepository;
+import com.autofuellanka.systemmanager.security.JwtUtil;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+@org.springframework.test.context.ActiveProfiles("test")
+public class BookingRemovalIT {
+
+    @Autowired MockMvc mvc;
+    @Autowired EntityManager entityManager;
+    @Autowired UserRepository users;
+    @Autowired BookingRepository bookings;
+    @Autowired FeedbackRepository feedback;
+    @Autowired JobRepository jobs;
+    @Autowired JwtUtil jwt;
+
+    User customer;
+    User technician;
+
+    @BeforeEach
+    void setup() {
+        customer = user("carol@example.com", "CUSTOMER");
+        technician = user("tom@example.com", "TECHNICIAN");
+    }
+
+    @Test
+    void delete_detaches_dependants_in_constant_statements() throws Exception {
+        Booking booking = booking(BookingStatus.COMPLETED);
+        Feedback review = new Feedback();
+        review.setCustomer(customer);
+        review.setBooking(booking);
+        review.setRating(5);
+        feedback.save(review);
+        Job job = new Job();
+        job.setTechnician(technician);
+        job.setBooking(booking);
+        jobs.save(job);
+        entityManager.flush();
+        entityManager.clear();
+
+        SqlStatementRecorder.start();
+        try {
+            mvc.perform(delete("/api/staff/bookings/" + booking.getId())
+                            .header("Authorization", staffBearer()).header("X-Role", "STAFF"))
+                    .andExpect(status().isNoContent());
+        } finally {
+            List<String> statements = SqlStatementRecorder.stop();
+            assertTrue(statements.size() <= 5, "expected lookup + 3 detaches + delete, got " + statements);
+        }
+
+        assertFalse(bookings.existsById(booking.getId()));
+        assertNull(feedback.findById(review.getId()).orElseThrow().getBooking());
+        assertNull(jobs.findById(job.getId()).orElseThrow().getBooking());
+    }
+
+    @Test
+    void put_updates_booking_and_keeps_the_row() throws Exception {
+        Booking booking = booking(BookingStatus.PENDING);
+        entityManager.flush();
+        entityManager.clear();
+
+        String body = "{" +
+                "\"startTime\":\"2025-10-03 11:00:00\"," +
+                "\"endTime\":\"2025-10-03 12:00:00\"," +
+                "\"type\":\"FUEL\"," +
+                "\"status\":\"CONFIRMED\"," +
+                "\"customerId\":" + customer.getId() +
+                "}";
+        mvc.perform(put("/api/bookings/" + booking.getId())
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(booking.getId()))
+                .andExpect(jsonPath("$.status").value("CONFIRMED"));
+
+        entityManager.clear();
+        Booking stored = bookings.findById(booking.getId()).orElseThrow();
+        assertEquals(BookingStatus.CONFIRMED, stored.getStatus());
+        assertEquals(LocalDateTime.of(2025, 10, 3, 11, 0), stored.getStartTime());
+    }
+
+    @Test
+    void delete_on_booking_api_removes_the_row() throws Exception {
+        Booking booking = booking(BookingStatus.PENDING);
+        entityManager.flush();
+        entityManager.clear();
+
+        mvc.perform(delete("/api/bookings/" + booking.getId()))
+                .andExpect(status().isNoContent());
+        assertFalse(bookings.existsById(booking.getId()));
+
+        mvc.perform(delete("/api/bookings/" + booking.getId()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void bulk_archive_skips_terminal_and_missing_bookings() throws Exception {
+        Booking pending = booking(BookingStatus.PENDING);
+        Booking completed = booking(BookingStatus.COMPLETED);
+        entityManager.flush();
+        entityManager.clear();
+
+        String body = "{\"action\":\"archive\",\"ids\":[" + pending.getId() + "," + completed.getId() + ",999999]}";
+        mvc.perform(post("/api/staff/bookings/bulk")
+                        .header("Authorization", staffBearer()).header("X-Role", "STAFF")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(1))
+                .andExpect(jsonPath("$.skippedIds.length()").value(2));
+
+        assertEquals(BookingStatus.CANCELLED, bookings.findById(pending.getId()).orElseThrow().getStatus());
+        assertEquals(BookingStatus.COMPLETED, bookings.findById(completed.getId()).orElseThrow().getStatus());
+    }
+
+    // /api/staff/** requires ROLE_STAFF or ROLE_ADMIN, which only a signed token grants
+    private String staffBearer() {
+        return "Bearer " + jwt.generateToken(String.valueOf(technician.getId()), Map.of("role", "STAFF"));
+    }
+
+    private User user(String email, String role) {
+        User u = new User();
+        u.setFirstName("Test");
+        u.setLastName(role);
+        u.setEmail(email);
+        u.setPassword("pw");
+        u.setPhone("123");
+        u.setRole(role);
+        return users.save(u);
+    }
+
+    private Booking booking(BookingStatus status) {
+        Booking b = new Booking();
+        b.setCustomerId(customer.getId());
+        b.setStartTime(LocalDateTime.of(2025, 10, 2, 9, 0));
+        b.setEndTime(LocalDateTime.of(2025, 10, 2, 10, 0));
+        b.setType(BookingType.FUEL);
+        b.setStatus(status);
+        return bookings.save(b);
+    }
+}
@@ -17,6 +17,10 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -56,6 +60,7 @@ public class CustomerBookingsIT {
         ServiceType st = new ServiceType();
         st.setCode("OIL");
         st.setName("Oil Change");
+        st.setBasePrice(4500.0);
         services.save(st);
         serviceTypeId = st.getId();
 
@@ -86,6 +91,37 @@ public class CustomerBookingsIT {
                 .andExpect(jsonPath("$.status").value("PENDING"));
     }
 
+    @Test
+    void create_issues_at_most_two_statements() throws Exception {
+        // Only days within the bookable horizon stay in the slot index; a past day is re-read on every check
+        LocalDate day = LocalDate.now().plusDays(7);
+        String body = "{" +
+                "\"startTime\":\"" + day.atTime(9, 0) + ":00\"," +
+                "\"endTime\":\"" + day.atTime(10, 0) + ":00\"," +
+                "\"locationId\":" + locationId + "," +
+                "\"serviceTypeId\":" + serviceTypeId + "," +
+                "\"vehicleId\":" + vehicleId + "," +
+                "\"type\":\"SERVICE\"" +
+                "}";
+        // The first booking warms the reference cache and the day's slot index
+        mvc.perform(post("/api/customers/" + customerId + "/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated());
+
+        SqlStatementRecorder.start();
+        try {
+            mvc.perform(post("/api/customers/" + customerId + "/bookings")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.serviceName").value("Oil Change"));
+        } finally {
+            List<String> statements = SqlStatementRecorder.stop();
+            assertTrue(statements.size() <= 2, "expected customer/vehicle lookup + insert, got " + statements);
+        }
+    }
+
     @Test
     void create_fuel_booking_requires_fuelType_with_liters() throws Exception {
         String body = "{" +
@@ -0,0 +1,174 @@
+package com.autofuellanka.systemmanager;
+
+import com.autofuellanka.systemmanager.model.DailyRevenue;
+import com.autofuellanka.systemmanager.model.Invoice;
+import com.autofuellanka.systemmanager.model.Payment;
+import com.autofuellanka.systemmanager.model.PaymentMethod;
+import com.autofuellanka.systemmanager.repository.DailyRevenueRepository;
+import com.autofuellanka.systemmanager.repository.InvoiceRepository;
+import com.autofuellanka.systemmanager.repository.PaymentRepository;
+import com.autofuellanka.systemmanager.security.JwtUtil;
+import com.autofuellanka.systemmanager.service.BillingService;
+import com.autofuellanka.systemmanager.service.DailyRevenueService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The daily_revenue rollup. Buckets live on days in 2019, which no other test pays on.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+@org.springframework.test.context.ActiveProfiles("test")
+public class DailyRevenueIT {
+
+    private static final LocalDate DAY = LocalDate.of(2019, 3, 14);
+
+    @Autowired DailyRevenueService dailyRevenueService;
+    @Autowired DailyRevenueRepository dailyRevenue;
+    @Autowired PaymentRepository payments;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired BillingService billingService;
+    @Autowired InvoiceRepository invoices;
+    @Autowired MockMvc mvc;
+    @Autowired JwtUtil jwt;
+
+    @Test
+    void refunds_lower_the_amount_but_are_not_counted_as_payments() {
+        dailyRevenueService.record(payment(DAY, PaymentMethod.CARD, 100.0));
+        dailyRevenueService.record(payment(DAY, PaymentMethod.CARD, 50.0));
+        dailyRevenueService.record(payment(DAY, PaymentMethod.CARD, -30.0));
+
+        DailyRevenue card = bucket(DAY, PaymentMethod.CARD);
+        assertEquals(120.0, card.getAmount(), 0.0001);
+        assertEquals(2L, card.getPaymentCount());
+    }
+
+    @Test
+    void reversing_payments_undoes_exactly_what_recording_them_added() {
+        Payment kept = payment(DAY, PaymentMethod.CASH, 80.0);
+        Payment deleted = payment(DAY, PaymentMethod.CASH, 40.0);
+        Payment deletedRefund = payment(DAY, PaymentMethod.CASH, -10.0);
+        dailyRevenueService.record(kept);
+        dailyRevenueService.record(deleted);
+        dailyRevenueService.record(deletedRefund);
+
+        dailyRevenueService.reverse(List.of(deleted, deletedRefund));
+
+        DailyRevenue cash = bucket(DAY, PaymentMethod.CASH);
+        assertEquals(80.0, cash.getAmount(), 0.0001);
+        assertEquals(1L, cash.getPaymentCount());
+    }
+
+    @Test
+    void daily_totals_add_up_methods_per_day_within_the_range() {
+        LocalDate next = DAY.plusDays(1);
+        dailyRevenueService.record(payment(DAY.minusDays(1), PaymentMethod.CARD, 999.0));
+        dailyRevenueService.record(payment(DAY, PaymentMethod.CARD, 100.0));
+        dailyRevenueService.record(payment(DAY, PaymentMethod.CASH, 25.0));
+        dailyRevenueService.record(payment(next, PaymentMethod.ONLINE, 60.0));
+        dailyRevenueService.record(payment(next, PaymentMethod.ONLINE, -15.0));
+        dailyRevenueService.record(payment(next.plusDays(1), PaymentMethod.CARD, 999.0));
+
+        List<Object[]> totals = dailyRevenueService.getDailyTotals(DAY, next);
+
+        assertEquals(2, totals.size());
+        assertEquals(DAY, totals.get(0)[0]);
+        assertEquals(125.0, ((Number) totals.get(0)[1]).doubleValue(), 0.0001);
+        assertEquals(next, totals.get(1)[0]);
+        assertEquals(45.0, ((Number) totals.get(1)[1]).doubleValue(), 0.0001);
+    }
+
+    @Test
+    void rebuild_from_payment_history_matches_incremental_recording() {
+        for (double amount : new double[] {100.0, 50.0, -30.0}) {
+            Payment saved = payments.save(payment(DAY, PaymentMethod.CARD, amount));
+            // created_at is stamped on insert; move the payment back to the test day
+            jdbc.update("UPDATE payments SET created_at = ? WHERE id = ?", DAY.atTime(10, 0), saved.getId());
+            dailyRevenueService.record(payment(DAY, PaymentMethod.CARD, amount));
+        }
+        DailyRevenue recorded = bucket(DAY, PaymentMethod.CARD);
+        double amount = recorded.getAmount();
+        long count = recorded.getPaymentCount();
+
+        dailyRevenueService.rebuildAll();
+
+        DailyRevenue rebuilt = bucket(DAY, PaymentMethod.CARD);
+        assertEquals(amount, rebuilt.getAmount(), 0.0001);
+        assertEquals(count, rebuilt.getPaymentCount());
+        assertEquals(2L, count);
+    }
+
+    @Test
+    void deleting_an_invoice_takes_its_payments_out_of_the_rollup() {
+        LocalDate today = LocalDate.now();
+        double amountBefore = amountOn(today, PaymentMethod.CARD);
+        Invoice invoice = new Invoice();
+        invoice.setSubtotal(300.0);
+        invoice.setTotalAmount(300.0);
+        invoice = invoices.save(invoice);
+        for (double amount : new double[] {200.0, -50.0}) {
+            Payment payment = payment(today, PaymentMethod.CARD, amount);
+            payment.setInvoice(invoice);
+            dailyRevenueService.record(payments.save(payment));
+        }
+        assertEquals(amountBefore + 150.0, amountOn(today, PaymentMethod.CARD), 0.0001);
+
+        assertTrue(billingService.deleteInvoice(invoice.getId()));
+
+        assertEquals(amountBefore, amountOn(today, PaymentMethod.CARD), 0.0001);
+        assertTrue(payments.findByInvoiceIdOrderByCreatedAtDesc(invoice.getId()).isEmpty());
+        assertFalse(invoices.existsById(invoice.getId()));
+        assertFalse(billingService.deleteInvoice(invoice.getId()));
+    }
+
+    @Test
+    void only_finance_or_admin_may_rebuild_the_rollup() throws Exception {
+        mvc.perform(post("/api/billing/revenue/daily/rebuild"))
+                .andExpect(status().isForbidden());
+        mvc.perform(post("/api/billing/revenue/daily/rebuild").header("Authorization", bearer("STAFF")))
+                .andExpect(status().isForbidden());
+        mvc.perform(post("/api/billing/revenue/daily/rebuild").header("Authorization", bearer("FINANCE")))
+                .andExpect(status().isOk());
+    }
+
+    private String bearer(String role) {
+        return "Bearer " + jwt.generateToken("1", Map.of("role", role));
+    }
+
+    // Read past the persistence context: the rollup is written by native upserts
+    private double amountOn(LocalDate day, PaymentMethod method) {
+        Double amount = jdbc.queryForObject("SELECT SUM(amount) FROM daily_revenue WHERE revenue_date = ? AND method = ?",
+                Double.class, day, method.name());
+        return amount != null ? amount : 0.0;
+    }
+
+    private DailyRevenue bucket(LocalDate day, PaymentMethod method) {
+        return dailyRevenue.findAll().stream()
+                .filter(d -> day.equals(d.getRevenueDate()) && d.getMethod() == method)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No daily_revenue row for " + day + " " + method));
+    }
+
+    private static Payment payment(LocalDate day, PaymentMethod method, double amount) {
+        Payment payment = new Payment();
+        payment.setMethod(method);
+        payment.setAmount(amount);
+        payment.setCreatedAt(day.atTime(10, 0));
+        payment.setCreatedBy("test");
+        return payment;
+    }
+}
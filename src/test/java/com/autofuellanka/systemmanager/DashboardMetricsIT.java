@@ -0,0 +1,124 @@
+package com.autofuellanka.systemmanager;
+
+import com.autofuellanka.systemmanager.model.Booking;
+import com.autofuellanka.systemmanager.model.BookingStatus;
+import com.autofuellanka.systemmanager.model.BookingType;
+import com.autofuellanka.systemmanager.model.User;
+import com.autofuellanka.systemmanager.repository.BookingRepository;
+import com.autofuellanka.systemmanager.repository.UserRepository;
+import com.autofuellanka.systemmanager.service.booking.BookingRemovalService;
+import com.autofuellanka.systemmanager.service.metrics.DashboardMetricsService;
+import com.autofuellanka.systemmanager.service.metrics.DashboardMetricsService.Metric;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The dashboard summary follows writes as they commit, without waiting for the scheduled
+ * reconciliation. Not @Transactional: counters only move after a commit.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@org.springframework.test.context.ActiveProfiles("test")
+public class DashboardMetricsIT {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired DashboardMetricsService metrics;
+    @Autowired BookingRepository bookings;
+    @Autowired BookingRemovalService removals;
+    @Autowired UserRepository users;
+
+    @Test
+    void booking_creates_updates_and_deletes_show_in_the_summary_immediately() throws Exception {
+        int before = summary().get("totalBookings").asInt();
+
+        Booking first = booking();
+        Booking second = booking();
+        Booking third = booking();
+        assertEquals(before + 3, summary().get("totalBookings").asInt());
+
+        // An update leaves the count alone
+        mvc.perform(put("/api/bookings/" + first.getId()).contentType(MediaType.APPLICATION_JSON).content("{" +
+                        "\"startTime\":\"2025-10-03 11:00:00\"," +
+                        "\"endTime\":\"2025-10-03 12:00:00\"," +
+                        "\"type\":\"FUEL\"," +
+                        "\"status\":\"CONFIRMED\"}"))
+                .andExpect(status().isOk());
+        assertEquals(before + 3, summary().get("totalBookings").asInt());
+
+        // One delete through the API, two through the bulk path
+        mvc.perform(delete("/api/bookings/" + first.getId()))
+                .andExpect(status().isNoContent());
+        assertEquals(before + 2, summary().get("totalBookings").asInt());
+        removals.apply(BookingRemovalService.Action.DELETE, List.of(second.getId(), third.getId()));
+        assertEquals(before, summary().get("totalBookings").asInt());
+        assertEquals(bookings.count(), summary().get("totalBookings").asLong());
+    }
+
+    @Test
+    void customer_changes_are_counted_on_insert_and_recounted_after_an_update() throws Exception {
+        int before = summary().get("totalCustomers").asInt();
+
+        User customer = users.save(user("CUSTOMER"));
+        users.save(user("STAFF"));
+        assertEquals(before + 1, summary().get("totalCustomers").asInt());
+
+        // A role change may move the row out of the metric; the stale recount settles it
+        customer.setRole("STAFF");
+        users.save(customer);
+        metrics.recountStale();
+        assertEquals(before, summary().get("totalCustomers").asInt());
+    }
+
+    @Test
+    void reconciliation_corrects_drift() {
+        long actual = bookings.count();
+        metrics.add(Metric.BOOKINGS, 7);
+        assertEquals(actual + 7, metrics.get(Metric.BOOKINGS));
+
+        metrics.reconcileAll();
+
+        assertEquals(actual, metrics.get(Metric.BOOKINGS));
+    }
+
+    private JsonNode summary() throws Exception {
+        String body = mvc.perform(get("/api/reports/dashboard-summary"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private Booking booking() {
+        Booking b = new Booking();
+        b.setStartTime(LocalDateTime.of(2025, 10, 2, 9, 0));
+        b.setEndTime(LocalDateTime.of(2025, 10, 2, 10, 0));
+        b.setType(BookingType.FUEL);
+        b.setStatus(BookingStatus.PENDING);
+        return bookings.save(b);
+    }
+
+    private static User user(String role) {
+        User u = new User();
+        u.setFirstName("Dash");
+        u.setLastName(role);
+        u.setEmail(UUID.randomUUID() + "@example.com");
+        u.setPassword("pw");
+        u.setPhone("123");
+        u.setRole(role);
+        return u;
+    }
+}
@@ -0,0 +1,135 @@
+package com.autofuellanka.systemmanager;
+
+import com.autofuellanka.systemmanager.model.Invoice;
+import com.autofuellanka.systemmanager.model.InvoiceStatus;
+import com.autofuellanka.systemmanager.model.PaymentMethod;
+import com.autofuellanka.systemmanager.repository.InvoiceRepository;
+import com.autofuellanka.systemmanager.repository.PaymentRepository;
+import com.autofuellanka.systemmanager.service.PaymentAuthorizationService;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrent payment recording: 32 threads paying one hot invoice, then 32 threads each
+ * paying their own invoice. Checks that no payment is lost and no invoice is overpaid;
+ * the throughput of both cases is logged at info level on every integration-test run.
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+public class InvoicePaymentConcurrencyIT {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoicePaymentConcurrencyIT.class);
+
+    private static final int THREADS = 32;
+    private static final int PAYMENTS_PER_THREAD = 25;
+
+    @Autowired PaymentAuthorizationService paymentAuthorizationService;
+    @Autowired InvoiceRepository invoices;
+    @Autowired PaymentRepository payments;
+
+    @Test
+    void sameInvoiceIsNeverOverpaid() throws Exception {
+        // Room for half of the attempted payments
+        double total = THREADS * PAYMENTS_PER_THREAD / 2.0;
+        Long invoiceId = newInvoice(total).getId();
+
+        Result result = hammer("same invoice", thread -> invoiceId);
+
+        Invoice invoice = invoices.findById(invoiceId).orElseThrow();
+        assertEquals((int) total, result.accepted.get());
+        assertEquals(THREADS * PAYMENTS_PER_THREAD - (int) total, result.rejected.get());
+        assertEquals(total, invoice.getPaidAmount(), 0.0001);
+        assertEquals(0.0, invoice.getBalance(), 0.0001);
+        assertEquals(InvoiceStatus.PAID, invoice.getStatus());
+        assertEquals(total, paidOn(invoiceId), 0.0001);
+    }
+
+    @Test
+    void separateInvoicesDoNotBlockEachOther() throws Exception {
+        List<Long> invoiceIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            invoiceIds.add(newInvoice(PAYMENTS_PER_THREAD).getId());
+        }
+
+        Result result = hammer("separate invoices", invoiceIds::get);
+
+        assertEquals(THREADS * PAYMENTS_PER_THREAD, result.accepted.get());
+        assertEquals(0, result.rejected.get());
+        for (Long invoiceId : invoiceIds) {
+            Invoice invoice = invoices.findById(invoiceId).orElseThrow();
+            assertEquals(PAYMENTS_PER_THREAD, invoice.getPaidAmount(), 0.0001);
+            assertEquals(InvoiceStatus.PAID, invoice.getStatus());
+            assertEquals(PAYMENTS_PER_THREAD, paidOn(invoiceId), 0.0001);
+        }
+    }
+
+    private Result hammer(String label, IntFunction<Long> invoiceForThread) throws Exception {
+        Result result = new Result();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Long invoiceId = invoiceForThread.apply(t);
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < PAYMENTS_PER_THREAD; i++) {
+                    try {
+                        paymentAuthorizationService.recordPayment(
+                                invoiceId, 1.0, PaymentMethod.CASH, null, "benchmark", "benchmark");
+                        result.accepted.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        result.rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(120, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - began;
+        pool.shutdown();
+
+        int attempts = THREADS * PAYMENTS_PER_THREAD;
+        log.info("{}: {} payment attempts on {} threads in {} ms ({}/s), {} accepted, {} rejected",
+                label, attempts, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                Math.round(attempts / (elapsedNanos / 1e9)), result.accepted.get(), result.rejected.get());
+        return result;
+    }
+
+    private Invoice newInvoice(double total) {
+        Invoice invoice = new Invoice();
+        invoice.setSubtotal(total);
+        invoice.setTotalAmount(total);
+        return invoices.save(invoice);
+    }
+
+    private double paidOn(Long invoiceId) {
+        return payments.findByInvoiceIdOrderByCreatedAtDesc(invoiceId).stream()
+                .mapToDouble(p -> p.getAmount())
+                .sum();
+    }
+
+    private static class Result {
+        final AtomicInteger accepted = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+    }
+}
@@ -0,0 +1,79 @@
+package com.autofuellanka.systemmanager;
+
+import com.autofuellanka.systemmanager.controller.BillingController;
+import com.autofuellanka.systemmanager.dto.SettlementImportReport;
+import com.autofuellanka.systemmanager.model.Invoice;
+import com.autofuellanka.systemmanager.repository.InvoiceRepository;
+import com.autofuellanka.systemmanager.service.payment.SettlementReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Settlement files are recorded under the user who uploaded them. Not @Transactional: the
+ * import commits chunk by chunk outside any caller's transaction.
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+public class SettlementImportIT {
+
+    @Autowired BillingController billingController;
+    @Autowired InvoiceRepository invoices;
+    @Autowired JdbcTemplate jdbc;
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void payments_and_ledger_entries_are_created_by_the_authenticated_user() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "42", null, List.of(new SimpleGrantedAuthority("ROLE_STAFF"))));
+        String reference = importOne();
+
+        assertEquals(List.of("42"), createdBy("payments", reference));
+        assertEquals(List.of("42", "42"), createdBy("finance_ledger", reference));
+    }
+
+    @Test
+    void anonymous_upload_is_recorded_as_system() throws Exception {
+        String reference = importOne();
+
+        assertEquals(List.of("system"), createdBy("payments", reference));
+    }
+
+    private String importOne() throws Exception {
+        Invoice invoice = new Invoice();
+        invoice.setSubtotal(100.0);
+        invoice.setTotalAmount(100.0);
+        Long invoiceId = invoices.save(invoice).getId();
+        String reference = "STL-" + UUID.randomUUID();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/billing/payments/batch");
+        request.setContentType("text/csv");
+        request.setContent(("invoiceId,amount,method,reference\n" + invoiceId + ",25,CASH," + reference + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+
+        SettlementImportReport report = billingController.importSettlements(request, SettlementReader.Format.CSV).getBody();
+        assertNotNull(report);
+        assertEquals(1, report.getImported());
+        return reference;
+    }
+
+    private List<String> createdBy(String table, String reference) {
+        return jdbc.queryForList("SELECT created_by FROM " + table + " WHERE reference = ?", String.class, reference);
+    }
+}
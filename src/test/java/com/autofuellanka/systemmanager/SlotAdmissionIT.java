@@ -0,0 +1,169 @@
+package com.autofuellanka.systemmanager;
+
+import com.autofuellanka.systemmanager.model.Booking;
+import com.autofuellanka.systemmanager.model.BookingStatus;
+import com.autofuellanka.systemmanager.model.BookingType;
+import com.autofuellanka.systemmanager.model.Location;
+import com.autofuellanka.systemmanager.repository.BookingRepository;
+import com.autofuellanka.systemmanager.repository.LocationRepository;
+import com.autofuellanka.systemmanager.service.availability.SlotAvailabilityService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Booking admission against the slot index. Not @Transactional: admissions commit, as they do
+ * from the controllers, so concurrent callers see each other's bookings.
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+public class SlotAdmissionIT {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(3);
+
+    @Autowired SlotAvailabilityService availability;
+    @Autowired BookingRepository bookings;
+    @Autowired LocationRepository locations;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    private final List<Long> locationIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanup() {
+        for (Long locationId : locationIds) {
+            bookings.deleteAll(bookings.findAll().stream()
+                    .filter(b -> locationId.equals(b.getLocationId()))
+                    .toList());
+            availability.evictLocation(locationId);
+            locations.deleteById(locationId);
+        }
+    }
+
+    @Test
+    void full_range_is_a_conflict() {
+        Long garage = location(1);
+        admit(booking(garage, BookingType.SERVICE, 10, 11), null);
+
+        ResponseStatusException full = assertThrows(ResponseStatusException.class,
+                () -> admit(booking(garage, BookingType.SERVICE, 10, 12), null));
+        assertEquals(HttpStatus.CONFLICT, full.getStatusCode());
+
+        // The next slot and the pumps are still free
+        admit(booking(garage, BookingType.SERVICE, 11, 12), null);
+        admit(booking(garage, BookingType.FUEL, 10, 11), null);
+    }
+
+    @Test
+    void move_between_locations_frees_the_old_bay_and_takes_the_new_one() {
+        Long first = location(1);
+        Long second = location(1);
+        Booking moving = admit(booking(first, BookingType.SERVICE, 9, 10), null);
+
+        moving.setLocationId(second);
+        admit(moving, first);
+
+        admit(booking(first, BookingType.SERVICE, 9, 10), null);
+        ResponseStatusException full = assertThrows(ResponseStatusException.class,
+                () -> admit(booking(second, BookingType.SERVICE, 9, 10), null));
+        assertEquals(HttpStatus.CONFLICT, full.getStatusCode());
+    }
+
+    @Test
+    void concurrent_creates_for_the_last_bay_admit_exactly_one() throws Exception {
+        Long garage = location(1);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int hour = 8; hour < 16; hour++) {
+                int from = hour;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> attempts = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    attempts.add(pool.submit(() -> {
+                        start.await();
+                        try {
+                            admit(booking(garage, BookingType.SERVICE, from, from + 1), null);
+                            return true;
+                        } catch (ResponseStatusException e) {
+                            assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+                            return false;
+                        }
+                    }));
+                }
+                start.countDown();
+                int admitted = 0;
+                for (Future<Boolean> attempt : attempts) {
+                    if (attempt.get(30, TimeUnit.SECONDS)) {
+                        admitted++;
+                    }
+                }
+                assertEquals(1, admitted, "bookings admitted for " + from + ":00");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void hold_inside_a_transaction_blocks_others_until_it_rolls_back() {
+        Long garage = location(1);
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                admit(booking(garage, BookingType.SERVICE, 14, 15), null);
+                // Not committed yet, but the bay is taken
+                Future<?> competing = other.submit(() -> admit(booking(garage, BookingType.SERVICE, 14, 15), null));
+                Exception e = assertThrows(Exception.class, () -> competing.get(30, TimeUnit.SECONDS));
+                assertInstanceOf(ResponseStatusException.class, e.getCause());
+                status.setRollbackOnly();
+            });
+        } finally {
+            other.shutdownNow();
+        }
+
+        // The rolled back booking no longer holds the bay
+        admit(booking(garage, BookingType.SERVICE, 14, 15), null);
+    }
+
+    private Booking admit(Booking booking, Long previousLocationId) {
+        return availability.admit(booking, previousLocationId, bookings::save);
+    }
+
+    private Long location(int serviceBays) {
+        Location location = new Location("Bay test " + (locationIds.size() + 1), "1 Test Road",
+                Location.LocationType.SERVICE_CENTER);
+        location.setServiceBays(serviceBays);
+        location.setFuelPumps(1);
+        Long id = locations.save(location).getId();
+        locationIds.add(id);
+        return id;
+    }
+
+    private static Booking booking(Long locationId, BookingType type, int fromHour, int toHour) {
+        Booking b = new Booking();
+        b.setLocationId(locationId);
+        b.setType(type);
+        b.setStatus(BookingStatus.PENDING);
+        b.setStartTime(LocalDateTime.of(DAY, LocalTime.of(fromHour, 0)));
+        b.setEndTime(LocalDateTime.of(DAY, LocalTime.of(toHour, 0)));
+        return b;
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
 @SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
 class SystemmanagerApplicationTests {
 
 	@Test
@@ -0,0 +1,35 @@
+package com.autofuellanka.systemmanager.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookingTimesTest {
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2025, 10, 7, 9, 0);
+
+    @Test
+    public void testParsesIsoAndSpaceSeparatedForms() {
+        assertEquals(NINE, BookingTimes.parse("2025-10-07T09:00:00"));
+        assertEquals(NINE, BookingTimes.parse("2025-10-07 09:00:00"));
+        assertEquals(NINE, BookingTimes.parse("2025-10-07 09:00"));
+        assertNull(BookingTimes.parse(" "));
+        assertThrows(IllegalArgumentException.class, () -> BookingTimes.parse("07/10/2025 09:00"));
+    }
+
+    @Test
+    public void testFormatsTheResponseForm() {
+        assertEquals("2025-10-07 09:00:00", BookingTimes.format(NINE));
+        assertNull(BookingTimes.format(null));
+    }
+
+    @Test
+    public void testEnumsParseCaseInsensitively() {
+        assertEquals(BookingStatus.IN_PROGRESS, BookingStatus.from(" in_progress "));
+        assertEquals(BookingType.FUEL, BookingType.from("fuel"));
+        assertNull(BookingStatus.from(null));
+        assertThrows(IllegalArgumentException.class, () -> BookingStatus.from("DONE"));
+    }
+}
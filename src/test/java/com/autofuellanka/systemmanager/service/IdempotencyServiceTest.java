@@ -0,0 +1,59 @@
+package com.autofuellanka.systemmanager.service;
+
+import com.autofuellanka.systemmanager.service.IdempotencyService.ResponseCache;
+import com.autofuellanka.systemmanager.service.IdempotencyService.StoredResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyServiceTest {
+
+    @Test
+    public void testReplayReturnsStoredResponse() {
+        StoredResponse stored = new StoredResponse("abc", 202, "application/json", "/api/payments/attempts/5", "{\"attemptId\":5}");
+
+        ResponseEntity<?> replayed = stored.replay("abc");
+
+        assertEquals(202, replayed.getStatusCode().value());
+        assertEquals("{\"attemptId\":5}", replayed.getBody());
+        assertEquals("true", replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals("/api/payments/attempts/5", replayed.getHeaders().getLocation().toString());
+    }
+
+    @Test
+    public void testKeyReusedForDifferentRequestIsRefused() {
+        StoredResponse stored = new StoredResponse("abc", 200, null, null, null);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> stored.replay("other"));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), e.getStatusCode().value());
+    }
+
+    @Test
+    public void testCacheEvictsLeastRecentlyUsed() {
+        ResponseCache cache = new ResponseCache(2);
+        long later = System.currentTimeMillis() + 60_000;
+        cache.put("a", response(), later);
+        cache.put("b", response(), later);
+        cache.get("a");
+        cache.put("c", response(), later);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    public void testCacheDropsExpiredEntries() {
+        ResponseCache cache = new ResponseCache(10);
+        cache.put("a", response(), System.currentTimeMillis() - 1);
+
+        assertNull(cache.get("a"));
+    }
+
+    private static StoredResponse response() {
+        return new StoredResponse("h", 200, null, null, "ok");
+    }
+}
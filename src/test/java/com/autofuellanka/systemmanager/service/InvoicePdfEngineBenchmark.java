@@ -0,0 +1,74 @@
+package com.autofuellanka.systemmanager.service;
+
+import com.autofuellanka.systemmanager.model.Invoice;
+import com.autofuellanka.systemmanager.service.invoice.InvoiceFonts;
+import com.autofuellanka.systemmanager.service.invoice.InvoicePdfEngine;
+import com.autofuellanka.systemmanager.service.invoice.InvoicePdfRenderer;
+import com.autofuellanka.systemmanager.service.invoice.NativeInvoicePdfRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation per invoice of the two PDF engines, single-threaded and with four
+ * concurrent renders. Bytes allocated per invoice are the gc.alloc.rate.norm column of the GC
+ * profiler, which main() enables.
+ * <p>
+ * Run from the IDE, or: {@code mvn test-compile} and then
+ * {@code java -cp target/test-classes:<test classpath> com.autofuellanka.systemmanager.service.InvoicePdfEngineBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class InvoicePdfEngineBenchmark {
+
+    @Param
+    public InvoicePdfEngine engine;
+
+    private InvoicePdfService service;
+    private Invoice invoice;
+
+    @Setup
+    public void setUp() throws IOException {
+        InvoiceFonts fonts = new InvoiceFonts("classpath*:fonts/inter/*.otf");
+        service = new InvoicePdfService(new InvoicePdfRenderer(fonts), new NativeInvoicePdfRenderer(fonts), engine, false);
+        invoice = InvoicePdfService.sampleInvoice();
+    }
+
+    @Benchmark
+    public byte[] render() throws IOException {
+        return service.generateInvoicePdf(invoice, engine);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] renderConcurrently() throws IOException {
+        return service.generateInvoicePdf(invoice, engine);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InvoicePdfEngineBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
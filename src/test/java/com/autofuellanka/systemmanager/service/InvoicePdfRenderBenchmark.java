@@ -0,0 +1,111 @@
+package com.autofuellanka.systemmanager.service;
+
+import com.autofuellanka.systemmanager.model.Invoice;
+import com.autofuellanka.systemmanager.service.invoice.InvoiceFonts;
+import com.autofuellanka.systemmanager.service.invoice.InvoicePdfEngine;
+import com.autofuellanka.systemmanager.service.invoice.InvoicePdfRenderer;
+import com.autofuellanka.systemmanager.service.invoice.NativeInvoicePdfRenderer;
+import com.itextpdf.html2pdf.HtmlConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invoice PDF latency before and after the shared rendering pipeline.
+ * LEGACY is the old path: the template with its Google Fonts import, converted with default
+ * settings. SHARED uses InvoicePdfRenderer with nothing warmed; SHARED_WARMED also runs the
+ * start-up warm-up first. firstRender measures one render in a fresh JVM (forked per sample),
+ * steadyState the average once the JIT has settled.
+ * <p>
+ * Run from the IDE, or: {@code mvn test-compile} and then
+ * {@code java -cp target/test-classes:<test classpath> com.autofuellanka.systemmanager.service.InvoicePdfRenderBenchmark}
+ */
+@State(Scope.Benchmark)
+public class InvoicePdfRenderBenchmark {
+
+    private static final String LEGACY_IMPORT =
+            "@import url('https://fonts.googleapis.com/css2?family=Inter:wght@300;400;500;600;700;800&display=swap');";
+
+    public enum Pipeline { LEGACY, SHARED, SHARED_WARMED }
+
+    @Param
+    public Pipeline pipeline;
+
+    private InvoicePdfService service;
+    private Invoice invoice;
+    private String legacyHtml;
+
+    @Setup
+    public void setUp() throws IOException {
+        invoice = InvoicePdfService.sampleInvoice();
+        if (pipeline == Pipeline.LEGACY) {
+            legacyHtml = new InvoicePdfService(null, null, InvoicePdfEngine.HTML, false)
+                    .generateInvoiceHtml(invoice, LEGACY_IMPORT + unminifiedStylesheet());
+            return;
+        }
+        InvoiceFonts fonts = new InvoiceFonts("classpath*:fonts/inter/*.otf");
+        service = new InvoicePdfService(new InvoicePdfRenderer(fonts), new NativeInvoicePdfRenderer(fonts),
+                InvoicePdfEngine.HTML, false);
+        if (pipeline == Pipeline.SHARED_WARMED) {
+            service.warmUp();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public byte[] firstRender() throws IOException {
+        return render();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(2)
+    public byte[] steadyState() throws IOException {
+        return render();
+    }
+
+    private byte[] render() throws IOException {
+        if (pipeline == Pipeline.LEGACY) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            HtmlConverter.convertToPdf(legacyHtml, outputStream);
+            return outputStream.toByteArray();
+        }
+        return service.generateInvoicePdf(invoice);
+    }
+
+    private static String unminifiedStylesheet() throws IOException {
+        try (InputStream in = InvoicePdfRenderBenchmark.class.getResourceAsStream("/templates/invoice.css")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InvoicePdfRenderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
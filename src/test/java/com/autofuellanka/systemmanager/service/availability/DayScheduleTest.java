@@ -0,0 +1,66 @@
+package com.autofuellanka.systemmanager.service.availability;
+
+import com.autofuellanka.systemmanager.service.availability.DaySchedule.Resource;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DayScheduleTest {
+
+    // 15-minute slots: 09:00 is slot 36, 10:00 is slot 40
+    private static final int NINE = 36;
+    private static final int TEN = 40;
+
+    @Test
+    public void testSlotTreeMatchesPlainCounts() {
+        SlotTree tree = new SlotTree(96);
+        int[] counts = new int[96];
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            int from = random.nextInt(96);
+            int to = from + 1 + random.nextInt(96 - from);
+            int delta = random.nextBoolean() ? 1 : -1;
+            tree.add(from, to, delta);
+            for (int slot = from; slot < to; slot++) counts[slot] += delta;
+
+            int qFrom = random.nextInt(96);
+            int qTo = qFrom + 1 + random.nextInt(96 - qFrom);
+            int expected = Integer.MIN_VALUE;
+            for (int slot = qFrom; slot < qTo; slot++) expected = Math.max(expected, counts[slot]);
+            assertEquals(expected, tree.max(qFrom, qTo));
+        }
+    }
+
+    @Test
+    public void testCapacityIsPerResource() {
+        DaySchedule day = new DaySchedule(96);
+        day.hold(1, Resource.BAY, NINE, TEN);
+        day.hold(2, Resource.BAY, NINE + 2, TEN + 2);
+
+        // Two bays: a third service booking overlapping both is refused, a fuel booking is not
+        assertFalse(day.fits(-1, Resource.BAY, NINE + 2, NINE + 3, 2));
+        assertTrue(day.fits(-1, Resource.BAY, TEN, TEN + 1, 2));
+        assertTrue(day.fits(-1, Resource.PUMP, NINE, TEN, 1));
+        assertEquals(2, day.occupancy(Resource.BAY, NINE + 3));
+    }
+
+    @Test
+    public void testBookingDoesNotCollideWithItselfWhenMoved() {
+        DaySchedule day = new DaySchedule(96);
+        day.hold(1, Resource.BAY, NINE, TEN);
+
+        assertTrue(day.fits(1, Resource.BAY, NINE + 1, TEN + 1, 1));
+        assertFalse(day.fits(2, Resource.BAY, NINE + 1, TEN + 1, 1));
+
+        // Holding again moves the booking rather than counting it twice
+        day.hold(1, Resource.BAY, TEN, TEN + 4);
+        assertEquals(0, day.occupancy(Resource.BAY, NINE));
+        assertEquals(1, day.occupancy(Resource.BAY, TEN));
+
+        day.release(1);
+        assertEquals(0, day.occupancy(Resource.BAY, TEN));
+        assertTrue(day.bookingIds().isEmpty());
+    }
+}
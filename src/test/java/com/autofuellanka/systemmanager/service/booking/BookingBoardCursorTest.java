@@ -0,0 +1,44 @@
+package com.autofuellanka.systemmanager.service.booking;
+
+import com.autofuellanka.systemmanager.dto.BookingDTO;
+import com.autofuellanka.systemmanager.model.BookingStatus;
+import com.autofuellanka.systemmanager.model.BookingType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookingBoardCursorTest {
+
+    @Test
+    public void testRoundTripKeepsStartTimeIdAndDirection() {
+        // Microseconds, as stored in DATETIME(6); the API string shows whole seconds only
+        LocalDateTime start = LocalDateTime.of(2025, 6, 1, 9, 30, 15, 123_456_000);
+        BookingDTO last = new BookingDTO(42L, start, start.plusHours(1), null, null,
+                BookingStatus.CONFIRMED, BookingType.SERVICE, null, null, null, 7L, 3L, 9L, 5L, "Oil change", 4500.0);
+
+        BookingBoardCursor cursor = BookingBoardCursor.decode(BookingBoardCursor.after(last, false).encode());
+        assertFalse(cursor.isAscending());
+        assertEquals(42L, cursor.getId());
+        assertEquals(start, cursor.getStartTime());
+        assertTrue(BookingBoardCursor.decode(BookingBoardCursor.after(last, true).encode()).isAscending());
+    }
+
+    @Test
+    public void testProjectionMatchesEntityMapping() {
+        LocalDateTime start = LocalDateTime.of(2025, 6, 1, 9, 30);
+        BookingDTO fuel = new BookingDTO(1L, start, null, "PETROL_92", 20.0,
+                null, BookingType.FUEL, null, null, null, 7L, 3L, null, null, null, null);
+        assertEquals("2025-06-01 09:30:00", fuel.getStartTime());
+        assertEquals("", fuel.getEndTime());
+        assertEquals("UNKNOWN", fuel.getStatus());
+        assertNull(fuel.getServiceName());
+        assertNull(fuel.getPrice());
+    }
+
+    @Test
+    public void testRejectsGarbage() {
+        assertThrows(IllegalArgumentException.class, () -> BookingBoardCursor.decode("not-a-cursor"));
+    }
+}
@@ -0,0 +1,31 @@
+package com.autofuellanka.systemmanager.service.finance;
+
+import com.autofuellanka.systemmanager.model.FinanceLedger;
+import com.autofuellanka.systemmanager.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountBalanceServiceTest {
+
+    @Test
+    public void testPaymentAccountsGrowOnCredit() {
+        assertEquals(150.0, AccountBalanceService.signedAmount(entry("CASH", TransactionType.CREDIT, 150.0)));
+        assertEquals(-150.0, AccountBalanceService.signedAmount(entry("CASH", TransactionType.DEBIT, 150.0)));
+        assertEquals(80.0, AccountBalanceService.signedAmount(entry("SERVICE_REVENUE", TransactionType.CREDIT, 80.0)));
+    }
+
+    @Test
+    public void testInventoryGrowsOnDebit() {
+        assertEquals(500.0, AccountBalanceService.signedAmount(entry("INVENTORY", TransactionType.DEBIT, 500.0)));
+        assertEquals(-500.0, AccountBalanceService.signedAmount(entry("INVENTORY", TransactionType.CREDIT, 500.0)));
+    }
+
+    private static FinanceLedger entry(String account, TransactionType type, double amount) {
+        FinanceLedger entry = new FinanceLedger();
+        entry.setAccount(account);
+        entry.setTransactionType(type);
+        entry.setAmount(amount);
+        return entry;
+    }
+}
@@ -0,0 +1,55 @@
+package com.autofuellanka.systemmanager.service.finance;
+
+import com.autofuellanka.systemmanager.model.FinanceLedger;
+import com.autofuellanka.systemmanager.service.finance.LedgerCursor.SortField;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerCursorTest {
+
+    @Test
+    public void testRoundTripKeepsSortKeyAndId() {
+        FinanceLedger entry = new FinanceLedger();
+        entry.setId(42L);
+        entry.setTransactionDate(LocalDateTime.of(2025, 6, 1, 9, 30, 15));
+        entry.setAccount("CASH|DRAWER");
+
+        LedgerCursor byDate = LedgerCursor.decode(LedgerCursor.after(entry, SortField.TRANSACTION_DATE, false).encode());
+        assertEquals(SortField.TRANSACTION_DATE, byDate.getSortField());
+        assertFalse(byDate.isAscending());
+        assertEquals(42L, byDate.getId());
+        assertEquals(entry.getTransactionDate(), byDate.getValue());
+
+        LedgerCursor byAccount = LedgerCursor.decode(LedgerCursor.after(entry, SortField.ACCOUNT, true).encode());
+        assertTrue(byAccount.isAscending());
+        assertEquals("CASH|DRAWER", byAccount.getValue());
+    }
+
+    @Test
+    public void testNullSortKeyRoundTripsAsNull() {
+        FinanceLedger entry = new FinanceLedger();
+        entry.setId(7L);
+
+        LedgerCursor byDate = LedgerCursor.decode(LedgerCursor.after(entry, SortField.TRANSACTION_DATE, true).encode());
+        assertNull(byDate.getValue());
+        assertEquals(7L, byDate.getId());
+
+        // The string "null" and the empty string are values, not a missing key
+        entry.setAccount("null");
+        assertEquals("null", LedgerCursor.decode(LedgerCursor.after(entry, SortField.ACCOUNT, true).encode()).getValue());
+        entry.setAccount("");
+        assertEquals("", LedgerCursor.decode(LedgerCursor.after(entry, SortField.ACCOUNT, true).encode()).getValue());
+        entry.setAccount(null);
+        assertNull(LedgerCursor.decode(LedgerCursor.after(entry, SortField.ACCOUNT, false).encode()).getValue());
+    }
+
+    @Test
+    public void testRejectsGarbageAndUnknownSortFields() {
+        assertThrows(IllegalArgumentException.class, () -> LedgerCursor.decode("not-a-cursor"));
+        assertThrows(IllegalArgumentException.class, () -> SortField.fromProperty("description"));
+        assertEquals(SortField.CREATED_AT, SortField.fromProperty("createdAt"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.autofuellanka.systemmanager.service.finance;
+
+import com.autofuellanka.systemmanager.model.FinanceLedger;
+import com.autofuellanka.systemmanager.model.LedgerEventType;
+import com.autofuellanka.systemmanager.model.LedgerOutboxEvent;
+import com.autofuellanka.systemmanager.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerOutboxServiceTest {
+
+    private static final LocalDateTime OCCURRED = LocalDateTime.of(2025, 6, 1, 9, 30);
+
+    @Test
+    public void testInvoiceIssuedDebitsReceivablesAndCreditsRevenue() {
+        LedgerOutboxEvent event = event(LedgerEventType.INVOICE_ISSUED, 230.0, null);
+        event.setBookingId(17L);
+
+        List<FinanceLedger> entries = LedgerOutboxService.entries(event);
+
+        assertEquals(2, entries.size());
+        assertEntry(entries.get(0), "ACCOUNTS_RECEIVABLE", TransactionType.DEBIT, "Invoice created for booking 17");
+        assertEntry(entries.get(1), "REVENUE", TransactionType.CREDIT, "Revenue from invoice INV-1");
+    }
+
+    @Test
+    public void testPaymentAndRefundUseTheMethodAccount() {
+        List<FinanceLedger> payment = LedgerOutboxService.entries(event(LedgerEventType.PAYMENT_RECEIVED, 230.0, "CARD"));
+        assertEntry(payment.get(0), "CARD", TransactionType.DEBIT, "Payment received for invoice INV-1");
+        assertEntry(payment.get(1), "ACCOUNTS_RECEIVABLE", TransactionType.CREDIT, "Payment received for invoice INV-1");
+
+        List<FinanceLedger> refund = LedgerOutboxService.entries(event(LedgerEventType.REFUND_ISSUED, 230.0, "CASH"));
+        assertEntry(refund.get(0), "ACCOUNTS_RECEIVABLE", TransactionType.DEBIT, "Refund issued for invoice INV-1");
+        assertEntry(refund.get(1), "CASH", TransactionType.CREDIT, "Refund issued for invoice INV-1");
+    }
+
+    @Test
+    public void testEntriesBalance() {
+        for (LedgerEventType type : LedgerEventType.values()) {
+            double debits = 0;
+            double credits = 0;
+            for (FinanceLedger entry : LedgerOutboxService.entries(event(type, 99.5, "ONLINE"))) {
+                assertEquals(OCCURRED, entry.getTransactionDate());
+                if (entry.getTransactionType() == TransactionType.DEBIT) {
+                    debits += entry.getAmount();
+                } else {
+                    credits += entry.getAmount();
+                }
+            }
+            assertEquals(debits, credits, 0.0001, type.name());
+        }
+    }
+
+    private static void assertEntry(FinanceLedger entry, String account, TransactionType type, String description) {
+        assertEquals(account, entry.getAccount());
+        assertEquals(type, entry.getTransactionType());
+        assertEquals(230.0, entry.getAmount());
+        assertEquals(description, entry.getDescription());
+    }
+
+    private static LedgerOutboxEvent event(LedgerEventType type, double amount, String account) {
+        LedgerOutboxEvent event = new LedgerOutboxEvent();
+        event.setEventType(type);
+        event.setAmount(amount);
+        event.setAccount(account);
+        event.setReference("REF-1");
+        event.setInvoiceNumber("INV-1");
+        event.setOccurredAt(OCCURRED);
+        event.setCreatedBy("tester");
+        return event;
+    }
+}
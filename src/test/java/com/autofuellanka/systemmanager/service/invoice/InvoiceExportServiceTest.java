@@ -0,0 +1,97 @@
+package com.autofuellanka.systemmanager.service.invoice;
+
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InvoiceExportServiceTest {
+
+    // Two workers and a window of two, so a batch of five needs several refills
+    private final InvoiceExportService service = new InvoiceExportService(null, null, 2, 1, 2, 100);
+
+    @Test
+    public void testZipHoldsOneStoredEntryPerInvoiceAndListsFailures() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.write(List.of(1L, 2L, 3L, 4L, 5L), InvoiceExportService.Format.ZIP, out, id -> {
+            if (id == 3L) {
+                throw new IOException("renderer crashed");
+            }
+            if (id == 4L) {
+                return null; // deleted since the export listed it
+            }
+            return new InvoiceExportService.ExportedPdf("INV-" + id, ("pdf " + id).getBytes(StandardCharsets.UTF_8));
+        });
+
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.getName().endsWith(".pdf")) {
+                    assertEquals(ZipEntry.STORED, entry.getMethod());
+                }
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(4, entries.size());
+        assertEquals("pdf 1", entries.get("INV-1.pdf"));
+        assertEquals("pdf 5", entries.get("INV-5.pdf"));
+        assertFalse(entries.containsKey("INV-4.pdf"));
+        assertTrue(entries.get("FAILED.txt").contains("renderer crashed"));
+    }
+
+    @Test
+    public void testPermitIsReturnedOnceWhetherOrNotTheBodyRuns() {
+        InvoiceExportService.ExportPermit permit = service.acquirePermit();
+        assertThrows(ResponseStatusException.class, service::acquirePermit);
+
+        // Async completion without the body ever running, then the body's own release
+        permit.afterCompletion(null, null);
+        permit.release();
+
+        InvoiceExportService.ExportPermit next = service.acquirePermit();
+        assertThrows(ResponseStatusException.class, service::acquirePermit);
+        next.release();
+    }
+
+    @Test
+    public void testMergedPdfKeepsInvoiceOrder() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Invoice n has n pages, so the page count and page sizes show order and completeness
+        service.write(List.of(1L, 2L, 3L), InvoiceExportService.Format.PDF, out,
+                id -> new InvoiceExportService.ExportedPdf("INV-" + id, pdfWithPages(id.intValue())));
+
+        try (PdfDocument merged = new PdfDocument(new PdfReader(new ByteArrayInputStream(out.toByteArray())))) {
+            assertEquals(6, merged.getNumberOfPages());
+            assertEquals(101, merged.getPage(1).getPageSize().getWidth(), 0.01);
+            assertEquals(102, merged.getPage(2).getPageSize().getWidth(), 0.01);
+            assertEquals(103, merged.getPage(6).getPageSize().getWidth(), 0.01);
+        }
+    }
+
+    private static byte[] pdfWithPages(int pages) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PdfDocument document = new PdfDocument(new PdfWriter(out))) {
+            for (int i = 0; i < pages; i++) {
+                document.addNewPage(new PageSize(100 + pages, 200));
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,70 @@
+package com.autofuellanka.systemmanager.service.invoice;
+
+import com.autofuellanka.systemmanager.service.invoice.InvoiceNumberAllocator.NumberScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Invoice numbers per second from one allocator shared by 32 threads, for a few block sizes.
+ * Block reservations sleep 1 ms to stand in for the database round trip, so the numbers show how
+ * much of that cost the hi/lo blocks hide.
+ * <p>
+ * Run from the IDE, or: {@code mvn test-compile} and then
+ * {@code java -cp target/test-classes:<test classpath> com.autofuellanka.systemmanager.service.invoice.InvoiceNumberAllocatorBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvoiceNumberAllocatorBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int blockSize;
+
+    private InvoiceNumberAllocator allocator;
+
+    @Setup
+    public void setUp() {
+        Map<String, AtomicLong> highWater = new ConcurrentHashMap<>();
+        allocator = new InvoiceNumberAllocator((key, size) -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return highWater.computeIfAbsent(key, k -> new AtomicLong(1)).getAndAdd(size);
+        }, NumberScope.DAY, "INV", blockSize);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public String nextNumber() {
+        return allocator.nextNumber(null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InvoiceNumberAllocatorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,101 @@
+package com.autofuellanka.systemmanager.service.invoice;
+
+import com.autofuellanka.systemmanager.service.invoice.InvoiceNumberAllocator.NumberScope;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InvoiceNumberAllocatorTest {
+
+    // Stands in for invoice_number_sequences, including a database round trip per reservation
+    private static class FakeSequenceTable implements InvoiceNumberAllocator.BlockReserver {
+        final Map<String, AtomicLong> highWater = new ConcurrentHashMap<>();
+        final AtomicInteger reservations = new AtomicInteger();
+
+        @Override
+        public long reserve(String key, int blockSize) {
+            reservations.incrementAndGet();
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return highWater.computeIfAbsent(key, k -> new AtomicLong(1)).getAndAdd(blockSize);
+        }
+    }
+
+    @Test
+    public void testNumbersAreFormattedPerScope() {
+        FakeSequenceTable table = new FakeSequenceTable();
+
+        assertEquals("INV-00000001", new InvoiceNumberAllocator(table, NumberScope.GLOBAL, "INV", 10).nextNumber(null));
+
+        InvoiceNumberAllocator perLocation = new InvoiceNumberAllocator(table, NumberScope.LOCATION, "INV", 10);
+        assertEquals("INV-L3-000001", perLocation.nextNumber(3L));
+        assertEquals("INV-L3-000002", perLocation.nextNumber(3L));
+        assertEquals("INV-L7-000001", perLocation.nextNumber(7L));
+
+        String daily = new InvoiceNumberAllocator(table, NumberScope.DAY, "INV", 10).nextNumber(null);
+        assertTrue(daily.matches("INV-\\d{8}-000001"), daily);
+    }
+
+    @Test
+    public void testTwoInstancesNeverShareABlock() {
+        FakeSequenceTable table = new FakeSequenceTable();
+        InvoiceNumberAllocator first = new InvoiceNumberAllocator(table, NumberScope.GLOBAL, "INV", 5);
+        InvoiceNumberAllocator second = new InvoiceNumberAllocator(table, NumberScope.GLOBAL, "INV", 5);
+
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 23; i++) {
+            assertTrue(seen.add(first.nextNumber(null)));
+            assertTrue(seen.add(second.nextNumber(null)));
+        }
+    }
+
+    // 32 threads racing for numbers: no duplicates and one reservation per block (throughput: InvoiceNumberAllocatorBenchmark)
+    @Test
+    public void testConcurrentAllocationIsUniqueWithOneReservationPerBlock() throws Exception {
+        int threads = 32;
+        int perThread = 1_000;
+        int blockSize = 100;
+        FakeSequenceTable table = new FakeSequenceTable();
+        InvoiceNumberAllocator allocator = new InvoiceNumberAllocator(table, NumberScope.DAY, "INV", blockSize);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    numbers.add(allocator.nextNumber(null));
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int total = threads * perThread;
+        assertEquals(total, numbers.size(), "duplicate invoice numbers");
+        assertEquals(total / blockSize, table.reservations.get());
+    }
+}
@@ -0,0 +1,35 @@
+package com.autofuellanka.systemmanager.service.invoice;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InvoiceNumberBlockStoreTest {
+
+    private static final String URL = "jdbc:h2:mem:invoice_numbers;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Test
+    public void testReservesConsecutiveBlocksPerKeyOnItsOwnPool() throws Exception {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS invoice_number_sequences " +
+                    "(seq_key VARCHAR(40) PRIMARY KEY, next_value BIGINT NOT NULL)");
+        }
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl(URL);
+        properties.setUsername("sa");
+        properties.setPassword("");
+
+        try (InvoiceNumberBlockStore store = new InvoiceNumberBlockStore(properties, 1)) {
+            assertEquals(1, store.reserve("GLOBAL", 100));
+            assertEquals(101, store.reserve("GLOBAL", 100));
+            assertEquals(1, store.reserve("L3", 10));
+            assertEquals(201, store.reserve("GLOBAL", 100));
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.autofuellanka.systemmanager.service.invoice;
+
+import com.autofuellanka.systemmanager.model.Invoice;
+import com.autofuellanka.systemmanager.service.InvoicePdfService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InvoicePdfCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private final CountingPdfService pdfService = new CountingPdfService();
+
+    @Test
+    public void testRendersOncePerInvoiceVersion() throws IOException {
+        InvoicePdfCache cache = cache(1 << 20);
+        Invoice invoice = invoice(7L);
+
+        InvoicePdfCache.CachedPdf first = cache.get(invoice);
+        InvoicePdfCache.CachedPdf second = cache.get(invoice);
+
+        assertEquals(1, pdfService.renders.get());
+        assertNotNull(second.getBytes());
+        assertEquals(first.getKey(), second.getKey());
+        assertTrue(Files.exists(dir.resolve(first.getKey() + ".pdf")));
+    }
+
+    @Test
+    public void testFallsBackToDiskWhenEvictedFromMemory() throws IOException {
+        // Room for a single PDF in memory
+        InvoicePdfCache cache = cache(CountingPdfService.PDF_SIZE);
+        Invoice a = invoice(1L);
+        Invoice b = invoice(2L);
+
+        cache.get(a);
+        cache.get(b);
+        InvoicePdfCache.CachedPdf again = cache.get(a);
+
+        assertEquals(2, pdfService.renders.get());
+        assertNull(again.getBytes());
+        assertEquals(CountingPdfService.PDF_SIZE, again.length());
+    }
+
+    @Test
+    public void testEvictDropsEveryTierOfTheInvoiceOnly() throws IOException {
+        InvoicePdfCache cache = cache(1 << 20);
+        Invoice twelve = invoice(12L);
+        Invoice hundredTwentyThree = invoice(123L);
+        cache.get(twelve);
+        cache.get(hundredTwentyThree);
+
+        cache.evict(12L);
+        cache.get(twelve);
+        cache.get(hundredTwentyThree);
+
+        assertEquals(3, pdfService.renders.get());
+    }
+
+    @Test
+    public void testEnginesAreCachedSeparately() throws IOException {
+        InvoicePdfCache cache = cache(1 << 20);
+        Invoice invoice = invoice(9L);
+
+        InvoicePdfCache.CachedPdf html = cache.get(invoice);
+        InvoicePdfCache.CachedPdf nativePdf = cache.get(invoice, InvoicePdfEngine.NATIVE);
+        cache.get(invoice, InvoicePdfEngine.HTML);
+
+        assertEquals(2, pdfService.renders.get());
+        assertNotEquals(html.getKey(), nativePdf.getKey());
+    }
+
+    @Test
+    public void testGetOrRenderUsesTheCacheWithoutFillingIt() throws IOException {
+        InvoicePdfCache cache = cache(1 << 20);
+        Invoice cached = invoice(3L);
+        Invoice exported = invoice(4L);
+        cache.get(cached);
+
+        assertNotNull(cache.getOrRender(cached, null).getBytes());
+        assertEquals(1, pdfService.renders.get());
+
+        cache.getOrRender(exported, null);
+        cache.getOrRender(exported, null);
+        assertEquals(3, pdfService.renders.get());
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testStartupRemovesStaleFiles() throws IOException {
+        Files.write(dir.resolve("5-v0-r0.pdf"), new byte[1]);
+        Files.write(dir.resolve("5-v0-html-r" + InvoicePdfService.TEMPLATE_REVISION + ".pdf.part-1"), new byte[1]);
+        Path current = dir.resolve("6-v0-html-r" + InvoicePdfService.TEMPLATE_REVISION + ".pdf");
+        Files.write(current, new byte[1]);
+
+        cache(1 << 20);
+
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+        assertTrue(Files.exists(current));
+    }
+
+    @Test
+    public void testDiskTierKeepsTheMostRecentlyUsedFilesWithinItsLimit() throws IOException {
+        // No memory tier, room for two PDFs on disk
+        InvoicePdfCache cache = cache(0, 2L * CountingPdfService.PDF_SIZE);
+        Invoice a = invoice(1L);
+        Invoice b = invoice(2L);
+        Invoice c = invoice(3L);
+
+        cache.get(a);
+        cache.get(b);
+        cache.get(a);  // a is now more recently used than b
+        cache.get(c);
+
+        assertEquals(3, pdfService.renders.get());
+        assertEquals(2, files());
+        cache.get(a);
+        cache.get(c);
+        assertEquals(3, pdfService.renders.get());
+        cache.get(b);
+        assertEquals(4, pdfService.renders.get());
+    }
+
+    @Test
+    public void testStartupTrimsTheDiskTierOldestFirst() throws IOException {
+        String suffix = "-html-r" + InvoicePdfService.TEMPLATE_REVISION + ".pdf";
+        Path oldest = dir.resolve("1-v0" + suffix);
+        Path newest = dir.resolve("2-v0" + suffix);
+        Files.write(oldest, new byte[CountingPdfService.PDF_SIZE]);
+        Files.write(newest, new byte[CountingPdfService.PDF_SIZE]);
+        Files.setLastModifiedTime(oldest, FileTime.fromMillis(1_000));
+        Files.setLastModifiedTime(newest, FileTime.fromMillis(2_000));
+
+        cache(1 << 20, CountingPdfService.PDF_SIZE);
+
+        assertFalse(Files.exists(oldest));
+        assertTrue(Files.exists(newest));
+    }
+
+    @Test
+    public void testNewVersionReplacesTheOldRenderings() throws IOException {
+        InvoicePdfCache cache = cache(1 << 20);
+        Invoice paid = invoice(8L);
+        cache.get(paid);
+        cache.get(paid, InvoicePdfEngine.NATIVE);
+
+        Invoice refunded = invoice(8L);
+        ReflectionTestUtils.setField(refunded, "version", 1L);
+        InvoicePdfCache.CachedPdf current = cache.get(refunded);
+
+        assertEquals(3, pdfService.renders.get());
+        try (var files = Files.list(dir)) {
+            assertEquals(List.of(current.getKey() + ".pdf"), files.map(f -> f.getFileName().toString()).toList());
+        }
+
+        // A request that read the invoice before the refund is answered, but its rendering is not kept
+        cache.get(paid);
+        assertEquals(4, pdfService.renders.get());
+        assertEquals(1, files());
+        cache.get(refunded);
+        assertEquals(4, pdfService.renders.get());
+    }
+
+    private long files() throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    private InvoicePdfCache cache(long memoryBytes) throws IOException {
+        return cache(memoryBytes, 1 << 20);
+    }
+
+    private InvoicePdfCache cache(long memoryBytes, long diskBytes) throws IOException {
+        InvoicePdfCache cache = new InvoicePdfCache(pdfService, dir.toString(), memoryBytes, diskBytes);
+        cache.init();
+        return cache;
+    }
+
+    private static Invoice invoice(Long id) {
+        Invoice invoice = new Invoice();
+        invoice.setId(id);
+        invoice.setInvoiceNumber("INV-" + id);
+        return invoice;
+    }
+
+    private static class CountingPdfService extends InvoicePdfService {
+        static final int PDF_SIZE = 1024;
+        final AtomicInteger renders = new AtomicInteger();
+
+        CountingPdfService() {
+            super(null, null, InvoicePdfEngine.HTML, false);
+        }
+
+        @Override
+        public byte[] generateInvoicePdf(Invoice invoice, InvoicePdfEngine engine) {
+            renders.incrementAndGet();
+            return new byte[PDF_SIZE];
+        }
+    }
+}
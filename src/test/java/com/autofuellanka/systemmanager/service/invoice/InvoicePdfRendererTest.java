@@ -0,0 +1,23 @@
+package com.autofuellanka.systemmanager.service.invoice;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InvoicePdfRendererTest {
+
+    @Test
+    public void testMinifyDropsCommentsAndLayoutWhitespace() {
+        String css = "/* header */\n"
+                + ".header .title {\n"
+                + "    font-family: 'Inter', sans-serif;\n"
+                + "    margin: 0 auto;\n"
+                + "}\n\n"
+                + "@media print {\n"
+                + "    body { background: white; }\n"
+                + "}\n";
+
+        assertEquals(".header .title{font-family: 'Inter', sans-serif;margin: 0 auto}"
+                + "@media print{body{background: white}}", InvoicePdfRenderer.minify(css));
+    }
+}
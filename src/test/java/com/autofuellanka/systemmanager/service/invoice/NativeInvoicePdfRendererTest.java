@@ -0,0 +1,83 @@
+package com.autofuellanka.systemmanager.service.invoice;
+
+import com.autofuellanka.systemmanager.model.Invoice;
+import com.autofuellanka.systemmanager.model.InvoiceStatus;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NativeInvoicePdfRendererTest {
+
+    @Test
+    public void testRendersInvoiceDetails() throws IOException {
+        NativeInvoicePdfRenderer renderer = new NativeInvoicePdfRenderer(new InvoiceFonts("classpath*:fonts/inter/*.otf"));
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNumber("INV-20250601-000042");
+        invoice.setBookingId(42L);
+        invoice.setStatus(InvoiceStatus.PARTIAL);
+        invoice.setCreatedAt(LocalDateTime.of(2025, 6, 1, 9, 30));
+        invoice.setTotalAmount(11800.0);
+        invoice.setPaidAmount(5000.0);
+        invoice.setBalance(6800.0);
+        invoice.setNotes("Front brake pads replaced");
+
+        byte[] pdf = renderer.render(invoice);
+
+        try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            assertEquals(1, document.getNumberOfPages());
+            String text = PdfTextExtractor.getTextFromPage(document.getPage(1));
+            assertTrue(text.contains("INV-20250601-000042"));
+            assertTrue(text.contains("#42"));
+            assertTrue(text.contains("Payment Summary"));
+            assertTrue(text.contains("Front brake pads replaced"));
+        }
+    }
+
+    @Test
+    public void testEmbedsBundledInter() throws IOException {
+        InvoiceFonts fonts = new InvoiceFonts("classpath*:fonts/inter/*.otf");
+        assertFalse(fonts.getBundled().isEmpty(), "Inter faces missing from classpath:fonts/inter");
+
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNumber("INV-20250601-000043");
+        invoice.setStatus(InvoiceStatus.UNPAID);
+        invoice.setCreatedAt(LocalDateTime.of(2025, 6, 1, 9, 30));
+        invoice.setTotalAmount(2500.0);
+        byte[] pdf = new NativeInvoicePdfRenderer(fonts).render(invoice);
+
+        try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            PdfDictionary pageFonts = document.getPage(1).getResources().getResource(PdfName.Font);
+            List<String> embeddedInter = new ArrayList<>();
+            for (PdfName key : pageFonts.keySet()) {
+                PdfDictionary font = pageFonts.getAsDictionary(key);
+                String baseFont = font.getAsName(PdfName.BaseFont).getValue();
+                if (baseFont.contains("Inter") && isEmbedded(font)) {
+                    embeddedInter.add(baseFont);
+                }
+            }
+            assertFalse(embeddedInter.isEmpty(), "no embedded Inter font in " + pageFonts.keySet());
+        }
+    }
+
+    // Composite (Type0) fonts carry the descriptor on their descendant font
+    private static boolean isEmbedded(PdfDictionary font) {
+        PdfArray descendants = font.getAsArray(PdfName.DescendantFonts);
+        PdfDictionary descriptor = descendants != null
+                ? descendants.getAsDictionary(0).getAsDictionary(PdfName.FontDescriptor)
+                : font.getAsDictionary(PdfName.FontDescriptor);
+        return descriptor != null && (descriptor.containsKey(PdfName.FontFile2)
+                || descriptor.containsKey(PdfName.FontFile3));
+    }
+}
@@ -0,0 +1,88 @@
+package com.autofuellanka.systemmanager.service.metrics;
+
+import com.autofuellanka.systemmanager.service.metrics.BookingCube.Cell;
+import com.autofuellanka.systemmanager.service.metrics.BookingCube.Dimension;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookingCubeTest {
+
+    private static final LocalDate MON = LocalDate.of(2025, 3, 3);
+    private static final LocalDate TUE = LocalDate.of(2025, 3, 4);
+
+    private BookingCube sampleCube() {
+        BookingCube cube = new BookingCube();
+        cube.upsert(1, MON, 10L, 100L, "PENDING");
+        cube.upsert(2, MON, 10L, 100L, "CONFIRMED");
+        cube.upsert(3, MON, 20L, null, "PENDING");
+        cube.upsert(4, TUE, 10L, 200L, "CANCELLED");
+        return cube;
+    }
+
+    @Test
+    public void testTotalWithoutGrouping() {
+        List<Cell> cells = sampleCube().query(null, null, null, null, null, null);
+        assertEquals(1, cells.size());
+        assertEquals(4, cells.get(0).getCount());
+    }
+
+    @Test
+    public void testSliceAndDice() {
+        BookingCube cube = sampleCube();
+
+        List<Cell> byDay = cube.query(EnumSet.of(Dimension.DAY), null, null, null, null,
+                List.of("PENDING", "CONFIRMED"));
+        assertEquals(1, byDay.size());
+        assertEquals(MON, byDay.get(0).getDay());
+        assertEquals(3, byDay.get(0).getCount());
+        assertNull(byDay.get(0).getLocationId());
+
+        List<Cell> byLocation = cube.query(EnumSet.of(Dimension.LOCATION), MON, MON, null, null, null);
+        assertEquals(2, byLocation.size());
+        assertEquals(10L, byLocation.get(0).getLocationId());
+        assertEquals(2, byLocation.get(0).getCount());
+
+        List<Cell> tuesdayAtTen = cube.query(EnumSet.of(Dimension.SERVICE_TYPE, Dimension.STATUS), TUE, TUE,
+                List.of(10L), null, null);
+        assertEquals(1, tuesdayAtTen.size());
+        assertEquals(200L, tuesdayAtTen.get(0).getServiceTypeId());
+        assertEquals("CANCELLED", tuesdayAtTen.get(0).getStatus());
+    }
+
+    @Test
+    public void testStatusChangeMovesBookingBetweenCells() {
+        BookingCube cube = sampleCube();
+        cube.upsert(1, MON, 10L, 100L, "CANCELLED");
+        cube.remove(3);
+
+        List<Cell> byStatus = cube.query(EnumSet.of(Dimension.STATUS), null, null, null, null, null);
+        assertEquals(2, byStatus.size());
+        assertEquals("CANCELLED", byStatus.get(0).getStatus());
+        assertEquals(2, byStatus.get(0).getCount());
+        assertEquals("CONFIRMED", byStatus.get(1).getStatus());
+        assertEquals(1, byStatus.get(1).getCount());
+        assertEquals(3, cube.bookingCount());
+    }
+
+    @Test
+    public void testPrimitiveMapSurvivesGrowthAndRemoval() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        for (long key = -500; key <= 500; key++) {
+            map.put(key, key * 2);
+        }
+        for (long key = -500; key <= 500; key += 2) {
+            assertTrue(map.remove(key));
+        }
+        assertEquals(500, map.size());
+        for (long key = -499; key <= 500; key += 2) {
+            assertEquals(key * 2, map.get(key, Long.MIN_VALUE));
+        }
+        assertFalse(map.containsKey(0));
+        assertEquals(7, map.addTo(0, 7));
+    }
+}
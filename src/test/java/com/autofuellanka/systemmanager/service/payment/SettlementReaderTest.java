@@ -0,0 +1,99 @@
+package com.autofuellanka.systemmanager.service.payment;
+
+import com.autofuellanka.systemmanager.model.PaymentMethod;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SettlementReaderTest {
+
+    @Test
+    void csvWithHeaderMapsColumnsByName() throws IOException {
+        List<SettlementRow> rows = read(SettlementReader.Format.CSV,
+                "reference,Invoice ID,amount,method\n" +
+                "STL-1,42,150.50,card\n" +
+                "\n" +
+                "\"STL-2, late\",43,20,CASH\n");
+
+        assertEquals(2, rows.size());
+        SettlementRow first = rows.get(0);
+        assertTrue(first.isValid());
+        assertEquals(2, first.getLineNumber());
+        assertEquals(42L, first.getInvoiceId());
+        assertEquals(150.50, first.getAmount(), 0.0001);
+        assertEquals(PaymentMethod.CARD, first.getMethod());
+        assertEquals("STL-1", first.getReference());
+
+        SettlementRow second = rows.get(1);
+        assertEquals(4, second.getLineNumber());
+        assertEquals("STL-2, late", second.getReference());
+        assertEquals(PaymentMethod.CASH, second.getMethod());
+    }
+
+    @Test
+    void csvWithoutHeaderUsesDefaultColumnOrder() throws IOException {
+        List<SettlementRow> rows = read(SettlementReader.Format.CSV, "7,99.99\n8,10,ONLINE,REF-8,\"said \"\"hi\"\"\"\n");
+
+        assertEquals(2, rows.size());
+        assertEquals(7L, rows.get(0).getInvoiceId());
+        assertEquals(PaymentMethod.CARD, rows.get(0).getMethod());
+        assertNull(rows.get(0).getReference());
+        assertEquals(PaymentMethod.ONLINE, rows.get(1).getMethod());
+        assertEquals("said \"hi\"", rows.get(1).getNotes());
+    }
+
+    @Test
+    void badRowsAreReportedWithoutStoppingTheFile() throws IOException {
+        List<SettlementRow> rows = read(SettlementReader.Format.CSV,
+                "invoiceId,amount,method\n" +
+                "abc,10\n" +
+                "5,-3\n" +
+                "5,10,CHEQUE\n" +
+                ",10\n" +
+                "6,12.5\n");
+
+        assertEquals(5, rows.size());
+        assertEquals("Invalid invoiceId", rows.get(0).getError());
+        assertEquals("Amount must be positive", rows.get(1).getError());
+        assertEquals("Unknown payment method: CHEQUE", rows.get(2).getError());
+        assertEquals("Missing invoiceId", rows.get(3).getError());
+        assertTrue(rows.get(4).isValid());
+    }
+
+    @Test
+    void ndjsonReadsOneObjectPerLine() throws IOException {
+        List<SettlementRow> rows = read(SettlementReader.Format.NDJSON,
+                "{\"invoiceId\": 11, \"amount\": 30.25, \"reference\": \"N-1\"}\n" +
+                "{\"invoice_id\": \"12\", \"amount\": 5, \"method\": \"cash\", \"notes\": null}\n" +
+                "not json\n" +
+                "[1, 2]\n");
+
+        assertEquals(4, rows.size());
+        assertEquals(11L, rows.get(0).getInvoiceId());
+        assertEquals("N-1", rows.get(0).getReference());
+        assertEquals(12L, rows.get(1).getInvoiceId());
+        assertEquals(PaymentMethod.CASH, rows.get(1).getMethod());
+        assertNull(rows.get(1).getNotes());
+        assertEquals("Malformed JSON", rows.get(2).getError());
+        assertEquals("Expected a JSON object", rows.get(3).getError());
+    }
+
+    private static List<SettlementRow> read(SettlementReader.Format format, String content) throws IOException {
+        List<SettlementRow> rows = new ArrayList<>();
+        try (SettlementReader reader = new SettlementReader(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format, new ObjectMapper())) {
+            SettlementRow row;
+            while ((row = reader.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,43 @@
+package com.autofuellanka.systemmanager.service.report;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ByteRangeTest {
+
+    @Test
+    public void testNoHeaderMeansWholeFile() {
+        assertNull(ByteRange.parse(null, 100));
+        assertNull(ByteRange.parse(" ", 100));
+    }
+
+    @Test
+    public void testExplicitOpenAndSuffixRanges() {
+        ByteRange explicit = ByteRange.parse("bytes=10-19", 100);
+        assertEquals(10, explicit.getStart());
+        assertEquals(19, explicit.getEnd());
+        assertEquals(10, explicit.length());
+        assertEquals("bytes 10-19/100", explicit.contentRange(100));
+
+        ByteRange open = ByteRange.parse("bytes=90-", 100);
+        assertEquals(90, open.getStart());
+        assertEquals(99, open.getEnd());
+
+        ByteRange suffix = ByteRange.parse("bytes=-30", 100);
+        assertEquals(70, suffix.getStart());
+        assertEquals(99, suffix.getEnd());
+
+        // End past the file is clamped
+        assertEquals(99, ByteRange.parse("bytes=50-500", 100).getEnd());
+    }
+
+    @Test
+    public void testUnsatisfiableRanges() {
+        assertThrows(IllegalStateException.class, () -> ByteRange.parse("bytes=100-", 100));
+        assertThrows(IllegalStateException.class, () -> ByteRange.parse("bytes=20-10", 100));
+        assertThrows(IllegalStateException.class, () -> ByteRange.parse("bytes=0-1,5-6", 100));
+        assertThrows(IllegalStateException.class, () -> ByteRange.parse("items=0-1", 100));
+        assertThrows(IllegalStateException.class, () -> ByteRange.parse("bytes=a-b", 100));
+    }
+}
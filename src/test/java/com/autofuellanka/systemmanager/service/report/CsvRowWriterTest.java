@@ -0,0 +1,51 @@
+package com.autofuellanka.systemmanager.service.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvRowWriterTest {
+
+    @Test
+    public void testRfc4180Escaping() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvRowWriter csv = new CsvRowWriter(out, false);
+        csv.writeRow("SKU", "Name", "Description");
+        csv.writeRow("OIL-001", "Oil, 5W-30", "He said \"premium\"\nsecond line");
+        csv.writeRow("AIR-002", null, "");
+        csv.finish();
+
+        String expected = "SKU,Name,Description\r\n"
+                + "OIL-001,\"Oil, 5W-30\",\"He said \"\"premium\"\"\nsecond line\"\r\n"
+                + "AIR-002,,\r\n";
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+        assertEquals(3, csv.getRowCount());
+    }
+
+    @Test
+    public void testEscapeHelper() {
+        assertEquals("plain", CsvRowWriter.escape("plain"));
+        assertEquals("\"a,b\"", CsvRowWriter.escape("a,b"));
+        assertEquals("\"\"\"\"", CsvRowWriter.escape("\""));
+        assertEquals("", CsvRowWriter.escape(null));
+    }
+
+    @Test
+    public void testGzipOutputRoundTrips() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvRowWriter csv = new CsvRowWriter(out, true);
+        csv.writeRow("ID", "Name");
+        csv.writeRow(1L, "Test");
+        csv.finish();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals("ID,Name\r\n1,Test\r\n", text);
+        }
+    }
+}